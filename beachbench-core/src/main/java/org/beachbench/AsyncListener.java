@@ -0,0 +1,276 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.beachbench.exception.ExceptionUtils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link BenchmarkListener} that passes the events to another listener on a daemon thread, so formatting and
+ * writing the output doesn't happen on the thread that executes the benchmark.
+ *
+ * The events are stored in a bounded queue. The iteration events and messages never block: if the queue is full they
+ * are dropped and the number of dropped events is reported as a warning later on. The other events are less frequent
+ * and are never dropped; they wait for room in the queue. {@link #benchmarkFinished(String, String, long)} waits
+ * until all events are passed on.
+ *
+ * The TestCaseResults of the events are passed on as snapshots, because the engine keeps writing a result after it
+ * fired an event for it, e.g. while the driver runs after {@link #iterationStarted(TestCaseResult, long, boolean)}.
+ *
+ * An AsyncListener is threadsafe, the listener it passes the events to is only called by a single thread.
+ */
+public final class AsyncListener implements BenchmarkListener {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final BenchmarkListener listener;
+    private final BlockingQueue<Runnable> events;
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile Thread thread;
+
+    public AsyncListener(BenchmarkListener listener) {
+        this(listener, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an AsyncListener.
+     *
+     * @param listener the listener to pass the events to.
+     * @param capacity the maximum number of events waiting to be passed on.
+     * @throws NullPointerException if listener is null.
+     * @throws IllegalArgumentException if capacity is smaller than 1.
+     */
+    public AsyncListener(BenchmarkListener listener, int capacity) {
+        if(listener == null)throw new NullPointerException();
+        if(capacity < 1)throw new IllegalArgumentException("capacity must be at least 1, found " + capacity);
+        this.listener = listener;
+        this.events = new ArrayBlockingQueue<Runnable>(capacity);
+    }
+
+    /**
+     * Returns the number of events that were dropped because the queue was full, and that are not yet reported.
+     *
+     * @return the number of dropped events.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    @Override
+    public void benchmarkStarted(final String id, final String name, final int testCaseCount) {
+        put(new Runnable() {
+            @Override
+            public void run() {
+                listener.benchmarkStarted(id, name, testCaseCount);
+            }
+        });
+    }
+
+    @Override
+    public void testCaseStarted(final TestCase testCase, final int index, final int count) {
+        put(new Runnable() {
+            @Override
+            public void run() {
+                listener.testCaseStarted(testCase, index, count);
+            }
+        });
+    }
+
+    @Override
+    public void warmupFinished(final TestCase testCase, final long iterations, final boolean steady) {
+        put(new Runnable() {
+            @Override
+            public void run() {
+                listener.warmupFinished(testCase, iterations, steady);
+            }
+        });
+    }
+
+    @Override
+    public void iterationStarted(TestCaseResult result, final long maxIterations, final boolean warmup) {
+        final TestCaseResult snapshot = result.snapshot();
+        offer(new Runnable() {
+            @Override
+            public void run() {
+                listener.iterationStarted(snapshot, maxIterations, warmup);
+            }
+        });
+    }
+
+    @Override
+    public void iterationFinished(TestCaseResult result, final boolean warmup) {
+        final TestCaseResult snapshot = result.snapshot();
+        offer(new Runnable() {
+            @Override
+            public void run() {
+                listener.iterationFinished(snapshot, warmup);
+            }
+        });
+    }
+
+    @Override
+    public void exceptionThrown(TestCaseResult result, final Throwable thrown) {
+        final TestCaseResult snapshot = result.snapshot();
+        put(new Runnable() {
+            @Override
+            public void run() {
+                listener.exceptionThrown(snapshot, thrown);
+            }
+        });
+    }
+
+    @Override
+    public void testCaseFinished(final TestCase testCase) {
+        put(new Runnable() {
+            @Override
+            public void run() {
+                listener.testCaseFinished(testCase);
+            }
+        });
+    }
+
+    @Override
+    public void report(final String report) {
+        put(new Runnable() {
+            @Override
+            public void run() {
+                listener.report(report);
+            }
+        });
+    }
+
+    @Override
+    public void benchmarkFinished(final String id, final String name, final long durationMs) {
+        put(new Runnable() {
+            @Override
+            public void run() {
+                listener.benchmarkFinished(id, name, durationMs);
+            }
+        });
+        flush();
+    }
+
+    @Override
+    public void message(final String message) {
+        offer(new Runnable() {
+            @Override
+            public void run() {
+                listener.message(message);
+            }
+        });
+    }
+
+    @Override
+    public void warning(final String message) {
+        put(new Runnable() {
+            @Override
+            public void run() {
+                listener.warning(message);
+            }
+        });
+    }
+
+    /**
+     * Waits until all events that were added before are passed on.
+     */
+    public void flush() {
+        final CountDownLatch flushed = new CountDownLatch(1);
+        put(new Runnable() {
+            @Override
+            public void run() {
+                flushed.countDown();
+            }
+        });
+        try {
+            flushed.await();
+        } catch (InterruptedException e) {
+            throw ExceptionUtils.wrap(e);
+        }
+    }
+
+    private void offer(Runnable event) {
+        ensureStarted();
+        if (!events.offer(event)) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    private void put(Runnable event) {
+        ensureStarted();
+        try {
+            events.put(event);
+        } catch (InterruptedException e) {
+            throw ExceptionUtils.wrap(e);
+        }
+    }
+
+    private void ensureStarted() {
+        if (thread != null) {
+            return;
+        }
+        synchronized (this) {
+            if (thread == null) {
+                startThread();
+            }
+        }
+    }
+
+    private void startThread() {
+        Thread thread = new Thread("BeachBench-listener") {
+            @Override
+            public void run() {
+                passEvents();
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+        this.thread = thread;
+    }
+
+    private void passEvents() {
+        for (; ; ) {
+            Runnable event;
+            try {
+                event = events.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            long dropped = droppedCount.getAndSet(0);
+            try {
+                if (dropped > 0) {
+                    listener.warning(String.format("%s events were dropped because the output couldn't keep up", dropped));
+                }
+                event.run();
+            } catch (Throwable t) {
+                // a failing listener shouldn't stop the later events from being passed on.
+                listenerFailed(t);
+            }
+        }
+    }
+
+    private void listenerFailed(Throwable thrown) {
+        try {
+            listener.warning(String.format("the listener failed to handle an event: %s", thrown));
+        } catch (Throwable ignore) {
+            // the listener can't report its own failure either.
+        }
+    }
+}
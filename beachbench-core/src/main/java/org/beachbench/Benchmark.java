@@ -1,186 +1,568 @@
 package org.beachbench;
 
 import org.beachbench.exception.ExceptionUtils;
-
-import java.lang.reflect.Field;
+import org.beachbench.profile.Profiler;
+import org.beachbench.stats.Summary;
+import org.beachbench.stats.WelchTest;
+import org.beachbench.store.BenchmarkComparison;
+import org.beachbench.store.BenchmarkRecord;
+import org.beachbench.store.ResultStore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
 import java.util.*;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import static java.util.UUID.randomUUID;
 
-class Benchmark {
+/**
+ * Executes a number of {@link TestCase}s one after the other, or partly in parallel, and reports their progress to a
+ * {@link BenchmarkListener}. The results are added to the TestCases and, if there is a {@link ResultStore}, saved
+ * and compared with the previous run of the benchmark.
+ */
+public class Benchmark {
+    // the relative difference between a co-scheduled and an isolated run above which a warning is given.
+    private static final double PERTURBATION_THRESHOLD = 0.05;
+
     private final List<TestCase> testCases = new LinkedList<TestCase>();
+    private final List<List<TestCase>> sweeps = new LinkedList<List<TestCase>>();
+    private final List<List<TestCase>> ramps = new LinkedList<List<TestCase>>();
+
     private final String id = randomUUID().toString();
     private String name = "";
+    private ResultStore resultStore;
+    private BenchmarkComparison comparison;
+    private int parallelism = 1;
+    private BenchmarkListener listener;
+    private BenchmarkListener defaultListener;
+    private boolean quiet;
+    private double regressionThreshold;
+    private boolean compareWithBaseline = true;
+    private int liveMetricsPort = -1;
 
     public void add(TestCase testCase) {
         testCases.add(testCase);
     }
 
+    /**
+     * Adds all TestCases generated by a Sweep. After the benchmark has run, their results are printed as a matrix.
+     *
+     * @param sweep the Sweep to add.
+     */
+    public void add(Sweep sweep) {
+        List<TestCase> expanded = sweep.expand();
+        testCases.addAll(expanded);
+        sweeps.add(expanded);
+    }
+
+    /**
+     * Adds all TestCases generated by a ScalabilityRamp. After the benchmark has run, their scalability is printed.
+     *
+     * @param ramp the ScalabilityRamp to add.
+     */
+    public void add(ScalabilityRamp ramp) {
+        List<TestCase> expanded = ramp.expand();
+        testCases.addAll(expanded);
+        ramps.add(expanded);
+    }
+
+    /**
+     * Runs all TestCases.
+     *
+     * @throws IllegalArgumentException if the settings of a TestCase don't match the parameters of its driver.
+     */
     public void run() {
-        System.out.println(String.format("BeachBench > Starting benchmark [%s] and id [%s] with a total of %s testcases", name, id, testCases.size()));
+        List<String> warnings = validate();
+
+        BenchmarkListener listener = getListener();
+        listener.benchmarkStarted(id, name, testCases.size());
+        for (String warning : warnings) {
+            listener.warning(warning);
+        }
 
         for (TestCase testCase : testCases) {
             testCase.clearResults();
         }
 
         long startMs = System.currentTimeMillis();
-        int testCaseIteration = 1;
 
-        for (TestCase testCase : testCases) {
+        LiveMetricsServer server = startLiveMetricsServer();
+        try {
+            if (parallelism > 1) {
+                runParallel();
+            } else {
+                for (int k = 0; k < testCases.size(); k++) {
+                    runSerial(testCases.get(k), k + 1);
+                }
+            }
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
 
-            System.out.println("BeachBench > =======================================================");
-            System.out.println(String.format("BeachBench > Starting testcase [%s/%s] '%s'", testCaseIteration, testCases.size(), testCase.getName()));
-            System.out.println(String.format("BeachBench > Driver [%s]", testCase.getDriver().getName()));
+        long durationMs = System.currentTimeMillis() - startMs;
 
-            BenchmarkDriver driver;
+        BenchmarkRecord baseline = null;
+        BenchmarkRecord record = null;
+        if (resultStore != null) {
+            baseline = compareWithBaseline ? resultStore.loadLatest(name) : null;
+            record = BenchmarkRecord.of(id, name, startMs, testCases);
+            File file = resultStore.save(record);
+            listener.message(String.format("Results saved in %s", file));
+        }
 
-            try {
-                driver = testCase.getDriver().newInstance();
-            } catch (Throwable e) {
-                throw ExceptionUtils.wrap(e);
+        for (List<TestCase> sweep : sweeps) {
+            ByteArrayOutputStream report = new ByteArrayOutputStream();
+            SweepMatrix.print(new PrintStream(report), sweep);
+            listener.report(report.toString());
+        }
+        for (List<TestCase> ramp : ramps) {
+            ScalabilityResult scalability = ScalabilityResult.of(ramp);
+            if (scalability == null) {
+                listener.warning("no single thread throughput, can't determine the scalability");
+            } else {
+                ByteArrayOutputStream report = new ByteArrayOutputStream();
+                scalability.print(new PrintStream(report));
+                listener.report(report.toString());
             }
+        }
+
+        comparison = null;
+        if (baseline != null) {
+            comparison = new BenchmarkComparison(baseline, record, BenchmarkComparison.DEFAULT_ALPHA, regressionThreshold);
+            ByteArrayOutputStream report = new ByteArrayOutputStream();
+            comparison.print(new PrintStream(report));
+            listener.report(report.toString());
+        }
 
-            Map<String, Object> settings = testCase.getSettings();
-            populateDriver(settings, driver);
+        listener.benchmarkFinished(id, name, durationMs);
+    }
 
-            if (testCase.getWarmupRunIterationCount() > 0) {
-                System.out.println(String.format("BeachBench > Starting warmup with a total of %s iterations", testCase.getWarmupRunIterationCount()));
-                for (long iteration = 1; iteration <= testCase.getWarmupRunIterationCount(); iteration++) {
-                    runTestCase(testCase, driver, iteration, testCase.getWarmupRunIterationCount(), true);
-                }
-                System.out.println("BeachBench > Finished warmup");
+    private LiveMetricsServer startLiveMetricsServer() {
+        if (liveMetricsPort < 0) {
+            return null;
+        }
+        LiveMetricsServer server;
+        try {
+            server = new LiveMetricsServer(liveMetricsPort);
+        } catch (IOException e) {
+            throw ExceptionUtils.wrap(e);
+        }
+        getListener().message(String.format("Live metrics of the running testcases at http://%s:%s%s",
+                InetAddress.getLoopbackAddress().getHostAddress(), server.getPort(), LiveMetricsServer.PATH));
+        return server;
+    }
+
+    /**
+     * Executes a TestCase on its own, in a forked JVM if it should be forked and else in this JVM, and summarizes
+     * its results.
+     *
+     * @param testCase the TestCase to execute.
+     * @param testCaseIteration the position of the TestCase in the benchmark, starting at 1.
+     */
+    private void runSerial(TestCase testCase, int testCaseIteration) {
+        BenchmarkListener listener = getListener();
+        listener.testCaseStarted(testCase, testCaseIteration, testCases.size());
+
+        if (testCase.isFork()) {
+            new ForkedTestCaseRunner(testCase, null, listener, quiet).run();
+        } else {
+            runInProcess(testCase);
+        }
+
+        testCase.setSummary(TestCaseSummary.of(testCase));
+        listener.testCaseFinished(testCase);
+    }
+
+    /**
+     * Runs the parallelizable TestCases concurrently in forked JVMs and the other TestCases one after the other.
+     * Afterwards the first TestCase of every slot is executed once more on its own, on the CPU set of its slot, to
+     * detect if co-scheduling perturbed the results.
+     */
+    private void runParallel() {
+        BenchmarkListener listener = getListener();
+        List<TestCase> parallel = new LinkedList<TestCase>();
+        List<TestCase> serial = new LinkedList<TestCase>();
+        for (TestCase testCase : testCases) {
+            if (ParallelScheduler.isParallelizable(testCase)) {
+                parallel.add(testCase);
             } else {
-                System.out.println("BeachBench > Skipping warmup");
+                serial.add(testCase);
             }
+        }
 
-            System.out.println("BeachBench > -------------------------------------------------------");
-            System.out.println(String.format("BeachBench > Executing a total of %s benchmark iterations", testCase.getTestCaseIterationCount()));
-
-            for (long iteration = 1; iteration <= testCase.getTestCaseIterationCount(); iteration++) {
-                TestCaseResult result = runTestCase(testCase, driver, iteration, testCase.getTestCaseIterationCount(), false);
-                testCase.add(result);
+        ParallelScheduler scheduler = null;
+        if (!parallel.isEmpty()) {
+            scheduler = new ParallelScheduler(parallelism, listener, quiet);
+            scheduler.run(parallel);
+            for (TestCase testCase : parallel) {
+                testCase.setSummary(TestCaseSummary.of(testCase));
+                listener.testCaseFinished(testCase);
             }
-            testCaseIteration++;
+        }
 
+        int testCaseIteration = parallel.size() + 1;
+        for (TestCase testCase : serial) {
+            runSerial(testCase, testCaseIteration++);
         }
 
-        System.out.println("BeachBench > =======================================================");
-        long durationMs = System.currentTimeMillis() - startMs;
-        //this.durationMs = durationMs
-        System.out.println(String.format("BeachBench > Benchmark completed in %s seconds", durationMs));
+        if (parallel.size() > 1) {
+            for (Map.Entry<TestCase, String> entry : scheduler.getFirstTestCases().entrySet()) {
+                verifyIsolation(entry.getKey(), entry.getValue());
+            }
+        }
     }
 
-    private TestCaseResult runTestCase(TestCase testCase, BenchmarkDriver driver, long iteration, long maxIterations, boolean warmup) {
-        System.out.println("BeachBench > -------------------------------------------------------");
-        if (warmup) {
-            System.out.println(String.format("BeachBench > Running warmup iteration [%s/%s] for testcase [%s]", iteration, maxIterations, testCase.getName()));
+    private void verifyIsolation(TestCase coScheduled, String cpuSet) {
+        BenchmarkListener listener = getListener();
+        listener.message(String.format("Running testcase '%s' in isolation %s to verify the parallel results",
+                coScheduled.getName(), ParallelScheduler.describe(cpuSet)));
+        TestCase isolated = coScheduled.copy();
+        new ForkedTestCaseRunner(isolated, cpuSet, listener, quiet).run();
+
+        TestCaseSummary coScheduledSummary = coScheduled.getSummary();
+        TestCaseSummary isolatedSummary = TestCaseSummary.of(isolated);
+        if (coScheduledSummary == null || isolatedSummary == null) {
+            listener.warning("can't verify the parallel results, the testcase has no successful iterations");
+            return;
+        }
+
+        boolean hasThroughput = coScheduledSummary.getThroughput() != null && isolatedSummary.getThroughput() != null;
+        Summary current = hasThroughput ? coScheduledSummary.getThroughput() : coScheduledSummary.getDuration();
+        Summary baseline = hasThroughput ? isolatedSummary.getThroughput() : isolatedSummary.getDuration();
+        double relativeChange = (current.getMean() - baseline.getMean()) / baseline.getMean();
+        double pValue = WelchTest.pValue(baseline, current);
+        if (pValue < BenchmarkComparison.DEFAULT_ALPHA && Math.abs(relativeChange) > PERTURBATION_THRESHOLD) {
+            listener.warning(String.format("co-scheduling changed the %s of '%s' by %s%% (p=%s), consider marking testcases exclusive",
+                    hasThroughput ? "throughput" : "duration", coScheduled.getName(),
+                    BenchmarkUtils.format(relativeChange * 100), BenchmarkUtils.format(pValue)));
         } else {
-            System.out.println(String.format("BeachBench > Running iteration [%s/%s] for testcase [%s]", iteration, maxIterations, testCase.getName()));
+            listener.message(String.format("Parallel results of '%s' verified, %s%% difference with the isolated run",
+                    coScheduled.getName(), BenchmarkUtils.format(relativeChange * 100)));
         }
-        TestCaseResult result = new TestCaseResult(testCase);
-        System.out.println("BeachBench > Setting up driver");
+    }
 
+    /**
+     * Executes the warmup and benchmark iterations of a TestCase in this JVM and adds the results to the TestCase.
+     *
+     * @param testCase the TestCase to execute.
+     */
+    void runInProcess(TestCase testCase) {
+        BenchmarkListener listener = getListener();
+        BenchmarkDriver driver;
 
-        boolean timed = testCase.getDurationInSeconds() < Long.MAX_VALUE;
+        try {
+            driver = testCase.getDriver().newInstance();
+        } catch (Throwable e) {
+            throw ExceptionUtils.wrap(e);
+        }
+
+        DriverInjector.of(driver.getClass()).inject(driver, testCase.getSettings());
+
+        List<Profiler> profilers = new ArrayList<Profiler>();
+        for (Class<? extends Profiler> profilerClass : testCase.getProfilers()) {
+            try {
+                profilers.add(profilerClass.newInstance());
+            } catch (Throwable e) {
+                throw ExceptionUtils.wrap(e);
+            }
+        }
+
+        long warmupIterations = 0;
+        if (testCase.getWarmupRunIterationCount() > 0) {
+            WarmupDetector warmupDetector = null;
+            if (testCase.isAdaptiveWarmup()) {
+                listener.message(String.format("Starting adaptive warmup with a maximum of %s iterations", testCase.getWarmupRunIterationCount()));
+                warmupDetector = new WarmupDetector(testCase.getWarmupWindow(), testCase.getWarmupTolerance(), testCase.isWarmupWaitForJit());
+            } else {
+                listener.message(String.format("Starting warmup with a total of %s iterations", testCase.getWarmupRunIterationCount()));
+            }
 
-        ScheduledThreadPoolExecutor scheduledExecutor = null;
-        if (timed) {
-            System.out.println(String.format("BeachBench > Running for %s seconds", testCase.getDurationInSeconds()));
-            scheduledExecutor = new ScheduledThreadPoolExecutor(1);
-            scheduledExecutor.schedule(new ShutdownRunnable(driver), testCase.getDurationInSeconds(), TimeUnit.SECONDS);
+            while (warmupIterations < testCase.getWarmupRunIterationCount()) {
+                warmupIterations++;
+                if (warmupDetector != null) {
+                    warmupDetector.iterationStarted();
+                }
+                TestCaseResult result = runTestCase(testCase, driver, Collections.<Profiler>emptyList(), warmupIterations, testCase.getWarmupRunIterationCount(), true);
+                listener.iterationFinished(result, true);
+                if (warmupDetector != null && warmupDetector.iterationCompleted(result)) {
+                    break;
+                }
+            }
+            listener.warmupFinished(testCase, warmupIterations, warmupDetector == null || warmupDetector.isSteady());
+        } else {
+            listener.message("Skipping warmup");
         }
 
+        listener.message(String.format("Executing a total of %s benchmark iterations", testCase.getTestCaseIterationCount()));
+
+        for (long iteration = 1; iteration <= testCase.getTestCaseIterationCount(); iteration++) {
+            TestCaseResult result = runTestCase(testCase, driver, profilers, iteration, testCase.getTestCaseIterationCount(), false);
+            result.setWarmupIterationCount(warmupIterations);
+            listener.iterationFinished(result, false);
+            testCase.add(result);
+        }
+        LiveMetricsRegistry.INSTANCE.remove(LiveMetricsRegistry.key(testCase));
+    }
+
+    /**
+     * Executes a single iteration. Nothing is written between setting up and tearing down the driver, the listener
+     * is only notified before and after.
+     */
+    private TestCaseResult runTestCase(TestCase testCase, BenchmarkDriver driver, List<Profiler> profilers,
+                                       long iteration, long maxIterations, boolean warmup) {
+        TestCaseResult result = new TestCaseResult(testCase);
+        result.setTestCaseIteration(iteration);
+        getListener().iterationStarted(result, maxIterations, warmup);
+
+        long durationLimitMs = testCase.getDurationInMilliseconds();
+        boolean timed = durationLimitMs < Long.MAX_VALUE;
+
         driver.init();
         driver.setUp();
 
+        Throwable thrown = null;
+        for (Profiler profiler : profilers) {
+            profiler.start(result);
+        }
+        Instrumentation.Snapshot snapshot = Instrumentation.start();
+        TimeSeriesSampler sampler = TimeSeriesSampler.start(driver, result, warmup);
+
+        // only the driver is measured, the profilers, instrumentation and recorder work around it. The deadline is
+        // relative to the start, so a timed iteration isn't measured shorter than its duration.
         Date startDate = new Date();
         long startMs = System.currentTimeMillis();
-
-        System.out.println("BeachBench > Starting benchmark");
-        Throwable thrown = null;
+        long startNs = System.nanoTime();
+        DeadlineTimer.Deadline deadline = null;
+        if (timed && !driver.isSelfTimed()) {
+            long deadlineNs = startNs + TimeUnit.MILLISECONDS.toNanos(durationLimitMs);
+            driver.setDeadlineNs(deadlineNs);
+            deadline = DeadlineTimer.INSTANCE.schedule(driver, deadlineNs);
+        }
         try {
             driver.run(result);
         } catch (Throwable t) {
-            System.out.println("BeachBench > An exception was thrown, continuing to the next testcase");
-            t.printStackTrace();
             thrown = t;
         }
+        long durationNs = System.nanoTime() - startNs;
         long endMs = System.currentTimeMillis();
         long durationMs = endMs - startMs;
 
-        System.out.println(String.format("BeachBench > Testcase took %s seconds", durationMs / 1000));
+        if (deadline != null) {
+            deadline.cancel();
+        }
+        if (sampler != null) {
+            result.setTimeSeries(sampler.stop());
+        }
+        snapshot.stop(result);
+        driver.getRecorder().drainTo(result);
+        for (int k = profilers.size() - 1; k >= 0; k--) {
+            profilers.get(k).stop(result);
+        }
 
-        result.setTestCaseIteration(iteration);
         result.setThrown(thrown);
         result.setStart(startMs);
         result.setEnd(endMs);
         result.setDuration(durationMs);
+        result.setDurationNs(durationNs);
         result.setDate(startDate);
 
         if (thrown == null) {
-            System.out.println("BeachBench > Processing results");
             driver.processResults(result);
+        } else {
+            getListener().exceptionThrown(result, thrown);
         }
-        System.out.println("BeachBench > Tearing down driver");
         driver.tearDown();
-        if (timed) {
-            System.out.println("BeachBench > Waiting for benchmark to complete");
-            scheduledExecutor.shutdown();
-            try {
-                scheduledExecutor.awaitTermination(3600, TimeUnit.SECONDS);
-            } catch (InterruptedException e) {
-                throw ExceptionUtils.wrap(e);
-            }
+        if (thrown == null) {
+            driver.report(result, getListener());
         }
 
         return result;
     }
 
-    private class ShutdownRunnable implements Runnable {
-        private final BenchmarkDriver driver;
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
 
-        ShutdownRunnable(BenchmarkDriver driver) {
-            this.driver = driver;
-        }
+    /**
+     * Sets the store the results are saved in after every run. The results are compared with the most recent run of
+     * a benchmark with the same name in that store, unless {@link #setCompareWithBaseline(boolean)} switched it off.
+     *
+     * @param resultStore the ResultStore, or null if results shouldn't be saved.
+     */
+    public void setResultStore(ResultStore resultStore) {
+        this.resultStore = resultStore;
+    }
+
+    /**
+     * Sets the number of TestCases that are executed at the same time. With a parallelism larger than 1, single
+     * threaded TestCases that are not exclusive are executed in forked JVMs, each pinned to its own set of CPUs;
+     * multithreaded and exclusive TestCases are still executed one after the other.
+     *
+     * @param parallelism the number of TestCases executed at the same time.
+     * @throws IllegalArgumentException if parallelism is smaller than 1.
+     */
+    public void setParallelism(int parallelism) {
+        if(parallelism < 1)throw new IllegalArgumentException("parallelism must be at least 1, found " + parallelism);
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the listener that is notified of the progress of the benchmark. By default the progress is written to
+     * System.out by a {@link LoggingListener}, wrapped in an {@link AsyncListener}.
+     *
+     * @param listener the BenchmarkListener.
+     * @throws NullPointerException if listener is null.
+     */
+    public void setListener(BenchmarkListener listener) {
+        if(listener == null)throw new NullPointerException();
+        this.listener = listener;
+    }
 
-        public void run() {
-            System.out.println("BeachBench > Shutting down driver");
-            driver.shutdown();
+    public BenchmarkListener getListener() {
+        if (listener != null) {
+            return listener;
+        }
+        if (defaultListener == null) {
+            defaultListener = new AsyncListener(new LoggingListener(System.out, quiet));
         }
+        return defaultListener;
     }
 
-    String getId() {
-        return id;
+    /**
+     * Sets quiet mode, in which the default listener and forked JVMs leave out the output of the individual
+     * iterations. Has no effect on a listener that was set explicitly.
+     *
+     * @param quiet true if the output of the individual iterations should be left out.
+     */
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+        this.defaultListener = null;
     }
 
-    String getName() {
-        return name;
+    public boolean isQuiet() {
+        return quiet;
     }
 
-    void setName(String name) {
-        this.name = name;
+    /**
+     * Sets the minimum relative change of a result before a significant difference with the baseline is reported as
+     * a regression or improvement.
+     *
+     * @param threshold the minimum relative change, e.g. 0.05 for 5%.
+     * @throws IllegalArgumentException if threshold is negative.
+     */
+    public void setRegressionThreshold(double threshold) {
+        if(threshold < 0)throw new IllegalArgumentException("threshold can't be negative, found " + threshold);
+        this.regressionThreshold = threshold;
+    }
+
+    public double getRegressionThreshold() {
+        return regressionThreshold;
+    }
+
+    /**
+     * Sets if the results are compared with the most recent run in the ResultStore. Without the comparison the
+     * results are still saved, e.g. to be compared later on by a separate step of a build.
+     *
+     * @param compareWithBaseline true if the results should be compared.
+     */
+    public void setCompareWithBaseline(boolean compareWithBaseline) {
+        this.compareWithBaseline = compareWithBaseline;
+    }
+
+    public boolean isCompareWithBaseline() {
+        return compareWithBaseline;
+    }
+
+    /**
+     * Sets the port of the http endpoint that serves the most recent {@link LiveSample} of the running TestCases as
+     * JSON, on the loopback interface only. Samples are only taken for TestCases with a time series interval, see
+     * {@link TestCase#setTimeSeriesIntervalInMilliseconds(long)}. The samples are also available through JMX.
+     *
+     * @param port the port, 0 for any free port, or -1 to not start the endpoint.
+     * @throws IllegalArgumentException if port is smaller than -1 or larger than 65535.
+     */
+    public void setLiveMetricsPort(int port) {
+        if(port < -1 || port > 65535)throw new IllegalArgumentException("invalid port " + port);
+        this.liveMetricsPort = port;
+    }
+
+    public int getLiveMetricsPort() {
+        return liveMetricsPort;
+    }
+
+    /**
+     * Returns the comparison of the last run with its baseline.
+     *
+     * @return the comparison, or null if there was no ResultStore, no baseline or comparing was switched off.
+     */
+    public BenchmarkComparison getComparison() {
+        return comparison;
     }
 
-    List<TestCase> getTestCases() {
+    public List<TestCase> getTestCases() {
         return testCases;
     }
 
-    private void populateDriver(Map<String, Object> settings, BenchmarkDriver driver) {
-        for (Map.Entry<String, Object> entry : settings.entrySet()) {
-            String property = entry.getKey();
-            Object value = entry.getValue();
+    /**
+     * Checks the settings of every TestCase against the parameters of its driver, so a misconfigured TestCase fails
+     * the benchmark before anything has been executed.
+     *
+     * @return warnings about settings that don't match a field of a driver without {@link Param}s.
+     * @throws IllegalArgumentException if the settings of a TestCase are invalid.
+     */
+    private List<String> validate() {
+        List<String> errors = new LinkedList<String>();
+        List<String> warnings = new LinkedList<String>();
+        for (TestCase testCase : testCases) {
+            if (testCase.getDriver() == null) {
+                continue;
+            }
             try {
-                Field field = driver.getClass().getDeclaredField(property);
-                field.setAccessible(true);
-                try {
-                    field.set(driver, value);
-                } catch (Throwable e) {
-                    throw ExceptionUtils.wrap(e);
+                DriverInjector injector = DriverInjector.of(testCase.getDriver());
+                injector.validate(testCase.getSettings());
+                List<String> unknown = injector.getUnknownSettings(testCase.getSettings());
+                if (!unknown.isEmpty()) {
+                    warnings.add(String.format("Settings %s of testcase [%s] don't match a field of %s",
+                            unknown, testCase.getName(), testCase.getDriver().getName()));
                 }
-            } catch (NoSuchFieldException ignore) {
+            } catch (IllegalArgumentException e) {
+                errors.add(String.format("TestCase [%s]: %s", testCase.getName(), e.getMessage()));
+            }
+        }
+
+        if (resultStore != null) {
+            // checked up front, so a benchmark doesn't run for nothing if its results can't be stored afterwards.
+            try {
+                BenchmarkRecord.checkNames(testCases);
+            } catch (IllegalArgumentException e) {
+                errors.add(e.getMessage());
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            StringBuilder message = new StringBuilder();
+            for (String error : errors) {
+                message.append(message.length() == 0 ? "" : "\n").append(error);
             }
+            throw new IllegalArgumentException(message.toString());
         }
+        return warnings;
     }
 }
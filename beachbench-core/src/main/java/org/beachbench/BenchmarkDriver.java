@@ -1,5 +1,8 @@
 package org.beachbench;
 
+import org.beachbench.recorder.Recorder;
+import org.beachbench.stats.LatencyHistogram;
+
 /**
  * The BenchmarkDriver contains the algorithm you want to test.
  *
@@ -9,11 +12,86 @@ public abstract class BenchmarkDriver {
 
     protected volatile boolean shutdown = false;
 
+    private final Recorder recorder = new Recorder();
+    private long deadlineNs = Long.MAX_VALUE;
+
+    /**
+     * Returns the Recorder to report counters, gauges and timers with from the hot loop. The instruments are stored
+     * in the {@link TestCaseResult} at the end of every iteration.
+     *
+     * @return the Recorder.
+     */
+    protected final Recorder getRecorder() {
+        return recorder;
+    }
+
     /**
      * Sets up the driver (essentially the same as what you do with a @Before annotation using junit.
      */
     public void setUp(){}
 
+    /**
+     * Returns the System.nanoTime at which a timed iteration ends. A driver with its own loop can compare this with
+     * System.nanoTime every so many operations, instead of reading the volatile shutdown flag on every operation:
+     * <pre>
+     * long deadlineNs = getDeadlineNs();
+     * for (long k = 1; (k &amp; 1023) != 0 || System.nanoTime() &lt; deadlineNs; k++) {
+     *     ...
+     * }
+     * </pre>
+     * The driver is shut down at the deadline as well.
+     *
+     * @return the deadline, or Long.MAX_VALUE if the iteration is not timed.
+     */
+    protected final long getDeadlineNs() {
+        return deadlineNs;
+    }
+
+    final void setDeadlineNs(long deadlineNs) {
+        this.deadlineNs = deadlineNs;
+    }
+
+    /**
+     * Checks if this driver starts the measurement window, and so the deadline of a timed iteration, itself, after it
+     * has ramped up. If not, the deadline is set right before {@link #run(TestCaseResult)} is called.
+     *
+     * @return true if the driver sets its own deadline.
+     */
+    boolean isSelfTimed() {
+        return false;
+    }
+
+    /**
+     * Returns the number of operations completed so far in the running iteration. Called by the time series sampler
+     * while the iteration runs.
+     *
+     * @return the number of operations, or -1 if the driver doesn't count its operations.
+     */
+    long getCompletedOperations() {
+        return -1;
+    }
+
+    /**
+     * Adds the latencies recorded so far in the running iteration to a histogram. Called by the time series sampler
+     * while the iteration runs, so the histograms are read while they are written and the copy is approximate.
+     *
+     * @param histogram the histogram to add the latencies to.
+     * @return true if the driver records latencies.
+     */
+    boolean copyLatencies(LatencyHistogram histogram) {
+        return false;
+    }
+
+    /**
+     * Reports how the iteration was executed, e.g. the number of threads. Called after the driver is torn down, so
+     * nothing is formatted or written while the iteration runs; the values are read from the TestCaseResult.
+     *
+     * @param result the TestCaseResult of a successful iteration.
+     * @param listener the listener to report to.
+     */
+    void report(TestCaseResult result, BenchmarkListener listener) {
+    }
+
     /**
      * Executes the actual benchmark.
      *
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+/**
+ * Receives the progress of a {@link Benchmark}.
+ *
+ * The events of an iteration are fired on the thread that executes the benchmark, just before the driver is set up
+ * and just after it is torn down; an implementation that does blocking I/O should be wrapped in an
+ * {@link AsyncListener} so the measurement isn't delayed by it. A listener of a benchmark with parallel TestCases
+ * must be thread safe.
+ */
+public interface BenchmarkListener {
+
+    /**
+     * Called before the first TestCase is executed.
+     *
+     * @param id the unique id of this run.
+     * @param name the name of the benchmark.
+     * @param testCaseCount the number of TestCases.
+     */
+    void benchmarkStarted(String id, String name, int testCaseCount);
+
+    /**
+     * Called before a TestCase is executed one after the other with the other TestCases.
+     *
+     * @param testCase the TestCase.
+     * @param index the position of the TestCase, starting at 1.
+     * @param count the number of TestCases.
+     */
+    void testCaseStarted(TestCase testCase, int index, int count);
+
+    /**
+     * Called after the warmup iterations of a TestCase are executed.
+     *
+     * @param testCase the TestCase.
+     * @param iterations the number of warmup iterations that were executed.
+     * @param steady false if an adaptive warmup didn't reach a steady state.
+     */
+    void warmupFinished(TestCase testCase, long iterations, boolean steady);
+
+    /**
+     * Called before the driver is set up for an iteration.
+     *
+     * @param result the result of the iteration; it only contains the iteration number.
+     * @param maxIterations the maximum number of iterations.
+     * @param warmup true if this is a warmup iteration.
+     */
+    void iterationStarted(TestCaseResult result, long maxIterations, boolean warmup);
+
+    /**
+     * Called after an iteration is completed and the driver is torn down. The result isn't modified afterwards.
+     *
+     * @param result the result of the iteration.
+     * @param warmup true if this is a warmup iteration.
+     */
+    void iterationFinished(TestCaseResult result, boolean warmup);
+
+    /**
+     * Called when the driver throws an exception; the benchmark continues with the next iteration.
+     *
+     * @param result the result of the iteration.
+     * @param thrown the exception.
+     */
+    void exceptionThrown(TestCaseResult result, Throwable thrown);
+
+    /**
+     * Called after all iterations of a TestCase are completed and its summary is calculated.
+     *
+     * @param testCase the TestCase.
+     */
+    void testCaseFinished(TestCase testCase);
+
+    /**
+     * Called with a report of the results once all TestCases are completed, e.g. a sweep matrix, the scalability of
+     * a ramp or the comparison with the baseline. Reports are not part of the progress, so they should be written in
+     * quiet mode too.
+     *
+     * @param report the text of the report, one or more lines.
+     */
+    void report(String report);
+
+    /**
+     * Called after all TestCases are completed and reported.
+     *
+     * @param id the unique id of this run.
+     * @param name the name of the benchmark.
+     * @param durationMs the duration of the benchmark in milliseconds.
+     */
+    void benchmarkFinished(String id, String name, long durationMs);
+
+    /**
+     * Called with informational output of the engine and the runners.
+     *
+     * @param message the message.
+     */
+    void message(String message);
+
+    /**
+     * Called when the engine detects a problem with the quality of the results.
+     *
+     * @param message the warning.
+     */
+    void warning(String message);
+}
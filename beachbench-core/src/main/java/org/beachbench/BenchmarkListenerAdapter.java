@@ -0,0 +1,67 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+/**
+ * A {@link BenchmarkListener} that ignores all events, to extend from when only a few events are of interest.
+ */
+public class BenchmarkListenerAdapter implements BenchmarkListener {
+
+    @Override
+    public void benchmarkStarted(String id, String name, int testCaseCount) {
+    }
+
+    @Override
+    public void testCaseStarted(TestCase testCase, int index, int count) {
+    }
+
+    @Override
+    public void warmupFinished(TestCase testCase, long iterations, boolean steady) {
+    }
+
+    @Override
+    public void iterationStarted(TestCaseResult result, long maxIterations, boolean warmup) {
+    }
+
+    @Override
+    public void iterationFinished(TestCaseResult result, boolean warmup) {
+    }
+
+    @Override
+    public void exceptionThrown(TestCaseResult result, Throwable thrown) {
+    }
+
+    @Override
+    public void testCaseFinished(TestCase testCase) {
+    }
+
+    @Override
+    public void report(String report) {
+    }
+
+    @Override
+    public void benchmarkFinished(String id, String name, long durationMs) {
+    }
+
+    @Override
+    public void message(String message) {
+    }
+
+    @Override
+    public void warning(String message) {
+    }
+}
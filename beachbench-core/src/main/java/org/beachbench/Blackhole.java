@@ -0,0 +1,144 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import java.util.Random;
+
+/**
+ * Consumes values so that the JIT can't prove they are unused and eliminate the code that computed them. A driver
+ * that computes a value and throws it away is likely to measure nothing at all; consuming the value into a
+ * Blackhole prevents that.
+ *
+ * Every consume compares the value with 2 volatile fields that are never equal to each other, so the comparison can
+ * never be true, but the JIT can't know that and needs the value. Objects are stored in a field, but only once in a
+ * growing number of calls, so that consuming them doesn't turn into a store on every call. No method allocates or
+ * boxes, so consuming costs about a nanosecond.
+ *
+ * A Blackhole is not threadsafe; each thread should have its own, see
+ * {@link ConcurrentBenchmarkDriver#getBlackhole(int)}. The fields are surrounded by padding so that the Blackholes of
+ * different threads never share a cache line.
+ */
+public final class Blackhole extends BlackholeRhsPadding {
+
+    /**
+     * Creates a Blackhole.
+     */
+    public Blackhole() {
+        Random random = new Random(System.nanoTime());
+        b1 = (byte) random.nextInt();
+        b2 = (byte) (b1 + 1);
+        bool1 = random.nextBoolean();
+        bool2 = !bool1;
+        c1 = (char) random.nextInt();
+        c2 = (char) (c1 + 1);
+        s1 = (short) random.nextInt();
+        s2 = (short) (s1 + 1);
+        i1 = random.nextInt();
+        i2 = i1 + 1;
+        l1 = random.nextLong();
+        l2 = l1 + 1;
+        f1 = random.nextFloat();
+        f2 = f1 + 1;
+        d1 = random.nextDouble();
+        d2 = d1 + 1;
+        tlr = random.nextInt();
+        tlrMask = 1;
+    }
+
+    public void consume(byte b) {
+        if (b == b1 & b == b2) {
+            throw new IllegalStateException("Blackhole failure");
+        }
+    }
+
+    public void consume(boolean bool) {
+        if (bool == bool1 & bool == bool2) {
+            throw new IllegalStateException("Blackhole failure");
+        }
+    }
+
+    public void consume(char c) {
+        if (c == c1 & c == c2) {
+            throw new IllegalStateException("Blackhole failure");
+        }
+    }
+
+    public void consume(short s) {
+        if (s == s1 & s == s2) {
+            throw new IllegalStateException("Blackhole failure");
+        }
+    }
+
+    public void consume(int i) {
+        if (i == i1 & i == i2) {
+            throw new IllegalStateException("Blackhole failure");
+        }
+    }
+
+    public void consume(long l) {
+        if (l == l1 & l == l2) {
+            throw new IllegalStateException("Blackhole failure");
+        }
+    }
+
+    public void consume(float f) {
+        if (f == f1 & f == f2) {
+            throw new IllegalStateException("Blackhole failure");
+        }
+    }
+
+    public void consume(double d) {
+        if (d == d1 & d == d2) {
+            throw new IllegalStateException("Blackhole failure");
+        }
+    }
+
+    public void consume(Object obj) {
+        // a linear congruential generator decides when the object is stored; every store halves the store frequency.
+        int tlr = this.tlr * 1664525 + 1013904223;
+        this.tlr = tlr;
+        int tlrMask = this.tlrMask;
+        if ((tlr & tlrMask) == 0) {
+            this.obj1 = obj;
+            this.tlrMask = (tlrMask << 1) + 1;
+        }
+    }
+}
+
+class BlackholeLhsPadding {
+    protected long p01, p02, p03, p04, p05, p06, p07, p08;
+    protected long p09, p10, p11, p12, p13, p14, p15, p16;
+}
+
+class BlackholeFields extends BlackholeLhsPadding {
+    protected volatile byte b1, b2;
+    protected volatile boolean bool1, bool2;
+    protected volatile char c1, c2;
+    protected volatile short s1, s2;
+    protected volatile int i1, i2;
+    protected volatile long l1, l2;
+    protected volatile float f1, f2;
+    protected volatile double d1, d2;
+    protected int tlr;
+    protected int tlrMask;
+    protected Object obj1;
+}
+
+class BlackholeRhsPadding extends BlackholeFields {
+    protected long q01, q02, q03, q04, q05, q06, q07, q08;
+    protected long q09, q10, q11, q12, q13, q14, q15, q16;
+}
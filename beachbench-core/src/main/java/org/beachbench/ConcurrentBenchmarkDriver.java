@@ -0,0 +1,201 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.beachbench.stats.LatencyHistogram;
+
+/**
+ * A BenchmarkDriver for the case where the same operation is executed concurrently by a number of worker threads.
+ *
+ * Instead of writing its own thread pool, start barrier and counters, the driver only implements
+ * {@link #operation(int)}. The number of worker threads is taken from {@link TestCase#getThreadCount()}; every worker
+ * calls the operation until the driver is shut down or until {@link TestCase#getOperationCountPerThread()} operations
+ * have been executed. The operation counts of all workers are aggregated in the {@link TestCaseResult}.
+ *
+ * By default the workers run closed-loop: the next operation starts as soon as the previous one completes. When
+ * {@link TestCase#getTargetOperationsPerSecond()} is set, the workers run open-loop at that rate and the latencies
+ * are measured from the intended start time of each operation.
+ */
+public abstract class ConcurrentBenchmarkDriver extends BenchmarkDriver {
+
+    /**
+     * The TestCaseResult property containing the number of worker threads.
+     */
+    public static final String RESULT_THREAD_COUNT = "threadCount";
+
+    /**
+     * The TestCaseResult property containing the total number of operations executed by all worker threads.
+     */
+    public static final String RESULT_OPERATIONS = "operations";
+
+    /**
+     * The TestCaseResult property containing a long[] with the number of operations of each worker thread.
+     */
+    public static final String RESULT_OPERATIONS_PER_THREAD = "operations/thread";
+
+    /**
+     * The TestCaseResult property containing the total number of operations/second of all worker threads.
+     */
+    public static final String RESULT_OPERATIONS_PER_SECOND = "operations/s";
+
+    /**
+     * The TestCaseResult property containing the time between opening the start latch and the last worker finishing.
+     */
+    public static final String RESULT_MEASURED_DURATION = "measuredDuration[ns]";
+
+    /**
+     * The TestCaseResult property containing the target operations/second of an open-loop run.
+     */
+    public static final String RESULT_TARGET_OPERATIONS_PER_SECOND = "targetOperations/s";
+
+    /**
+     * The TestCaseResult property containing a {@link org.beachbench.stats.LatencyHistogram} with the service times
+     * of an open-loop run: the time between the actual start and the end of an operation, so excluding the time the
+     * operation was delayed.
+     */
+    public static final String RESULT_SERVICE_TIME = "serviceTime[ns]";
+
+    /**
+     * The TestCaseResult property containing the number of operations of a timed open-loop run that should have
+     * started before the deadline, but didn't complete before it because the workers fell behind the target
+     * throughput. They are not in the latencies, so a large backlog means the latencies are too optimistic.
+     */
+    public static final String RESULT_DROPPED_OPERATIONS = "droppedOperations";
+
+    /**
+     * The TestCaseResult property containing the path of the {@link org.beachbench.io.SampleLog} with the samples
+     * of every operation, if the TestCase has a sample directory.
+     */
+    public static final String RESULT_SAMPLE_FILE = "sampleFile";
+
+    private Blackhole[] blackholes = new Blackhole[0];
+    private volatile ConcurrentRunner runner;
+
+    /**
+     * Sets up a worker thread. Called by the worker thread itself, before the start latch is opened. If it throws, the
+     * thread executes no operations and the iteration fails.
+     *
+     * @param threadIndex the index of the worker thread, between 0 (inclusive) and the thread count (exclusive).
+     */
+    public void setUpThread(int threadIndex) {
+    }
+
+    /**
+     * Executes a single operation. This method is called concurrently by all worker threads, so it needs to be
+     * threadsafe.
+     *
+     * @param threadIndex the index of the calling worker thread.
+     */
+    public abstract void operation(int threadIndex);
+
+    /**
+     * Tears down a worker thread. Called by the worker thread itself after its last operation, also when its setup
+     * failed.
+     *
+     * @param threadIndex the index of the worker thread.
+     */
+    public void tearDownThread(int threadIndex) {
+    }
+
+    /**
+     * Executes the operation on all worker threads and waits for them to complete.
+     *
+     * @param result the TestCaseResult the aggregated operation counts are stored in.
+     */
+    @Override
+    public final void run(TestCaseResult result) {
+        runner = new ConcurrentRunner(this, result.getTestCase());
+        try {
+            runner.run(result);
+        } finally {
+            runner = null;
+        }
+    }
+
+    @Override
+    void report(TestCaseResult result, BenchmarkListener listener) {
+        ConcurrentRunner.report(result, listener);
+    }
+
+    @Override
+    long getCompletedOperations() {
+        ConcurrentRunner runner = this.runner;
+        return runner == null ? -1 : runner.getCompletedOperations();
+    }
+
+    @Override
+    boolean copyLatencies(LatencyHistogram histogram) {
+        ConcurrentRunner runner = this.runner;
+        return runner != null && runner.copyLatencies(histogram);
+    }
+
+    /**
+     * Returns the Blackhole of a worker thread. Values computed by an operation that are not used otherwise should be
+     * consumed into it, else the JIT may eliminate the computation.
+     *
+     * @param threadIndex the index of the worker thread.
+     * @return the Blackhole of the worker thread.
+     */
+    protected final Blackhole getBlackhole(int threadIndex) {
+        return blackholes[threadIndex];
+    }
+
+    /**
+     * Prepares the per thread state of the workers. Called before the worker threads are started, which makes the
+     * state visible to the workers.
+     *
+     * @param threadCount the number of worker threads.
+     */
+    void prepareWorkers(int threadCount) {
+        ensureBlackholes(threadCount);
+    }
+
+    /**
+     * Stores results derived from the per thread state of the workers. Called after all workers have completed and
+     * the aggregated results are stored.
+     *
+     * @param result the TestCaseResult.
+     */
+    void workersFinished(TestCaseResult result) {
+    }
+
+    /**
+     * Makes sure there is a Blackhole for every worker thread. The Blackholes are kept between iterations.
+     *
+     * @param threadCount the number of worker threads.
+     */
+    private void ensureBlackholes(int threadCount) {
+        if (blackholes.length >= threadCount) {
+            return;
+        }
+        Blackhole[] blackholes = new Blackhole[threadCount];
+        System.arraycopy(this.blackholes, 0, blackholes, 0, this.blackholes.length);
+        for (int k = this.blackholes.length; k < threadCount; k++) {
+            blackholes[k] = new Blackhole();
+        }
+        this.blackholes = blackholes;
+    }
+
+    @Override
+    boolean isSelfTimed() {
+        return true;
+    }
+
+    boolean isShutdown() {
+        return shutdown;
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.beachbench.exception.ExceptionUtils;
+import org.beachbench.io.SampleLog;
+import org.beachbench.io.SampleRecorder;
+import org.beachbench.stats.LatencyHistogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Executes a {@link ConcurrentBenchmarkDriver} on a fixed number of worker threads.
+ *
+ * All workers are started and set up before a common start latch is opened, so that thread creation is not part of
+ * the measured window. Each worker keeps its operation count in its own {@link PaddedCounter} to prevent false
+ * sharing between the workers.
+ *
+ * When the TestCase has a target throughput, the workers run open-loop: every operation has an intended start time
+ * on a fixed timeline and its latency is measured from that intended start time instead of from the moment it
+ * actually started. So when the system under test stalls, the operations that should have been executed during the
+ * stall show up in the latencies, instead of silently being omitted (coordinated omission).
+ *
+ * When the TestCase has a duration, the measurement window starts when the start latch is opened and ends at the
+ * deadline: the operation counts are taken at the deadline, before the workers are shut down, and operations that
+ * complete after the deadline are not recorded in the latencies either, so neither the ramp up nor the ramp down of
+ * the workers is part of the measurement. The operations of an open-loop run that should have started before the
+ * deadline but didn't complete before it are counted as dropped, so a backlog doesn't silently disappear.
+ *
+ * When the TestCase has a sample directory, the start time and latency of every operation is written to a
+ * {@link SampleLog} in that directory.
+ */
+final class ConcurrentRunner {
+
+    private static final long SPIN_THRESHOLD_NS = 100000;
+
+    private final ConcurrentBenchmarkDriver driver;
+    private final int threadCount;
+    private final long operationCountPerThread;
+    private final long timedDurationNs;
+    private final PaddedCounter[] counters;
+    private final LatencyHistogram[] histograms;
+    private final LatencyHistogram[] serviceTimeHistograms;
+    private final double targetOperationsPerSecond;
+    private final long intervalNs;
+    private final TestCase testCase;
+    private final File sampleDirectory;
+    private SampleRecorder[] recorders;
+    private volatile long startNs;
+    private volatile long deadlineNs = Long.MAX_VALUE;
+    private final CountDownLatch readyLatch;
+    private final CountDownLatch startLatch = new CountDownLatch(1);
+    private final CountDownLatch finishLatch;
+    private final AtomicLong allocatedBytes = new AtomicLong(-1);
+    private final AtomicLong droppedOperations = new AtomicLong();
+    private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+    ConcurrentRunner(ConcurrentBenchmarkDriver driver, TestCase testCase) {
+        if (testCase.getDurationInMilliseconds() == Long.MAX_VALUE && testCase.getOperationCountPerThread() == Long.MAX_VALUE) {
+            throw new IllegalStateException(String.format(
+                    "Testcase '%s' needs a duration or an operation count per thread, else it never completes", testCase.getName()));
+        }
+
+        this.driver = driver;
+        this.testCase = testCase;
+        this.sampleDirectory = testCase.getSampleDirectory() == null ? null : new File(testCase.getSampleDirectory());
+        this.threadCount = testCase.getThreadCount();
+        this.operationCountPerThread = testCase.getOperationCountPerThread();
+        long durationMs = testCase.getDurationInMilliseconds();
+        this.timedDurationNs = durationMs == Long.MAX_VALUE ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(durationMs);
+        this.counters = new PaddedCounter[threadCount];
+        for (int k = 0; k < threadCount; k++) {
+            counters[k] = new PaddedCounter();
+        }
+        this.targetOperationsPerSecond = testCase.getTargetOperationsPerSecond();
+        if (targetOperationsPerSecond > 0) {
+            this.intervalNs = Math.max(1, Math.round((1000000000d * threadCount) / targetOperationsPerSecond));
+            this.histograms = newHistograms(threadCount);
+            this.serviceTimeHistograms = newHistograms(threadCount);
+        } else {
+            this.intervalNs = 0;
+            this.histograms = testCase.isRecordLatency() || sampleDirectory != null ? newHistograms(threadCount) : null;
+            this.serviceTimeHistograms = null;
+        }
+        this.readyLatch = new CountDownLatch(threadCount);
+        this.finishLatch = new CountDownLatch(threadCount);
+    }
+
+    /**
+     * Reports the worker threads of an iteration, from the values stored in its TestCaseResult.
+     */
+    static void report(TestCaseResult result, BenchmarkListener listener) {
+        Object threadCount = result.get(ConcurrentBenchmarkDriver.RESULT_THREAD_COUNT);
+        Object targetOperationsPerSecond = result.get(ConcurrentBenchmarkDriver.RESULT_TARGET_OPERATIONS_PER_SECOND);
+        if (targetOperationsPerSecond != null) {
+            listener.message(String.format("Ran %s worker threads with a target of %s operations/second",
+                    threadCount, BenchmarkUtils.format(((Number) targetOperationsPerSecond).doubleValue())));
+        } else {
+            listener.message(String.format("Ran %s worker threads", threadCount));
+        }
+        Object droppedOperations = result.get(ConcurrentBenchmarkDriver.RESULT_DROPPED_OPERATIONS);
+        if (droppedOperations != null && ((Number) droppedOperations).longValue() > 0) {
+            listener.warning(String.format("%s operations that should have started before the deadline didn't complete, "
+                    + "the target throughput wasn't reached", droppedOperations));
+        }
+    }
+
+    private static LatencyHistogram[] newHistograms(int count) {
+        LatencyHistogram[] histograms = new LatencyHistogram[count];
+        for (int k = 0; k < count; k++) {
+            histograms[k] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+
+    void run(TestCaseResult result) {
+        SampleLog sampleLog = openSampleLog(result);
+
+        driver.prepareWorkers(threadCount);
+        Thread[] workers = new Thread[threadCount];
+        for (int k = 0; k < threadCount; k++) {
+            workers[k] = new Worker(k);
+            workers[k].start();
+        }
+
+        long[] operationsPerThread = new long[threadCount];
+        long endNs;
+        try {
+            readyLatch.await();
+            startNs = System.nanoTime();
+            boolean completed;
+            if (timedDurationNs == Long.MAX_VALUE) {
+                startLatch.countDown();
+                finishLatch.await();
+                completed = true;
+            } else {
+                // the deadline is set before the workers are released, so they see it.
+                long deadlineNs = startNs + timedDurationNs;
+                this.deadlineNs = deadlineNs;
+                driver.setDeadlineNs(deadlineNs);
+                startLatch.countDown();
+                completed = finishLatch.await(deadlineNs - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+            endNs = System.nanoTime();
+
+            // the operations that complete while the workers are shutting down are not part of the measurement.
+            for (int k = 0; k < threadCount; k++) {
+                operationsPerThread[k] = counters[k].get();
+            }
+            if (!completed) {
+                driver.shutdown();
+                finishLatch.await();
+            }
+
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            if (histograms != null) {
+                // the workers that record latencies stop counting at the deadline themselves, so their final counts
+                // match the recorded latencies exactly.
+                for (int k = 0; k < threadCount; k++) {
+                    operationsPerThread[k] = counters[k].get();
+                }
+            }
+        } catch (InterruptedException e) {
+            driver.shutdown();
+            throw ExceptionUtils.wrap(e);
+        }
+
+        if (allocatedBytes.get() >= 0) {
+            result.addAllocatedBytes(allocatedBytes.get());
+        }
+
+        if (sampleLog != null) {
+            try {
+                sampleLog.close();
+            } catch (IOException e) {
+                throw ExceptionUtils.wrap(e);
+            }
+            result.put(ConcurrentBenchmarkDriver.RESULT_SAMPLE_FILE, sampleLog.getFile().getPath());
+        }
+
+        long operations = 0;
+        for (int k = 0; k < threadCount; k++) {
+            operations += operationsPerThread[k];
+        }
+        long durationNs = endNs - startNs;
+
+        result.put(ConcurrentBenchmarkDriver.RESULT_THREAD_COUNT, threadCount);
+        result.putLong(ConcurrentBenchmarkDriver.RESULT_OPERATIONS, operations);
+        result.put(ConcurrentBenchmarkDriver.RESULT_OPERATIONS_PER_THREAD, operationsPerThread);
+        result.putLong(ConcurrentBenchmarkDriver.RESULT_MEASURED_DURATION, durationNs);
+        result.putDouble(ConcurrentBenchmarkDriver.RESULT_OPERATIONS_PER_SECOND, durationNs == 0 ? 0d : (1000000000d * operations) / durationNs);
+        if (histograms != null) {
+            for (LatencyHistogram histogram : histograms) {
+                result.addLatencies(histogram);
+            }
+        }
+        if (serviceTimeHistograms != null) {
+            LatencyHistogram serviceTime = new LatencyHistogram();
+            for (LatencyHistogram histogram : serviceTimeHistograms) {
+                serviceTime.add(histogram);
+            }
+            result.put(ConcurrentBenchmarkDriver.RESULT_TARGET_OPERATIONS_PER_SECOND, targetOperationsPerSecond);
+            result.put(ConcurrentBenchmarkDriver.RESULT_SERVICE_TIME, serviceTime);
+            if (timedDurationNs != Long.MAX_VALUE) {
+                result.putLong(ConcurrentBenchmarkDriver.RESULT_DROPPED_OPERATIONS, droppedOperations.get());
+            }
+        }
+        driver.workersFinished(result);
+
+        Throwable thrown = failure.get();
+        if (thrown != null) {
+            throw ExceptionUtils.wrap(thrown);
+        }
+    }
+
+    /**
+     * Returns the number of operations completed so far by all workers.
+     *
+     * @return the number of operations.
+     */
+    long getCompletedOperations() {
+        long operations = 0;
+        for (PaddedCounter counter : counters) {
+            operations += counter.get();
+        }
+        return operations;
+    }
+
+    /**
+     * Adds the latencies recorded so far by all workers to a histogram. The histograms of the workers are read while
+     * they are written, so the copy is approximate.
+     *
+     * @param histogram the histogram to add the latencies to.
+     * @return false if the latencies are not recorded.
+     */
+    boolean copyLatencies(LatencyHistogram histogram) {
+        if (histograms == null) {
+            return false;
+        }
+        for (LatencyHistogram workerHistogram : histograms) {
+            histogram.add(workerHistogram);
+        }
+        return true;
+    }
+
+    private SampleLog openSampleLog(TestCaseResult result) {
+        if (sampleDirectory == null) {
+            return null;
+        }
+        if (!sampleDirectory.isDirectory() && !sampleDirectory.mkdirs()) {
+            throw new IllegalStateException("Can't create directory " + sampleDirectory);
+        }
+
+        String name = testCase.getName() == null ? testCase.getId() : testCase.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+        SampleLog sampleLog;
+        try {
+            sampleLog = new SampleLog(new File(sampleDirectory, name + "-" + result.getId() + ".samples"));
+        } catch (IOException e) {
+            throw ExceptionUtils.wrap(e);
+        }
+        recorders = new SampleRecorder[threadCount];
+        for (int k = 0; k < threadCount; k++) {
+            recorders[k] = sampleLog.newRecorder(k);
+        }
+        return sampleLog;
+    }
+
+    private class Worker extends Thread {
+        private final int threadIndex;
+
+        Worker(int threadIndex) {
+            super("BeachBench-worker-" + threadIndex);
+            this.threadIndex = threadIndex;
+        }
+
+        @Override
+        public void run() {
+            PaddedCounter counter = counters[threadIndex];
+            SampleRecorder recorder = recorders == null ? null : recorders[threadIndex];
+            boolean setUp = false;
+            try {
+                driver.setUpThread(threadIndex);
+                setUp = true;
+            } catch (Throwable t) {
+                fail(t);
+            } finally {
+                readyLatch.countDown();
+            }
+
+            try {
+                // a thread that isn't set up isn't measured; its failure aborts the run.
+                if (setUp) {
+                    startLatch.await();
+                    long allocatedBefore = Instrumentation.currentThreadAllocatedBytes();
+                    if (serviceTimeHistograms != null) {
+                        runScheduledOperations(counter, histograms[threadIndex], serviceTimeHistograms[threadIndex], recorder);
+                    } else if (histograms == null) {
+                        runOperations(counter);
+                    } else {
+                        runTimedOperations(counter, histograms[threadIndex], recorder);
+                    }
+                    if (recorder != null) {
+                        recorder.flush();
+                    }
+                    if (allocatedBefore >= 0) {
+                        long allocated = Instrumentation.currentThreadAllocatedBytes() - allocatedBefore;
+                        allocatedBytes.compareAndSet(-1, 0);
+                        allocatedBytes.addAndGet(allocated);
+                    }
+                }
+            } catch (Throwable t) {
+                fail(t);
+            } finally {
+                finishLatch.countDown();
+            }
+
+            try {
+                // also torn down when the setup failed halfway, so whatever it acquired is released.
+                driver.tearDownThread(threadIndex);
+            } catch (Throwable t) {
+                fail(t);
+            }
+        }
+
+        private void runOperations(PaddedCounter counter) {
+            long operations = 0;
+            while (operations < operationCountPerThread && !driver.isShutdown()) {
+                driver.operation(threadIndex);
+                operations++;
+                counter.set(operations);
+            }
+        }
+
+        private void runTimedOperations(PaddedCounter counter, LatencyHistogram histogram, SampleRecorder recorder) {
+            long baseNs = startNs;
+            long deadlineNs = ConcurrentRunner.this.deadlineNs;
+            long operations = 0;
+            while (operations < operationCountPerThread && !driver.isShutdown()) {
+                long operationStartNs = System.nanoTime();
+                driver.operation(threadIndex);
+                long endNs = System.nanoTime();
+                if (endNs > deadlineNs) {
+                    // completed during the ramp down, so it is neither counted nor recorded.
+                    return;
+                }
+                long latencyNs = endNs - operationStartNs;
+                histogram.record(latencyNs);
+                if (recorder != null) {
+                    recorder.record(operationStartNs - baseNs, latencyNs);
+                }
+                operations++;
+                counter.set(operations);
+            }
+        }
+
+        private void runScheduledOperations(PaddedCounter counter, LatencyHistogram histogram, LatencyHistogram serviceTime,
+                                            SampleRecorder recorder) {
+            // the workers are staggered so that their operations are spread evenly over the interval.
+            long baseNs = startNs;
+            long deadlineNs = ConcurrentRunner.this.deadlineNs;
+            long firstIntendedStartNs = baseNs + (intervalNs * threadIndex) / threadCount;
+            long intendedStartNs = firstIntendedStartNs;
+            long operations = 0;
+            try {
+                while (operations < operationCountPerThread && !driver.isShutdown()) {
+                    if (!awaitIntendedStart(intendedStartNs)) {
+                        return;
+                    }
+                    long actualStartNs = System.nanoTime();
+                    driver.operation(threadIndex);
+                    long endNs = System.nanoTime();
+                    if (endNs > deadlineNs) {
+                        return;
+                    }
+                    histogram.record(endNs - intendedStartNs);
+                    serviceTime.record(endNs - actualStartNs);
+                    if (recorder != null) {
+                        recorder.record(intendedStartNs - baseNs, endNs - intendedStartNs);
+                    }
+                    operations++;
+                    counter.set(operations);
+                    intendedStartNs += intervalNs;
+                }
+            } finally {
+                if (deadlineNs != Long.MAX_VALUE) {
+                    droppedOperations.addAndGet(Math.max(0, intendedBefore(deadlineNs, firstIntendedStartNs) - operations));
+                }
+            }
+        }
+
+        /**
+         * Returns the number of operations of this worker with an intended start before a deadline.
+         */
+        private long intendedBefore(long deadlineNs, long firstIntendedStartNs) {
+            if (deadlineNs <= firstIntendedStartNs) {
+                return 0;
+            }
+            long intended = (deadlineNs - firstIntendedStartNs - 1) / intervalNs + 1;
+            return Math.min(intended, operationCountPerThread);
+        }
+
+        private boolean awaitIntendedStart(long intendedStartNs) {
+            for (; ; ) {
+                long remainingNs = intendedStartNs - System.nanoTime();
+                if (remainingNs <= 0) {
+                    return true;
+                }
+                if (driver.isShutdown()) {
+                    return false;
+                }
+                // parking is too coarse grained for the last stretch, so that is spun.
+                if (remainingNs > SPIN_THRESHOLD_NS) {
+                    LockSupport.parkNanos(remainingNs - SPIN_THRESHOLD_NS);
+                }
+            }
+        }
+
+        private void fail(Throwable t) {
+            failure.compareAndSet(null, t);
+            driver.shutdown();
+        }
+    }
+}
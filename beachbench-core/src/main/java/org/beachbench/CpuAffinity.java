@@ -0,0 +1,159 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pins forked JVMs to a set of CPUs with the Linux taskset command.
+ */
+final class CpuAffinity {
+
+    private static final String TASKSET = "taskset";
+
+    /**
+     * Checks if CPU affinity can be set: the OS is Linux and taskset is on the path.
+     *
+     * @return true if CPU affinity is supported.
+     */
+    static boolean isSupported() {
+        if (!System.getProperty("os.name", "").toLowerCase().startsWith("linux")) {
+            return false;
+        }
+        for (String directory : System.getenv("PATH") == null ? new String[0] : System.getenv("PATH").split(File.pathSeparator)) {
+            if (new File(directory, TASKSET).canExecute()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the CPUs this JVM is allowed to run on. If they can't be determined, the first
+     * {@link Runtime#availableProcessors()} CPUs are returned.
+     *
+     * @return the CPU numbers.
+     */
+    static int[] availableCpus() {
+        if (isSupported()) {
+            try {
+                int[] cpus = parseCpuList(readAffinity());
+                if (cpus.length > 0) {
+                    return cpus;
+                }
+            } catch (Exception e) {
+                // fall back to the available processors.
+            }
+        }
+        int[] cpus = new int[Runtime.getRuntime().availableProcessors()];
+        for (int k = 0; k < cpus.length; k++) {
+            cpus[k] = k;
+        }
+        return cpus;
+    }
+
+    private static String readAffinity() throws IOException, InterruptedException {
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+        String pid = name.substring(0, name.indexOf('@'));
+        Process process = new ProcessBuilder(TASKSET, "-c", "-p", pid).redirectErrorStream(true).start();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        String line;
+        try {
+            line = reader.readLine();
+        } finally {
+            reader.close();
+        }
+        process.waitFor();
+        // "pid 123's current affinity list: 0-3,8"
+        return line == null ? "" : line.substring(line.lastIndexOf(':') + 1).trim();
+    }
+
+    /**
+     * Parses a CPU list like "0-3,8,10-11".
+     *
+     * @param cpuList the CPU list.
+     * @return the CPU numbers.
+     * @throws NumberFormatException if the list is malformed.
+     */
+    static int[] parseCpuList(String cpuList) {
+        List<Integer> cpus = new ArrayList<Integer>();
+        for (String range : cpuList.split(",")) {
+            range = range.trim();
+            if (range.isEmpty()) {
+                continue;
+            }
+            int dash = range.indexOf('-');
+            int from = Integer.parseInt(dash < 0 ? range : range.substring(0, dash));
+            int to = dash < 0 ? from : Integer.parseInt(range.substring(dash + 1));
+            for (int cpu = from; cpu <= to; cpu++) {
+                cpus.add(cpu);
+            }
+        }
+        int[] result = new int[cpus.size()];
+        for (int k = 0; k < result.length; k++) {
+            result[k] = cpus.get(k);
+        }
+        return result;
+    }
+
+    /**
+     * Divides CPUs into disjoint sets of (almost) equal size. There are never more sets than CPUs.
+     *
+     * @param cpus the CPUs to divide.
+     * @param count the requested number of sets.
+     * @return the CPU sets as CPU lists in taskset format, e.g. "0,1,2".
+     */
+    static List<String> partition(int[] cpus, int count) {
+        int sets = Math.max(1, Math.min(count, cpus.length));
+        List<String> result = new ArrayList<String>(sets);
+        for (int set = 0; set < sets; set++) {
+            StringBuilder sb = new StringBuilder();
+            for (int k = set * cpus.length / sets; k < (set + 1) * cpus.length / sets; k++) {
+                if (sb.length() > 0) {
+                    sb.append(',');
+                }
+                sb.append(cpus[k]);
+            }
+            result.add(sb.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the command prefix that runs a command on a set of CPUs.
+     *
+     * @param cpuList the CPU list.
+     * @return the command prefix.
+     */
+    static List<String> command(String cpuList) {
+        List<String> command = new ArrayList<String>();
+        command.add(TASKSET);
+        command.add("-c");
+        command.add(cpuList);
+        return command;
+    }
+
+    //we don't want instances.
+    private CpuAffinity() {
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shuts down drivers when their deadline has passed. All timed iterations share a single daemon thread that is
+ * started on first use, so a timed iteration doesn't create threads of its own. Deadlines are System.nanoTime
+ * based; a driver is shut down within tens of microseconds after its deadline.
+ *
+ * A DeadlineTimer is threadsafe.
+ */
+final class DeadlineTimer {
+
+    static final DeadlineTimer INSTANCE = new DeadlineTimer();
+
+    private final DelayQueue<Deadline> deadlines = new DelayQueue<Deadline>();
+    private Thread thread;
+
+    /**
+     * Schedules the shutdown of a driver.
+     *
+     * @param driver the driver to shut down.
+     * @param deadlineNs the System.nanoTime at which the driver is shut down.
+     * @return the Deadline, which needs to be cancelled if the driver completes before it.
+     */
+    Deadline schedule(BenchmarkDriver driver, long deadlineNs) {
+        Deadline deadline = new Deadline(driver, deadlineNs);
+        synchronized (this) {
+            if (thread == null) {
+                thread = new Thread("BeachBench-timer") {
+                    @Override
+                    public void run() {
+                        expireDeadlines();
+                    }
+                };
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+        deadlines.add(deadline);
+        return deadline;
+    }
+
+    private void expireDeadlines() {
+        for (; ; ) {
+            Deadline deadline;
+            try {
+                deadline = deadlines.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            deadline.driver.shutdown();
+        }
+    }
+
+    final class Deadline implements Delayed {
+        private final BenchmarkDriver driver;
+        private final long deadlineNs;
+
+        private Deadline(BenchmarkDriver driver, long deadlineNs) {
+            this.driver = driver;
+            this.deadlineNs = deadlineNs;
+        }
+
+        /**
+         * Cancels this Deadline. Cancelling a Deadline that has expired has no effect.
+         */
+        void cancel() {
+            deadlines.remove(this);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNs - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            long difference = deadlineNs - ((Deadline) other).deadlineNs;
+            return difference < 0 ? -1 : (difference > 0 ? 1 : 0);
+        }
+    }
+}
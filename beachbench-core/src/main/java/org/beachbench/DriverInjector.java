@@ -0,0 +1,259 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.beachbench.exception.ExceptionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Sets the parameters of a {@link BenchmarkDriver} from the settings of a {@link TestCase}.
+ *
+ * The parameters are the fields declared by the driver or one of its superclasses: only the fields annotated with
+ * {@link Param} if there are any, otherwise all non static, non final fields. The fields of the abstract drivers
+ * provided by BeachBench itself are not parameters.
+ *
+ * The parameters are resolved once per driver class; an injector only holds a MethodHandle per parameter, so setting
+ * a driver doesn't need any reflection.
+ */
+final class DriverInjector {
+
+    private static final ClassValue<DriverInjector> INJECTORS = new ClassValue<DriverInjector>() {
+        @Override
+        protected DriverInjector computeValue(Class<?> driverClass) {
+            return new DriverInjector(driverClass);
+        }
+    };
+
+    // the fields of these classes are the state of the engine, not parameters of a driver.
+    private static final Set<Class<?>> FRAMEWORK_CLASSES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            Object.class,
+            BenchmarkDriver.class,
+            ConcurrentBenchmarkDriver.class,
+            MicroBenchmarkDriver.class,
+            MixBenchmarkDriver.class,
+            SinkingBenchmarkDriver.class));
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<?> driverClass;
+    private final boolean declared;
+    private final Map<String, Parameter> parameters = new LinkedHashMap<String, Parameter>();
+
+    /**
+     * Returns the injector of a driver class.
+     *
+     * @param driverClass the class of the driver.
+     * @return the injector.
+     * @throws NullPointerException if driverClass is null.
+     * @throws IllegalArgumentException if the Params of the driver are invalid, e.g. a default value of the wrong type.
+     */
+    static DriverInjector of(Class<?> driverClass) {
+        if(driverClass == null)throw new NullPointerException();
+        return INJECTORS.get(driverClass);
+    }
+
+    private DriverInjector(Class<?> driverClass) {
+        this.driverClass = driverClass;
+
+        List<Field> fields = new ArrayList<Field>();
+        boolean declared = false;
+        for (Class<?> clazz = driverClass; clazz != null && !isFrameworkClass(clazz); clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    fields.add(field);
+                    declared |= field.isAnnotationPresent(Param.class);
+                }
+            }
+        }
+        this.declared = declared;
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (Field field : fields) {
+            Param param = field.getAnnotation(Param.class);
+            if (declared ? param == null : Modifier.isFinal(field.getModifiers())) {
+                continue;
+            }
+            if (Modifier.isFinal(field.getModifiers())) {
+                throw new IllegalArgumentException(String.format("Param %s.%s can't be final",
+                        field.getDeclaringClass().getName(), field.getName()));
+            }
+
+            String name = param == null || param.value().length() == 0 ? field.getName() : param.value();
+            if (parameters.containsKey(name)) {
+                // a field hides the fields with the same name of its superclasses.
+                if (declared) {
+                    throw new IllegalArgumentException(String.format("Duplicate Param [%s] in %s", name, driverClass.getName()));
+                }
+                continue;
+            }
+
+            Object defaultValue = null;
+            if (param != null && param.defaultValue().length() > 0) {
+                try {
+                    defaultValue = ValueConverter.convert(param.defaultValue(), field.getType());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(String.format("Invalid default value of Param %s.%s: %s",
+                            field.getDeclaringClass().getName(), field.getName(), e.getMessage()));
+                }
+            }
+
+            field.setAccessible(true);
+            MethodHandle setter;
+            try {
+                setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw ExceptionUtils.wrap(e);
+            }
+            parameters.put(name, new Parameter(name, field.getType(), setter, defaultValue,
+                    param != null && param.required()));
+        }
+    }
+
+    private static boolean isFrameworkClass(Class<?> clazz) {
+        return FRAMEWORK_CLASSES.contains(clazz);
+    }
+
+    /**
+     * Checks if the parameters of the driver are declared with {@link Param}.
+     *
+     * @return true if the driver has Params.
+     */
+    boolean isDeclared() {
+        return declared;
+    }
+
+    /**
+     * Returns the type of a parameter.
+     *
+     * @param name the name of the parameter.
+     * @return the type, or null if the driver has no parameter with that name.
+     */
+    Class<?> getType(String name) {
+        Parameter parameter = parameters.get(name);
+        return parameter == null ? null : parameter.type;
+    }
+
+    /**
+     * Returns the settings that are neither built in nor a parameter of the driver.
+     *
+     * @param settings the settings of a TestCase.
+     * @return the unknown settings, sorted by name.
+     */
+    List<String> getUnknownSettings(Map<String, Object> settings) {
+        List<String> unknown = new ArrayList<String>();
+        for (String property : settings.keySet()) {
+            if (!parameters.containsKey(property) && !TestCase.isBuiltIn(property)) {
+                unknown.add(property);
+            }
+        }
+        Collections.sort(unknown);
+        return unknown;
+    }
+
+    /**
+     * Checks if the settings can be injected: every value can be converted to its parameter, the required Params are
+     * set and, if the driver has Params, there are no unknown settings.
+     *
+     * @param settings the settings of a TestCase.
+     * @throws IllegalArgumentException if the settings are invalid; the message lists all problems.
+     */
+    void validate(Map<String, Object> settings) {
+        List<String> errors = new LinkedList<String>();
+        for (Parameter parameter : parameters.values()) {
+            if (!settings.containsKey(parameter.name)) {
+                if (parameter.required) {
+                    errors.add(String.format("required parameter [%s] is not set", parameter.name));
+                }
+                continue;
+            }
+            try {
+                ValueConverter.coerce(settings.get(parameter.name), parameter.type);
+            } catch (IllegalArgumentException e) {
+                errors.add(String.format("parameter [%s]: %s", parameter.name, e.getMessage()));
+            }
+        }
+        if (declared) {
+            for (String property : getUnknownSettings(settings)) {
+                errors.add(String.format("unknown setting [%s], the parameters are %s", property, parameters.keySet()));
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            StringBuilder message = new StringBuilder(String.format("Invalid settings for driver %s:", driverClass.getName()));
+            for (String error : errors) {
+                message.append("\n    ").append(error);
+            }
+            throw new IllegalArgumentException(message.toString());
+        }
+    }
+
+    /**
+     * Sets the parameters of a driver. A parameter without a setting gets the default value of its Param, if any.
+     *
+     * @param driver the driver.
+     * @param settings the settings of a TestCase.
+     * @throws NullPointerException if driver or settings is null.
+     * @throws IllegalArgumentException if a value can't be converted to its parameter.
+     */
+    void inject(Object driver, Map<String, Object> settings) {
+        if(driver == null)throw new NullPointerException();
+        if(settings == null)throw new NullPointerException();
+
+        for (Parameter parameter : parameters.values()) {
+            Object value;
+            if (settings.containsKey(parameter.name)) {
+                try {
+                    value = ValueConverter.coerce(settings.get(parameter.name), parameter.type);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(String.format("Parameter [%s] of driver %s: %s",
+                            parameter.name, driverClass.getName(), e.getMessage()));
+                }
+            } else if (parameter.defaultValue != null) {
+                value = parameter.defaultValue;
+            } else {
+                continue;
+            }
+
+            try {
+                parameter.setter.invokeExact(driver, value);
+            } catch (Throwable e) {
+                throw ExceptionUtils.wrap(e);
+            }
+        }
+    }
+
+    private static final class Parameter {
+        private final String name;
+        private final Class<?> type;
+        private final MethodHandle setter;
+        private final Object defaultValue;
+        private final boolean required;
+
+        private Parameter(String name, Class<?> type, MethodHandle setter, Object defaultValue, boolean required) {
+            this.name = name;
+            this.type = type;
+            this.setter = setter;
+            this.defaultValue = defaultValue;
+            this.required = required;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The entry point of a JVM forked by the {@link ForkedTestCaseRunner}.
+ *
+ * Property values of a {@link TestCaseResult} that are not Serializable are sent back as their String value.
+ */
+final class ForkedMain {
+
+    public static void main(String[] args) throws Exception {
+        int port = Integer.parseInt(args[0]);
+        boolean quiet = Boolean.parseBoolean(args[1]);
+        AsyncListener listener = new AsyncListener(new LoggingListener(System.out, quiet));
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        try {
+            ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+            Map<String, Object> settings = ForkedTestCaseRunner.readProperties(in);
+            final ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            // the live samples are sent to the parent JVM, which publishes them.
+            LiveMetricsRegistry.INSTANCE.setForwarder(new LiveMetricsRegistry.Forwarder() {
+                public void forward(LiveSample sample) {
+                    synchronized (out) {
+                        try {
+                            out.writeObject(sample);
+                            out.reset();
+                            out.flush();
+                        } catch (IOException ignore) {
+                            // the parent JVM is gone, the results can't be sent either.
+                        }
+                    }
+                }
+            });
+
+            TestCase testCase = new TestCase();
+            testCase.getSettings().putAll(settings);
+            testCase.setFork(false);
+            Benchmark benchmark = new Benchmark();
+            benchmark.setListener(listener);
+            benchmark.runInProcess(testCase);
+            listener.flush();
+
+            LiveMetricsRegistry.INSTANCE.setForwarder(null);
+            List<TestCaseResult> results = testCase.getResults();
+            synchronized (out) {
+                out.writeObject(results.size());
+                for (TestCaseResult result : results) {
+                    out.writeObject(toSerializable(result.getProperties()));
+                }
+                out.flush();
+            }
+        } finally {
+            socket.close();
+        }
+
+        // the driver could have left non daemon threads behind.
+        System.exit(0);
+    }
+
+    private static HashMap<String, Object> toSerializable(Map<String, Object> properties) {
+        HashMap<String, Object> result = new HashMap<String, Object>();
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            Object value = entry.getValue();
+            if (value == null || value instanceof Serializable) {
+                result.put(entry.getKey(), value);
+            } else {
+                result.put(entry.getKey(), String.valueOf(value));
+            }
+        }
+        return result;
+    }
+
+    private ForkedMain() {
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executes a {@link TestCase} in a child JVM.
+ *
+ * The child JVM is started with the classpath of this JVM and the {@link TestCase#getJvmArgs()}. It connects back
+ * to a socket on the loopback interface, receives the settings of the TestCase, executes it using
+ * {@link Benchmark#runInProcess(TestCase)} and sends the properties of every {@link TestCaseResult} back. The output
+ * of the child JVM is written to the output of this JVM.
+ *
+ * If the child JVM can't be started, crashes, sends something unexpected or exits with a non-zero code, the failure is
+ * added to the TestCase as a failed {@link TestCaseResult} and reported with {@link BenchmarkListener#exceptionThrown}.
+ */
+final class ForkedTestCaseRunner {
+
+    private static final int ACCEPT_TIMEOUT_MS = 1000;
+
+    private final TestCase testCase;
+    private final String cpuSet;
+    private final BenchmarkListener listener;
+    private final boolean quiet;
+
+    /**
+     * Creates a ForkedTestCaseRunner.
+     *
+     * @param testCase the TestCase to execute.
+     * @param cpuSet the CPU list in taskset format, or null if the child JVM is not pinned.
+     * @param listener the listener of this JVM; the child JVM writes its progress to its output.
+     * @param quiet true if the child JVM should leave out the output of the individual iterations.
+     */
+    ForkedTestCaseRunner(TestCase testCase, String cpuSet, BenchmarkListener listener, boolean quiet) {
+        this.testCase = testCase;
+        this.cpuSet = cpuSet;
+        this.listener = listener;
+        this.quiet = quiet;
+    }
+
+    void run() {
+        listener.message(String.format("Forking JVM with arguments %s", testCase.getJvmArgs()));
+
+        Process process = null;
+        try {
+            ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+            try {
+                process = startProcess(serverSocket.getLocalPort());
+                Socket socket = accept(serverSocket, process);
+                try {
+                    exchange(socket);
+                } finally {
+                    socket.close();
+                }
+            } finally {
+                serverSocket.close();
+            }
+
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IOException(String.format("Forked JVM exited with code %s", exitCode));
+            }
+        } catch (Exception e) {
+            if (process != null) {
+                process.destroy();
+            }
+            TestCaseResult result = new TestCaseResult(testCase);
+            result.setTestCaseIteration(testCase.getResults().size() + 1);
+            result.setThrown(e);
+            testCase.add(result);
+            listener.exceptionThrown(result, e);
+        }
+    }
+
+    private Process startProcess(int port) throws IOException {
+        List<String> command = new LinkedList<String>();
+        if (cpuSet != null) {
+            command.addAll(CpuAffinity.command(cpuSet));
+        }
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(testCase.getJvmArgs());
+        command.add("-cp");
+        command.add(testCase.getClassPath() == null ? System.getProperty("java.class.path") : testCase.getClassPath());
+        command.add(ForkedMain.class.getName());
+        command.add(Integer.toString(port));
+        command.add(Boolean.toString(quiet));
+
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.inheritIO();
+        return builder.start();
+    }
+
+    private Socket accept(ServerSocket serverSocket, Process process) throws IOException {
+        serverSocket.setSoTimeout(ACCEPT_TIMEOUT_MS);
+        for (; ; ) {
+            try {
+                return serverSocket.accept();
+            } catch (SocketTimeoutException e) {
+                if (!process.isAlive()) {
+                    throw new IOException(String.format("Forked JVM exited with code %s before connecting", process.exitValue()));
+                }
+            }
+        }
+    }
+
+    private void exchange(Socket socket) throws IOException, ClassNotFoundException {
+        ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        out.writeObject(new HashMap<String, Object>(testCase.getSettings()));
+        out.flush();
+
+        // the forked JVM sends its live samples while it runs, followed by the number of results.
+        ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+        Object message = in.readObject();
+        try {
+            while (message instanceof LiveSample) {
+                LiveMetricsRegistry.INSTANCE.publish((LiveSample) message);
+                message = in.readObject();
+            }
+        } finally {
+            LiveMetricsRegistry.INSTANCE.remove(LiveMetricsRegistry.key(testCase));
+        }
+
+        if (!(message instanceof Integer)) {
+            throw new StreamCorruptedException("Expected the number of results, found " + message);
+        }
+        int resultCount = (Integer) message;
+        for (int k = 0; k < resultCount; k++) {
+            TestCaseResult result = new TestCaseResult(testCase);
+            result.getProperties().putAll(readProperties(in));
+            testCase.add(result);
+        }
+    }
+
+    /**
+     * Reads a map with String keys, the settings of a TestCase or the properties of a TestCaseResult.
+     *
+     * @param in the stream to read from.
+     * @return a copy of the map that was read.
+     * @throws StreamCorruptedException if the object read is not a map with String keys.
+     */
+    static Map<String, Object> readProperties(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        Object message = in.readObject();
+        if (!(message instanceof Map)) {
+            throw new StreamCorruptedException("Expected a map of properties, found " + message);
+        }
+        Map<String, Object> properties = new HashMap<String, Object>();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) message).entrySet()) {
+            if (!(entry.getKey() instanceof String)) {
+                throw new StreamCorruptedException("Expected a property name, found " + entry.getKey());
+            }
+            properties.put((String) entry.getKey(), entry.getValue());
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * Measures what the JVM did while a driver was running: garbage collections, allocated bytes, heap usage, JIT
+ * compilation and safepoints. A {@link Snapshot} is taken before {@link BenchmarkDriver#run(TestCaseResult)} and is
+ * stopped afterwards, which stores the differences as typed properties on the {@link TestCaseResult}.
+ *
+ * Allocations are counted per thread by the JVM, so only the allocations of the thread calling the driver are
+ * measured by the Snapshot itself. Drivers that run on other threads, like the {@link ConcurrentRunner}, measure
+ * those threads with {@link #currentThreadAllocatedBytes()} and add them with
+ * {@link TestCaseResult#addAllocatedBytes(long)}.
+ *
+ * Allocated bytes and JIT compilation time depend on HotSpot specific functionality and safepoints on HotSpot
+ * internals; when they are not available, they are stored as -1. The internals are only looked up on Java 8 and
+ * older, later versions print an illegal reflective access warning or deny the access.
+ */
+final class Instrumentation {
+
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+    private static final MemoryMXBean MEMORY_BEAN = ManagementFactory.getMemoryMXBean();
+    private static final CompilationMXBean COMPILATION_BEAN = ManagementFactory.getCompilationMXBean();
+    private static final boolean ALLOCATION_SUPPORTED = isAllocationSupported();
+    private static final Object SAFEPOINT_BEAN;
+    private static final Method SAFEPOINT_COUNT;
+    private static final Method SAFEPOINT_TIME;
+
+    static {
+        Object bean = null;
+        Method count = null;
+        Method time = null;
+        // sun.management is encapsulated since Java 9, whose version numbers don't start with 1.
+        if (System.getProperty("java.specification.version").startsWith("1.")) {
+            try {
+                // HotspotRuntimeMBean is not part of the public management API, so it is looked up reflectively.
+                Class<?> beanClass = Class.forName("sun.management.HotspotRuntimeMBean");
+                bean = Class.forName("sun.management.ManagementFactoryHelper").getMethod("getHotspotRuntimeMBean").invoke(null);
+                count = beanClass.getMethod("getSafepointCount");
+                time = beanClass.getMethod("getTotalSafepointTime");
+                count.invoke(bean);
+            } catch (Throwable t) {
+                bean = null;
+            }
+        }
+        SAFEPOINT_BEAN = bean;
+        SAFEPOINT_COUNT = count;
+        SAFEPOINT_TIME = time;
+    }
+
+    private static boolean isAllocationSupported() {
+        if (!(THREAD_BEAN instanceof com.sun.management.ThreadMXBean)) {
+            return false;
+        }
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_BEAN;
+        return bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * Returns the total number of bytes allocated by the current thread.
+     *
+     * @return the allocated bytes, or -1 if not supported by the JVM.
+     */
+    static long currentThreadAllocatedBytes() {
+        if (!ALLOCATION_SUPPORTED) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) THREAD_BEAN).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Takes a Snapshot of the current state of the JVM.
+     *
+     * @return the Snapshot.
+     */
+    static Snapshot start() {
+        return new Snapshot();
+    }
+
+    static long heapUsedBytes() {
+        return MEMORY_BEAN.getHeapMemoryUsage().getUsed();
+    }
+
+    static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    static long gcTimeMs() {
+        long time = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, bean.getCollectionTime());
+        }
+        return time;
+    }
+
+    private static long compilationTimeMs() {
+        if (COMPILATION_BEAN == null || !COMPILATION_BEAN.isCompilationTimeMonitoringSupported()) {
+            return -1;
+        }
+        return COMPILATION_BEAN.getTotalCompilationTime();
+    }
+
+    private static long safepoint(Method method) {
+        if (SAFEPOINT_BEAN == null) {
+            return -1;
+        }
+        try {
+            return ((Number) method.invoke(SAFEPOINT_BEAN)).longValue();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static long difference(long before, long after) {
+        return before < 0 || after < 0 ? -1 : after - before;
+    }
+
+    /**
+     * The state of the JVM at the start of a measurement.
+     */
+    static final class Snapshot {
+        private final long startNs;
+        private final long gcCount;
+        private final long gcTimeMs;
+        private final long heapUsed;
+        private final long allocatedBytes;
+        private final long compilationTimeMs;
+        private final long safepointCount;
+        private final long safepointTimeMs;
+
+        private Snapshot() {
+            this.gcCount = gcCount();
+            this.gcTimeMs = gcTimeMs();
+            this.heapUsed = MEMORY_BEAN.getHeapMemoryUsage().getUsed();
+            this.compilationTimeMs = compilationTimeMs();
+            this.safepointCount = safepoint(SAFEPOINT_COUNT);
+            this.safepointTimeMs = safepoint(SAFEPOINT_TIME);
+            this.allocatedBytes = currentThreadAllocatedBytes();
+            this.startNs = System.nanoTime();
+        }
+
+        /**
+         * Stores the differences since the start of this Snapshot in a TestCaseResult. The allocated bytes and GC
+         * time are also normalized per operation and per second; the allocated bytes per operation only if the
+         * driver stored the {@link ConcurrentBenchmarkDriver#RESULT_OPERATIONS}.
+         *
+         * @param result the TestCaseResult to store the measurements in.
+         */
+        void stop(TestCaseResult result) {
+            long durationNs = System.nanoTime() - startNs;
+            long allocatedBytes = difference(this.allocatedBytes, currentThreadAllocatedBytes());
+            long heapUsed = MEMORY_BEAN.getHeapMemoryUsage().getUsed();
+            long gcCount = gcCount() - this.gcCount;
+            long gcTimeMs = gcTimeMs() - this.gcTimeMs;
+
+            result.setGcCount(gcCount);
+            result.setGcTime(gcTimeMs);
+            result.setGcTimePerSecond(durationNs == 0 ? 0 : (gcTimeMs * 1000000000d) / durationNs);
+            result.setHeapUsedBefore(this.heapUsed);
+            result.setHeapUsedAfter(heapUsed);
+            result.setCompilationTime(difference(compilationTimeMs, compilationTimeMs()));
+            result.setSafepointCount(difference(safepointCount, safepoint(SAFEPOINT_COUNT)));
+            result.setSafepointTime(difference(safepointTimeMs, safepoint(SAFEPOINT_TIME)));
+
+            if (allocatedBytes >= 0) {
+                result.addAllocatedBytes(allocatedBytes);
+                Object operations = result.get(ConcurrentBenchmarkDriver.RESULT_OPERATIONS);
+                if (operations instanceof Number && ((Number) operations).longValue() > 0) {
+                    result.setAllocatedBytesPerOperation(
+                            (double) result.getAllocatedBytes() / ((Number) operations).longValue());
+                }
+            }
+        }
+    }
+
+    //we don't want instances.
+    private Instrumentation() {
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+/**
+ * The JMX view of the most recent {@link LiveSample} of a running TestCase. While a TestCase with a time series
+ * interval runs, it is registered as org.beachbench:type=LiveMetrics,testcase="name".
+ */
+public interface LiveMetricsMBean {
+
+    String getTestCase();
+
+    long getIteration();
+
+    boolean isWarmup();
+
+    long getElapsedMs();
+
+    long getOperations();
+
+    double getOperationsPerSecond();
+
+    double getMeanLatencyNs();
+
+    long getP50LatencyNs();
+
+    long getP99LatencyNs();
+
+    long getMaxLatencyNs();
+
+    long getHeapUsedBytes();
+
+    long getGcCount();
+
+    long getGcTimeMs();
+}
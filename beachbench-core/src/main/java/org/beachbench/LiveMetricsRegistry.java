@@ -0,0 +1,198 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the most recent {@link LiveSample} of every running TestCase and exposes it as a {@link LiveMetricsMBean}.
+ * In a forked JVM the samples are also forwarded to the parent JVM, which publishes them in its own registry.
+ *
+ * A LiveMetricsRegistry is threadsafe.
+ */
+final class LiveMetricsRegistry {
+
+    static final LiveMetricsRegistry INSTANCE = new LiveMetricsRegistry();
+
+    /**
+     * Receives every published sample, e.g. to send it to the parent JVM.
+     */
+    interface Forwarder {
+        void forward(LiveSample sample);
+    }
+
+    private final ConcurrentMap<String, LiveMetrics> metrics = new ConcurrentHashMap<String, LiveMetrics>();
+    private volatile Forwarder forwarder;
+
+    void setForwarder(Forwarder forwarder) {
+        this.forwarder = forwarder;
+    }
+
+    /**
+     * Publishes a sample; it replaces the previous sample of the same TestCase.
+     *
+     * @param sample the sample.
+     */
+    void publish(LiveSample sample) {
+        LiveMetrics liveMetrics = metrics.get(sample.getTestCase());
+        if (liveMetrics == null) {
+            liveMetrics = new LiveMetrics(sample);
+            LiveMetrics found = metrics.putIfAbsent(sample.getTestCase(), liveMetrics);
+            if (found == null) {
+                register(liveMetrics);
+            } else {
+                liveMetrics = found;
+            }
+        }
+        liveMetrics.sample = sample;
+
+        Forwarder forwarder = this.forwarder;
+        if (forwarder != null) {
+            forwarder.forward(sample);
+        }
+    }
+
+    /**
+     * Removes a TestCase that has finished.
+     *
+     * @param testCase the name of the TestCase.
+     */
+    void remove(String testCase) {
+        LiveMetrics liveMetrics = metrics.remove(testCase);
+        if (liveMetrics != null) {
+            unregister(liveMetrics);
+        }
+    }
+
+    /**
+     * Returns the most recent sample of every running TestCase.
+     *
+     * @return the samples.
+     */
+    List<LiveSample> getSamples() {
+        List<LiveSample> samples = new ArrayList<LiveSample>();
+        for (LiveMetrics liveMetrics : metrics.values()) {
+            samples.add(liveMetrics.sample);
+        }
+        return samples;
+    }
+
+    /**
+     * Returns the name a TestCase is published under: its name, or its id if it has no name.
+     *
+     * @param testCase the TestCase.
+     * @return the name.
+     */
+    static String key(TestCase testCase) {
+        return testCase.getName() == null ? testCase.getId() : testCase.getName();
+    }
+
+    static ObjectName objectName(String testCase) throws JMException {
+        return new ObjectName("org.beachbench:type=LiveMetrics,testcase=" + ObjectName.quote(testCase));
+    }
+
+    private static void register(LiveMetrics liveMetrics) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = objectName(liveMetrics.sample.getTestCase());
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new StandardMBean(liveMetrics, LiveMetricsMBean.class), name);
+            }
+        } catch (JMException ignore) {
+            // the samples are still available through the time series and the http endpoint.
+        }
+    }
+
+    private static void unregister(LiveMetrics liveMetrics) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = objectName(liveMetrics.sample.getTestCase());
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException ignore) {
+        }
+    }
+
+    private static final class LiveMetrics implements LiveMetricsMBean {
+        private volatile LiveSample sample;
+
+        private LiveMetrics(LiveSample sample) {
+            this.sample = sample;
+        }
+
+        public String getTestCase() {
+            return sample.getTestCase();
+        }
+
+        public long getIteration() {
+            return sample.getIteration();
+        }
+
+        public boolean isWarmup() {
+            return sample.isWarmup();
+        }
+
+        public long getElapsedMs() {
+            return sample.getElapsedMs();
+        }
+
+        public long getOperations() {
+            return sample.getOperations();
+        }
+
+        public double getOperationsPerSecond() {
+            return sample.getOperationsPerSecond();
+        }
+
+        public double getMeanLatencyNs() {
+            return sample.getMeanLatencyNs();
+        }
+
+        public long getP50LatencyNs() {
+            return sample.getP50LatencyNs();
+        }
+
+        public long getP99LatencyNs() {
+            return sample.getP99LatencyNs();
+        }
+
+        public long getMaxLatencyNs() {
+            return sample.getMaxLatencyNs();
+        }
+
+        public long getHeapUsedBytes() {
+            return sample.getHeapUsedBytes();
+        }
+
+        public long getGcCount() {
+            return sample.getGcCount();
+        }
+
+        public long getGcTimeMs() {
+            return sample.getGcTimeMs();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Serves the most recent {@link LiveSample} of every running TestCase as a JSON array on
+ * http://127.0.0.1:port/metrics. Only the loopback interface is bound, the endpoint is meant for the machine running
+ * the benchmark.
+ */
+final class LiveMetricsServer {
+
+    static final String PATH = "/metrics";
+
+    private final HttpServer server;
+
+    /**
+     * Starts a server.
+     *
+     * @param port the port, or 0 for any free port.
+     * @throws IOException if the port can't be bound.
+     */
+    LiveMetricsServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext(PATH, new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = toJson(LiveMetricsRegistry.INSTANCE.getSamples()).getBytes("UTF-8");
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                try {
+                    out.write(body);
+                } finally {
+                    out.close();
+                }
+            }
+        });
+        server.start();
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    void stop() {
+        server.stop(0);
+    }
+
+    static String toJson(List<LiveSample> samples) {
+        StringBuilder json = new StringBuilder("[");
+        for (LiveSample sample : samples) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("\n  {\"testCase\": ");
+            appendString(json, sample.getTestCase());
+            json.append(", \"iteration\": ").append(sample.getIteration());
+            json.append(", \"warmup\": ").append(sample.isWarmup());
+            json.append(", \"elapsedMs\": ").append(sample.getElapsedMs());
+            json.append(", \"operations\": ").append(sample.getOperations());
+            json.append(", \"operationsPerSecond\": ");
+            appendNumber(json, sample.getOperationsPerSecond());
+            json.append(", \"meanLatencyNs\": ");
+            appendNumber(json, sample.getMeanLatencyNs());
+            json.append(", \"p50LatencyNs\": ").append(sample.getP50LatencyNs());
+            json.append(", \"p99LatencyNs\": ").append(sample.getP99LatencyNs());
+            json.append(", \"maxLatencyNs\": ").append(sample.getMaxLatencyNs());
+            json.append(", \"heapUsedBytes\": ").append(sample.getHeapUsedBytes());
+            json.append(", \"gcCount\": ").append(sample.getGcCount());
+            json.append(", \"gcTimeMs\": ").append(sample.getGcTimeMs());
+            json.append('}');
+        }
+        return json.append(samples.isEmpty() ? "]" : "\n]").append('\n').toString();
+    }
+
+    private static void appendNumber(StringBuilder json, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            json.append("null");
+        } else {
+            json.append(value);
+        }
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int k = 0; k < value.length(); k++) {
+            char c = value.charAt(k);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import java.io.Serializable;
+
+/**
+ * The state of a running iteration at the end of a sampling interval, see
+ * {@link TestCase#setTimeSeriesIntervalInMilliseconds(long)}. The throughput, latencies and garbage collections are
+ * those of the interval, the operation count and heap usage those at the end of it.
+ *
+ * A LiveSample is immutable.
+ */
+public final class LiveSample implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String testCase;
+    private final long iteration;
+    private final boolean warmup;
+    private final long elapsedMs;
+    private final long operations;
+    private final double operationsPerSecond;
+    private final long latencyCount;
+    private final double meanLatencyNs;
+    private final long p50LatencyNs;
+    private final long p99LatencyNs;
+    private final long maxLatencyNs;
+    private final long heapUsedBytes;
+    private final long gcCount;
+    private final long gcTimeMs;
+
+    LiveSample(String testCase, long iteration, boolean warmup, long elapsedMs, long operations,
+               double operationsPerSecond, long latencyCount, double meanLatencyNs, long p50LatencyNs,
+               long p99LatencyNs, long maxLatencyNs, long heapUsedBytes, long gcCount, long gcTimeMs) {
+        this.testCase = testCase;
+        this.iteration = iteration;
+        this.warmup = warmup;
+        this.elapsedMs = elapsedMs;
+        this.operations = operations;
+        this.operationsPerSecond = operationsPerSecond;
+        this.latencyCount = latencyCount;
+        this.meanLatencyNs = meanLatencyNs;
+        this.p50LatencyNs = p50LatencyNs;
+        this.p99LatencyNs = p99LatencyNs;
+        this.maxLatencyNs = maxLatencyNs;
+        this.heapUsedBytes = heapUsedBytes;
+        this.gcCount = gcCount;
+        this.gcTimeMs = gcTimeMs;
+    }
+
+    /**
+     * Returns the name of the TestCase, or its id if it has no name.
+     *
+     * @return the TestCase.
+     */
+    public String getTestCase() {
+        return testCase;
+    }
+
+    public long getIteration() {
+        return iteration;
+    }
+
+    public boolean isWarmup() {
+        return warmup;
+    }
+
+    /**
+     * Returns the time since the start of the iteration.
+     *
+     * @return the elapsed time in milliseconds.
+     */
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    /**
+     * Returns the number of operations completed since the start of the iteration.
+     *
+     * @return the number of operations, or -1 if the driver doesn't count its operations.
+     */
+    public long getOperations() {
+        return operations;
+    }
+
+    /**
+     * Returns the throughput during the interval.
+     *
+     * @return the operations per second, or NaN if the driver doesn't count its operations.
+     */
+    public double getOperationsPerSecond() {
+        return operationsPerSecond;
+    }
+
+    /**
+     * Returns the number of latencies recorded during the interval.
+     *
+     * @return the number of latencies, or -1 if the driver doesn't record latencies.
+     */
+    public long getLatencyCount() {
+        return latencyCount;
+    }
+
+    public double getMeanLatencyNs() {
+        return meanLatencyNs;
+    }
+
+    public long getP50LatencyNs() {
+        return p50LatencyNs;
+    }
+
+    public long getP99LatencyNs() {
+        return p99LatencyNs;
+    }
+
+    public long getMaxLatencyNs() {
+        return maxLatencyNs;
+    }
+
+    public long getHeapUsedBytes() {
+        return heapUsedBytes;
+    }
+
+    /**
+     * Returns the number of garbage collections during the interval, summed over all collectors.
+     *
+     * @return the number of garbage collections.
+     */
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    /**
+     * Returns the time spent in garbage collections during the interval.
+     *
+     * @return the garbage collection time in milliseconds.
+     */
+    public long getGcTimeMs() {
+        return gcTimeMs;
+    }
+
+    @Override
+    public String toString() {
+        return "LiveSample{" +
+                "testCase=" + testCase +
+                ", iteration=" + iteration +
+                ", warmup=" + warmup +
+                ", elapsedMs=" + elapsedMs +
+                ", operations=" + operations +
+                ", operationsPerSecond=" + operationsPerSecond +
+                ", p99LatencyNs=" + p99LatencyNs +
+                ", heapUsedBytes=" + heapUsedBytes +
+                ", gcCount=" + gcCount +
+                '}';
+    }
+}
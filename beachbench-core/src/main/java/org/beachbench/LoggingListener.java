@@ -0,0 +1,252 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.beachbench.profile.JfrProfiler;
+import org.beachbench.profile.SamplingProfiler;
+import org.beachbench.stats.LatencyHistogram;
+import org.beachbench.stats.Summary;
+
+import java.io.PrintStream;
+
+/**
+ * A {@link BenchmarkListener} that writes the progress of a benchmark as text to a PrintStream, e.g. the console or
+ * a log file. Writing is blocking, so on its own it should only be used where the output is needed immediately; the
+ * {@link Benchmark} wraps it in an {@link AsyncListener}.
+ *
+ * In quiet mode only the start of every TestCase, the summaries, warnings and exceptions are written; the output of
+ * the individual iterations is left out.
+ */
+public class LoggingListener implements BenchmarkListener {
+
+    private static final double[] LATENCY_PERCENTILES = {50, 90, 99, 99.9, 99.99};
+    private static final String SEPARATOR = "BeachBench > -------------------------------------------------------";
+    private static final String HEAVY_SEPARATOR = "BeachBench > =======================================================";
+
+    private final PrintStream out;
+    private final boolean quiet;
+
+    /**
+     * Creates a LoggingListener.
+     *
+     * @param out the PrintStream to write to.
+     * @param quiet true if the output of the individual iterations should be left out.
+     * @throws NullPointerException if out is null.
+     */
+    public LoggingListener(PrintStream out, boolean quiet) {
+        if(out == null)throw new NullPointerException();
+        this.out = out;
+        this.quiet = quiet;
+    }
+
+    public boolean isQuiet() {
+        return quiet;
+    }
+
+    @Override
+    public void benchmarkStarted(String id, String name, int testCaseCount) {
+        out.println(String.format("BeachBench > Starting benchmark [%s] and id [%s] with a total of %s testcases", name, id, testCaseCount));
+    }
+
+    @Override
+    public void testCaseStarted(TestCase testCase, int index, int count) {
+        out.println(HEAVY_SEPARATOR);
+        out.println(String.format("BeachBench > Starting testcase [%s/%s] '%s'", index, count, testCase.getName()));
+        if (!quiet) {
+            out.println(String.format("BeachBench > Driver [%s]", testCase.getDriver().getName()));
+        }
+    }
+
+    @Override
+    public void warmupFinished(TestCase testCase, long iterations, boolean steady) {
+        if (quiet) {
+            return;
+        }
+        if (!steady) {
+            out.println(String.format("BeachBench > Warmup did not stabilize within %s iterations", iterations));
+        }
+        out.println(String.format("BeachBench > Finished warmup after %s iterations", iterations));
+    }
+
+    @Override
+    public void iterationStarted(TestCaseResult result, long maxIterations, boolean warmup) {
+        if (quiet) {
+            return;
+        }
+        TestCase testCase = result.getTestCase();
+        out.println(SEPARATOR);
+        if (warmup) {
+            out.println(String.format("BeachBench > Running warmup iteration [%s/%s] for testcase [%s]", result.getTestCaseIteration(), maxIterations, testCase.getName()));
+        } else {
+            out.println(String.format("BeachBench > Running iteration [%s/%s] for testcase [%s]", result.getTestCaseIteration(), maxIterations, testCase.getName()));
+        }
+        long durationMs = testCase.getDurationInMilliseconds();
+        if (durationMs < Long.MAX_VALUE) {
+            out.println(String.format("BeachBench > Running for %s ms", durationMs));
+        }
+    }
+
+    @Override
+    public void iterationFinished(TestCaseResult result, boolean warmup) {
+        if (quiet) {
+            return;
+        }
+        out.println(String.format("BeachBench > Testcase took %s seconds", result.getDuration() / 1000));
+        if (result.getThrown() != null) {
+            return;
+        }
+        printInstrumentation(result);
+        printTimeSeries(result);
+        printLatencies(result);
+        printProfiles(result);
+    }
+
+    @Override
+    public void exceptionThrown(TestCaseResult result, Throwable thrown) {
+        out.println(String.format("BeachBench > An exception was thrown in iteration %s of testcase [%s], continuing to the next iteration",
+                result.getTestCaseIteration(), result.getTestCase().getName()));
+        thrown.printStackTrace(out);
+    }
+
+    @Override
+    public void testCaseFinished(TestCase testCase) {
+        TestCaseSummary summary = testCase.getSummary();
+        out.println(SEPARATOR);
+        if (summary == null) {
+            out.println(String.format("BeachBench > No successful iterations to summarize for testcase '%s'", testCase.getName()));
+            return;
+        }
+
+        out.println(String.format("BeachBench > Summary of %s iterations of testcase '%s' with a %s%% confidence interval",
+                summary.getDuration().getCount(), testCase.getName(), BenchmarkUtils.format(summary.getDuration().getConfidence() * 100)));
+        printSummary("duration[ms]", summary.getDuration());
+        printSummary("operations/s", summary.getThroughput());
+        printSummary("time/op[ns]", summary.getTimePerOperation());
+        printSummary("latency mean[ns]", summary.getMeanLatency());
+        printSummary("latency p99[ns]", summary.getP99Latency());
+        printSummary("allocated/op[bytes]", summary.getAllocatedBytesPerOperation());
+        if (summary.getFailedIterationCount() > 0) {
+            out.println(String.format("BeachBench > %s iterations failed and are excluded", summary.getFailedIterationCount()));
+        }
+        if (summary.isHighVariance()) {
+            warning(String.format("high variance, the coefficient of variation exceeds %s%%",
+                    BenchmarkUtils.format(testCase.getHighVarianceThreshold() * 100)));
+        }
+    }
+
+    @Override
+    public void report(String report) {
+        out.print(report);
+    }
+
+    @Override
+    public void benchmarkFinished(String id, String name, long durationMs) {
+        out.println(HEAVY_SEPARATOR);
+        out.println(String.format("BeachBench > Benchmark [%s] completed in %s ms", name, durationMs));
+        out.flush();
+    }
+
+    @Override
+    public void message(String message) {
+        if (!quiet) {
+            out.println("BeachBench > " + message);
+        }
+    }
+
+    @Override
+    public void warning(String message) {
+        out.println("BeachBench > WARNING: " + message);
+    }
+
+    private void printInstrumentation(TestCaseResult result) {
+        out.println(String.format("BeachBench > %s garbage collections took %s ms (%s ms/s), heap used %s -> %s bytes",
+                result.getGcCount(), result.getGcTime(), BenchmarkUtils.format(result.getGcTimePerSecond()),
+                BenchmarkUtils.format(result.getHeapUsedBefore()), BenchmarkUtils.format(result.getHeapUsedAfter())));
+        if (result.getAllocatedBytes() >= 0) {
+            if (Double.isNaN(result.getAllocatedBytesPerOperation())) {
+                out.println(String.format("BeachBench > Allocated %s bytes", BenchmarkUtils.format(result.getAllocatedBytes())));
+            } else {
+                out.println(String.format("BeachBench > Allocated %s bytes (%s bytes/op)",
+                        BenchmarkUtils.format(result.getAllocatedBytes()), BenchmarkUtils.format(result.getAllocatedBytesPerOperation())));
+            }
+        }
+        if (result.getCompilationTime() >= 0) {
+            out.println(String.format("BeachBench > JIT compilation took %s ms", result.getCompilationTime()));
+        }
+        if (result.getSafepointCount() >= 0) {
+            out.println(String.format("BeachBench > %s safepoints took %s ms", result.getSafepointCount(), result.getSafepointTime()));
+        }
+    }
+
+    private void printTimeSeries(TestCaseResult result) {
+        TimeSeries timeSeries = result.getTimeSeries();
+        if (timeSeries == null || timeSeries.size() == 0) {
+            return;
+        }
+
+        LiveSample first = timeSeries.getSample(0);
+        LiveSample last = timeSeries.getSample(timeSeries.size() - 1);
+        out.println(String.format("BeachBench > %s samples, throughput %s -> %s ops/s, heap used %s -> %s bytes",
+                timeSeries.size(), BenchmarkUtils.format(first.getOperationsPerSecond()), BenchmarkUtils.format(last.getOperationsPerSecond()),
+                BenchmarkUtils.format(first.getHeapUsedBytes()), BenchmarkUtils.format(last.getHeapUsedBytes())));
+    }
+
+    private void printLatencies(TestCaseResult result) {
+        LatencyHistogram histogram = result.getLatencyHistogram();
+        if (histogram == null || histogram.getTotalCount() == 0) {
+            return;
+        }
+
+        out.println(String.format("BeachBench > Latency of %s operations in microseconds", BenchmarkUtils.format(histogram.getTotalCount())));
+        out.println(String.format("BeachBench >   %-6s %s", "min", formatMicros(histogram.getMin())));
+        out.println(String.format("BeachBench >   %-6s %s", "mean", BenchmarkUtils.format(histogram.getMean() / 1000)));
+        for (double percentile : LATENCY_PERCENTILES) {
+            out.println(String.format("BeachBench >   %-6s %s", "p" + BenchmarkUtils.format(percentile), formatMicros(histogram.getValueAtPercentile(percentile))));
+        }
+        out.println(String.format("BeachBench >   %-6s %s", "max", formatMicros(histogram.getMax())));
+    }
+
+    private void printProfiles(TestCaseResult result) {
+        Object recording = result.get(JfrProfiler.RESULT_RECORDING_FILE);
+        if (recording != null) {
+            out.println(String.format("BeachBench > Flight recording written to %s", recording));
+        }
+        Object stacks = result.get(SamplingProfiler.RESULT_COLLAPSED_STACKS_FILE);
+        if (stacks != null) {
+            out.println(String.format("BeachBench > %s stack samples written to %s", result.get(SamplingProfiler.RESULT_SAMPLE_COUNT), stacks));
+        }
+    }
+
+    private void printSummary(String name, Summary summary) {
+        if (summary == null) {
+            return;
+        }
+        out.println(String.format("BeachBench >   %-17s mean %s +/- %s, stddev %s, min %s, median %s, max %s, cv %s%%",
+                name,
+                BenchmarkUtils.format(summary.getMean()),
+                BenchmarkUtils.format(summary.getMarginOfError()),
+                BenchmarkUtils.format(summary.getStandardDeviation()),
+                BenchmarkUtils.format(summary.getMin()),
+                BenchmarkUtils.format(summary.getMedian()),
+                BenchmarkUtils.format(summary.getMax()),
+                BenchmarkUtils.format(summary.getCoefficientOfVariation() * 100)));
+    }
+
+    private static String formatMicros(long valueNs) {
+        return BenchmarkUtils.format(valueNs / 1000d);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interns the names of the properties of {@link TestCaseResult}s: every name gets a small index that is the same for
+ * all results, so a result can store its values in arrays instead of a map; see {@link MetricSlots} for how the
+ * indexes are mapped to the arrays of a single result. The number of names is bounded by the drivers, so the names
+ * are never released.
+ */
+final class MetricKeys {
+
+    private static final ConcurrentMap<String, Integer> INDEXES = new ConcurrentHashMap<String, Integer>();
+    private static volatile String[] names = new String[32];
+    private static int size;
+
+    /**
+     * Returns the index of a name, assigning a new index if the name hasn't been seen before.
+     *
+     * @param name the name of the property.
+     * @return the index.
+     * @throws NullPointerException if name is null.
+     */
+    static int indexOf(String name) {
+        Integer index = INDEXES.get(name);
+        return index == null ? register(name) : index.intValue();
+    }
+
+    /**
+     * Returns the index of a name without assigning one.
+     *
+     * @param name the name of the property.
+     * @return the index, or -1 if the name hasn't been seen before.
+     */
+    static int find(String name) {
+        Integer index = INDEXES.get(name);
+        return index == null ? -1 : index.intValue();
+    }
+
+    /**
+     * Returns the name with the given index.
+     *
+     * @param index the index.
+     * @return the name.
+     */
+    static String name(int index) {
+        return names[index];
+    }
+
+    private static synchronized int register(String name) {
+        if(name == null)throw new NullPointerException();
+
+        Integer index = INDEXES.get(name);
+        if (index != null) {
+            return index.intValue();
+        }
+
+        String[] current = names;
+        if (size == current.length) {
+            String[] grown = new String[current.length * 2];
+            System.arraycopy(current, 0, grown, 0, size);
+            current = grown;
+        }
+        current[size] = name;
+        // the name is published before its index, so a thread that finds the index also finds the name.
+        names = current;
+        INDEXES.put(name, size);
+        return size++;
+    }
+
+    //we don't want instances.
+    private MetricKeys() {
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.beachbench;
+
+import java.util.Arrays;
+
+/**
+ * Assigns the properties used by the {@link TestCaseResult}s of a single TestCase to dense slots. A result only has
+ * room for the properties of its own TestCase, instead of for every name {@link MetricKeys} interned in the JVM, so
+ * its footprint doesn't grow with the number of TestCases and drivers in a suite.
+ *
+ * A MetricSlots is threadsafe. Slots are never released; the arrays are replaced when a slot is added, which only
+ * happens the first time a TestCase uses a property.
+ */
+final class MetricSlots {
+
+    // the slot + 1 of every MetricKeys index, or 0 if the index has no slot.
+    private volatile int[] slots = new int[0];
+    // the MetricKeys index of every slot.
+    private volatile int[] keys = new int[8];
+    private volatile int size;
+
+    /**
+     * Returns the slot of a MetricKeys index without assigning one.
+     *
+     * @param key the MetricKeys index, or -1.
+     * @return the slot, or -1 if the index has no slot.
+     */
+    int find(int key) {
+        int[] slots = this.slots;
+        return key < 0 || key >= slots.length ? -1 : slots[key] - 1;
+    }
+
+    /**
+     * Returns the slot of a MetricKeys index, assigning a new slot if the index doesn't have one yet.
+     *
+     * @param key the MetricKeys index.
+     * @return the slot.
+     */
+    int slotOf(int key) {
+        int slot = find(key);
+        return slot >= 0 ? slot : register(key);
+    }
+
+    /**
+     * Returns the MetricKeys index of a slot.
+     *
+     * @param slot the slot.
+     * @return the MetricKeys index.
+     */
+    int key(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Returns the number of slots, so every slot is smaller than the size.
+     *
+     * @return the number of slots.
+     */
+    int size() {
+        return size;
+    }
+
+    private synchronized int register(int key) {
+        int slot = find(key);
+        if (slot >= 0) {
+            return slot;
+        }
+
+        slot = size;
+        int[] keys = this.keys;
+        if (slot == keys.length) {
+            keys = Arrays.copyOf(keys, slot * 2);
+        }
+        keys[slot] = key;
+        this.keys = keys;
+        size = slot + 1;
+
+        int[] slots = Arrays.copyOf(this.slots, Math.max(this.slots.length, key + 1));
+        slots[key] = slot + 1;
+        // the slots are published last, so a thread that finds the slot also finds its key.
+        this.slots = slots;
+        return slot;
+    }
+}
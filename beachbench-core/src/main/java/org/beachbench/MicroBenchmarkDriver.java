@@ -0,0 +1,140 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+/**
+ * A BenchmarkDriver for nanosecond scale operations, like a serializer or a hash lookup, where timing every single
+ * operation would mostly measure the timer.
+ *
+ * The engine calls {@link #operation()} in batches on the benchmark thread and consumes the returned value into a
+ * {@link Blackhole}. The batch size is doubled until a batch takes at least
+ * {@link TestCase#getBatchDurationInMicroseconds()}, and the overhead of the timer and of the batch loop itself,
+ * measured with an empty operation, is subtracted. Batches are executed until the driver is shut down or
+ * {@link TestCase#getOperationCountPerThread()} operations have been executed; every batch is a sample of the
+ * time/operation, which are summarized with a confidence interval.
+ */
+public abstract class MicroBenchmarkDriver extends BenchmarkDriver {
+
+    /**
+     * The TestCaseResult property containing the mean time/operation in nanoseconds, with the overhead subtracted.
+     */
+    public static final String RESULT_TIME_PER_OPERATION = "time/op[ns]";
+
+    /**
+     * The TestCaseResult property containing the margin of error of the time/operation in nanoseconds, at the
+     * {@link org.beachbench.stats.Summary#DEFAULT_CONFIDENCE} confidence level. NaN if there was a single batch.
+     */
+    public static final String RESULT_TIME_PER_OPERATION_ERROR = "time/op.error[ns]";
+
+    /**
+     * The TestCaseResult property containing the number of operations in a batch.
+     */
+    public static final String RESULT_BATCH_SIZE = "batchSize";
+
+    /**
+     * The TestCaseResult property containing the number of measured batches.
+     */
+    public static final String RESULT_BATCH_COUNT = "batchCount";
+
+    /**
+     * The TestCaseResult property containing the number of batches that were faster than the subtracted overhead,
+     * so with a negative time/operation. Many of them indicate an operation too cheap to measure.
+     */
+    public static final String RESULT_OVERCORRECTED_BATCH_COUNT = "overcorrectedBatchCount";
+
+    /**
+     * The TestCaseResult property containing the overhead of the batch loop per operation in nanoseconds.
+     */
+    public static final String RESULT_LOOP_OVERHEAD = "loopOverhead/op[ns]";
+
+    /**
+     * The TestCaseResult property containing the overhead of reading the timer in nanoseconds.
+     */
+    public static final String RESULT_TIMER_OVERHEAD = "timerOverhead[ns]";
+
+    private final Blackhole blackhole = new Blackhole();
+    private long batchSize;
+    private volatile MicroRunner runner;
+
+    /**
+     * Executes a single operation. The returned value is consumed, so it can't be eliminated by the JIT. Primitive
+     * values are boxed when returned; consume them into {@link #getBlackhole()} and return null instead if the
+     * boxing matters.
+     *
+     * @return the value computed by the operation, or null.
+     */
+    public abstract Object operation();
+
+    /**
+     * Executes the operation in batches and stores the time/operation in the TestCaseResult.
+     *
+     * @param result the TestCaseResult.
+     */
+    @Override
+    public final void run(TestCaseResult result) {
+        runner = new MicroRunner(this, result.getTestCase());
+        try {
+            runner.run(result);
+        } finally {
+            runner = null;
+        }
+    }
+
+    @Override
+    void report(TestCaseResult result, BenchmarkListener listener) {
+        MicroRunner.report(result, listener);
+    }
+
+    @Override
+    long getCompletedOperations() {
+        MicroRunner runner = this.runner;
+        return runner == null ? -1 : runner.getCompletedOperations();
+    }
+
+    /**
+     * Returns the Blackhole the values of the operations are consumed into.
+     *
+     * @return the Blackhole.
+     */
+    protected final Blackhole getBlackhole() {
+        return blackhole;
+    }
+
+    /**
+     * Returns the batch size determined in an earlier iteration, so that the iterations of a TestCase use the same
+     * batch size. The batch size is determined again when the batches turned out to be too short, which happens when
+     * it was determined before the operation was compiled.
+     *
+     * @return the batch size, or 0 if not determined yet.
+     */
+    long getBatchSize() {
+        return batchSize;
+    }
+
+    void setBatchSize(long batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    boolean isSelfTimed() {
+        return true;
+    }
+
+    boolean isShutdown() {
+        return shutdown;
+    }
+}
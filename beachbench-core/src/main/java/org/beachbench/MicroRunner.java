@@ -0,0 +1,206 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.beachbench.stats.Summary;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes a {@link MicroBenchmarkDriver} in batches on the calling thread.
+ */
+final class MicroRunner {
+
+    private static final int TIMER_CALIBRATION_CALLS = 10000;
+    private static final int LOOP_CALIBRATION_BATCHES = 20;
+    private static final long LOOP_CALIBRATION_WARMUP_OPERATIONS = 200000;
+
+    private final MicroBenchmarkDriver driver;
+    private final TestCase testCase;
+    private final long maxOperations;
+    private final long batchDurationNs;
+    private final long timedDurationNs;
+    private volatile long completedOperations;
+
+    MicroRunner(MicroBenchmarkDriver driver, TestCase testCase) {
+        if (testCase.getDurationInMilliseconds() == Long.MAX_VALUE && testCase.getOperationCountPerThread() == Long.MAX_VALUE) {
+            throw new IllegalStateException(String.format(
+                    "Testcase '%s' needs a duration or an operation count per thread, else it never completes", testCase.getName()));
+        }
+
+        this.driver = driver;
+        this.testCase = testCase;
+        this.maxOperations = testCase.getOperationCountPerThread();
+        this.batchDurationNs = testCase.getBatchDurationInMicroseconds() * 1000;
+        long durationMs = testCase.getDurationInMilliseconds();
+        this.timedDurationNs = durationMs == Long.MAX_VALUE ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(durationMs);
+    }
+
+    long getCompletedOperations() {
+        return completedOperations;
+    }
+
+    void run(TestCaseResult result) {
+        Blackhole blackhole = driver.getBlackhole();
+        double timerOverheadNs = calibrateTimer();
+        if (driver.getBatchSize() == 0) {
+            driver.setBatchSize(sizeBatch(blackhole));
+        }
+        long batchSize = driver.getBatchSize();
+        double loopOverheadNs = calibrateLoop(batchSize, blackhole, timerOverheadNs);
+
+        double[] samples = new double[64];
+        int batchCount = 0;
+        int overcorrectedBatchCount = 0;
+        long operations = 0;
+        // the measurement window starts after the sizing and calibration.
+        long startNs = System.nanoTime();
+        long deadlineNs = timedDurationNs == Long.MAX_VALUE ? Long.MAX_VALUE : startNs + timedDurationNs;
+        driver.setDeadlineNs(deadlineNs);
+        while (operations < maxOperations && System.nanoTime() < deadlineNs && !driver.isShutdown()) {
+            long batchStartNs = System.nanoTime();
+            runBatch(driver, batchSize, blackhole);
+            long batchNs = System.nanoTime() - batchStartNs;
+
+            if (batchCount == samples.length) {
+                samples = Arrays.copyOf(samples, samples.length * 2);
+            }
+            // negative samples are kept, clamping them at 0 would bias the mean upwards.
+            double sample = (batchNs - timerOverheadNs) / batchSize - loopOverheadNs;
+            if (sample < 0) {
+                overcorrectedBatchCount++;
+            }
+            samples[batchCount++] = sample;
+            operations += batchSize;
+            completedOperations = operations;
+        }
+        long durationNs = System.nanoTime() - startNs;
+
+        result.putLong(MicroBenchmarkDriver.RESULT_BATCH_SIZE, batchSize);
+        result.put(MicroBenchmarkDriver.RESULT_BATCH_COUNT, batchCount);
+        result.putDouble(MicroBenchmarkDriver.RESULT_TIMER_OVERHEAD, timerOverheadNs);
+        result.putDouble(MicroBenchmarkDriver.RESULT_LOOP_OVERHEAD, loopOverheadNs);
+        result.put(MicroBenchmarkDriver.RESULT_OVERCORRECTED_BATCH_COUNT, overcorrectedBatchCount);
+        result.putLong(ConcurrentBenchmarkDriver.RESULT_OPERATIONS, operations);
+        result.putLong(ConcurrentBenchmarkDriver.RESULT_MEASURED_DURATION, durationNs);
+        if (batchCount == 0) {
+            return;
+        }
+        if (durationNs / batchCount < batchDurationNs / 2) {
+            // the batch was sized while the operation was still slow, e.g. not yet compiled; resize next iteration.
+            driver.setBatchSize(0);
+        }
+
+        Summary timePerOperation = Summary.of(Arrays.copyOf(samples, batchCount));
+        result.putDouble(MicroBenchmarkDriver.RESULT_TIME_PER_OPERATION, timePerOperation.getMean());
+        result.putDouble(MicroBenchmarkDriver.RESULT_TIME_PER_OPERATION_ERROR, timePerOperation.getMarginOfError());
+        if (timePerOperation.getMean() > 0) {
+            result.putDouble(ConcurrentBenchmarkDriver.RESULT_OPERATIONS_PER_SECOND, 1000000000d / timePerOperation.getMean());
+        }
+    }
+
+    /**
+     * Reports the batches of an iteration, from the values stored in its TestCaseResult.
+     */
+    static void report(TestCaseResult result, BenchmarkListener listener) {
+        Object batchCount = result.get(MicroBenchmarkDriver.RESULT_BATCH_COUNT);
+        listener.message(String.format("Ran %s batches of %s operations, timer overhead %s ns, loop overhead %s ns/op",
+                batchCount, result.get(MicroBenchmarkDriver.RESULT_BATCH_SIZE),
+                BenchmarkUtils.format(result.getDouble(MicroBenchmarkDriver.RESULT_TIMER_OVERHEAD, Double.NaN)),
+                BenchmarkUtils.format(result.getDouble(MicroBenchmarkDriver.RESULT_LOOP_OVERHEAD, Double.NaN))));
+        double timePerOperation = result.getDouble(MicroBenchmarkDriver.RESULT_TIME_PER_OPERATION, Double.NaN);
+        if (Double.isNaN(timePerOperation)) {
+            // no batches were executed.
+            return;
+        }
+        listener.message(String.format("%s +/- %s ns/op", BenchmarkUtils.format(timePerOperation),
+                BenchmarkUtils.format(result.getDouble(MicroBenchmarkDriver.RESULT_TIME_PER_OPERATION_ERROR, Double.NaN))));
+        Object overcorrected = result.get(MicroBenchmarkDriver.RESULT_OVERCORRECTED_BATCH_COUNT);
+        if (((Number) overcorrected).intValue() > 0) {
+            listener.warning(String.format("%s of %s batches were faster than the subtracted overhead, the operation may be too cheap to measure",
+                    overcorrected, batchCount));
+        }
+    }
+
+    /**
+     * Doubles the batch size until a batch takes at least the batch duration.
+     */
+    private long sizeBatch(Blackhole blackhole) {
+        long batchSize = 1;
+        for (; ; ) {
+            long startNs = System.nanoTime();
+            runBatch(driver, batchSize, blackhole);
+            long batchNs = System.nanoTime() - startNs;
+            if (batchNs >= batchDurationNs || batchSize >= maxOperations / 2 || driver.isShutdown()) {
+                return batchSize;
+            }
+            batchSize *= 2;
+        }
+    }
+
+    /**
+     * Measures the cost of a System.nanoTime call, which is part of every batch measurement.
+     */
+    private static double calibrateTimer() {
+        long startNs = System.nanoTime();
+        for (int k = 0; k < TIMER_CALIBRATION_CALLS; k++) {
+            System.nanoTime();
+        }
+        return (System.nanoTime() - startNs) / (double) (TIMER_CALIBRATION_CALLS + 1);
+    }
+
+    /**
+     * Measures the time/operation of the batch loop with an empty operation. The fastest batch is taken, since the
+     * overhead can only be made larger by noise. The empty batches run in a copy of the batch loop, running them in
+     * {@link #runBatch} would make its operation call site bimorphic and compile the measured loop differently.
+     */
+    private static double calibrateLoop(long batchSize, Blackhole blackhole, double timerOverheadNs) {
+        EmptyDriver empty = new EmptyDriver();
+        // the copy of the loop isn't compiled by the sizing, so it is warmed up before it is timed.
+        for (long operations = 0; operations < LOOP_CALIBRATION_WARMUP_OPERATIONS; operations += batchSize) {
+            runEmptyBatch(empty, batchSize, blackhole);
+        }
+        double fastest = Double.MAX_VALUE;
+        for (int k = 0; k < LOOP_CALIBRATION_BATCHES; k++) {
+            long startNs = System.nanoTime();
+            runEmptyBatch(empty, batchSize, blackhole);
+            long batchNs = System.nanoTime() - startNs;
+            fastest = Math.min(fastest, Math.max(0, (batchNs - timerOverheadNs) / batchSize));
+        }
+        return fastest;
+    }
+
+    private static void runBatch(MicroBenchmarkDriver driver, long batchSize, Blackhole blackhole) {
+        for (long k = 0; k < batchSize; k++) {
+            blackhole.consume(driver.operation());
+        }
+    }
+
+    private static void runEmptyBatch(EmptyDriver driver, long batchSize, Blackhole blackhole) {
+        for (long k = 0; k < batchSize; k++) {
+            blackhole.consume(driver.operation());
+        }
+    }
+
+    private static final class EmptyDriver extends MicroBenchmarkDriver {
+        @Override
+        public Object operation() {
+            return null;
+        }
+    }
+}
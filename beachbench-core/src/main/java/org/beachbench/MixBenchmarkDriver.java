@@ -0,0 +1,210 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.beachbench.stats.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link ConcurrentBenchmarkDriver} that executes a weighted mix of named operations, e.g. 80% reads, 15% writes
+ * and 5% scans, instead of a single operation. The operations are added with
+ * {@link #addOperation(String, double, Operation)}, typically in the constructor or in {@link #setUp()}.
+ *
+ * For every call every worker thread picks an operation with its own random generator, proportional to the weights;
+ * picking an operation takes a few nanoseconds and doesn't allocate. The number of executions and a latency histogram
+ * are kept for every operation and every thread, and stored in the {@link TestCaseResult} under the keys returned by
+ * {@link #resultKey(String, String)}. The throughput of an operation is its share of the total throughput. The
+ * latencies of all operations together are stored as the latency of the result, unless the runner already measured
+ * them.
+ */
+public abstract class MixBenchmarkDriver extends ConcurrentBenchmarkDriver {
+
+    /**
+     * The prefix of the TestCaseResult properties of the individual operations.
+     */
+    public static final String RESULT_PREFIX = "mix.";
+
+    /**
+     * The property of an operation containing a {@link LatencyHistogram} with its latencies.
+     */
+    public static final String RESULT_LATENCY = "latency[ns]";
+
+    // the number of longs in front of and after the state of a worker, so states never share a cache line.
+    private static final int PADDING = 8;
+
+    /**
+     * An operation of the mix.
+     */
+    public interface Operation {
+
+        /**
+         * Executes the operation. Called concurrently by all worker threads, so it needs to be threadsafe.
+         *
+         * @param threadIndex the index of the calling worker thread.
+         */
+        void execute(int threadIndex);
+    }
+
+    private final List<String> names = new ArrayList<String>();
+    private final List<Double> weights = new ArrayList<Double>();
+    private final List<Operation> operations = new ArrayList<Operation>();
+
+    private Operation[] mix;
+    private WeightedSelector selector;
+    // per worker: the random seed at PADDING, followed by the execution count of every operation.
+    private long[][] states;
+    private LatencyHistogram[][] histograms;
+
+    /**
+     * Adds an operation to the mix. Adding an operation with the name of an operation that was added before replaces
+     * it, so operations can be added in {@link #setUp()}, which is called before every iteration.
+     *
+     * @param name the name of the operation.
+     * @param weight the relative frequency of the operation; 0 disables it.
+     * @param operation the operation.
+     * @throws NullPointerException if name or operation is null.
+     * @throws IllegalArgumentException if weight is negative or not finite.
+     */
+    protected final void addOperation(String name, double weight, Operation operation) {
+        if(name == null)throw new NullPointerException();
+        if(operation == null)throw new NullPointerException();
+        if(weight < 0 || Double.isNaN(weight) || Double.isInfinite(weight))throw new IllegalArgumentException("weight must be finite and not negative, found " + weight);
+
+        int index = names.indexOf(name);
+        if (index < 0) {
+            names.add(name);
+            weights.add(weight);
+            operations.add(operation);
+        } else {
+            weights.set(index, weight);
+            operations.set(index, operation);
+        }
+    }
+
+    /**
+     * Returns the names of the operations in the order they were added.
+     *
+     * @return the names of the operations.
+     */
+    public final List<String> getOperationNames() {
+        return new ArrayList<String>(names);
+    }
+
+    /**
+     * Returns the key of a TestCaseResult property of an operation.
+     *
+     * @param operation the name of the operation.
+     * @param property the property, e.g. {@link #RESULT_OPERATIONS}, {@link #RESULT_OPERATIONS_PER_SECOND} or
+     *                 {@link #RESULT_LATENCY}.
+     * @return the key.
+     */
+    public static String resultKey(String operation, String property) {
+        return RESULT_PREFIX + operation + "." + property;
+    }
+
+    @Override
+    public final void operation(int threadIndex) {
+        long[] state = states[threadIndex];
+        long seed = WeightedSelector.nextRandom(state[PADDING]);
+        state[PADDING] = seed;
+        int index = selector.select(seed);
+
+        long startNs = System.nanoTime();
+        mix[index].execute(threadIndex);
+        long latencyNs = System.nanoTime() - startNs;
+        histograms[threadIndex][index].record(latencyNs);
+        state[PADDING + 1 + index]++;
+    }
+
+    @Override
+    void prepareWorkers(int threadCount) {
+        super.prepareWorkers(threadCount);
+        if (operations.isEmpty()) {
+            throw new IllegalStateException(String.format("%s has no operations, add them in the constructor or in setUp",
+                    getClass().getName()));
+        }
+
+        int count = operations.size();
+        double[] weights = new double[count];
+        for (int k = 0; k < count; k++) {
+            weights[k] = this.weights.get(k);
+        }
+        selector = new WeightedSelector(weights);
+        mix = operations.toArray(new Operation[count]);
+        states = new long[threadCount][];
+        histograms = new LatencyHistogram[threadCount][];
+        for (int thread = 0; thread < threadCount; thread++) {
+            states[thread] = new long[PADDING + 1 + count + PADDING];
+            // an odd seed is never 0, which a xorshift generator can't leave.
+            states[thread][PADDING] = (System.nanoTime() + thread * 0x9E3779B97F4A7C15L) | 1;
+            histograms[thread] = new LatencyHistogram[count];
+            for (int k = 0; k < count; k++) {
+                histograms[thread][k] = new LatencyHistogram();
+            }
+        }
+    }
+
+    @Override
+    boolean copyLatencies(LatencyHistogram histogram) {
+        if (super.copyLatencies(histogram)) {
+            return true;
+        }
+        LatencyHistogram[][] histograms = this.histograms;
+        if (histograms == null) {
+            return false;
+        }
+        for (LatencyHistogram[] threadHistograms : histograms) {
+            for (LatencyHistogram operationHistogram : threadHistograms) {
+                histogram.add(operationHistogram);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    void workersFinished(TestCaseResult result) {
+        int count = mix.length;
+        long[] executions = new long[count];
+        LatencyHistogram[] latencies = new LatencyHistogram[count];
+        long total = 0;
+        for (int k = 0; k < count; k++) {
+            latencies[k] = new LatencyHistogram();
+            for (int thread = 0; thread < states.length; thread++) {
+                executions[k] += states[thread][PADDING + 1 + k];
+                latencies[k].add(histograms[thread][k]);
+            }
+            total += executions[k];
+        }
+
+        double operationsPerSecond = result.getDouble(RESULT_OPERATIONS_PER_SECOND, Double.NaN);
+        boolean measured = result.getLatencyHistogram() != null;
+        for (int k = 0; k < count; k++) {
+            String name = names.get(k);
+            result.putLong(resultKey(name, RESULT_OPERATIONS), executions[k]);
+            if (!Double.isNaN(operationsPerSecond)) {
+                double share = total == 0 ? 0 : (double) executions[k] / total;
+                result.putDouble(resultKey(name, RESULT_OPERATIONS_PER_SECOND), operationsPerSecond * share);
+            }
+            result.put(resultKey(name, RESULT_LATENCY), latencies[k]);
+            if (!measured) {
+                result.addLatencies(latencies[k]);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A counter that is written by a single thread and read by others. The value is surrounded by padding so that
+ * counters of different threads never share a cache line.
+ *
+ * A PaddedCounter is threadsafe as long as there is only a single writer.
+ */
+final class PaddedCounter extends PaddedCounterRhsPadding {
+
+    private static final AtomicLongFieldUpdater<PaddedCounterValue> UPDATER =
+            AtomicLongFieldUpdater.newUpdater(PaddedCounterValue.class, "value");
+
+    /**
+     * Sets the value of this counter. The write is ordered but not immediately visible to other threads, so it is
+     * cheap enough to be called for every operation.
+     *
+     * @param value the new value.
+     */
+    void set(long value) {
+        UPDATER.lazySet(this, value);
+    }
+
+    /**
+     * Increments this counter by one. May only be called by the owning thread.
+     */
+    void inc() {
+        UPDATER.lazySet(this, value + 1);
+    }
+
+    /**
+     * Gets the current value of this counter.
+     *
+     * @return the current value.
+     */
+    long get() {
+        return value;
+    }
+}
+
+class PaddedCounterLhsPadding {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+class PaddedCounterValue extends PaddedCounterLhsPadding {
+    protected volatile long value;
+}
+
+class PaddedCounterRhsPadding extends PaddedCounterValue {
+    protected long p9, p10, p11, p12, p13, p14, p15;
+}
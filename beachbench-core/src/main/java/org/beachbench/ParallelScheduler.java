@@ -0,0 +1,138 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.beachbench.exception.ExceptionUtils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Executes independent TestCases concurrently, each in its own forked JVM. The CPUs of the machine are divided into
+ * disjoint CPU sets and every slot executes its TestCases one after the other, pinned to its own CPU set, so
+ * TestCases that run at the same time don't compete for the same cores.
+ *
+ * Only single threaded TestCases that are not {@link TestCase#isExclusive() exclusive} should be scheduled in
+ * parallel; they still share caches, memory bandwidth and thermal headroom, which is why the {@link Benchmark}
+ * verifies a co-scheduled result against a run in isolation.
+ */
+final class ParallelScheduler {
+
+    private final List<String> cpuSets;
+    private final boolean pinned;
+    private final BenchmarkListener listener;
+    private final boolean quiet;
+    private final Map<TestCase, String> firstTestCases = Collections.synchronizedMap(new LinkedHashMap<TestCase, String>());
+
+    /**
+     * Creates a ParallelScheduler.
+     *
+     * @param parallelism the requested number of TestCases that run at the same time; limited to the number of
+     *                    CPUs.
+     * @param listener the listener of the benchmark.
+     * @param quiet true if the forked JVMs should leave out the output of the individual iterations.
+     */
+    ParallelScheduler(int parallelism, BenchmarkListener listener, boolean quiet) {
+        this.pinned = CpuAffinity.isSupported();
+        this.cpuSets = CpuAffinity.partition(CpuAffinity.availableCpus(), parallelism);
+        this.listener = listener;
+        this.quiet = quiet;
+        if (!pinned) {
+            listener.warning("taskset is not available, parallel testcases are not pinned to CPUs");
+        }
+        if (cpuSets.size() < parallelism) {
+            listener.warning(String.format("only %s CPUs available, running %s testcases in parallel instead of %s",
+                    cpuSets.size(), cpuSets.size(), parallelism));
+        }
+    }
+
+    /**
+     * Checks if a TestCase can be executed concurrently with other TestCases.
+     *
+     * @param testCase the TestCase.
+     * @return true if the TestCase is single threaded and not exclusive.
+     */
+    static boolean isParallelizable(TestCase testCase) {
+        return testCase.getThreadCount() == 1 && !testCase.isExclusive();
+    }
+
+    /**
+     * Returns the first TestCase every slot executed, with the CPU set of that slot.
+     *
+     * @return the TestCases mapped to their CPU set, which is null if CPU sets are not pinned.
+     */
+    Map<TestCase, String> getFirstTestCases() {
+        synchronized (firstTestCases) {
+            return new LinkedHashMap<TestCase, String>(firstTestCases);
+        }
+    }
+
+    /**
+     * Describes where a TestCase is executed, for the progress messages.
+     *
+     * @param cpuSet the CPU set, or null if not pinned.
+     * @return the description.
+     */
+    static String describe(String cpuSet) {
+        return cpuSet == null ? "unpinned" : String.format("on CPUs [%s]", cpuSet);
+    }
+
+    /**
+     * Executes TestCases in parallel and waits for all of them to complete.
+     *
+     * @param testCases the TestCases to execute.
+     */
+    void run(List<TestCase> testCases) {
+        final ConcurrentLinkedQueue<TestCase> pending = new ConcurrentLinkedQueue<TestCase>(testCases);
+        if (pinned) {
+            listener.message(String.format("Running %s testcases in parallel on CPU sets %s", testCases.size(), cpuSets));
+        } else {
+            listener.message(String.format("Running %s testcases in parallel, unpinned", testCases.size()));
+        }
+
+        Thread[] slots = new Thread[cpuSets.size()];
+        for (int k = 0; k < slots.length; k++) {
+            final String cpuSet = pinned ? cpuSets.get(k) : null;
+            slots[k] = new Thread("BeachBench-slot-" + k) {
+                @Override
+                public void run() {
+                    boolean first = true;
+                    for (TestCase testCase = pending.poll(); testCase != null; testCase = pending.poll()) {
+                        if (first) {
+                            firstTestCases.put(testCase, cpuSet);
+                            first = false;
+                        }
+                        listener.message(String.format("Starting testcase '%s' %s", testCase.getName(), describe(cpuSet)));
+                        new ForkedTestCaseRunner(testCase, cpuSet, listener, quiet).run();
+                    }
+                }
+            };
+            slots[k].start();
+        }
+
+        for (Thread slot : slots) {
+            try {
+                slot.join();
+            } catch (InterruptedException e) {
+                throw ExceptionUtils.wrap(e);
+            }
+        }
+    }
+}
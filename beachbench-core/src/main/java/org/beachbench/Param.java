@@ -0,0 +1,54 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a field of a {@link BenchmarkDriver} as a parameter that is set from the settings of the {@link TestCase}.
+ *
+ * As soon as a driver or one of its superclasses has a Param, only Params are set and a setting of the TestCase that
+ * is neither a built-in TestCase property nor a Param makes the benchmark fail before it starts, so a typo can't
+ * silently result in a run with the default value. Without Params, every field whose name matches a setting is set.
+ *
+ * The value of a setting is converted to the type of the field when needed, e.g. the String "16" to an int.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Param {
+
+    /**
+     * The name of the setting, by default the name of the field.
+     */
+    String value() default "";
+
+    /**
+     * The value used when the TestCase has no setting for this Param, converted like the value of a setting. An
+     * empty String keeps the value the field has been initialized with.
+     */
+    String defaultValue() default "";
+
+    /**
+     * If the TestCase must have a setting for this Param.
+     */
+    boolean required() default false;
+}
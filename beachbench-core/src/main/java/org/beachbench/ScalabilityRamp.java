@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import java.util.List;
+
+/**
+ * Runs the same {@link TestCase} at a geometric sequence of thread counts (1, 2, 4, ... by default) to find out how a
+ * {@link ConcurrentBenchmarkDriver} scales. After the benchmark has run, the {@link ScalabilityResult} contains the
+ * speedup and parallel efficiency relative to the single thread run and a Universal Scalability Law fit.
+ *
+ * A ScalabilityRamp is not threadsafe.
+ */
+public final class ScalabilityRamp {
+
+    private final Sweep sweep;
+
+    /**
+     * Creates a ScalabilityRamp that doubles the thread count up to a maximum.
+     *
+     * @param template the TestCase to ramp.
+     * @param maxThreadCount the maximum thread count.
+     */
+    public ScalabilityRamp(TestCase template, int maxThreadCount) {
+        this(template, maxThreadCount, 2);
+    }
+
+    /**
+     * Creates a ScalabilityRamp.
+     *
+     * @param template the TestCase to ramp.
+     * @param maxThreadCount the maximum thread count.
+     * @param factor the factor between 2 successive thread counts.
+     * @throws NullPointerException if template is null.
+     * @throws IllegalArgumentException if maxThreadCount is smaller than 1 or factor not larger than 1.
+     */
+    public ScalabilityRamp(TestCase template, int maxThreadCount, int factor) {
+        if(maxThreadCount < 1)throw new IllegalArgumentException("maxThreadCount must be at least 1, found " + maxThreadCount);
+        this.sweep = new Sweep(template).geometric("threadCount", 1, maxThreadCount, factor);
+    }
+
+    public TestCase getTemplate() {
+        return sweep.getTemplate();
+    }
+
+    /**
+     * Generates a TestCase for every thread count.
+     *
+     * @return the generated TestCases, ordered by thread count.
+     */
+    public List<TestCase> expand() {
+        return sweep.expand();
+    }
+}
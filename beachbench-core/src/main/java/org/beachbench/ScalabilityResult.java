@@ -0,0 +1,167 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.beachbench.stats.UniversalScalabilityLaw;
+
+import java.io.PrintStream;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The scalability of the TestCases of a {@link ScalabilityRamp}: for each thread count the mean operations/second,
+ * the speedup relative to a single thread and the parallel efficiency (speedup / thread count). If there are at
+ * least 3 thread counts, a {@link UniversalScalabilityLaw} model is fitted to estimate the contention and coherency
+ * coefficients and the thread count at which the throughput peaks.
+ *
+ * A ScalabilityResult is immutable.
+ */
+public final class ScalabilityResult {
+
+    private final String name;
+    private final int[] threadCounts;
+    private final double[] throughput;
+    private final UniversalScalabilityLaw model;
+
+    /**
+     * Analyzes the executed TestCases of a ScalabilityRamp. TestCases without a throughput are left out.
+     *
+     * @param testCases the executed TestCases.
+     * @return the result, or null if there is no single thread throughput to compare with.
+     */
+    public static ScalabilityResult of(List<TestCase> testCases) {
+        List<TestCase> measured = new LinkedList<TestCase>();
+        boolean hasSingleThread = false;
+        for (TestCase testCase : testCases) {
+            if (testCase.getSummary() != null && testCase.getSummary().getThroughput() != null) {
+                measured.add(testCase);
+                hasSingleThread |= testCase.getThreadCount() == 1;
+            }
+        }
+        if (!hasSingleThread) {
+            return null;
+        }
+        return new ScalabilityResult(measured);
+    }
+
+    private ScalabilityResult(List<TestCase> testCases) {
+        String name = testCases.get(0).getName();
+        this.name = name.substring(0, Math.max(0, name.indexOf('[')));
+        this.threadCounts = new int[testCases.size()];
+        this.throughput = new double[testCases.size()];
+        int k = 0;
+        for (TestCase testCase : testCases) {
+            threadCounts[k] = testCase.getThreadCount();
+            throughput[k] = testCase.getSummary().getThroughput().getMean();
+            k++;
+        }
+        this.model = threadCounts.length >= 3 ? UniversalScalabilityLaw.fit(threadCounts, throughput) : null;
+    }
+
+    public int[] getThreadCounts() {
+        return threadCounts.clone();
+    }
+
+    /**
+     * Returns the mean operations/second of each thread count.
+     *
+     * @return the throughput.
+     */
+    public double[] getThroughput() {
+        return throughput.clone();
+    }
+
+    /**
+     * Returns the throughput of each thread count relative to the single thread throughput.
+     *
+     * @return the speedup.
+     */
+    public double[] getSpeedup() {
+        double single = singleThreadThroughput();
+        double[] speedup = new double[throughput.length];
+        for (int k = 0; k < throughput.length; k++) {
+            speedup[k] = throughput[k] / single;
+        }
+        return speedup;
+    }
+
+    /**
+     * Returns the speedup of each thread count divided by the thread count; 1 is perfect linear scaling.
+     *
+     * @return the parallel efficiency.
+     */
+    public double[] getEfficiency() {
+        double[] efficiency = getSpeedup();
+        for (int k = 0; k < efficiency.length; k++) {
+            efficiency[k] /= threadCounts[k];
+        }
+        return efficiency;
+    }
+
+    /**
+     * Returns the fitted Universal Scalability Law model.
+     *
+     * @return the model, or null if there are less than 3 thread counts.
+     */
+    public UniversalScalabilityLaw getModel() {
+        return model;
+    }
+
+    private double singleThreadThroughput() {
+        for (int k = 0; k < threadCounts.length; k++) {
+            if (threadCounts[k] == 1) {
+                return throughput[k];
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Prints the scalability table and model.
+     *
+     * @param out the PrintStream to print to.
+     */
+    public void print(PrintStream out) {
+        double[] speedup = getSpeedup();
+        double[] efficiency = getEfficiency();
+        out.println(String.format("BeachBench > Scalability of %s", name));
+        out.println(String.format("BeachBench >   %8s %16s %8s %10s %16s", "threads", "operations/s", "speedup", "efficiency", "usl"));
+        for (int k = 0; k < threadCounts.length; k++) {
+            out.println(String.format("BeachBench >   %8s %16s %8s %10s %16s",
+                    threadCounts[k],
+                    BenchmarkUtils.format(throughput[k]),
+                    BenchmarkUtils.format(speedup[k]),
+                    BenchmarkUtils.format(efficiency[k]),
+                    model == null ? "-" : BenchmarkUtils.format(model.predict(threadCounts[k]))));
+        }
+        if (model == null) {
+            out.println("BeachBench >   At least 3 thread counts are needed to fit the Universal Scalability Law");
+            return;
+        }
+        out.println(String.format("BeachBench >   contention (sigma) %s, coherency (kappa) %s",
+                BenchmarkUtils.format(model.getSigma()), BenchmarkUtils.format(model.getKappa())));
+        double peak = model.getPeakConcurrency();
+        if (Double.isInfinite(peak)) {
+            out.println("BeachBench >   No coherency penalty measured, the throughput is not predicted to peak");
+        } else if (Double.isNaN(peak)) {
+            out.println("BeachBench >   The fitted model can't predict a peak");
+        } else {
+            out.println(String.format("BeachBench >   Predicted peak of %s operations/s at %s threads",
+                    BenchmarkUtils.format(model.predict(peak)), BenchmarkUtils.format(peak)));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+/**
+ * A {@link ConcurrentBenchmarkDriver} whose operation returns a value, which the engine consumes into the
+ * {@link Blackhole} of the worker thread. So the value can't be eliminated by the JIT, without the driver having to
+ * deal with Blackholes itself.
+ *
+ * Primitive values are boxed when returned; when that matters for a nanosecond scale operation, extend
+ * ConcurrentBenchmarkDriver and consume into {@link #getBlackhole(int)} directly.
+ */
+public abstract class SinkingBenchmarkDriver extends ConcurrentBenchmarkDriver {
+
+    /**
+     * Executes a single operation and returns its value. This method is called concurrently by all worker threads,
+     * so it needs to be threadsafe.
+     *
+     * @param threadIndex the index of the calling worker thread.
+     * @return the value computed by the operation.
+     */
+    public abstract Object compute(int threadIndex);
+
+    @Override
+    public final void operation(int threadIndex) {
+        getBlackhole(threadIndex).consume(compute(threadIndex));
+    }
+}
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.beachbench.exception.ExceptionUtils;
+import org.beachbench.store.ResultStore;
+
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Creates a {@link Benchmark} from a suite described in a properties file, so settings can be changed without
+ * recompiling. For example:
+ *
+ * <pre>
+ * benchmark.name=maps
+ * benchmark.resultDirectory=target/beachbench
+ * benchmark.regressionThreshold=0.05
+ *
+ * testcase.get.driver=com.acme.MapGetDriver
+ * testcase.get.fork=true
+ * testcase.get.warmupRunIterationCount=5
+ * testcase.get.testCaseIterationCount=10
+ * testcase.get.keys=zipfian(keys=100000, skew=0.99)
+ * testcase.get.sweep.threadCount=geometric(1,16,2)
+ * testcase.get.sweep.mapSize=1000,100000
+ *
+ * testcase.put.driver=com.acme.MapPutDriver
+ * testcase.put.ramp=16
+ * </pre>
+ *
+ * The benchmark.* properties are set on the Benchmark: name, parallelism, quiet, regressionThreshold and
+ * resultDirectory. The optional benchmark.testcases property lists the TestCases in the order they are executed,
+ * otherwise they are executed in alphabetical order.
+ *
+ * Every testcase.&lt;name&gt;.* property is either a property of the {@link TestCase}, like threadCount or jvmArgs,
+ * or a parameter of the driver, see {@link Param}. Values are converted to the type of the property or parameter.
+ * A sweep.&lt;setting&gt; property varies a setting over a comma separated list of values, a range(from,to,step) or
+ * a geometric(from,to,factor) series, see {@link Sweep}. The ramp property runs a {@link ScalabilityRamp} up to a
+ * thread count, optionally followed by the factor between two thread counts.
+ *
+ * The suite is completely validated before anything is executed; all problems are reported in one
+ * IllegalArgumentException.
+ */
+public final class SuiteLoader {
+
+    public static final String PREFIX_BENCHMARK = "benchmark.";
+    public static final String PREFIX_TESTCASE = "testcase.";
+
+    private static final String PROPERTY_TESTCASES = "testcases";
+    private static final String PROPERTY_RESULT_DIRECTORY = "resultDirectory";
+    private static final String PROPERTY_DRIVER = "driver";
+    private static final String PROPERTY_RAMP = "ramp";
+    private static final String PREFIX_SWEEP = "sweep.";
+    private static final String NO_PROPERTY = "unknown property";
+
+    private static final Pattern SERIES = Pattern.compile("(range|geometric)\\s*\\(([^,]+),([^,]+),([^,]+)\\)");
+
+    /**
+     * Loads a suite from a properties file.
+     *
+     * @param file the properties file.
+     * @return the Benchmark.
+     * @throws NullPointerException if file is null.
+     * @throws IllegalArgumentException if the suite is invalid.
+     */
+    public static Benchmark load(File file) {
+        if(file == null)throw new NullPointerException();
+
+        Properties properties = new Properties();
+        try {
+            Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+            try {
+                properties.load(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw ExceptionUtils.wrap(e);
+        }
+        return load(properties);
+    }
+
+    /**
+     * Loads a suite.
+     *
+     * @param properties the properties describing the suite.
+     * @return the Benchmark.
+     * @throws NullPointerException if properties is null.
+     * @throws IllegalArgumentException if the suite is invalid.
+     */
+    public static Benchmark load(Properties properties) {
+        if(properties == null)throw new NullPointerException();
+
+        List<String> errors = new LinkedList<String>();
+        Benchmark benchmark = new Benchmark();
+        String order = null;
+        Map<String, Map<String, String>> testCases = new TreeMap<String, Map<String, String>>();
+        for (String key : new TreeSet<String>(properties.stringPropertyNames())) {
+            String value = properties.getProperty(key);
+            if (key.startsWith(PREFIX_BENCHMARK)) {
+                String property = key.substring(PREFIX_BENCHMARK.length());
+                if (property.equals(PROPERTY_TESTCASES)) {
+                    order = value;
+                } else if (property.equals(PROPERTY_RESULT_DIRECTORY)) {
+                    benchmark.setResultStore(new ResultStore(new File(value.trim())));
+                } else {
+                    String error = setProperty(benchmark, property, value);
+                    if (error != null) {
+                        errors.add(String.format("%s: %s", key, error));
+                    }
+                }
+            } else if (key.startsWith(PREFIX_TESTCASE) && key.indexOf('.', PREFIX_TESTCASE.length()) > 0) {
+                int dot = key.indexOf('.', PREFIX_TESTCASE.length());
+                String name = key.substring(PREFIX_TESTCASE.length(), dot);
+                Map<String, String> settings = testCases.get(name);
+                if (settings == null) {
+                    settings = new TreeMap<String, String>();
+                    testCases.put(name, settings);
+                }
+                settings.put(key.substring(dot + 1), value);
+            } else {
+                errors.add(String.format("%s: unknown property, expected benchmark.* or testcase.<name>.*", key));
+            }
+        }
+
+        List<String> names = new ArrayList<String>(testCases.keySet());
+        if (order != null) {
+            names = split(order);
+            for (String name : names) {
+                if (!testCases.containsKey(name)) {
+                    errors.add(String.format("%s%s: testcase [%s] has no settings", PREFIX_BENCHMARK, PROPERTY_TESTCASES, name));
+                }
+            }
+            for (String name : testCases.keySet()) {
+                if (!names.contains(name)) {
+                    errors.add(String.format("%s%s: testcase [%s] is not listed", PREFIX_BENCHMARK, PROPERTY_TESTCASES, name));
+                }
+            }
+        }
+        if (names.isEmpty()) {
+            errors.add("the suite contains no testcases");
+        }
+
+        for (String name : names) {
+            Map<String, String> settings = testCases.get(name);
+            if (settings != null) {
+                addTestCase(benchmark, name, settings, errors);
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            StringBuilder message = new StringBuilder("Invalid benchmark suite:");
+            for (String error : errors) {
+                message.append("\n    ").append(error);
+            }
+            throw new IllegalArgumentException(message.toString());
+        }
+        return benchmark;
+    }
+
+    private static void addTestCase(Benchmark benchmark, String name, Map<String, String> settings, List<String> errors) {
+        String prefix = PREFIX_TESTCASE + name + ".";
+        TestCase testCase = new TestCase();
+        testCase.setName(name);
+
+        String driverName = settings.get(PROPERTY_DRIVER);
+        if (driverName == null) {
+            errors.add(String.format("%s%s: missing", prefix, PROPERTY_DRIVER));
+            return;
+        }
+        Class<?> driver;
+        try {
+            driver = (Class<?>) ValueConverter.convert(driverName, Class.class);
+        } catch (IllegalArgumentException e) {
+            errors.add(String.format("%s%s: %s", prefix, PROPERTY_DRIVER, e.getMessage()));
+            return;
+        }
+        if (!BenchmarkDriver.class.isAssignableFrom(driver)) {
+            errors.add(String.format("%s%s: %s is not a BenchmarkDriver", prefix, PROPERTY_DRIVER, driver.getName()));
+            return;
+        }
+        try {
+            DriverInjector.of(driver);
+        } catch (IllegalArgumentException e) {
+            errors.add(String.format("%s%s: %s", prefix, PROPERTY_DRIVER, e.getMessage()));
+            return;
+        }
+        testCase.setDriver(driver.asSubclass(BenchmarkDriver.class));
+
+        Sweep sweep = null;
+        String ramp = null;
+        for (Map.Entry<String, String> entry : settings.entrySet()) {
+            String setting = entry.getKey();
+            if (setting.equals(PROPERTY_DRIVER)) {
+                continue;
+            }
+
+            String error;
+            if (setting.equals(PROPERTY_RAMP)) {
+                ramp = entry.getValue();
+                error = null;
+            } else if (setting.startsWith(PREFIX_SWEEP)) {
+                if (sweep == null) {
+                    sweep = new Sweep(testCase);
+                }
+                error = vary(sweep, driver, setting.substring(PREFIX_SWEEP.length()), entry.getValue());
+            } else if (setter(TestCase.class, setting) != null) {
+                error = setProperty(testCase, setting, entry.getValue());
+            } else {
+                error = put(testCase, driver, setting, entry.getValue());
+            }
+            if (error != null) {
+                errors.add(String.format("%s%s: %s", prefix, setting, error));
+            }
+        }
+
+        if (sweep != null && ramp != null) {
+            errors.add(String.format("%s%s: a testcase can't have both a ramp and a sweep", prefix, PROPERTY_RAMP));
+        } else if (sweep != null) {
+            benchmark.add(sweep);
+        } else if (ramp != null) {
+            try {
+                List<String> values = split(ramp);
+                int maxThreadCount = (Integer) ValueConverter.convert(values.get(0), int.class);
+                if (values.size() == 1) {
+                    benchmark.add(new ScalabilityRamp(testCase, maxThreadCount));
+                } else if (values.size() == 2) {
+                    benchmark.add(new ScalabilityRamp(testCase, maxThreadCount, (Integer) ValueConverter.convert(values.get(1), int.class)));
+                } else {
+                    errors.add(String.format("%s%s: expected maxThreadCount[,factor]", prefix, PROPERTY_RAMP));
+                }
+            } catch (IllegalArgumentException e) {
+                errors.add(String.format("%s%s: %s", prefix, PROPERTY_RAMP, e.getMessage()));
+            }
+        } else {
+            benchmark.add(testCase);
+        }
+    }
+
+    private static String put(TestCase testCase, Class<?> driver, String setting, String value) {
+        Class<?> type = parameterType(driver, setting);
+        if (type == null) {
+            return String.format("not a TestCase property nor a parameter of %s", driver.getName());
+        }
+        try {
+            testCase.put(setting, ValueConverter.convert(value, type));
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Adds a dimension to the sweep. A TestCase property is varied under the key its setter stores it with, so the
+     * generated TestCases see the same value as when the setter was called.
+     */
+    private static String vary(Sweep sweep, Class<?> driver, String setting, String value) {
+        List<String> values;
+        try {
+            values = values(value);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+
+        Method setter = setter(TestCase.class, setting);
+        Class<?> type = setter == null ? parameterType(driver, setting) : null;
+        if (setter == null && type == null) {
+            return String.format("not a TestCase property nor a parameter of %s", driver.getName());
+        }
+
+        String key = setting;
+        List<Object> converted = new ArrayList<Object>();
+        for (String item : values) {
+            if (type != null) {
+                try {
+                    converted.add(ValueConverter.convert(item, type));
+                } catch (IllegalArgumentException e) {
+                    return e.getMessage();
+                }
+                continue;
+            }
+
+            TestCase probe = new TestCase();
+            probe.getSettings().clear();
+            String error = setProperty(probe, setting, item);
+            if (error != null) {
+                return error;
+            }
+            if (probe.getSettings().size() != 1) {
+                return "this property can't be swept";
+            }
+            Map.Entry<String, Object> entry = probe.getSettings().entrySet().iterator().next();
+            key = entry.getKey();
+            converted.add(entry.getValue());
+        }
+        sweep.vary(key, converted);
+        return null;
+    }
+
+    private static Class<?> parameterType(Class<?> driver, String setting) {
+        return DriverInjector.of(driver).getType(setting);
+    }
+
+    private static List<String> values(String value) {
+        Matcher matcher = SERIES.matcher(value.trim());
+        if (!matcher.matches()) {
+            return split(value);
+        }
+
+        long from = (Long) ValueConverter.convert(matcher.group(2), long.class);
+        long to = (Long) ValueConverter.convert(matcher.group(3), long.class);
+        long step = (Long) ValueConverter.convert(matcher.group(4), long.class);
+        Sweep series = new Sweep(new TestCase());
+        if (matcher.group(1).equals("range")) {
+            series.range("value", from, to, step);
+        } else {
+            series.geometric("value", from, to, step);
+        }
+        List<String> values = new ArrayList<String>();
+        for (Object item : series.getDimensions().get("value")) {
+            values.add(String.valueOf(item));
+        }
+        return values;
+    }
+
+    /**
+     * Calls the setter of a property.
+     *
+     * @return null if the property has been set, otherwise the reason why not.
+     */
+    private static String setProperty(Object target, String property, String value) {
+        Method setter = setter(target.getClass(), property);
+        if (setter == null) {
+            return NO_PROPERTY;
+        }
+        try {
+            setter.invoke(target, ValueConverter.convert(value, setter.getParameterTypes()[0]));
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        } catch (InvocationTargetException e) {
+            return e.getCause().getMessage();
+        } catch (IllegalAccessException e) {
+            throw ExceptionUtils.wrap(e);
+        }
+    }
+
+    /**
+     * Returns the public setter of a property.
+     *
+     * @return the setter, or null if there is none.
+     */
+    static Method setter(Class<?> clazz, String property) {
+        if (property.length() == 0) {
+            return null;
+        }
+        String name = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (Method method : clazz.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterTypes().length == 1) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private static List<String> split(String value) {
+        List<String> items = new ArrayList<String>();
+        for (String item : value.split(",")) {
+            if (item.trim().length() > 0) {
+                items.add(item.trim());
+            }
+        }
+        return items;
+    }
+
+    //we don't want instances.
+    private SuiteLoader() {
+    }
+}
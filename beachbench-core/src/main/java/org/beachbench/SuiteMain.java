@@ -0,0 +1,56 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import java.io.File;
+
+/**
+ * Runs a benchmark suite described in a properties file, see {@link SuiteLoader}. Exits with status 1 if the results
+ * have a significant regression compared with the previous run, and with status 2 if the suite is invalid.
+ *
+ * Usage: SuiteMain suite.properties
+ */
+public final class SuiteMain {
+
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: SuiteMain suite.properties");
+            System.exit(2);
+        }
+
+        File file = new File(args[0]);
+        if (!file.isFile()) {
+            System.err.println(String.format("Suite %s not found", file));
+            System.exit(2);
+        }
+
+        Benchmark benchmark;
+        try {
+            benchmark = SuiteLoader.load(file);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        benchmark.run();
+        System.exit(benchmark.getComparison() != null && benchmark.getComparison().hasRegression() ? 1 : 0);
+    }
+
+    //we don't want instances.
+    private SuiteMain() {
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.beachbench.exception.ExceptionUtils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expands a template {@link TestCase} into a matrix of TestCases, one for each combination of the values of the
+ * varied settings.
+ *
+ * <pre>
+ * Sweep sweep = new Sweep(template)
+ *         .vary("threadCount", 1, 2, 4, 8)
+ *         .geometric("batchSize", 1, 1024, 4);
+ * benchmark.add(sweep);
+ * </pre>
+ *
+ * The generated TestCases are named after the template and their parameters, e.g. "put[threadCount=4,batchSize=16]",
+ * so they are stable between runs and can be compared with a baseline. By default the full cartesian product is
+ * generated; a {@link Filter} selects a subset.
+ *
+ * A varied TestCase property is set through its setter, so an invalid value, like a threadCount of 0, fails
+ * {@link #expand()}. The other settings are parameters of the driver, which are validated when the benchmark runs.
+ *
+ * A Sweep is not threadsafe.
+ */
+public final class Sweep {
+
+    /**
+     * Selects which combinations of parameters are turned into a TestCase.
+     */
+    public interface Filter {
+
+        /**
+         * Checks if a combination of parameters should be executed.
+         *
+         * @param parameters the value of each varied setting, in declaration order.
+         * @return true if the combination should be executed.
+         */
+        boolean accept(Map<String, Object> parameters);
+    }
+
+    private final TestCase template;
+    private final Map<String, List<Object>> dimensions = new LinkedHashMap<String, List<Object>>();
+    private Filter filter;
+
+    /**
+     * Creates a Sweep.
+     *
+     * @param template the TestCase containing the settings that are not varied.
+     * @throws NullPointerException if template is null.
+     */
+    public Sweep(TestCase template) {
+        if(template == null)throw new NullPointerException();
+        this.template = template;
+    }
+
+    /**
+     * Varies a setting over a list of values.
+     *
+     * @param property the name of the setting.
+     * @param values the values.
+     * @return this Sweep.
+     * @throws NullPointerException if property or values is null.
+     * @throws IllegalArgumentException if values is empty or the setting is already varied.
+     */
+    public Sweep vary(String property, Object... values) {
+        if(values == null)throw new NullPointerException();
+        return vary(property, Arrays.asList(values));
+    }
+
+    /**
+     * Varies a setting over a list of values.
+     *
+     * @param property the name of the setting.
+     * @param values the values.
+     * @return this Sweep.
+     * @throws NullPointerException if property or values is null.
+     * @throws IllegalArgumentException if values is empty or the setting is already varied.
+     */
+    public Sweep vary(String property, List<?> values) {
+        if(property == null || values == null)throw new NullPointerException();
+        if(values.isEmpty())throw new IllegalArgumentException("No values for " + property);
+        if(dimensions.containsKey(property))throw new IllegalArgumentException(property + " is already varied");
+        dimensions.put(property, new ArrayList<Object>(values));
+        return this;
+    }
+
+    /**
+     * Varies a long setting from a value up to and including another value with a fixed step.
+     *
+     * @param property the name of the setting.
+     * @param from the first value.
+     * @param to the last value (inclusive).
+     * @param step the step between 2 values.
+     * @return this Sweep.
+     * @throws IllegalArgumentException if step is not larger than 0 or to is smaller than from.
+     */
+    public Sweep range(String property, long from, long to, long step) {
+        if(step <= 0)throw new IllegalArgumentException("step must be larger than 0, found " + step);
+        if(to < from)throw new IllegalArgumentException(String.format("to %s is smaller than from %s", to, from));
+        List<Object> values = new LinkedList<Object>();
+        for (long value = from; value <= to; value += step) {
+            values.add(value);
+        }
+        return vary(property, values);
+    }
+
+    /**
+     * Varies a long setting from a value up to and including another value by multiplying with a factor, e.g.
+     * 1, 2, 4, 8, 16.
+     *
+     * @param property the name of the setting.
+     * @param from the first value, larger than 0.
+     * @param to the maximum value (inclusive).
+     * @param factor the factor between 2 values, larger than 1.
+     * @return this Sweep.
+     * @throws IllegalArgumentException if from is not larger than 0, factor not larger than 1 or to smaller than from.
+     */
+    public Sweep geometric(String property, long from, long to, long factor) {
+        if(from <= 0)throw new IllegalArgumentException("from must be larger than 0, found " + from);
+        if(factor <= 1)throw new IllegalArgumentException("factor must be larger than 1, found " + factor);
+        if(to < from)throw new IllegalArgumentException(String.format("to %s is smaller than from %s", to, from));
+        List<Object> values = new LinkedList<Object>();
+        for (long value = from; value <= to; value *= factor) {
+            values.add(value);
+            if (value > Long.MAX_VALUE / factor) {
+                break;
+            }
+        }
+        return vary(property, values);
+    }
+
+    /**
+     * Sets the filter that selects the combinations to execute.
+     *
+     * @param filter the filter, or null to execute all combinations.
+     * @return this Sweep.
+     */
+    public Sweep filter(Filter filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    public TestCase getTemplate() {
+        return template;
+    }
+
+    /**
+     * Returns the varied settings and their values, in declaration order.
+     *
+     * @return the dimensions of this Sweep.
+     */
+    public Map<String, List<Object>> getDimensions() {
+        return Collections.unmodifiableMap(dimensions);
+    }
+
+    /**
+     * Generates a TestCase for every accepted combination of parameters. The last declared setting varies fastest.
+     *
+     * @return the generated TestCases.
+     * @throws IllegalArgumentException if a value is invalid for the TestCase property it is assigned to.
+     */
+    public List<TestCase> expand() {
+        List<TestCase> testCases = new LinkedList<TestCase>();
+        expand(new ArrayList<String>(dimensions.keySet()), 0, new LinkedHashMap<String, Object>(), testCases);
+        return testCases;
+    }
+
+    private void expand(List<String> properties, int index, LinkedHashMap<String, Object> parameters, List<TestCase> testCases) {
+        if (index == properties.size()) {
+            if (filter == null || filter.accept(Collections.unmodifiableMap(parameters))) {
+                testCases.add(newTestCase(new LinkedHashMap<String, Object>(parameters)));
+            }
+            return;
+        }
+
+        String property = properties.get(index);
+        for (Object value : dimensions.get(property)) {
+            parameters.put(property, value);
+            expand(properties, index + 1, parameters, testCases);
+        }
+        parameters.remove(property);
+    }
+
+    private TestCase newTestCase(LinkedHashMap<String, Object> parameters) {
+        TestCase testCase = template.copy();
+        StringBuilder name = new StringBuilder(template.getName() == null ? "" : template.getName()).append('[');
+        boolean first = true;
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            apply(testCase, parameter.getKey(), parameter.getValue());
+            if (!first) {
+                name.append(',');
+            }
+            name.append(parameter.getKey()).append('=').append(parameter.getValue());
+            first = false;
+        }
+        testCase.setName(name.append(']').toString());
+        testCase.setParameters(parameters);
+        return testCase;
+    }
+
+    private static void apply(TestCase testCase, String property, Object value) {
+        Method setter = SuiteLoader.setter(TestCase.class, property);
+        if (setter == null) {
+            testCase.put(property, value);
+            return;
+        }
+
+        Class<?> type = setter.getParameterTypes()[0];
+        try {
+            if (type.isArray() && value instanceof Collection) {
+                // e.g. the jvm arguments, which the setter takes as an array but stores as a list.
+                Collection<?> items = (Collection<?>) value;
+                Object array = Array.newInstance(type.getComponentType(), items.size());
+                int k = 0;
+                for (Object item : items) {
+                    Array.set(array, k++, ValueConverter.coerce(item, type.getComponentType()));
+                }
+                value = array;
+            }
+            setter.invoke(testCase, ValueConverter.coerce(value, type));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Invalid value %s for %s: %s", value, property, e.getMessage()), e);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IllegalArgumentException) {
+                throw new IllegalArgumentException(String.format("Invalid value %s for %s: %s", value, property, cause.getMessage()), cause);
+            }
+            throw ExceptionUtils.wrap(cause);
+        } catch (IllegalAccessException e) {
+            throw ExceptionUtils.wrap(e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.beachbench.stats.Summary;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prints the results of the TestCases generated by a {@link Sweep} as a matrix. The values of the last varied
+ * setting are the columns, the combinations of the other settings are the rows. Each cell contains the mean
+ * operations/second if the driver reports it, and else the mean duration in milliseconds.
+ */
+public final class SweepMatrix {
+
+    /**
+     * Prints the matrix.
+     *
+     * @param out the PrintStream to print to.
+     * @param testCases the executed TestCases generated by a single Sweep.
+     */
+    public static void print(PrintStream out, List<TestCase> testCases) {
+        if (testCases.isEmpty() || testCases.get(0).getParameters().isEmpty()) {
+            return;
+        }
+
+        List<String> properties = new ArrayList<String>(testCases.get(0).getParameters().keySet());
+        String columnProperty = properties.get(properties.size() - 1);
+        List<String> rowProperties = properties.subList(0, properties.size() - 1);
+
+        String metric = null;
+        Set<String> columns = new LinkedHashSet<String>();
+        Map<String, Map<String, String>> rows = new LinkedHashMap<String, Map<String, String>>();
+        for (TestCase testCase : testCases) {
+            Map<String, Object> parameters = testCase.getParameters();
+            StringBuilder row = new StringBuilder();
+            for (String property : rowProperties) {
+                if (row.length() > 0) {
+                    row.append(',');
+                }
+                row.append(property).append('=').append(parameters.get(property));
+            }
+            String column = String.valueOf(parameters.get(columnProperty));
+            columns.add(column);
+
+            Map<String, String> cells = rows.get(row.toString());
+            if (cells == null) {
+                cells = new LinkedHashMap<String, String>();
+                rows.put(row.toString(), cells);
+            }
+
+            TestCaseSummary summary = testCase.getSummary();
+            if (summary == null) {
+                cells.put(column, "failed");
+                continue;
+            }
+            Summary value = summary.getThroughput() == null ? summary.getDuration() : summary.getThroughput();
+            if (metric == null) {
+                metric = summary.getThroughput() == null ? "duration[ms]" : "operations/s";
+            }
+            cells.put(column, BenchmarkUtils.format(value.getMean()));
+        }
+
+        int rowWidth = 0;
+        for (String row : rows.keySet()) {
+            rowWidth = Math.max(rowWidth, row.length());
+        }
+        int cellWidth = columnProperty.length() + 1;
+        for (String column : columns) {
+            cellWidth = Math.max(cellWidth, columnProperty.length() + column.length() + 1);
+        }
+        for (Map<String, String> cells : rows.values()) {
+            for (String cell : cells.values()) {
+                cellWidth = Math.max(cellWidth, cell.length());
+            }
+        }
+
+        String name = testCases.get(0).getName();
+        out.println(String.format("BeachBench > Sweep matrix of %s in %s",
+                metric == null ? "results" : metric, name.substring(0, Math.max(0, name.indexOf('[')))));
+        StringBuilder header = new StringBuilder(pad("", rowWidth));
+        for (String column : columns) {
+            header.append("  ").append(pad(columnProperty + "=" + column, cellWidth));
+        }
+        out.println("BeachBench >   " + header);
+        for (Map.Entry<String, Map<String, String>> row : rows.entrySet()) {
+            StringBuilder line = new StringBuilder(pad(row.getKey(), rowWidth));
+            for (String column : columns) {
+                String cell = row.getValue().get(column);
+                line.append("  ").append(pad(cell == null ? "-" : cell, cellWidth));
+            }
+            out.println("BeachBench >   " + line);
+        }
+    }
+
+    private static String pad(String value, int width) {
+        StringBuilder sb = new StringBuilder(width);
+        for (int k = value.length(); k < width; k++) {
+            sb.append(' ');
+        }
+        return sb.append(value).toString();
+    }
+
+    //we don't want instances.
+    private SweepMatrix() {
+    }
+}
@@ -1,9 +1,17 @@
 package org.beachbench;
 
+import org.beachbench.profile.Profiler;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static java.util.UUID.randomUUID;
 
@@ -23,10 +31,45 @@ public class TestCase {
     private static final String PROPERTY_TESTCASENAME = "testcasename";
     private static final String PROPERTY_DRIVER = "driver";
     private static final String NAME_DURATION = "durationInSeconds";
+    // the only stored duration, so setting either duration replaces the other.
+    private static final String PROPERTY_DURATION_MS = "durationInMilliseconds";
     private static final String PROPERTY_ID = "id";
+    private static final String PROPERTY_THREAD_COUNT = "threadCount";
+    private static final String PROPERTY_OPERATION_COUNT_PER_THREAD = "operationCountPerThread";
+    private static final String PROPERTY_RECORD_LATENCY = "recordLatency";
+    private static final String PROPERTY_TARGET_OPERATIONS_PER_SECOND = "targetOperationsPerSecond";
+    private static final String PROPERTY_FORK = "fork";
+    private static final String PROPERTY_EXCLUSIVE = "exclusive";
+    private static final String PROPERTY_ADAPTIVE_WARMUP = "adaptiveWarmup";
+    private static final String PROPERTY_WARMUP_TOLERANCE = "warmupTolerance";
+    private static final String PROPERTY_WARMUP_WINDOW = "warmupWindow";
+    private static final String PROPERTY_WARMUP_WAIT_FOR_JIT = "warmupWaitForJit";
+    private static final String PROPERTY_HIGH_VARIANCE_THRESHOLD = "highVarianceThreshold";
+    private static final String PROPERTY_SAMPLE_DIRECTORY = "sampleDirectory";
+    private static final String PROPERTY_PARAMETERS = "parameters";
+    private static final String PROPERTY_JVM_ARGS = "jvmArgs";
+    private static final String PROPERTY_CLASS_PATH = "classPath";
+    private static final String PROPERTY_PROFILERS = "profilers";
+    private static final String PROPERTY_BATCH_DURATION = "batchDurationInMicroseconds";
+    private static final String PROPERTY_PROFILE_DIRECTORY = "profileDirectory";
+    private static final String PROPERTY_TIME_SERIES_INTERVAL = "timeSeriesIntervalInMilliseconds";
+
+    // the settings that are used by BeachBench itself, as opposed to the parameters of a driver.
+    private static final Set<String> BUILT_IN_PROPERTIES = new HashSet<String>(Arrays.asList(
+            PROPERTY_TEST_CASE_ITERATION_COUNT, PROPERTY_WARMUP_RUN_ITERATION_COUNT, PROPERTY_TESTCASENAME,
+            PROPERTY_DRIVER, NAME_DURATION, PROPERTY_DURATION_MS,
+            PROPERTY_ID, PROPERTY_THREAD_COUNT, PROPERTY_OPERATION_COUNT_PER_THREAD,
+            PROPERTY_RECORD_LATENCY, PROPERTY_TARGET_OPERATIONS_PER_SECOND, PROPERTY_FORK,
+            PROPERTY_EXCLUSIVE, PROPERTY_ADAPTIVE_WARMUP, PROPERTY_WARMUP_TOLERANCE,
+            PROPERTY_WARMUP_WINDOW, PROPERTY_WARMUP_WAIT_FOR_JIT, PROPERTY_HIGH_VARIANCE_THRESHOLD,
+            PROPERTY_SAMPLE_DIRECTORY, PROPERTY_PARAMETERS, PROPERTY_JVM_ARGS,
+            PROPERTY_CLASS_PATH, PROPERTY_PROFILERS, PROPERTY_BATCH_DURATION,
+            PROPERTY_PROFILE_DIRECTORY, PROPERTY_TIME_SERIES_INTERVAL));
 
     private final Map<String, Object> settings = new HashMap<String, Object>();
-    private final List<TestCaseResult> results = new LinkedList<TestCaseResult>();
+    private final List<TestCaseResult> results = new ArrayList<TestCaseResult>();
+    private final MetricSlots metricSlots = new MetricSlots();
+    private TestCaseSummary summary;
 
     /***
      * Creates a TestCase.
@@ -36,6 +79,72 @@ public class TestCase {
         setTestCaseIterationCount(1L);
         setWarmupRunIterationCount(1L);
         setDurationInSeconds(Long.MAX_VALUE);
+        setThreadCount(1);
+        setOperationCountPerThread(Long.MAX_VALUE);
+        setRecordLatency(false);
+        setTargetOperationsPerSecond(0);
+        setFork(false);
+        setExclusive(false);
+        setJvmArgs();
+        setAdaptiveWarmup(false);
+        setWarmupTolerance(0.05);
+        setWarmupWindow(3);
+        setWarmupWaitForJit(true);
+        setHighVarianceThreshold(0.02);
+        setProfilers();
+        setProfileDirectory(".");
+        setBatchDurationInMicroseconds(1000);
+        setTimeSeriesIntervalInMilliseconds(0);
+    }
+
+    /**
+     * Creates a copy of this TestCase with a new id. The results and summary are not copied. Collections and arrays
+     * in the settings, like the jvm arguments, are copied as well, so changing them in the copy doesn't change this
+     * TestCase.
+     *
+     * @return the copy.
+     */
+    public TestCase copy() {
+        TestCase copy = new TestCase();
+        for (Map.Entry<String, Object> entry : settings.entrySet()) {
+            if (!entry.getKey().equals(PROPERTY_ID)) {
+                copy.settings.put(entry.getKey(), copyValue(entry.getValue()));
+            }
+        }
+        return copy;
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<Object>();
+            for (Object item : (List<?>) value) {
+                copy.add(copyValue(item));
+            }
+            return copy;
+        }
+        if (value instanceof Set) {
+            Set<Object> copy = new LinkedHashSet<Object>();
+            for (Object item : (Set<?>) value) {
+                copy.add(copyValue(item));
+            }
+            return copy;
+        }
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<Object, Object>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(entry.getKey(), copyValue(entry.getValue()));
+            }
+            return copy;
+        }
+        if (value != null && value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+            for (int k = 0; k < length; k++) {
+                Array.set(copy, k, copyValue(Array.get(value, k)));
+            }
+            return copy;
+        }
+        return value;
     }
 
     /**
@@ -52,6 +161,30 @@ public class TestCase {
      */
     public void clearResults() {
         results.clear();
+        summary = null;
+    }
+
+    /**
+     * Returns the slots of the properties used by the results of this TestCase.
+     *
+     * @return the MetricSlots.
+     */
+    MetricSlots getMetricSlots() {
+        return metricSlots;
+    }
+
+    /**
+     * Returns the statistical summary of the results. The summary is created by the benchmark once all iterations
+     * of this TestCase have been executed.
+     *
+     * @return the summary, or null if not available.
+     */
+    public TestCaseSummary getSummary() {
+        return summary;
+    }
+
+    public void setSummary(TestCaseSummary summary) {
+        this.summary = summary;
     }
 
     /**
@@ -97,6 +230,16 @@ public class TestCase {
         return settings;
     }
 
+    /**
+     * Checks if a setting is used by BeachBench itself, like threadCount, instead of being a parameter of a driver.
+     *
+     * @param property the name of the setting.
+     * @return true if the setting is built in.
+     */
+    static boolean isBuiltIn(String property) {
+        return BUILT_IN_PROPERTIES.contains(property);
+    }
+
     /**
      * Returns the id that uniquely identifies this TestCase.
      *
@@ -113,7 +256,7 @@ public class TestCase {
      * @return thd duration in seconds.
      */
     public long getDurationInSeconds() {
-         return (Long) settings.get(NAME_DURATION);
+        return toSeconds(getDurationInMilliseconds());
     }
 
     /**
@@ -122,7 +265,33 @@ public class TestCase {
      * @param duration the duration in seconds.
      */
     public void setDurationInSeconds(long duration) {
-        this.settings.put(NAME_DURATION, duration);
+        this.settings.put(PROPERTY_DURATION_MS, duration >= Long.MAX_VALUE / 1000 ? Long.MAX_VALUE : duration * 1000);
+    }
+
+    /**
+     * Returns the duration this testcase should be executed in milliseconds. Long.MAX_VALUE indicates that there is
+     * no bound on the duration.
+     *
+     * @return the duration in milliseconds.
+     */
+    public long getDurationInMilliseconds() {
+        return ((Number) settings.get(PROPERTY_DURATION_MS)).longValue();
+    }
+
+    /**
+     * Sets the duration this testcase should be executed in milliseconds, for iterations shorter than a second or
+     * not a whole number of seconds. The duration in seconds is rounded up.
+     *
+     * @param duration the duration in milliseconds.
+     * @throws IllegalArgumentException if duration is smaller than 1.
+     */
+    public void setDurationInMilliseconds(long duration) {
+        if(duration < 1)throw new IllegalArgumentException("duration must be at least 1, found " + duration);
+        this.settings.put(PROPERTY_DURATION_MS, duration);
+    }
+
+    private static long toSeconds(long milliseconds) {
+        return milliseconds == Long.MAX_VALUE ? Long.MAX_VALUE : (milliseconds + 999) / 1000;
     }
 
     /**
@@ -164,21 +333,394 @@ public class TestCase {
      * @return the warmup run iteration count.
      */
     public long getWarmupRunIterationCount() {
-        return (Long) settings.get(PROPERTY_WARMUP_RUN_ITERATION_COUNT);
+        return ((Number) settings.get(PROPERTY_WARMUP_RUN_ITERATION_COUNT)).longValue();
     }
 
+    /**
+     * Sets the warmup run iteration count. With an adaptive warmup, this is the maximum number of warmup iterations.
+     *
+     * @param iterations the warmup run iteration count.
+     */
     public void setWarmupRunIterationCount(long iterations) {
         settings.put(PROPERTY_WARMUP_RUN_ITERATION_COUNT, iterations);
     }
 
+    /**
+     * Checks if the warmup is adaptive. An adaptive warmup stops as soon as the last {@link #getWarmupWindow()}
+     * warmup iterations are within {@link #getWarmupTolerance()} of each other, instead of always executing
+     * {@link #getWarmupRunIterationCount()} iterations.
+     *
+     * @return true if the warmup is adaptive.
+     */
+    public boolean isAdaptiveWarmup() {
+        return (Boolean) settings.get(PROPERTY_ADAPTIVE_WARMUP);
+    }
+
+    public void setAdaptiveWarmup(boolean adaptiveWarmup) {
+        settings.put(PROPERTY_ADAPTIVE_WARMUP, adaptiveWarmup);
+    }
+
+    /**
+     * Returns the maximum difference between the slowest and the fastest iteration of the warmup window, relative to
+     * their mean, for the warmup to be considered stable.
+     *
+     * @return the tolerance, e.g. 0.05 for 5%.
+     */
+    public double getWarmupTolerance() {
+        return ((Number) settings.get(PROPERTY_WARMUP_TOLERANCE)).doubleValue();
+    }
+
+    /**
+     * Sets the tolerance of an adaptive warmup.
+     *
+     * @param tolerance the tolerance, e.g. 0.05 for 5%.
+     * @throws IllegalArgumentException if tolerance is not larger than 0.
+     */
+    public void setWarmupTolerance(double tolerance) {
+        if(!(tolerance > 0))throw new IllegalArgumentException("tolerance must be larger than 0, found " + tolerance);
+        settings.put(PROPERTY_WARMUP_TOLERANCE, tolerance);
+    }
+
+    /**
+     * Returns the number of successive warmup iterations that need to be within the tolerance.
+     *
+     * @return the warmup window.
+     */
+    public int getWarmupWindow() {
+        return ((Number) settings.get(PROPERTY_WARMUP_WINDOW)).intValue();
+    }
+
+    /**
+     * Sets the number of successive warmup iterations that need to be within the tolerance.
+     *
+     * @param window the warmup window.
+     * @throws IllegalArgumentException if window is smaller than 2.
+     */
+    public void setWarmupWindow(int window) {
+        if(window < 2)throw new IllegalArgumentException("window must be at least 2, found " + window);
+        settings.put(PROPERTY_WARMUP_WINDOW, window);
+    }
+
+    /**
+     * Checks if an adaptive warmup also waits for the JIT compiler to go quiet.
+     *
+     * @return true if the warmup waits for the JIT compiler.
+     */
+    public boolean isWarmupWaitForJit() {
+        return (Boolean) settings.get(PROPERTY_WARMUP_WAIT_FOR_JIT);
+    }
+
+    public void setWarmupWaitForJit(boolean waitForJit) {
+        settings.put(PROPERTY_WARMUP_WAIT_FOR_JIT, waitForJit);
+    }
+
     public long getTestCaseIterationCount() {
-        return (Long) settings.get(PROPERTY_TEST_CASE_ITERATION_COUNT);
+        return ((Number) settings.get(PROPERTY_TEST_CASE_ITERATION_COUNT)).longValue();
     }
 
     public void setTestCaseIterationCount(long iterations) {
         settings.put(PROPERTY_TEST_CASE_ITERATION_COUNT, iterations);
     }
 
+    /**
+     * Returns the number of worker threads a {@link ConcurrentBenchmarkDriver} is executed with.
+     *
+     * @return the number of threads.
+     */
+    public int getThreadCount() {
+        return ((Number) settings.get(PROPERTY_THREAD_COUNT)).intValue();
+    }
+
+    /**
+     * Sets the number of worker threads a {@link ConcurrentBenchmarkDriver} is executed with.
+     *
+     * @param threadCount the number of threads.
+     * @throws IllegalArgumentException if threadCount is smaller than 1.
+     */
+    public void setThreadCount(int threadCount) {
+        if(threadCount < 1)throw new IllegalArgumentException("threadCount must be at least 1, found " + threadCount);
+        settings.put(PROPERTY_THREAD_COUNT, threadCount);
+    }
+
+    /**
+     * Returns the maximum number of operations each worker thread of a {@link ConcurrentBenchmarkDriver} executes.
+     * Long.MAX_VALUE indicates that there is no bound and the workers run until the driver is shut down.
+     *
+     * @return the number of operations per thread.
+     */
+    public long getOperationCountPerThread() {
+        return ((Number) settings.get(PROPERTY_OPERATION_COUNT_PER_THREAD)).longValue();
+    }
+
+    /**
+     * Sets the maximum number of operations each worker thread of a {@link ConcurrentBenchmarkDriver} executes.
+     *
+     * @param operationCount the number of operations per thread.
+     * @throws IllegalArgumentException if operationCount is smaller than 1.
+     */
+    public void setOperationCountPerThread(long operationCount) {
+        if(operationCount < 1)throw new IllegalArgumentException("operationCount must be at least 1, found " + operationCount);
+        settings.put(PROPERTY_OPERATION_COUNT_PER_THREAD, operationCount);
+    }
+
+    /**
+     * Checks if a {@link ConcurrentBenchmarkDriver} records the latency of every operation.
+     *
+     * @return true if latencies are recorded.
+     */
+    public boolean isRecordLatency() {
+        return (Boolean) settings.get(PROPERTY_RECORD_LATENCY);
+    }
+
+    /**
+     * Sets if a {@link ConcurrentBenchmarkDriver} records the latency of every operation. Recording costs two
+     * System.nanoTime calls per operation, so for operations of a few nanoseconds it should be left disabled.
+     *
+     * @param recordLatency true if latencies should be recorded.
+     */
+    public void setRecordLatency(boolean recordLatency) {
+        settings.put(PROPERTY_RECORD_LATENCY, recordLatency);
+    }
+
+    /**
+     * Returns the total number of operations/second a {@link ConcurrentBenchmarkDriver} is executed with. 0 indicates
+     * that the driver runs closed-loop, as fast as it can.
+     *
+     * @return the target operations/second.
+     */
+    public double getTargetOperationsPerSecond() {
+        return ((Number) settings.get(PROPERTY_TARGET_OPERATIONS_PER_SECOND)).doubleValue();
+    }
+
+    /**
+     * Sets the total number of operations/second a {@link ConcurrentBenchmarkDriver} is executed with. The rate is
+     * divided evenly over the worker threads. If a rate is set, latencies are always recorded.
+     *
+     * @param operationsPerSecond the target operations/second, or 0 to run closed-loop.
+     * @throws IllegalArgumentException if operationsPerSecond is negative.
+     */
+    public void setTargetOperationsPerSecond(double operationsPerSecond) {
+        if(operationsPerSecond < 0)throw new IllegalArgumentException("operationsPerSecond can't be negative, found " + operationsPerSecond);
+        settings.put(PROPERTY_TARGET_OPERATIONS_PER_SECOND, operationsPerSecond);
+    }
+
+    /**
+     * Checks if this TestCase is executed in a fresh child JVM instead of the JVM running the benchmark.
+     *
+     * @return true if the TestCase is executed in a forked JVM.
+     */
+    public boolean isFork() {
+        return (Boolean) settings.get(PROPERTY_FORK);
+    }
+
+    /**
+     * Sets if this TestCase is executed in a fresh child JVM, so that the JIT profiles, loaded classes and heap state
+     * of other TestCases can't influence it. If a TestCase is forked, all its settings need to be Serializable.
+     *
+     * @param fork true if the TestCase should be executed in a forked JVM.
+     */
+    public void setFork(boolean fork) {
+        settings.put(PROPERTY_FORK, fork);
+    }
+
+    /**
+     * Checks if this TestCase needs the machine for itself, so it is never executed in parallel with other
+     * TestCases, even if it is single threaded.
+     *
+     * @return true if the TestCase is exclusive.
+     */
+    public boolean isExclusive() {
+        return (Boolean) settings.get(PROPERTY_EXCLUSIVE);
+    }
+
+    public void setExclusive(boolean exclusive) {
+        settings.put(PROPERTY_EXCLUSIVE, exclusive);
+    }
+
+    /**
+     * Returns the arguments passed to the forked JVM, e.g. -Xmx1g or -XX:+UseG1GC.
+     *
+     * @return the JVM arguments.
+     */
+    public List<String> getJvmArgs() {
+        return (List<String>) settings.get(PROPERTY_JVM_ARGS);
+    }
+
+    /**
+     * Sets the arguments passed to the forked JVM. They are only used when the TestCase is forked.
+     *
+     * @param jvmArgs the JVM arguments.
+     * @throws NullPointerException if jvmArgs is null.
+     */
+    public void setJvmArgs(String... jvmArgs) {
+        if(jvmArgs == null)throw new NullPointerException();
+        settings.put(PROPERTY_JVM_ARGS, new ArrayList<String>(Arrays.asList(jvmArgs)));
+    }
+
+    /**
+     * Returns the class path of the forked JVM.
+     *
+     * @return the class path, or null if the forked JVM gets the class path of this JVM.
+     */
+    public String getClassPath() {
+        return (String) settings.get(PROPERTY_CLASS_PATH);
+    }
+
+    /**
+     * Sets the class path of the forked JVM, for when the driver is not on the class path of this JVM, e.g. when it
+     * is loaded by a build tool. The class path needs to contain BeachBench itself as well.
+     *
+     * @param classPath the class path, or null if the forked JVM gets the class path of this JVM.
+     */
+    public void setClassPath(String classPath) {
+        settings.put(PROPERTY_CLASS_PATH, classPath);
+    }
+
+    /**
+     * Returns the coefficient of variation above which the iterations of this TestCase are flagged as high variance.
+     *
+     * @return the threshold, e.g. 0.02 for 2%.
+     */
+    public double getHighVarianceThreshold() {
+        return ((Number) settings.get(PROPERTY_HIGH_VARIANCE_THRESHOLD)).doubleValue();
+    }
+
+    public void setHighVarianceThreshold(double threshold) {
+        if(threshold < 0)throw new IllegalArgumentException("threshold can't be negative, found " + threshold);
+        settings.put(PROPERTY_HIGH_VARIANCE_THRESHOLD, threshold);
+    }
+
+    /**
+     * Returns the directory a {@link ConcurrentBenchmarkDriver} writes the start time and latency of every operation
+     * to, one {@link org.beachbench.io.SampleLog} file per iteration.
+     *
+     * @return the sample directory, or null if no samples are written.
+     */
+    public String getSampleDirectory() {
+        return (String) settings.get(PROPERTY_SAMPLE_DIRECTORY);
+    }
+
+    /**
+     * Sets the directory a {@link ConcurrentBenchmarkDriver} writes the samples of every operation to. Writing
+     * samples implies recording latencies.
+     *
+     * @param sampleDirectory the sample directory, or null if no samples should be written.
+     */
+    public void setSampleDirectory(String sampleDirectory) {
+        settings.put(PROPERTY_SAMPLE_DIRECTORY, sampleDirectory);
+    }
+
+    /**
+     * Returns the interval at which running iterations are sampled, see
+     * {@link #setTimeSeriesIntervalInMilliseconds(long)}.
+     *
+     * @return the interval in milliseconds, or 0 if iterations are not sampled.
+     */
+    public long getTimeSeriesIntervalInMilliseconds() {
+        return ((Number) settings.get(PROPERTY_TIME_SERIES_INTERVAL)).longValue();
+    }
+
+    /**
+     * Sets the interval at which running iterations are sampled. Every interval the throughput, latencies, heap usage
+     * and garbage collections are added to the {@link TimeSeries} of the {@link TestCaseResult} and published as
+     * {@link LiveSample}, through JMX and, if enabled, the http endpoint of the {@link Benchmark}. This shows long
+     * iterations while they run, and a throughput decay or memory leak that the average of an iteration hides.
+     *
+     * @param interval the interval in milliseconds, or 0 to not sample iterations.
+     * @throws IllegalArgumentException if interval is negative.
+     */
+    public void setTimeSeriesIntervalInMilliseconds(long interval) {
+        if(interval < 0)throw new IllegalArgumentException("interval can't be negative, found " + interval);
+        settings.put(PROPERTY_TIME_SERIES_INTERVAL, interval);
+    }
+
+    /**
+     * Returns the minimum duration of a batch of a {@link MicroBenchmarkDriver}.
+     *
+     * @return the batch duration in microseconds.
+     */
+    public long getBatchDurationInMicroseconds() {
+        return ((Number) settings.get(PROPERTY_BATCH_DURATION)).longValue();
+    }
+
+    /**
+     * Sets the minimum duration of a batch of a {@link MicroBenchmarkDriver}. The longer a batch, the smaller the
+     * relative error caused by the timer, but the fewer samples an iteration has.
+     *
+     * @param batchDurationInMicroseconds the batch duration in microseconds.
+     * @throws IllegalArgumentException if batchDurationInMicroseconds is smaller than 1.
+     */
+    public void setBatchDurationInMicroseconds(long batchDurationInMicroseconds) {
+        if(batchDurationInMicroseconds < 1)throw new IllegalArgumentException(
+                "batchDurationInMicroseconds must be at least 1, found " + batchDurationInMicroseconds);
+        settings.put(PROPERTY_BATCH_DURATION, batchDurationInMicroseconds);
+    }
+
+    /**
+     * Returns the Profilers that are started and stopped around every benchmark iteration.
+     *
+     * @return the Profiler classes.
+     */
+    public List<Class<? extends Profiler>> getProfilers() {
+        List<Class<? extends Profiler>> profilers = new ArrayList<Class<? extends Profiler>>();
+        for (Object profiler : (List<?>) settings.get(PROPERTY_PROFILERS)) {
+            profilers.add(((Class<?>) profiler).asSubclass(Profiler.class));
+        }
+        return profilers;
+    }
+
+    /**
+     * Sets the Profilers that are started and stopped around every benchmark iteration. Warmup iterations are not
+     * profiled.
+     *
+     * @param profilers the Profiler classes.
+     * @throws NullPointerException if profilers is null.
+     */
+    @SafeVarargs
+    public final void setProfilers(Class<? extends Profiler>... profilers) {
+        if(profilers == null)throw new NullPointerException();
+        List<Class<? extends Profiler>> list = new ArrayList<Class<? extends Profiler>>(profilers.length);
+        for (Class<? extends Profiler> profiler : profilers) {
+            list.add(profiler);
+        }
+        settings.put(PROPERTY_PROFILERS, list);
+    }
+
+    /**
+     * Returns the directory the Profilers write their output to.
+     *
+     * @return the profile directory.
+     */
+    public String getProfileDirectory() {
+        return (String) settings.get(PROPERTY_PROFILE_DIRECTORY);
+    }
+
+    /**
+     * Sets the directory the Profilers write their output to.
+     *
+     * @param profileDirectory the profile directory.
+     * @throws NullPointerException if profileDirectory is null.
+     */
+    public void setProfileDirectory(String profileDirectory) {
+        if(profileDirectory == null)throw new NullPointerException();
+        settings.put(PROPERTY_PROFILE_DIRECTORY, profileDirectory);
+    }
+
+    /**
+     * Returns the parameters of a TestCase that was generated by a {@link Sweep}: the settings that have been varied,
+     * in the order they have been declared.
+     *
+     * @return the parameters, or an empty map if this TestCase isn't generated by a Sweep.
+     */
+    public Map<String, Object> getParameters() {
+        Map<String, Object> parameters = (Map<String, Object>) settings.get(PROPERTY_PARAMETERS);
+        return parameters == null ? new LinkedHashMap<String, Object>() : parameters;
+    }
+
+    void setParameters(LinkedHashMap<String, Object> parameters) {
+        settings.put(PROPERTY_PARAMETERS, parameters);
+    }
+
     @Override
     public String toString(){
         return "TestCase"+settings.toString();
@@ -1,14 +1,26 @@
 package org.beachbench;
 
+import org.beachbench.stats.LatencyHistogram;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import static java.util.UUID.randomUUID;
 
 /**
  * Contains the result of a TestCase execution. Essentially it is a key/value map so that it can store any kind of result.
  *
+ * The values are not stored in a map: the names are interned by {@link MetricKeys}, every name used by the results of
+ * a TestCase gets a slot in its {@link MetricSlots}, and longs, ints and doubles are stored unboxed in an array
+ * indexed by slot, so recording results hardly creates garbage during a benchmark. {@link #getProperties()}
+ * is a map view of the values.
+ *
  * TestCaseResult is not threadsafe.
  *
  * @author Peter Veentjer.
@@ -22,9 +34,58 @@ public class TestCaseResult {
     private static final String PROPERTY_END = "end";
     private static final String PROPERTY_DURATION = "duration[ms]";
     private static final String PROPERTY_DATE = "date";
+    private static final String PROPERTY_LATENCY = "latency[ns]";
+    private static final String PROPERTY_DURATION_NS = "duration[ns]";
+    private static final String PROPERTY_WARMUP_ITERATION_COUNT = "warmupIterationCount";
+    private static final String PROPERTY_GC_COUNT = "gc.count";
+    private static final String PROPERTY_GC_TIME = "gc.time[ms]";
+    private static final String PROPERTY_GC_TIME_PER_SECOND = "gc.time/s[ms]";
+    private static final String PROPERTY_HEAP_USED_BEFORE = "heap.before[bytes]";
+    private static final String PROPERTY_HEAP_USED_AFTER = "heap.after[bytes]";
+    private static final String PROPERTY_ALLOCATED_BYTES = "allocated[bytes]";
+    private static final String PROPERTY_ALLOCATED_BYTES_PER_OPERATION = "allocated/op[bytes]";
+    private static final String PROPERTY_COMPILATION_TIME = "compilation.time[ms]";
+    private static final String PROPERTY_SAFEPOINT_COUNT = "safepoint.count";
+    private static final String PROPERTY_SAFEPOINT_TIME = "safepoint.time[ms]";
+    private static final String PROPERTY_TIME_SERIES = "timeSeries";
+
+    // the types of the values; a long, int or double is stored in the values array, anything else in objects.
+    private static final byte ABSENT = 0;
+    private static final byte LONG = 1;
+    private static final byte INT = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte OBJECT = 4;
+
+    private static final int ID = MetricKeys.indexOf(PROPERTY_ID);
+    private static final int TEST_CASE_ITERATION = MetricKeys.indexOf(PROPERTY_TEST_CASE_ITERATION);
+    private static final int THROWN = MetricKeys.indexOf(PROPERTY_THROWN);
+    private static final int START = MetricKeys.indexOf(PROPERTY_START);
+    private static final int END = MetricKeys.indexOf(PROPERTY_END);
+    private static final int DURATION = MetricKeys.indexOf(PROPERTY_DURATION);
+    private static final int DATE = MetricKeys.indexOf(PROPERTY_DATE);
+    private static final int LATENCY = MetricKeys.indexOf(PROPERTY_LATENCY);
+    private static final int DURATION_NS = MetricKeys.indexOf(PROPERTY_DURATION_NS);
+    private static final int WARMUP_ITERATION_COUNT = MetricKeys.indexOf(PROPERTY_WARMUP_ITERATION_COUNT);
+    private static final int GC_COUNT = MetricKeys.indexOf(PROPERTY_GC_COUNT);
+    private static final int GC_TIME = MetricKeys.indexOf(PROPERTY_GC_TIME);
+    private static final int GC_TIME_PER_SECOND = MetricKeys.indexOf(PROPERTY_GC_TIME_PER_SECOND);
+    private static final int HEAP_USED_BEFORE = MetricKeys.indexOf(PROPERTY_HEAP_USED_BEFORE);
+    private static final int HEAP_USED_AFTER = MetricKeys.indexOf(PROPERTY_HEAP_USED_AFTER);
+    private static final int ALLOCATED_BYTES = MetricKeys.indexOf(PROPERTY_ALLOCATED_BYTES);
+    private static final int ALLOCATED_BYTES_PER_OPERATION = MetricKeys.indexOf(PROPERTY_ALLOCATED_BYTES_PER_OPERATION);
+    private static final int COMPILATION_TIME = MetricKeys.indexOf(PROPERTY_COMPILATION_TIME);
+    private static final int SAFEPOINT_COUNT = MetricKeys.indexOf(PROPERTY_SAFEPOINT_COUNT);
+    private static final int SAFEPOINT_TIME = MetricKeys.indexOf(PROPERTY_SAFEPOINT_TIME);
+    private static final int TIME_SERIES = MetricKeys.indexOf(PROPERTY_TIME_SERIES);
 
     private final TestCase testCase;
-    private final Map<String, Object> properties = new HashMap<String, Object>();
+    private final MetricSlots slots;
+    // the properties, indexed by their slot in the MetricSlots of the TestCase.
+    private byte[] types;
+    private long[] values;
+    private Object[] objects;
+    private int size;
+    private Map<String, Object> properties;
 
     /**
      * Creates a new TestCaseResult.
@@ -35,7 +96,31 @@ public class TestCaseResult {
     public TestCaseResult(TestCase testCase) {
         if(testCase == null)throw new NullPointerException();
         this.testCase = testCase;
-        put(PROPERTY_ID, randomUUID().toString());
+        MetricSlots slots = testCase.getMetricSlots();
+        // a TestCase that wasn't constructed, e.g. a mock, has no slots; the result then has slots of its own.
+        this.slots = slots == null ? new MetricSlots() : slots;
+        // created up front, so reading a result never changes it.
+        put(ID, randomUUID().toString());
+    }
+
+    private TestCaseResult(TestCaseResult result) {
+        this.testCase = result.testCase;
+        this.slots = result.slots;
+        this.types = result.types == null ? null : result.types.clone();
+        this.values = result.values == null ? null : result.values.clone();
+        this.objects = result.objects == null ? null : result.objects.clone();
+        this.size = result.size;
+    }
+
+    /**
+     * Returns a copy of this TestCaseResult that isn't affected when this one changes afterwards, so it can be read
+     * by another thread while this one is still being written. The values are copied, the objects they refer to, e.g.
+     * a LatencyHistogram, are shared.
+     *
+     * @return the copy.
+     */
+    TestCaseResult snapshot() {
+        return new TestCaseResult(this);
     }
 
     /**
@@ -45,7 +130,8 @@ public class TestCaseResult {
      * @return the value, or null of nothing is found.
      */
     public Object get(String name) {
-        return properties.get(name);
+        int index = MetricKeys.find(name);
+        return index < 0 ? null : get(index);
     }
 
     /**
@@ -57,7 +143,149 @@ public class TestCaseResult {
      */
     public void put(String name, Object value) {
         if(name == null)throw new NullPointerException();
-        properties.put(name, value);
+        put(MetricKeys.indexOf(name), value);
+    }
+
+    /**
+     * Sets a long property without boxing it. {@link #get(String)} returns the value as a Long.
+     *
+     * @param name the name of the property
+     * @param value the value of the property.
+     * @throws NullPointerException if name is null.
+     */
+    public void putLong(String name, long value) {
+        if(name == null)throw new NullPointerException();
+        putPrimitive(MetricKeys.indexOf(name), LONG, value);
+    }
+
+    /**
+     * Sets a double property without boxing it. {@link #get(String)} returns the value as a Double.
+     *
+     * @param name the name of the property
+     * @param value the value of the property.
+     * @throws NullPointerException if name is null.
+     */
+    public void putDouble(String name, double value) {
+        if(name == null)throw new NullPointerException();
+        putPrimitive(MetricKeys.indexOf(name), DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Gets a numeric property as a double without boxing it.
+     *
+     * @param name the name of the property.
+     * @param defaultValue the value returned if the property doesn't exist or isn't a Number.
+     * @return the value.
+     */
+    public double getDouble(String name, double defaultValue) {
+        int index = MetricKeys.find(name);
+        byte type = type(index);
+        int slot = slots.find(index);
+        switch (type) {
+            case LONG:
+            case INT:
+                return values[slot];
+            case DOUBLE:
+                return Double.longBitsToDouble(values[slot]);
+            case OBJECT:
+                return objects[slot] instanceof Number ? ((Number) objects[slot]).doubleValue() : defaultValue;
+            default:
+                return defaultValue;
+        }
+    }
+
+    private byte type(int index) {
+        return typeOfSlot(slots.find(index));
+    }
+
+    private byte typeOfSlot(int slot) {
+        return slot < 0 || types == null || slot >= types.length ? ABSENT : types[slot];
+    }
+
+    private Object get(int index) {
+        byte type = type(index);
+        int slot = slots.find(index);
+        switch (type) {
+            case LONG:
+                return values[slot];
+            case INT:
+                return (int) values[slot];
+            case DOUBLE:
+                return Double.longBitsToDouble(values[slot]);
+            case OBJECT:
+                return objects[slot];
+            default:
+                return null;
+        }
+    }
+
+    private long getLong(int index) {
+        return type(index) == LONG ? values[slots.find(index)] : ((Long) get(index)).longValue();
+    }
+
+    private double getDouble(int index) {
+        return type(index) == DOUBLE ? Double.longBitsToDouble(values[slots.find(index)]) : ((Double) get(index)).doubleValue();
+    }
+
+    private void put(int index, Object value) {
+        if (value instanceof Long) {
+            putPrimitive(index, LONG, (Long) value);
+        } else if (value instanceof Integer) {
+            putPrimitive(index, INT, (Integer) value);
+        } else if (value instanceof Double) {
+            putPrimitive(index, DOUBLE, Double.doubleToRawLongBits((Double) value));
+        } else {
+            int slot = slots.slotOf(index);
+            ensureCapacity(slot);
+            if (objects == null) {
+                objects = new Object[types.length];
+            }
+            if (types[slot] == ABSENT) {
+                size++;
+            }
+            types[slot] = OBJECT;
+            objects[slot] = value;
+        }
+    }
+
+    private void putPrimitive(int index, byte type, long value) {
+        int slot = slots.slotOf(index);
+        ensureCapacity(slot);
+        if (types[slot] == ABSENT) {
+            size++;
+        } else if (types[slot] == OBJECT) {
+            objects[slot] = null;
+        }
+        types[slot] = type;
+        values[slot] = value;
+    }
+
+    private void remove(int index) {
+        removeSlot(slots.find(index));
+    }
+
+    private void removeSlot(int slot) {
+        if (typeOfSlot(slot) == ABSENT) {
+            return;
+        }
+        if (types[slot] == OBJECT) {
+            objects[slot] = null;
+        }
+        types[slot] = ABSENT;
+        size--;
+    }
+
+    private void ensureCapacity(int slot) {
+        if (types != null && slot < types.length) {
+            return;
+        }
+        // the other results of the TestCase most likely use the same properties, so room is made for all of them.
+        int length = Math.max(slot + 1, slots.size());
+        types = types == null ? new byte[length] : Arrays.copyOf(types, length);
+        values = values == null ? new long[length] : Arrays.copyOf(values, length);
+        if (objects != null) {
+            objects = Arrays.copyOf(objects, length);
+        }
     }
 
     /**
@@ -70,71 +298,378 @@ public class TestCaseResult {
     }
 
     public String getId() {
-        return (String)get(PROPERTY_ID);
+        return (String) get(ID);
     }
 
     public long getTestCaseIteration() {
-        return ((Long)get(PROPERTY_TEST_CASE_ITERATION)).longValue();
+        return getLong(TEST_CASE_ITERATION);
     }
 
     public void setTestCaseIteration(long testCaseIteration) {
-        put(PROPERTY_TEST_CASE_ITERATION, testCaseIteration);
+        putPrimitive(TEST_CASE_ITERATION, LONG, testCaseIteration);
     }
 
     public Throwable getThrown() {
-        return (Throwable)get(PROPERTY_THROWN);
+        return (Throwable) get(THROWN);
     }
 
     public void setThrown(Throwable thrown) {
-        put(PROPERTY_THROWN, thrown);
+        put(THROWN, thrown);
     }
 
     public long getStart() {
-        return ((Long)get(PROPERTY_START)).longValue();
+        return getLong(START);
     }
 
     public void setStart(long start) {
-        put(PROPERTY_START, start);
+        putPrimitive(START, LONG, start);
     }
 
     public long getEnd() {
-        return ((Long)get(PROPERTY_END)).longValue();
+        return getLong(END);
     }
 
     public void setEnd(long end) {
-        put(PROPERTY_END, end);
+        putPrimitive(END, LONG, end);
     }
 
     public long getDuration() {
-        return ((Long)get(PROPERTY_DURATION)).longValue();
+        return getLong(DURATION);
     }
 
     public void setDuration(long duration) {
-        put(PROPERTY_DURATION, duration);
+        putPrimitive(DURATION, LONG, duration);
+    }
+
+    public long getDurationNs() {
+        return getLong(DURATION_NS);
+    }
+
+    public void setDurationNs(long durationNs) {
+        putPrimitive(DURATION_NS, LONG, durationNs);
+    }
+
+    /**
+     * Returns the number of warmup iterations that were executed before this TestCaseResult was measured. With an
+     * adaptive warmup this can be less than {@link TestCase#getWarmupRunIterationCount()}.
+     *
+     * @return the number of warmup iterations.
+     */
+    public long getWarmupIterationCount() {
+        return getLong(WARMUP_ITERATION_COUNT);
+    }
+
+    public void setWarmupIterationCount(long warmupIterationCount) {
+        putPrimitive(WARMUP_ITERATION_COUNT, LONG, warmupIterationCount);
+    }
+
+    /**
+     * Returns the number of garbage collections while the driver was running, summed over all collectors.
+     *
+     * @return the number of garbage collections.
+     */
+    public long getGcCount() {
+        return getLong(GC_COUNT);
+    }
+
+    public void setGcCount(long gcCount) {
+        putPrimitive(GC_COUNT, LONG, gcCount);
+    }
+
+    /**
+     * Returns the accumulated time in milliseconds spent in garbage collections while the driver was running. For
+     * concurrent collectors this is not necessarily a pause.
+     *
+     * @return the garbage collection time.
+     */
+    public long getGcTime() {
+        return getLong(GC_TIME);
+    }
+
+    public void setGcTime(long gcTime) {
+        putPrimitive(GC_TIME, LONG, gcTime);
+    }
+
+    /**
+     * Returns the garbage collection time in milliseconds per second the driver was running.
+     *
+     * @return the normalized garbage collection time.
+     */
+    public double getGcTimePerSecond() {
+        return getDouble(GC_TIME_PER_SECOND);
+    }
+
+    public void setGcTimePerSecond(double gcTimePerSecond) {
+        putPrimitive(GC_TIME_PER_SECOND, DOUBLE, Double.doubleToRawLongBits(gcTimePerSecond));
+    }
+
+    public long getHeapUsedBefore() {
+        return getLong(HEAP_USED_BEFORE);
+    }
+
+    public void setHeapUsedBefore(long heapUsedBefore) {
+        putPrimitive(HEAP_USED_BEFORE, LONG, heapUsedBefore);
+    }
+
+    public long getHeapUsedAfter() {
+        return getLong(HEAP_USED_AFTER);
+    }
+
+    public void setHeapUsedAfter(long heapUsedAfter) {
+        putPrimitive(HEAP_USED_AFTER, LONG, heapUsedAfter);
+    }
+
+    /**
+     * Returns the number of bytes allocated while the driver was running.
+     *
+     * @return the allocated bytes, or -1 if they were not measured.
+     */
+    public long getAllocatedBytes() {
+        return type(ALLOCATED_BYTES) == ABSENT ? -1 : getLong(ALLOCATED_BYTES);
+    }
+
+    public void setAllocatedBytes(long allocatedBytes) {
+        putPrimitive(ALLOCATED_BYTES, LONG, allocatedBytes);
+    }
+
+    /**
+     * Adds bytes allocated by a thread to the allocated bytes of this TestCaseResult. Drivers that run on multiple
+     * threads should add the allocations of each thread once the threads completed.
+     *
+     * @param allocatedBytes the bytes to add.
+     */
+    public void addAllocatedBytes(long allocatedBytes) {
+        setAllocatedBytes(Math.max(0, getAllocatedBytes()) + allocatedBytes);
+    }
+
+    /**
+     * Returns the number of allocated bytes per operation.
+     *
+     * @return the allocated bytes per operation, or NaN if the allocations or the operations were not measured.
+     */
+    public double getAllocatedBytesPerOperation() {
+        return type(ALLOCATED_BYTES_PER_OPERATION) == ABSENT ? Double.NaN : getDouble(ALLOCATED_BYTES_PER_OPERATION);
+    }
+
+    public void setAllocatedBytesPerOperation(double allocatedBytesPerOperation) {
+        putPrimitive(ALLOCATED_BYTES_PER_OPERATION, DOUBLE, Double.doubleToRawLongBits(allocatedBytesPerOperation));
+    }
+
+    /**
+     * Returns the time in milliseconds the JIT compiler spent while the driver was running.
+     *
+     * @return the compilation time, or -1 if not supported by the JVM.
+     */
+    public long getCompilationTime() {
+        return getLong(COMPILATION_TIME);
+    }
+
+    public void setCompilationTime(long compilationTime) {
+        putPrimitive(COMPILATION_TIME, LONG, compilationTime);
+    }
+
+    /**
+     * Returns the number of safepoints while the driver was running.
+     *
+     * @return the number of safepoints, or -1 if not supported by the JVM.
+     */
+    public long getSafepointCount() {
+        return getLong(SAFEPOINT_COUNT);
+    }
+
+    public void setSafepointCount(long safepointCount) {
+        putPrimitive(SAFEPOINT_COUNT, LONG, safepointCount);
+    }
+
+    /**
+     * Returns the time in milliseconds spent in safepoints while the driver was running.
+     *
+     * @return the safepoint time, or -1 if not supported by the JVM.
+     */
+    public long getSafepointTime() {
+        return getLong(SAFEPOINT_TIME);
+    }
+
+    public void setSafepointTime(long safepointTime) {
+        putPrimitive(SAFEPOINT_TIME, LONG, safepointTime);
+    }
+
+    /**
+     * Gets the samples taken while this iteration was running, or null if the TestCase has no time series interval.
+     *
+     * @return the TimeSeries or null.
+     */
+    public TimeSeries getTimeSeries() {
+        return (TimeSeries) get(TIME_SERIES);
+    }
+
+    public void setTimeSeries(TimeSeries timeSeries) {
+        put(TIME_SERIES, timeSeries);
     }
 
     public Date getDate() {
-        return (Date)get(PROPERTY_DATE);
+        return (Date) get(DATE);
     }
 
     public void setDate(Date date) {
-        put(PROPERTY_DATE, date);
+        put(DATE, date);
+    }
+
+    /**
+     * Gets the latencies recorded for this TestCaseResult, or null if no latencies were recorded.
+     *
+     * @return the LatencyHistogram or null.
+     */
+    public LatencyHistogram getLatencyHistogram() {
+        return (LatencyHistogram) get(LATENCY);
+    }
+
+    public void setLatencyHistogram(LatencyHistogram latencyHistogram) {
+        put(LATENCY, latencyHistogram);
+    }
+
+    /**
+     * Adds the latencies in a histogram to the latencies of this TestCaseResult. Drivers that record latencies on
+     * multiple threads, should give each thread its own LatencyHistogram and add them once the threads completed.
+     *
+     * @param latencies the latencies to add.
+     * @throws NullPointerException if latencies is null.
+     */
+    public void addLatencies(LatencyHistogram latencies) {
+        if(latencies == null)throw new NullPointerException();
+        LatencyHistogram histogram = getLatencyHistogram();
+        if (histogram == null) {
+            setLatencyHistogram(latencies.copy());
+        } else {
+            histogram.add(latencies);
+        }
     }
 
     /***
-     * Gets all the properties stored in this TestCaseResult.
+     * Gets all the properties stored in this TestCaseResult. The map is a view, changes to the map are changes to
+     * this TestCaseResult and vice versa.
      *
      * @return the properties.
      */
     public Map<String, Object> getProperties() {
+        if (properties == null) {
+            properties = new PropertiesView();
+        }
         return properties;
     }
 
+    /**
+     * The map view of the properties.
+     */
+    private final class PropertiesView extends AbstractMap<String, Object> {
+
+        @Override
+        public Object get(Object name) {
+            return name instanceof String ? TestCaseResult.this.get((String) name) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object name) {
+            return name instanceof String && type(MetricKeys.find((String) name)) != ABSENT;
+        }
+
+        @Override
+        public Object put(String name, Object value) {
+            Object previous = TestCaseResult.this.get(name);
+            TestCaseResult.this.put(name, value);
+            return previous;
+        }
+
+        @Override
+        public Object remove(Object name) {
+            if (!(name instanceof String)) {
+                return null;
+            }
+            int index = MetricKeys.find((String) name);
+            Object previous = index < 0 ? null : TestCaseResult.this.get(index);
+            TestCaseResult.this.remove(index);
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new PropertiesIterator();
+                }
+
+                @Override
+                public int size() {
+                    return PropertiesView.this.size();
+                }
+            };
+        }
+    }
+
+    private final class PropertiesIterator implements Iterator<Map.Entry<String, Object>> {
+        private int next = advance(0);
+        private int last = -1;
+
+        private int advance(int slot) {
+            while (types != null && slot < types.length && types[slot] == ABSENT) {
+                slot++;
+            }
+            return slot;
+        }
+
+        public boolean hasNext() {
+            return types != null && next < types.length;
+        }
+
+        public Map.Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = advance(next + 1);
+            return new PropertyEntry(TestCaseResult.this, MetricKeys.name(slots.key(last)), get(slots.key(last)));
+        }
+
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            removeSlot(last);
+            last = -1;
+        }
+    }
+
+    /**
+     * An entry of the map view; setting its value sets the property of the result.
+     */
+    private static final class PropertyEntry extends AbstractMap.SimpleEntry<String, Object> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient TestCaseResult result;
+
+        PropertyEntry(TestCaseResult result, String name, Object value) {
+            super(name, value);
+            this.result = result;
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            result.put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
     @Override
     public String toString() {
         return "TestCaseResult{" +
                 "testCase=" + testCase +
-                ", properties=" + properties +
+                ", properties=" + getProperties() +
                 '}';
     }
 }
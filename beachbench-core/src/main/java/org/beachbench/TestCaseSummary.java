@@ -0,0 +1,210 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.beachbench.stats.LatencyHistogram;
+import org.beachbench.stats.Summary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A statistical summary of the benchmark iterations of a {@link TestCase}. Only iterations that didn't throw an
+ * exception are taken into account.
+ *
+ * The throughput is only available if the driver stores the
+ * {@link ConcurrentBenchmarkDriver#RESULT_OPERATIONS_PER_SECOND} and the latencies are only available if the
+ * driver records a {@link LatencyHistogram}.
+ *
+ * A TestCaseSummary is immutable.
+ */
+public final class TestCaseSummary {
+
+    private final TestCase testCase;
+    private final int failedIterationCount;
+    private final Summary duration;
+    private final Summary throughput;
+    private final Summary meanLatency;
+    private final Summary p99Latency;
+    private final Summary allocatedBytesPerOperation;
+    private final Summary timePerOperation;
+    private final boolean highVariance;
+
+    /**
+     * Creates the summary of the results of a TestCase.
+     *
+     * @param testCase the TestCase.
+     * @return the summary, or null if no iteration completed successfully.
+     * @throws NullPointerException if testCase is null.
+     */
+    public static TestCaseSummary of(TestCase testCase) {
+        if(testCase == null)throw new NullPointerException();
+
+        List<TestCaseResult> successful = new ArrayList<TestCaseResult>();
+        for (TestCaseResult result : testCase.getResults()) {
+            if (result.getThrown() == null) {
+                successful.add(result);
+            }
+        }
+        if (successful.isEmpty()) {
+            return null;
+        }
+        return new TestCaseSummary(testCase, successful);
+    }
+
+    private TestCaseSummary(TestCase testCase, List<TestCaseResult> results) {
+        this.testCase = testCase;
+        this.failedIterationCount = testCase.getResults().size() - results.size();
+
+        double[] durations = new double[results.size()];
+        double[] throughputs = new double[results.size()];
+        double[] meanLatencies = new double[results.size()];
+        double[] p99Latencies = new double[results.size()];
+        double[] allocations = new double[results.size()];
+        double[] timesPerOperation = new double[results.size()];
+        boolean hasThroughput = true;
+        boolean hasLatency = true;
+        boolean hasAllocations = true;
+        boolean hasTimePerOperation = true;
+        int k = 0;
+        for (TestCaseResult result : results) {
+            durations[k] = result.getDurationNs() / 1000000d;
+
+            throughputs[k] = result.getDouble(ConcurrentBenchmarkDriver.RESULT_OPERATIONS_PER_SECOND, Double.NaN);
+            hasThroughput &= !Double.isNaN(throughputs[k]);
+
+            LatencyHistogram histogram = result.getLatencyHistogram();
+            if (histogram != null && histogram.getTotalCount() > 0) {
+                meanLatencies[k] = histogram.getMean();
+                p99Latencies[k] = histogram.getValueAtPercentile(99);
+            } else {
+                hasLatency = false;
+            }
+
+            allocations[k] = result.getAllocatedBytesPerOperation();
+            hasAllocations &= !Double.isNaN(allocations[k]);
+
+            timesPerOperation[k] = result.getDouble(MicroBenchmarkDriver.RESULT_TIME_PER_OPERATION, Double.NaN);
+            hasTimePerOperation &= !Double.isNaN(timesPerOperation[k]);
+            k++;
+        }
+
+        this.duration = Summary.of(durations);
+        this.throughput = hasThroughput ? Summary.of(throughputs) : null;
+        this.meanLatency = hasLatency ? Summary.of(meanLatencies) : null;
+        this.p99Latency = hasLatency ? Summary.of(p99Latencies) : null;
+        this.allocatedBytesPerOperation = hasAllocations ? Summary.of(allocations) : null;
+        this.timePerOperation = hasTimePerOperation ? Summary.of(timesPerOperation) : null;
+
+        Summary primary = throughput == null ? duration : throughput;
+        this.highVariance = primary.getCount() > 1
+                && primary.getCoefficientOfVariation() > testCase.getHighVarianceThreshold();
+    }
+
+    public TestCase getTestCase() {
+        return testCase;
+    }
+
+    /**
+     * Returns the number of iterations that threw an exception and are not part of this summary.
+     *
+     * @return the number of failed iterations.
+     */
+    public int getFailedIterationCount() {
+        return failedIterationCount;
+    }
+
+    /**
+     * Returns the summary of the iteration durations in milliseconds.
+     *
+     * @return the duration summary.
+     */
+    public Summary getDuration() {
+        return duration;
+    }
+
+    /**
+     * Returns the summary of the operations/second of the iterations.
+     *
+     * @return the throughput summary, or null if not available.
+     */
+    public Summary getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * Returns the summary of the mean latency in nanoseconds of the iterations.
+     *
+     * @return the mean latency summary, or null if not available.
+     */
+    public Summary getMeanLatency() {
+        return meanLatency;
+    }
+
+    /**
+     * Returns the summary of the 99th percentile latency in nanoseconds of the iterations.
+     *
+     * @return the p99 latency summary, or null if not available.
+     */
+    public Summary getP99Latency() {
+        return p99Latency;
+    }
+
+    /**
+     * Returns the summary of the allocated bytes per operation of the iterations.
+     *
+     * @return the allocation summary, or null if not available.
+     */
+    public Summary getAllocatedBytesPerOperation() {
+        return allocatedBytesPerOperation;
+    }
+
+    /**
+     * Returns the summary of the time/operation in nanoseconds of the iterations of a {@link MicroBenchmarkDriver}.
+     *
+     * @return the time/operation summary, or null if not available.
+     */
+    public Summary getTimePerOperation() {
+        return timePerOperation;
+    }
+
+    /**
+     * Checks if the coefficient of variation of the throughput (or of the duration if there is no throughput) is
+     * larger than {@link TestCase#getHighVarianceThreshold()}. Differences smaller than the variation of a high
+     * variance TestCase can't be trusted.
+     *
+     * @return true if the iterations have a high variance.
+     */
+    public boolean isHighVariance() {
+        return highVariance;
+    }
+
+    @Override
+    public String toString() {
+        return "TestCaseSummary{" +
+                "testCase=" + testCase.getName() +
+                ", failedIterationCount=" + failedIterationCount +
+                ", duration=" + duration +
+                ", throughput=" + throughput +
+                ", meanLatency=" + meanLatency +
+                ", p99Latency=" + p99Latency +
+                ", allocatedBytesPerOperation=" + allocatedBytesPerOperation +
+                ", timePerOperation=" + timePerOperation +
+                ", highVariance=" + highVariance +
+                '}';
+    }
+}
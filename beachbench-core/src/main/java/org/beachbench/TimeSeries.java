@@ -0,0 +1,113 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The {@link LiveSample}s taken during an iteration, see {@link TestCase#setTimeSeriesIntervalInMilliseconds(long)}.
+ * An hour-long iteration at a 1 second interval has thousands of samples, so they are stored in a primitive array per
+ * property instead of as objects.
+ *
+ * A TimeSeries is not threadsafe.
+ */
+public final class TimeSeries implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String testCase;
+    private final long iteration;
+    private final boolean warmup;
+    private int size;
+    private long[] elapsedMs = new long[16];
+    private long[] operations = new long[16];
+    private double[] operationsPerSecond = new double[16];
+    private long[] latencyCounts = new long[16];
+    private double[] meanLatenciesNs = new double[16];
+    private long[] p50LatenciesNs = new long[16];
+    private long[] p99LatenciesNs = new long[16];
+    private long[] maxLatenciesNs = new long[16];
+    private long[] heapUsedBytes = new long[16];
+    private long[] gcCounts = new long[16];
+    private long[] gcTimesMs = new long[16];
+
+    TimeSeries(String testCase, long iteration, boolean warmup) {
+        this.testCase = testCase;
+        this.iteration = iteration;
+        this.warmup = warmup;
+    }
+
+    void add(LiveSample sample) {
+        if (size == elapsedMs.length) {
+            int length = size * 2;
+            elapsedMs = Arrays.copyOf(elapsedMs, length);
+            operations = Arrays.copyOf(operations, length);
+            operationsPerSecond = Arrays.copyOf(operationsPerSecond, length);
+            latencyCounts = Arrays.copyOf(latencyCounts, length);
+            meanLatenciesNs = Arrays.copyOf(meanLatenciesNs, length);
+            p50LatenciesNs = Arrays.copyOf(p50LatenciesNs, length);
+            p99LatenciesNs = Arrays.copyOf(p99LatenciesNs, length);
+            maxLatenciesNs = Arrays.copyOf(maxLatenciesNs, length);
+            heapUsedBytes = Arrays.copyOf(heapUsedBytes, length);
+            gcCounts = Arrays.copyOf(gcCounts, length);
+            gcTimesMs = Arrays.copyOf(gcTimesMs, length);
+        }
+        elapsedMs[size] = sample.getElapsedMs();
+        operations[size] = sample.getOperations();
+        operationsPerSecond[size] = sample.getOperationsPerSecond();
+        latencyCounts[size] = sample.getLatencyCount();
+        meanLatenciesNs[size] = sample.getMeanLatencyNs();
+        p50LatenciesNs[size] = sample.getP50LatencyNs();
+        p99LatenciesNs[size] = sample.getP99LatencyNs();
+        maxLatenciesNs[size] = sample.getMaxLatencyNs();
+        heapUsedBytes[size] = sample.getHeapUsedBytes();
+        gcCounts[size] = sample.getGcCount();
+        gcTimesMs[size] = sample.getGcTimeMs();
+        size++;
+    }
+
+    /**
+     * Returns the number of samples.
+     *
+     * @return the number of samples.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a sample.
+     *
+     * @param index the index of the sample, the first sample has index 0.
+     * @return the sample.
+     * @throws IndexOutOfBoundsException if index is negative or not smaller than the size.
+     */
+    public LiveSample getSample(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("index %s, size %s", index, size));
+        }
+        return new LiveSample(testCase, iteration, warmup, elapsedMs[index], operations[index],
+                operationsPerSecond[index], latencyCounts[index], meanLatenciesNs[index], p50LatenciesNs[index],
+                p99LatenciesNs[index], maxLatenciesNs[index], heapUsedBytes[index], gcCounts[index], gcTimesMs[index]);
+    }
+
+    @Override
+    public String toString() {
+        return "TimeSeries{testCase=" + testCase + ", iteration=" + iteration + ", size=" + size + '}';
+    }
+}
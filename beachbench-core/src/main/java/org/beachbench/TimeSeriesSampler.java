@@ -0,0 +1,164 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.beachbench.exception.ExceptionUtils;
+import org.beachbench.stats.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples a running iteration every {@link TestCase#getTimeSeriesIntervalInMilliseconds()}: the throughput and
+ * latencies of the driver, the heap usage and the garbage collections. The samples are added to a {@link TimeSeries}
+ * and published in the {@link LiveMetricsRegistry}.
+ *
+ * The sampler runs on a daemon thread of its own and only reads the counters and histograms of the workers, so the
+ * measured threads don't do any extra work.
+ */
+final class TimeSeriesSampler {
+
+    private final BenchmarkDriver driver;
+    private final TimeSeries timeSeries;
+    private final String testCase;
+    private final long iteration;
+    private final boolean warmup;
+    private final long intervalNs;
+    private final long startNs;
+    private final Thread thread;
+
+    // the state at the end of the previous interval, only accessed by the sampler thread.
+    private long previousNs;
+    private long previousOperations;
+    private long previousGcCount;
+    private long previousGcTimeMs;
+    private LatencyHistogram previousLatencies = new LatencyHistogram();
+    private LatencyHistogram currentLatencies = new LatencyHistogram();
+    private final LatencyHistogram intervalLatencies = new LatencyHistogram();
+
+    /**
+     * Starts sampling an iteration, if the TestCase has a time series interval.
+     *
+     * @param driver the driver executing the iteration.
+     * @param result the result of the iteration.
+     * @param warmup if the iteration is a warmup iteration.
+     * @return the sampler, or null if the TestCase has no time series interval.
+     */
+    static TimeSeriesSampler start(BenchmarkDriver driver, TestCaseResult result, boolean warmup) {
+        TestCase testCase = result.getTestCase();
+        if (testCase.getTimeSeriesIntervalInMilliseconds() <= 0) {
+            return null;
+        }
+        TimeSeriesSampler sampler = new TimeSeriesSampler(driver, result, warmup);
+        sampler.thread.start();
+        return sampler;
+    }
+
+    private TimeSeriesSampler(BenchmarkDriver driver, TestCaseResult result, boolean warmup) {
+        this.driver = driver;
+        this.testCase = LiveMetricsRegistry.key(result.getTestCase());
+        this.iteration = result.getTestCaseIteration();
+        this.warmup = warmup;
+        this.intervalNs = TimeUnit.MILLISECONDS.toNanos(result.getTestCase().getTimeSeriesIntervalInMilliseconds());
+        this.timeSeries = new TimeSeries(testCase, iteration, warmup);
+        this.startNs = System.nanoTime();
+        this.previousNs = startNs;
+        this.previousGcCount = Instrumentation.gcCount();
+        this.previousGcTimeMs = Instrumentation.gcTimeMs();
+        this.thread = new Thread("BeachBench-sampler") {
+            @Override
+            public void run() {
+                sampleUntilInterrupted();
+            }
+        };
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Stops sampling and returns the samples.
+     *
+     * @return the TimeSeries.
+     */
+    TimeSeries stop() {
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            throw ExceptionUtils.wrap(e);
+        }
+        return timeSeries;
+    }
+
+    private void sampleUntilInterrupted() {
+        long nextNs = startNs + intervalNs;
+        try {
+            for (; ; ) {
+                for (long remainingNs; (remainingNs = nextNs - System.nanoTime()) > 0; ) {
+                    TimeUnit.NANOSECONDS.sleep(remainingNs);
+                }
+                LiveSample sample = sample();
+                timeSeries.add(sample);
+                LiveMetricsRegistry.INSTANCE.publish(sample);
+                // ticks missed because of a stall are skipped, catching up would take samples of almost no length.
+                nextNs = Math.max(nextNs + intervalNs, System.nanoTime() + intervalNs);
+            }
+        } catch (InterruptedException ignore) {
+            // the iteration has completed.
+        }
+    }
+
+    private LiveSample sample() {
+        long nowNs = System.nanoTime();
+        double intervalSeconds = (nowNs - previousNs) / 1000000000d;
+
+        long operations = driver.getCompletedOperations();
+        double operationsPerSecond = Double.NaN;
+        if (operations >= 0) {
+            operationsPerSecond = intervalSeconds == 0 ? 0 : (operations - previousOperations) / intervalSeconds;
+            previousOperations = operations;
+        }
+
+        currentLatencies.reset();
+        long latencyCount = -1;
+        double meanLatencyNs = Double.NaN;
+        long p50LatencyNs = -1;
+        long p99LatencyNs = -1;
+        long maxLatencyNs = -1;
+        if (driver.copyLatencies(currentLatencies)) {
+            intervalLatencies.reset();
+            intervalLatencies.add(currentLatencies);
+            intervalLatencies.subtract(previousLatencies);
+            latencyCount = intervalLatencies.getTotalCount();
+            meanLatencyNs = intervalLatencies.getMean();
+            p50LatencyNs = intervalLatencies.getValueAtPercentile(50);
+            p99LatencyNs = intervalLatencies.getValueAtPercentile(99);
+            maxLatencyNs = intervalLatencies.getMax();
+            LatencyHistogram previous = previousLatencies;
+            previousLatencies = currentLatencies;
+            currentLatencies = previous;
+        }
+
+        long gcCount = Instrumentation.gcCount();
+        long gcTimeMs = Instrumentation.gcTimeMs();
+        LiveSample sample = new LiveSample(testCase, iteration, warmup, TimeUnit.NANOSECONDS.toMillis(nowNs - startNs),
+                operations, operationsPerSecond, latencyCount, meanLatencyNs, p50LatencyNs, p99LatencyNs, maxLatencyNs,
+                Instrumentation.heapUsedBytes(), gcCount - previousGcCount, gcTimeMs - previousGcTimeMs);
+        previousNs = nowNs;
+        previousGcCount = gcCount;
+        previousGcTimeMs = gcTimeMs;
+        return sample;
+    }
+}
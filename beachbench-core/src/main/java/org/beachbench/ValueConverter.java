@@ -0,0 +1,196 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts the textual value of a setting to the type of the property or field it is assigned to.
+ *
+ * Supported are the primitives and their wrappers, String, Class, enums, every type with a public static
+ * valueOf(String) or parse(String) factory method, like {@link org.beachbench.keys.KeyDistribution}, and arrays of
+ * these, whose elements are separated by whitespace.
+ */
+final class ValueConverter {
+
+    private static final Map<Class<?>, Class<?>> WRAPPERS = new HashMap<Class<?>, Class<?>>();
+
+    static {
+        WRAPPERS.put(boolean.class, Boolean.class);
+        WRAPPERS.put(byte.class, Byte.class);
+        WRAPPERS.put(short.class, Short.class);
+        WRAPPERS.put(char.class, Character.class);
+        WRAPPERS.put(int.class, Integer.class);
+        WRAPPERS.put(long.class, Long.class);
+        WRAPPERS.put(float.class, Float.class);
+        WRAPPERS.put(double.class, Double.class);
+    }
+
+    /**
+     * Converts a value.
+     *
+     * @param value the textual value.
+     * @param type the type to convert to.
+     * @return the converted value, boxed if type is a primitive.
+     * @throws NullPointerException if value or type is null.
+     * @throws IllegalArgumentException if the value can't be converted to the type.
+     */
+    static Object convert(String value, Class<?> type) {
+        if(value == null)throw new NullPointerException();
+        if(type == null)throw new NullPointerException();
+
+        if (type.isArray()) {
+            String trimmed = value.trim();
+            String[] items = trimmed.length() == 0 ? new String[0] : trimmed.split("\\s+");
+            Object array = Array.newInstance(type.getComponentType(), items.length);
+            for (int k = 0; k < items.length; k++) {
+                Array.set(array, k, convert(items[k], type.getComponentType()));
+            }
+            return array;
+        }
+
+        String trimmed = value.trim();
+        Class<?> boxed = type.isPrimitive() ? WRAPPERS.get(type) : type;
+        if (boxed == String.class || boxed == Object.class) {
+            return value;
+        }
+        if (boxed == Boolean.class) {
+            if (trimmed.equalsIgnoreCase("true")) {
+                return Boolean.TRUE;
+            } else if (trimmed.equalsIgnoreCase("false")) {
+                return Boolean.FALSE;
+            }
+            throw new IllegalArgumentException(String.format("[%s] is not a boolean", value));
+        }
+        if (boxed == Character.class) {
+            if (value.length() != 1) {
+                throw new IllegalArgumentException(String.format("[%s] is not a single character", value));
+            }
+            return value.charAt(0);
+        }
+        if (boxed == Class.class) {
+            try {
+                return Class.forName(trimmed, true, classLoader());
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException(String.format("Class [%s] not found", trimmed));
+            }
+        }
+        if (boxed.isEnum()) {
+            for (Object constant : boxed.getEnumConstants()) {
+                if (((Enum<?>) constant).name().equalsIgnoreCase(trimmed)) {
+                    return constant;
+                }
+            }
+            throw new IllegalArgumentException(String.format("[%s] is not one of %s", value,
+                    Arrays.toString(boxed.getEnumConstants())));
+        }
+
+        Method factory = factory(boxed, "valueOf");
+        if (factory == null) {
+            factory = factory(boxed, "parse");
+        }
+        if (factory == null) {
+            throw new IllegalArgumentException(String.format("Can't convert a value to %s", type.getName()));
+        }
+        try {
+            return factory.invoke(null, trimmed);
+        } catch (Exception e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            throw new IllegalArgumentException(String.format("[%s] is not a valid %s: %s", value,
+                    type.getSimpleName(), cause.getMessage()));
+        }
+    }
+
+    /**
+     * Converts the value of a setting, which may already have been converted or be the value of a {@link Sweep}, to
+     * the type it is assigned to. Strings are converted like {@link #convert(String, Class)} and numbers are
+     * converted to another numeric type if no precision is lost, e.g. the Long 16 to an int.
+     *
+     * @param value the value, can be null.
+     * @param type the type to convert to.
+     * @return the converted value, boxed if type is a primitive.
+     * @throws NullPointerException if type is null.
+     * @throws IllegalArgumentException if the value can't be converted to the type.
+     */
+    static Object coerce(Object value, Class<?> type) {
+        if(type == null)throw new NullPointerException();
+
+        Class<?> boxed = type.isPrimitive() ? WRAPPERS.get(type) : type;
+        if (value == null) {
+            if (type.isPrimitive()) {
+                throw new IllegalArgumentException(String.format("null can't be assigned to a %s", type.getName()));
+            }
+            return null;
+        }
+        if (boxed.isInstance(value)) {
+            return value;
+        }
+        if (value instanceof String) {
+            return convert((String) value, type);
+        }
+        if (value instanceof Number && Number.class.isAssignableFrom(boxed)) {
+            Number number = (Number) value;
+            Object converted = null;
+            if (boxed == Double.class) {
+                converted = number.doubleValue();
+            } else if (boxed == Float.class) {
+                converted = number.floatValue();
+            } else if (number.doubleValue() == number.longValue()) {
+                long longValue = number.longValue();
+                if (boxed == Long.class) {
+                    converted = longValue;
+                } else if (boxed == Integer.class && longValue == (int) longValue) {
+                    converted = (int) longValue;
+                } else if (boxed == Short.class && longValue == (short) longValue) {
+                    converted = (short) longValue;
+                } else if (boxed == Byte.class && longValue == (byte) longValue) {
+                    converted = (byte) longValue;
+                }
+            }
+            if (converted != null) {
+                return converted;
+            }
+        }
+        throw new IllegalArgumentException(String.format("[%s] of type %s can't be converted to %s",
+                value, value.getClass().getName(), type.getName()));
+    }
+
+    private static Method factory(Class<?> type, String name) {
+        try {
+            Method method = type.getMethod(name, String.class);
+            if (Modifier.isStatic(method.getModifiers()) && type.isAssignableFrom(method.getReturnType())) {
+                return method;
+            }
+        } catch (NoSuchMethodException ignore) {
+        }
+        return null;
+    }
+
+    private static ClassLoader classLoader() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader == null ? ValueConverter.class.getClassLoader() : classLoader;
+    }
+
+    //we don't want instances.
+    private ValueConverter() {
+    }
+}
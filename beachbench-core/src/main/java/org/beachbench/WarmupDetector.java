@@ -0,0 +1,119 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Detects when successive warmup iterations have reached a steady state.
+ *
+ * The performance of an iteration is its operations/second when the driver stores it (see
+ * {@link ConcurrentBenchmarkDriver#RESULT_OPERATIONS_PER_SECOND}), and else its duration. The warmup is steady
+ * when the relative difference between the slowest and fastest of the last window iterations is within the
+ * tolerance and, optionally, when the JIT compiler spent at most that same fraction of the last iteration compiling.
+ *
+ * A WarmupDetector is not threadsafe.
+ */
+final class WarmupDetector {
+
+    private final double[] window;
+    private final double tolerance;
+    private final CompilationMXBean compilationBean;
+    private int count;
+    private long compilationTimeMs;
+    private boolean steady;
+
+    WarmupDetector(int windowSize, double tolerance, boolean waitForJit) {
+        this(windowSize, tolerance, waitForJit ? compilationBean() : null);
+    }
+
+    WarmupDetector(int windowSize, double tolerance, CompilationMXBean compilationBean) {
+        this.window = new double[windowSize];
+        this.tolerance = tolerance;
+        this.compilationBean = compilationBean;
+    }
+
+    private static CompilationMXBean compilationBean() {
+        CompilationMXBean bean = ManagementFactory.getCompilationMXBean();
+        return bean != null && bean.isCompilationTimeMonitoringSupported() ? bean : null;
+    }
+
+    /**
+     * Needs to be called just before a warmup iteration is executed.
+     */
+    void iterationStarted() {
+        if (compilationBean != null) {
+            compilationTimeMs = compilationBean.getTotalCompilationTime();
+        }
+    }
+
+    /**
+     * Needs to be called after a warmup iteration has been executed.
+     *
+     * @param result the result of the warmup iteration.
+     * @return true if the warmup has reached a steady state.
+     */
+    boolean iterationCompleted(TestCaseResult result) {
+        if (result.getThrown() != null) {
+            count = 0;
+            steady = false;
+            return false;
+        }
+
+        window[count % window.length] = performance(result);
+        count++;
+        steady = count >= window.length && isWindowStable() && isJitQuiet(result);
+        return steady;
+    }
+
+    boolean isSteady() {
+        return steady;
+    }
+
+    private static double performance(TestCaseResult result) {
+        Object operationsPerSecond = result.get(ConcurrentBenchmarkDriver.RESULT_OPERATIONS_PER_SECOND);
+        if (operationsPerSecond instanceof Number) {
+            return ((Number) operationsPerSecond).doubleValue();
+        }
+        return result.getDurationNs();
+    }
+
+    private boolean isWindowStable() {
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        double sum = 0;
+        for (double value : window) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+        }
+        double mean = sum / window.length;
+        if (mean == 0) {
+            return max == min;
+        }
+        return (max - min) / mean <= tolerance;
+    }
+
+    private boolean isJitQuiet(TestCaseResult result) {
+        if (compilationBean == null) {
+            return true;
+        }
+        long compiledMs = compilationBean.getTotalCompilationTime() - compilationTimeMs;
+        return compiledMs <= tolerance * (result.getDurationNs() / 1000000d);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+/**
+ * Selects an index with a probability proportional to its weight, in constant time and without allocating, using
+ * the alias method: every index owns a slot with a probability and an alias, a random slot is chosen and either the
+ * slot itself or its alias is selected.
+ *
+ * The randomness is provided by the caller, so a WeightedSelector can be shared by threads that each have their own
+ * random generator; see {@link #nextRandom(long)}.
+ */
+final class WeightedSelector {
+
+    private static final double TWO_POWER_32 = 4294967296d;
+
+    private final double[] probabilities;
+    private final int[] aliases;
+
+    /**
+     * Creates a WeightedSelector.
+     *
+     * @param weights the weights of the indices.
+     * @throws NullPointerException if weights is null.
+     * @throws IllegalArgumentException if there are no weights, a weight is negative or not finite, or all weights
+     *                                  are 0.
+     */
+    WeightedSelector(double[] weights) {
+        if(weights == null)throw new NullPointerException();
+        if(weights.length == 0)throw new IllegalArgumentException("at least one weight is needed");
+
+        int count = weights.length;
+        double total = 0;
+        for (double weight : weights) {
+            if(weight < 0 || Double.isNaN(weight) || Double.isInfinite(weight))throw new IllegalArgumentException("weight must be finite and not negative, found " + weight);
+            total += weight;
+        }
+        if(total == 0)throw new IllegalArgumentException("at least one weight must be larger than 0");
+
+        probabilities = new double[count];
+        aliases = new int[count];
+        double[] scaled = new double[count];
+        int[] small = new int[count];
+        int[] large = new int[count];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int k = 0; k < count; k++) {
+            scaled[k] = weights[k] * count / total;
+            if (scaled[k] < 1) {
+                small[smallCount++] = k;
+            } else {
+                large[largeCount++] = k;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // what remains is 1 apart from rounding errors.
+        while (largeCount > 0) {
+            probabilities[large[--largeCount]] = 1;
+        }
+        while (smallCount > 0) {
+            probabilities[small[--smallCount]] = 1;
+        }
+    }
+
+    int size() {
+        return probabilities.length;
+    }
+
+    /**
+     * Selects an index.
+     *
+     * @param random a uniformly distributed random value; the high 32 bits choose the slot and the low 32 bits
+     *               choose between the slot and its alias.
+     * @return the selected index.
+     */
+    int select(long random) {
+        int slot = (int) (((random >>> 32) * probabilities.length) >>> 32);
+        double coin = (random & 0xFFFFFFFFL) / TWO_POWER_32;
+        return coin < probabilities[slot] ? slot : aliases[slot];
+    }
+
+    /**
+     * Advances a xorshift random generator. The generator is fast and good enough to pick operations with, not for
+     * anything that needs statistical quality.
+     *
+     * @param seed the current state of the generator; must not be 0.
+     * @return the next state, which is also the next random value.
+     */
+    static long nextRandom(long seed) {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return seed;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.io;
+
+import org.beachbench.exception.ExceptionUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * An append-only binary file with per operation samples (a timestamp and a latency) of any number of threads.
+ *
+ * Each thread records in its own {@link SampleRecorder}. Full buffers are written by a background thread through a
+ * FileChannel as a segment that belongs to a single thread, so the recording threads never do I/O and never
+ * contend with each other. Timestamps and latencies are delta/varint encoded, so a sample typically takes 3 to 6
+ * bytes. The file can be read back with a {@link SampleReader}.
+ *
+ * File layout: the magic number and version, followed by segments of a 12 byte header (thread id, sample count and
+ * byte length) and the encoded samples.
+ */
+public final class SampleLog implements Closeable {
+
+    static final int MAGIC = 0x4242534C;
+    static final byte VERSION = 1;
+
+    /**
+     * The default size of the buffers of a recorder.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final Segment POISON = new Segment(0);
+
+    private final File file;
+    private final int bufferSize;
+    private final FileChannel channel;
+    private final BlockingQueue<Segment> free = new LinkedBlockingQueue<Segment>();
+    private final BlockingQueue<Segment> full = new LinkedBlockingQueue<Segment>();
+    private final Thread writer;
+    private volatile Throwable failure;
+    private volatile long sampleCount;
+    private boolean closed;
+
+    /**
+     * Creates a SampleLog with {@link #DEFAULT_BUFFER_SIZE} buffers. An existing file is overwritten.
+     *
+     * @param file the file to write to.
+     * @throws IOException if the file can't be created.
+     */
+    public SampleLog(File file) throws IOException {
+        this(file, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a SampleLog. An existing file is overwritten.
+     *
+     * @param file the file to write to.
+     * @param bufferSize the size of the buffers of each recorder.
+     * @throws IOException if the file can't be created.
+     * @throws IllegalArgumentException if bufferSize is too small to contain a single sample.
+     */
+    public SampleLog(File file, int bufferSize) throws IOException {
+        if (file == null) throw new NullPointerException();
+        if (bufferSize < Segment.MAX_SAMPLE_SIZE) {
+            throw new IllegalArgumentException("bufferSize must be at least " + Segment.MAX_SAMPLE_SIZE + ", found " + bufferSize);
+        }
+        this.file = file;
+        this.bufferSize = bufferSize;
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.setLength(0);
+        this.channel = randomAccessFile.getChannel();
+        ByteBuffer header = ByteBuffer.allocate(5);
+        header.putInt(MAGIC).put(VERSION).flip();
+        writeFully(header);
+
+        this.writer = new Thread(new Writer(), "BeachBench-sample-writer-" + file.getName());
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the number of samples written to the file so far.
+     *
+     * @return the number of written samples.
+     */
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Creates a recorder for a thread. Every recorder brings two buffers, one to record in while the other is being
+     * written.
+     *
+     * @param threadId the id of the thread the samples are stored under.
+     * @return the created recorder.
+     */
+    public SampleRecorder newRecorder(int threadId) {
+        if (closed) throw new IllegalStateException("SampleLog " + file + " is closed");
+        free.add(new Segment(bufferSize));
+        free.add(new Segment(bufferSize));
+        return new SampleRecorder(this, threadId);
+    }
+
+    Segment takeFreeSegment(int threadId) {
+        try {
+            Segment segment = free.take();
+            segment.reset(threadId);
+            return segment;
+        } catch (InterruptedException e) {
+            throw ExceptionUtils.wrap(e);
+        }
+    }
+
+    void submit(Segment segment) {
+        checkFailure();
+        full.add(segment);
+    }
+
+    /**
+     * Writes all submitted samples and closes the file. Samples that haven't been flushed by their recorder are lost.
+     *
+     * @throws IOException if writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        full.add(POISON);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            throw ExceptionUtils.wrap(e);
+        } finally {
+            channel.close();
+        }
+        Throwable thrown = failure;
+        if (thrown instanceof IOException) {
+            throw (IOException) thrown;
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() {
+        Throwable thrown = failure;
+        if (thrown != null) {
+            throw ExceptionUtils.wrap(thrown);
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private class Writer implements Runnable {
+        private final ByteBuffer header = ByteBuffer.allocate(Segment.HEADER_SIZE);
+
+        public void run() {
+            try {
+                for (; ; ) {
+                    Segment segment = full.take();
+                    if (segment == POISON) {
+                        return;
+                    }
+                    if (failure == null) {
+                        write(segment);
+                    }
+                    free.add(segment);
+                }
+            } catch (InterruptedException e) {
+                failure = e;
+            }
+        }
+
+        private void write(Segment segment) {
+            try {
+                segment.buffer.flip();
+                header.clear();
+                header.putInt(segment.threadId).putInt(segment.sampleCount).putInt(segment.buffer.remaining()).flip();
+                writeFully(header);
+                writeFully(segment.buffer);
+                sampleCount += segment.sampleCount;
+            } catch (Throwable t) {
+                failure = t;
+            }
+        }
+    }
+}
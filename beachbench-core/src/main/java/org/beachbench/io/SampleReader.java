@@ -0,0 +1,130 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.io;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Streams the samples of a file written by a {@link SampleLog}, without loading the file in memory. The samples of
+ * a thread are returned in the order they were recorded, but samples of different threads are interleaved per
+ * segment.
+ *
+ * Typical usage:
+ * <pre>
+ * SampleReader reader = new SampleReader(file);
+ * try {
+ *     while (reader.next()) {
+ *         process(reader.getThreadId(), reader.getTimestampNs(), reader.getLatencyNs());
+ *     }
+ * } finally {
+ *     reader.close();
+ * }
+ * </pre>
+ *
+ * A SampleReader is not threadsafe.
+ */
+public final class SampleReader implements Closeable {
+
+    private final DataInputStream in;
+    private int threadId;
+    private int remainingInSegment;
+    private long timestampNs;
+    private long latencyNs;
+
+    /**
+     * Opens a sample file.
+     *
+     * @param file the file to read.
+     * @throws IOException if the file can't be read or isn't a sample file.
+     */
+    public SampleReader(File file) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), SampleLog.DEFAULT_BUFFER_SIZE));
+        try {
+            if (in.readInt() != SampleLog.MAGIC) {
+                throw new IOException(file + " is not a sample file");
+            }
+            byte version = in.readByte();
+            if (version != SampleLog.VERSION) {
+                throw new IOException(String.format("%s has unsupported version %s", file, version));
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Moves to the next sample.
+     *
+     * @return true if there is a next sample, false if the end of the file has been reached.
+     * @throws IOException if reading fails.
+     */
+    public boolean next() throws IOException {
+        while (remainingInSegment == 0) {
+            int id;
+            try {
+                id = in.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            threadId = id;
+            remainingInSegment = in.readInt();
+            in.readInt();
+            timestampNs = 0;
+        }
+
+        timestampNs += Segment.unzigzag(readVarLong());
+        latencyNs = readVarLong();
+        remainingInSegment--;
+        return true;
+    }
+
+    public int getThreadId() {
+        return threadId;
+    }
+
+    public long getTimestampNs() {
+        return timestampNs;
+    }
+
+    public long getLatencyNs() {
+        return latencyNs;
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
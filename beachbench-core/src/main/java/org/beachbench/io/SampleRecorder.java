@@ -0,0 +1,66 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.io;
+
+/**
+ * Records the samples of a single thread in a {@link SampleLog}. The samples are encoded in a buffer that is handed
+ * to the writer thread of the log once it is full, so the recording thread never does any I/O itself. If the writer
+ * thread falls behind, the recording thread blocks until a buffer has been written.
+ *
+ * A SampleRecorder is not threadsafe; each thread needs its own recorder.
+ */
+public final class SampleRecorder {
+
+    private final SampleLog log;
+    private final int threadId;
+    private Segment segment;
+
+    SampleRecorder(SampleLog log, int threadId) {
+        this.log = log;
+        this.threadId = threadId;
+        this.segment = log.takeFreeSegment(threadId);
+    }
+
+    public int getThreadId() {
+        return threadId;
+    }
+
+    /**
+     * Records a single sample.
+     *
+     * @param timestampNs the time of the sample in nanoseconds, e.g. relative to the start of the measurement.
+     * @param latencyNs the latency in nanoseconds. Negative latencies are recorded as 0.
+     */
+    public void record(long timestampNs, long latencyNs) {
+        if (!segment.hasRoom()) {
+            flush();
+        }
+        segment.write(timestampNs, latencyNs);
+    }
+
+    /**
+     * Hands the samples recorded so far to the writer thread. Needs to be called by the recording thread once it has
+     * recorded its last sample, and before the log is closed.
+     */
+    public void flush() {
+        if (segment.sampleCount == 0) {
+            return;
+        }
+        log.submit(segment);
+        segment = log.takeFreeSegment(threadId);
+    }
+}
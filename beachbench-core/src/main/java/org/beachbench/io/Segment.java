@@ -0,0 +1,83 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A buffer of encoded samples of a single thread. Segments are recycled between the {@link SampleRecorder}s and
+ * the writer thread of a {@link SampleLog}, so recording doesn't allocate.
+ *
+ * The samples in a segment are encoded independently of other segments: the first timestamp is a delta relative
+ * to 0, every next timestamp a zigzag varint delta relative to the previous one, and every latency an unsigned
+ * varint.
+ */
+final class Segment {
+
+    /**
+     * The maximum number of bytes of a single encoded sample: 2 varints of at most 10 bytes.
+     */
+    static final int MAX_SAMPLE_SIZE = 20;
+
+    /**
+     * The size of the header written in front of every segment: the thread id, sample count and byte length.
+     */
+    static final int HEADER_SIZE = 12;
+
+    final ByteBuffer buffer;
+    int threadId;
+    int sampleCount;
+    long lastTimestampNs;
+
+    Segment(int size) {
+        this.buffer = ByteBuffer.allocate(size);
+    }
+
+    void reset(int threadId) {
+        this.threadId = threadId;
+        this.sampleCount = 0;
+        this.lastTimestampNs = 0;
+        buffer.clear();
+    }
+
+    boolean hasRoom() {
+        return buffer.remaining() >= MAX_SAMPLE_SIZE;
+    }
+
+    void write(long timestampNs, long latencyNs) {
+        writeVarLong(buffer, zigzag(timestampNs - lastTimestampNs));
+        writeVarLong(buffer, latencyNs < 0 ? 0 : latencyNs);
+        lastTimestampNs = timestampNs;
+        sampleCount++;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+}
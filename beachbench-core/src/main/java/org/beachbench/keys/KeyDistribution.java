@@ -0,0 +1,430 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.keys;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Describes how the keys a driver operates on are distributed over a key space of {@link #getKeyCount()} keys:
+ * <ul>
+ * <li>uniform: every key is equally likely.</li>
+ * <li>zipfian: a few keys are very popular and most keys are rarely used; the lower keys are the popular ones. The
+ * skew is between 0 and 1, the higher the skew the more popular the popular keys are; 0.99 is a common choice.</li>
+ * <li>hotspot: a fraction of the operations uses a hot fraction of the keys, e.g. 80% of the operations use 20% of
+ * the keys.</li>
+ * <li>sequential: the keys are used in order, wrapping around at the end.</li>
+ * <li>latest: zipfian, but the most recently inserted keys are the popular ones, see
+ * {@link KeyGenerator#inserted(long)}.</li>
+ * </ul>
+ *
+ * A KeyDistribution is immutable and Serializable, so it can be put in the settings of a
+ * {@link org.beachbench.TestCase} and is injected in the driver field with the same name like any other setting, also
+ * in a forked JVM:
+ * <pre>
+ * testCase.put("keys", KeyDistribution.zipfian(1000000, 0.99).withSeed(42));
+ * </pre>
+ * Every worker thread creates its own {@link KeyGenerator} with {@link #newGenerator(int)}. The generator of a thread
+ * is seeded with the seed of the distribution and the index of the thread, so the same keys are generated in the
+ * same order in every run.
+ */
+public final class KeyDistribution implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Pattern SPEC = Pattern.compile("\\s*(\\w+)\\s*\\((.*)\\)\\s*");
+    private static final long DEFAULT_SEED = 1;
+
+    public enum Type {
+        UNIFORM, ZIPFIAN, HOTSPOT, SEQUENTIAL, LATEST
+    }
+
+    private final Type type;
+    private final long keyCount;
+    private final double skew;
+    private final double hotKeyFraction;
+    private final double hotOperationFraction;
+    private final long seed;
+    // the zeta constant of a zipfian distribution takes time linear in the key count, so it is calculated only once;
+    // 0 until then.
+    private transient volatile double zeta;
+
+    private KeyDistribution(Type type, long keyCount, double skew, double hotKeyFraction, double hotOperationFraction, long seed) {
+        if(keyCount < 1)throw new IllegalArgumentException("keyCount must be at least 1, found " + keyCount);
+        this.type = type;
+        this.keyCount = keyCount;
+        this.skew = skew;
+        this.hotKeyFraction = hotKeyFraction;
+        this.hotOperationFraction = hotOperationFraction;
+        this.seed = seed;
+    }
+
+    /**
+     * Creates a uniform KeyDistribution.
+     *
+     * @param keyCount the number of keys.
+     * @return the KeyDistribution.
+     * @throws IllegalArgumentException if keyCount is smaller than 1.
+     */
+    public static KeyDistribution uniform(long keyCount) {
+        return new KeyDistribution(Type.UNIFORM, keyCount, 0, 0, 0, DEFAULT_SEED);
+    }
+
+    /**
+     * Creates a zipfian KeyDistribution.
+     *
+     * @param keyCount the number of keys.
+     * @param skew the skew, larger than 0 and smaller than 1.
+     * @return the KeyDistribution.
+     * @throws IllegalArgumentException if keyCount is smaller than 1 or the skew is not between 0 and 1.
+     */
+    public static KeyDistribution zipfian(long keyCount, double skew) {
+        checkSkew(skew);
+        return new KeyDistribution(Type.ZIPFIAN, keyCount, skew, 0, 0, DEFAULT_SEED);
+    }
+
+    /**
+     * Creates a hotspot KeyDistribution.
+     *
+     * @param keyCount the number of keys.
+     * @param hotKeyFraction the fraction of the keys that is hot, the lowest keys.
+     * @param hotOperationFraction the fraction of the operations that uses a hot key.
+     * @return the KeyDistribution.
+     * @throws IllegalArgumentException if keyCount is smaller than 1 or a fraction is not between 0 and 1.
+     */
+    public static KeyDistribution hotspot(long keyCount, double hotKeyFraction, double hotOperationFraction) {
+        checkFraction(hotKeyFraction);
+        checkFraction(hotOperationFraction);
+        return new KeyDistribution(Type.HOTSPOT, keyCount, 0, hotKeyFraction, hotOperationFraction, DEFAULT_SEED);
+    }
+
+    /**
+     * Creates a sequential KeyDistribution. The generator of every thread starts at a different key.
+     *
+     * @param keyCount the number of keys.
+     * @return the KeyDistribution.
+     * @throws IllegalArgumentException if keyCount is smaller than 1.
+     */
+    public static KeyDistribution sequential(long keyCount) {
+        return new KeyDistribution(Type.SEQUENTIAL, keyCount, 0, 0, 0, DEFAULT_SEED);
+    }
+
+    /**
+     * Creates a latest KeyDistribution. Until a key is inserted, the highest keys are the popular ones.
+     *
+     * @param keyCount the number of keys.
+     * @param skew the skew of the underlying zipfian distribution, larger than 0 and smaller than 1.
+     * @return the KeyDistribution.
+     * @throws IllegalArgumentException if keyCount is smaller than 1 or the skew is not between 0 and 1.
+     */
+    public static KeyDistribution latest(long keyCount, double skew) {
+        checkSkew(skew);
+        return new KeyDistribution(Type.LATEST, keyCount, skew, 0, 0, DEFAULT_SEED);
+    }
+
+    /**
+     * Parses a KeyDistribution from its {@link #toString()} form, e.g. {@code zipfian(keys=1000000, skew=0.99)} or
+     * {@code hotspot(keys=1000, hotKeys=0.2, hotOperations=0.8, seed=42)}. The seed is optional.
+     *
+     * @param spec the specification.
+     * @return the KeyDistribution.
+     * @throws NullPointerException if spec is null.
+     * @throws IllegalArgumentException if the specification can't be parsed.
+     */
+    public static KeyDistribution parse(String spec) {
+        if(spec == null)throw new NullPointerException();
+        Matcher matcher = SPEC.matcher(spec);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Can't parse key distribution '" + spec + "'");
+        }
+
+        Map<String, String> arguments = new HashMap<String, String>();
+        if (!matcher.group(2).trim().isEmpty()) {
+            for (String argument : matcher.group(2).split(",")) {
+                String[] pair = argument.split("=");
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("Can't parse argument '" + argument.trim() + "' of key distribution '" + spec + "'");
+                }
+                arguments.put(pair[0].trim(), pair[1].trim());
+            }
+        }
+
+        KeyDistribution distribution;
+        try {
+            Type type = Type.valueOf(matcher.group(1).toUpperCase());
+            long keyCount = Long.parseLong(argument(arguments, "keys", spec));
+            switch (type) {
+                case UNIFORM:
+                    distribution = uniform(keyCount);
+                    break;
+                case ZIPFIAN:
+                    distribution = zipfian(keyCount, Double.parseDouble(argument(arguments, "skew", spec)));
+                    break;
+                case HOTSPOT:
+                    distribution = hotspot(keyCount, Double.parseDouble(argument(arguments, "hotKeys", spec)),
+                            Double.parseDouble(argument(arguments, "hotOperations", spec)));
+                    break;
+                case SEQUENTIAL:
+                    distribution = sequential(keyCount);
+                    break;
+                case LATEST:
+                    distribution = latest(keyCount, Double.parseDouble(argument(arguments, "skew", spec)));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown key distribution '" + spec + "'");
+            }
+            String seed = arguments.get("seed");
+            return seed == null ? distribution : distribution.withSeed(Long.parseLong(seed));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Can't parse key distribution '" + spec + "'", e);
+        }
+    }
+
+    private static String argument(Map<String, String> arguments, String name, String spec) {
+        String value = arguments.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Key distribution '" + spec + "' is missing argument '" + name + "'");
+        }
+        return value;
+    }
+
+    private static void checkSkew(double skew) {
+        if(!(skew > 0 && skew < 1))throw new IllegalArgumentException("skew must be larger than 0 and smaller than 1, found " + skew);
+    }
+
+    private static void checkFraction(double fraction) {
+        if(!(fraction >= 0 && fraction <= 1))throw new IllegalArgumentException("fraction must be between 0 and 1, found " + fraction);
+    }
+
+    /**
+     * Returns a copy of this KeyDistribution with another seed.
+     *
+     * @param seed the seed.
+     * @return the copy.
+     */
+    public KeyDistribution withSeed(long seed) {
+        return new KeyDistribution(type, keyCount, skew, hotKeyFraction, hotOperationFraction, seed);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getKeyCount() {
+        return keyCount;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Creates the KeyGenerator of a worker thread.
+     *
+     * @param threadIndex the index of the worker thread.
+     * @return the KeyGenerator.
+     */
+    public KeyGenerator newGenerator(int threadIndex) {
+        long threadSeed = seed + threadIndex * 0x9E3779B97F4A7C15L;
+        switch (type) {
+            case UNIFORM:
+                return new UniformGenerator(threadSeed, keyCount);
+            case ZIPFIAN:
+                return new ZipfianGenerator(threadSeed, keyCount, skew, getZeta());
+            case HOTSPOT:
+                return new HotspotGenerator(threadSeed, keyCount, hotKeyFraction, hotOperationFraction);
+            case SEQUENTIAL:
+                return new SequentialGenerator(threadSeed, keyCount);
+            case LATEST:
+                return new LatestGenerator(threadSeed, keyCount, skew, getZeta());
+            default:
+                throw new IllegalStateException("Unknown key distribution " + type);
+        }
+    }
+
+    private double getZeta() {
+        double zeta = this.zeta;
+        if (zeta == 0) {
+            zeta = ZipfianGenerator.zeta(keyCount, skew);
+            this.zeta = zeta;
+        }
+        return zeta;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof KeyDistribution)) {
+            return false;
+        }
+        KeyDistribution that = (KeyDistribution) o;
+        return type == that.type
+                && keyCount == that.keyCount
+                && Double.compare(skew, that.skew) == 0
+                && Double.compare(hotKeyFraction, that.hotKeyFraction) == 0
+                && Double.compare(hotOperationFraction, that.hotOperationFraction) == 0
+                && seed == that.seed;
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        String name = type.name().toLowerCase();
+        switch (type) {
+            case ZIPFIAN:
+            case LATEST:
+                return String.format("%s(keys=%s, skew=%s, seed=%s)", name, keyCount, skew, seed);
+            case HOTSPOT:
+                return String.format("%s(keys=%s, hotKeys=%s, hotOperations=%s, seed=%s)", name, keyCount, hotKeyFraction, hotOperationFraction, seed);
+            default:
+                return String.format("%s(keys=%s, seed=%s)", name, keyCount, seed);
+        }
+    }
+
+    private static final class UniformGenerator extends KeyGenerator {
+        private final long keyCount;
+
+        private UniformGenerator(long seed, long keyCount) {
+            super(seed);
+            this.keyCount = keyCount;
+        }
+
+        @Override
+        public long next() {
+            return random.nextLong(keyCount);
+        }
+    }
+
+    /**
+     * Generates zipfian keys with the algorithm of Gray et al., "Quickly generating billion-record synthetic
+     * databases", which needs a constant amount of work per key once the zeta constant of the key count is known.
+     */
+    private static class ZipfianGenerator extends KeyGenerator {
+        private final long keyCount;
+        private final double skew;
+        private final double zeta;
+        private final double alpha;
+        private final double eta;
+        private final double secondThreshold;
+
+        private ZipfianGenerator(long seed, long keyCount, double skew, double zeta) {
+            super(seed);
+            this.keyCount = keyCount;
+            this.skew = skew;
+            this.zeta = zeta;
+            this.alpha = 1 / (1 - skew);
+            double zeta2 = zeta(Math.min(2, keyCount), skew);
+            this.eta = keyCount < 2 ? 0 : (1 - Math.pow(2d / keyCount, 1 - skew)) / (1 - zeta2 / zeta);
+            this.secondThreshold = 1 + Math.pow(0.5, skew);
+        }
+
+        static double zeta(long keyCount, double skew) {
+            double sum = 0;
+            for (long k = 1; k <= keyCount; k++) {
+                sum += 1 / Math.pow(k, skew);
+            }
+            return sum;
+        }
+
+        @Override
+        public long next() {
+            double u = random.nextDouble();
+            double uz = u * zeta;
+            if (uz < 1 || keyCount == 1) {
+                return 0;
+            }
+            if (uz < secondThreshold) {
+                return 1;
+            }
+            long key = (long) (keyCount * Math.pow(eta * u - eta + 1, alpha));
+            return key >= keyCount ? keyCount - 1 : key;
+        }
+    }
+
+    private static final class HotspotGenerator extends KeyGenerator {
+        private final long hotKeyCount;
+        private final long coldKeyCount;
+        private final double hotOperationFraction;
+
+        private HotspotGenerator(long seed, long keyCount, double hotKeyFraction, double hotOperationFraction) {
+            super(seed);
+            this.hotKeyCount = Math.max(1, Math.min(keyCount, Math.round(keyCount * hotKeyFraction)));
+            this.coldKeyCount = keyCount - hotKeyCount;
+            this.hotOperationFraction = coldKeyCount == 0 ? 1 : hotOperationFraction;
+        }
+
+        @Override
+        public long next() {
+            if (random.nextDouble() < hotOperationFraction) {
+                return random.nextLong(hotKeyCount);
+            }
+            return hotKeyCount + random.nextLong(coldKeyCount);
+        }
+    }
+
+    private static final class SequentialGenerator extends KeyGenerator {
+        private final long keyCount;
+        private long key;
+
+        private SequentialGenerator(long seed, long keyCount) {
+            super(seed);
+            this.keyCount = keyCount;
+            this.key = random.nextLong(keyCount);
+        }
+
+        @Override
+        public long next() {
+            long next = key;
+            if (++key == keyCount) {
+                key = 0;
+            }
+            return next;
+        }
+    }
+
+    private static final class LatestGenerator extends ZipfianGenerator {
+        private final long keyCount;
+        private long latest;
+
+        private LatestGenerator(long seed, long keyCount, double skew, double zeta) {
+            super(seed, keyCount, skew, zeta);
+            this.keyCount = keyCount;
+            this.latest = keyCount - 1;
+        }
+
+        @Override
+        public long next() {
+            long key = latest - super.next();
+            return key < 0 ? key + keyCount : key;
+        }
+
+        @Override
+        public void inserted(long key) {
+            if(key < 0 || key >= keyCount)throw new IllegalArgumentException("key must be between 0 and " + keyCount + ", found " + key);
+            latest = key;
+        }
+    }
+}
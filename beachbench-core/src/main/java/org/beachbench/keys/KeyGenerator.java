@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.keys;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates the keys a driver operates on, following a {@link KeyDistribution}.
+ *
+ * A KeyGenerator is not threadsafe; every worker thread should have its own, see
+ * {@link KeyDistribution#newGenerator(int)}. Generating a key doesn't allocate and doesn't touch state shared with
+ * other threads. If even the cost of generating the key shouldn't be part of the measurement, the keys can be
+ * generated up front with {@link #pregenerate(int)}.
+ */
+public abstract class KeyGenerator {
+
+    /**
+     * The random generator of this KeyGenerator. A SplittableRandom is fast, doesn't allocate and, unlike
+     * java.util.Random, has no atomic state that threads would contend on.
+     */
+    protected final SplittableRandom random;
+
+    protected KeyGenerator(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Returns the next key.
+     *
+     * @return the next key, between 0 (inclusive) and the key count of the distribution (exclusive).
+     */
+    public abstract long next();
+
+    /**
+     * Tells this generator that a key was inserted. A {@link KeyDistribution#latest(long, double) latest} generator
+     * favours the keys inserted last; the other generators ignore it.
+     *
+     * @param key the inserted key.
+     */
+    public void inserted(long key) {
+    }
+
+    /**
+     * Fills an array with the next keys.
+     *
+     * @param keys the array to fill.
+     */
+    public void fill(long[] keys) {
+        for (int k = 0; k < keys.length; k++) {
+            keys[k] = next();
+        }
+    }
+
+    /**
+     * Generates a number of keys up front and returns a KeyGenerator that cycles through them, so that generating a
+     * key on the measured path is only an array read. Call it outside of the measurement, e.g. in
+     * {@link org.beachbench.ConcurrentBenchmarkDriver#setUpThread(int)}.
+     *
+     * @param count the number of keys to generate.
+     * @return the KeyGenerator returning the generated keys.
+     * @throws IllegalArgumentException if count is smaller than 1.
+     */
+    public KeyGenerator pregenerate(int count) {
+        if(count < 1)throw new IllegalArgumentException("count must be at least 1, found " + count);
+        long[] keys = new long[count];
+        fill(keys);
+        return new PregeneratedGenerator(keys);
+    }
+
+    private static final class PregeneratedGenerator extends KeyGenerator {
+        private final long[] keys;
+        private int index;
+
+        private PregeneratedGenerator(long[] keys) {
+            super(0);
+            this.keys = keys;
+        }
+
+        @Override
+        public long next() {
+            long key = keys[index];
+            if (++index == keys.length) {
+                index = 0;
+            }
+            return key;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.profile;
+
+import org.beachbench.TestCaseResult;
+import org.beachbench.exception.ExceptionUtils;
+
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+
+/**
+ * A {@link Profiler} that makes a Java Flight Recorder recording of every measured iteration, using the 'profile'
+ * settings of the JVM. The recording is dumped to '&lt;testcase&gt;-&lt;iteration&gt;.jfr' in the profile directory.
+ *
+ * The recording is made with the jdk.jfr API, which is looked up reflectively so that BeachBench still runs on JVMs
+ * without it.
+ */
+public class JfrProfiler implements Profiler {
+
+    /**
+     * The result property containing the path of the recording.
+     */
+    public static final String RESULT_RECORDING_FILE = "profile.jfr";
+
+    private static final String CONFIGURATION = "profile";
+
+    private Object recording;
+
+    /**
+     * Checks if the JVM supports Java Flight Recorder recordings.
+     *
+     * @return true if JFR is available.
+     */
+    public static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Recording");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void start(TestCaseResult result) {
+        if (recording != null) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        try {
+            Class<?> configurationClass = Class.forName("jdk.jfr.Configuration");
+            Object configuration = configurationClass.getMethod("getConfiguration", String.class).invoke(null, CONFIGURATION);
+            Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+            Constructor<?> constructor = recordingClass.getConstructor(configurationClass);
+            Object recording = constructor.newInstance(configuration);
+            recordingClass.getMethod("setName", String.class).invoke(recording, "BeachBench " + result.getTestCase().getName());
+            recordingClass.getMethod("start").invoke(recording);
+            this.recording = recording;
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Java Flight Recorder is not available on this JVM", e);
+        } catch (Exception e) {
+            throw ExceptionUtils.wrap(e);
+        }
+    }
+
+    @Override
+    public void stop(TestCaseResult result) {
+        if (recording == null) {
+            return;
+        }
+        Object recording = this.recording;
+        this.recording = null;
+        File file = ProfilerUtils.outputFile(result, "jfr");
+        try {
+            Class<?> recordingClass = recording.getClass();
+            recordingClass.getMethod("stop").invoke(recording);
+            recordingClass.getMethod("dump", Path.class).invoke(recording, file.toPath());
+            recordingClass.getMethod("close").invoke(recording);
+        } catch (Exception e) {
+            throw ExceptionUtils.wrap(e);
+        }
+        result.put(RESULT_RECORDING_FILE, file.getPath());
+    }
+}
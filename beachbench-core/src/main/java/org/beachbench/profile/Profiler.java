@@ -0,0 +1,44 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.profile;
+
+import org.beachbench.TestCaseResult;
+
+/**
+ * A Profiler is started right before and stopped right after the measured window of every benchmark iteration of a
+ * {@link org.beachbench.TestCase}, so that driver set up, warmup iterations and tear down don't end up in the
+ * profile. Profilers are configured with {@link org.beachbench.TestCase#setProfilers(Class[])} and a Profiler
+ * instance is created for every TestCase, so it needs a public no argument constructor.
+ *
+ * A Profiler can store where its output was written in the {@link TestCaseResult}.
+ */
+public interface Profiler {
+
+    /**
+     * Starts profiling a benchmark iteration.
+     *
+     * @param result the TestCaseResult of the iteration that is about to be measured.
+     */
+    void start(TestCaseResult result);
+
+    /**
+     * Stops profiling a benchmark iteration. Also called when the iteration threw an exception.
+     *
+     * @param result the TestCaseResult of the iteration that was measured.
+     */
+    void stop(TestCaseResult result);
+}
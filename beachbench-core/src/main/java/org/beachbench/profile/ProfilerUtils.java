@@ -0,0 +1,48 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.profile;
+
+import org.beachbench.TestCase;
+import org.beachbench.TestCaseResult;
+
+import java.io.File;
+
+final class ProfilerUtils {
+
+    /**
+     * Returns the file a Profiler writes the output of an iteration to: the sanitized TestCase name followed by the
+     * iteration in the profile directory of the TestCase.
+     *
+     * @param result the TestCaseResult of the iteration.
+     * @param extension the file extension.
+     * @return the file.
+     * @throws IllegalStateException if the profile directory doesn't exist and can't be created.
+     */
+    static File outputFile(TestCaseResult result, String extension) {
+        TestCase testCase = result.getTestCase();
+        File directory = new File(testCase.getProfileDirectory());
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalStateException("Can't create directory " + directory);
+        }
+        String name = testCase.getName() == null ? testCase.getId() : testCase.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+        return new File(directory, name + "-" + result.getTestCaseIteration() + "." + extension);
+    }
+
+    //we don't want instances.
+    private ProfilerUtils() {
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.profile;
+
+import org.beachbench.TestCaseResult;
+import org.beachbench.exception.ExceptionUtils;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link Profiler} that periodically takes the stack traces of all runnable threads and counts how often each
+ * stack was seen. The stacks are written as collapsed stacks to '&lt;testcase&gt;-&lt;iteration&gt;.collapsed' in
+ * the profile directory: one line per stack with the frames from the root to the leaf separated by ';', followed by
+ * the number of samples. This is the input format of the flame graph tools.
+ *
+ * Thread.getAllStackTraces only samples at safepoints, so the profile is biased towards the locations of safepoint
+ * polls; it shows where the time is spent on the level of methods, not on the level of individual lines.
+ */
+public class SamplingProfiler implements Profiler {
+
+    /**
+     * The result property containing the path of the collapsed stacks.
+     */
+    public static final String RESULT_COLLAPSED_STACKS_FILE = "profile.collapsed";
+
+    /**
+     * The result property containing the number of samples taken.
+     */
+    public static final String RESULT_SAMPLE_COUNT = "profile.samples";
+
+    public static final long DEFAULT_INTERVAL_MS = 10;
+
+    private final long intervalMs;
+    private Sampler sampler;
+
+    /**
+     * Creates a SamplingProfiler that samples every {@link #DEFAULT_INTERVAL_MS} milliseconds.
+     */
+    public SamplingProfiler() {
+        this(DEFAULT_INTERVAL_MS);
+    }
+
+    /**
+     * Creates a SamplingProfiler.
+     *
+     * @param intervalMs the time in milliseconds between 2 samples.
+     * @throws IllegalArgumentException if intervalMs is smaller than 1.
+     */
+    public SamplingProfiler(long intervalMs) {
+        if(intervalMs < 1)throw new IllegalArgumentException("intervalMs must be at least 1, found " + intervalMs);
+        this.intervalMs = intervalMs;
+    }
+
+    @Override
+    public void start(TestCaseResult result) {
+        if (sampler != null) {
+            throw new IllegalStateException("The sampler is already running");
+        }
+        sampler = new Sampler();
+        sampler.start();
+    }
+
+    @Override
+    public void stop(TestCaseResult result) {
+        if (sampler == null) {
+            return;
+        }
+        Sampler sampler = this.sampler;
+        this.sampler = null;
+        sampler.running = false;
+        sampler.interrupt();
+        try {
+            sampler.join();
+        } catch (InterruptedException e) {
+            throw ExceptionUtils.wrap(e);
+        }
+
+        File file = ProfilerUtils.outputFile(result, "collapsed");
+        try {
+            write(file, sampler.stacks);
+        } catch (IOException e) {
+            throw ExceptionUtils.wrap(e);
+        }
+        result.put(RESULT_COLLAPSED_STACKS_FILE, file.getPath());
+        result.put(RESULT_SAMPLE_COUNT, sampler.sampleCount);
+    }
+
+    private static void write(File file, Map<String, long[]> stacks) throws IOException {
+        List<String> lines = new ArrayList<String>(stacks.size());
+        for (Map.Entry<String, long[]> entry : stacks.entrySet()) {
+            lines.add(entry.getKey() + " " + entry.getValue()[0]);
+        }
+        Collections.sort(lines);
+
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+        try {
+            for (String line : lines) {
+                writer.println(line);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Collapses a stack trace into the frames from the root to the leaf, separated by ';'.
+     *
+     * @param trace the stack trace with the leaf first, as returned by {@link Thread#getStackTrace()}.
+     * @return the collapsed stack.
+     */
+    static String collapse(StackTraceElement[] trace) {
+        StringBuilder sb = new StringBuilder();
+        for (int k = trace.length - 1; k >= 0; k--) {
+            if (sb.length() > 0) {
+                sb.append(';');
+            }
+            sb.append(trace[k].getClassName()).append('.').append(trace[k].getMethodName());
+        }
+        return sb.toString();
+    }
+
+    private class Sampler extends Thread {
+        private final Map<String, long[]> stacks = new HashMap<String, long[]>();
+        private volatile boolean running = true;
+        private long sampleCount;
+
+        Sampler() {
+            super("BeachBench-sampler");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                sample();
+                try {
+                    Thread.sleep(intervalMs);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private void sample() {
+            for (Map.Entry<Thread, StackTraceElement[]> entry : Thread.getAllStackTraces().entrySet()) {
+                Thread thread = entry.getKey();
+                StackTraceElement[] trace = entry.getValue();
+                if (thread == this || thread.getState() != State.RUNNABLE || trace.length == 0) {
+                    continue;
+                }
+                String stack = collapse(trace);
+                long[] count = stacks.get(stack);
+                if (count == null) {
+                    count = new long[1];
+                    stacks.put(stack, count);
+                }
+                count[0]++;
+                sampleCount++;
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.recorder;
+
+/**
+ * A count that is incremented by any number of threads without locks or allocation. The count of an iteration is
+ * stored in the {@link org.beachbench.TestCaseResult} as a Long under the name of the Counter.
+ *
+ * A Counter is threadsafe.
+ */
+public final class Counter {
+
+    private final String name;
+    private final StripedCells cells = new StripedCells();
+
+    Counter(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Increments the count by one.
+     */
+    public void inc() {
+        cells.add(1);
+    }
+
+    /**
+     * Adds a delta to the count.
+     *
+     * @param delta the delta to add.
+     */
+    public void add(long delta) {
+        cells.add(delta);
+    }
+
+    /**
+     * Returns the count of the current iteration.
+     *
+     * @return the count.
+     */
+    public long get() {
+        return cells.sum();
+    }
+
+    long drain() {
+        return cells.sumThenReset();
+    }
+}
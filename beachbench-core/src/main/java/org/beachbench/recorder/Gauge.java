@@ -0,0 +1,55 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.recorder;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A value that is set by any number of threads without locks or allocation; the last value set wins. At the end of
+ * every iteration the value is stored in the {@link org.beachbench.TestCaseResult} as a Long under the name of the
+ * Gauge. Unlike a {@link Counter}, the value is not reset between iterations.
+ *
+ * A Gauge is threadsafe.
+ */
+public final class Gauge {
+
+    private final String name;
+    // the value sits between 2 paddings, so that it never shares a cache line with other data.
+    private final AtomicLongArray cell = new AtomicLongArray(2 * StripedCells.PADDING);
+
+    Gauge(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the value. The write is ordered but not immediately visible to other threads, so it is cheap enough to be
+     * called for every operation.
+     *
+     * @param value the new value.
+     */
+    public void set(long value) {
+        cell.lazySet(StripedCells.PADDING, value);
+    }
+
+    public long get() {
+        return cell.get(StripedCells.PADDING);
+    }
+}
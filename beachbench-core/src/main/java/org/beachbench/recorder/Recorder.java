@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.recorder;
+
+import org.beachbench.TestCaseResult;
+import org.beachbench.stats.LatencyHistogram;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The instruments a {@link org.beachbench.BenchmarkDriver} reports its own measurements with. Unlike
+ * {@link TestCaseResult#put(String, Object)}, the instruments can be updated from the hot loop of any number of
+ * threads, without locks and without allocation, so the instrumentation doesn't distort what is measured.
+ *
+ * Instruments should be created once, e.g. in the setUp of the driver, and kept in a field. At the end of every
+ * iteration the engine drains all instruments into the TestCaseResult of the iteration, under their names.
+ *
+ * A Recorder is threadsafe.
+ */
+public final class Recorder {
+
+    private final ConcurrentMap<String, Object> instruments = new ConcurrentHashMap<String, Object>();
+
+    /**
+     * Returns the Counter with a name, creating it if it doesn't exist.
+     *
+     * @param name the name of the Counter.
+     * @return the Counter.
+     * @throws NullPointerException if name is null.
+     * @throws IllegalArgumentException if another kind of instrument has the same name.
+     */
+    public Counter counter(String name) {
+        if(name == null)throw new NullPointerException();
+        return instrument(name, Counter.class, new Counter(name));
+    }
+
+    /**
+     * Returns the Gauge with a name, creating it if it doesn't exist.
+     *
+     * @param name the name of the Gauge.
+     * @return the Gauge.
+     * @throws NullPointerException if name is null.
+     * @throws IllegalArgumentException if another kind of instrument has the same name.
+     */
+    public Gauge gauge(String name) {
+        if(name == null)throw new NullPointerException();
+        return instrument(name, Gauge.class, new Gauge(name));
+    }
+
+    /**
+     * Returns the Timer with a name, creating it if it doesn't exist.
+     *
+     * @param name the name of the Timer.
+     * @return the Timer.
+     * @throws NullPointerException if name is null.
+     * @throws IllegalArgumentException if another kind of instrument has the same name.
+     */
+    public Timer timer(String name) {
+        if(name == null)throw new NullPointerException();
+        return instrument(name, Timer.class, new Timer(name));
+    }
+
+    private <T> T instrument(String name, Class<T> type, T created) {
+        Object found = instruments.putIfAbsent(name, created);
+        if (found == null) {
+            return created;
+        }
+        if (!type.isInstance(found)) {
+            throw new IllegalArgumentException(String.format("Instrument '%s' is a %s, not a %s",
+                    name, found.getClass().getSimpleName(), type.getSimpleName()));
+        }
+        return type.cast(found);
+    }
+
+    /**
+     * Stores the values of all instruments in a TestCaseResult and resets the Counters and Timers. A Timer without
+     * samples since the previous drain is left out of the result. Called by the engine at the end of every iteration,
+     * once the driver has completed.
+     *
+     * @param result the TestCaseResult to store the values in.
+     * @throws NullPointerException if result is null.
+     */
+    public void drainTo(TestCaseResult result) {
+        if(result == null)throw new NullPointerException();
+        for (Map.Entry<String, Object> entry : instruments.entrySet()) {
+            Object instrument = entry.getValue();
+            if (instrument instanceof Counter) {
+                result.put(entry.getKey(), ((Counter) instrument).drain());
+            } else if (instrument instanceof Gauge) {
+                result.put(entry.getKey(), ((Gauge) instrument).get());
+            } else {
+                LatencyHistogram latency = ((Timer) instrument).drain();
+                // a Timer that recorded nothing in this iteration has no latency to report.
+                if (latency != null) {
+                    result.put(entry.getKey(), latency);
+                }
+            }
+        }
+    }
+}
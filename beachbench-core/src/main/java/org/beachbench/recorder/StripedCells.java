@@ -0,0 +1,71 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.recorder;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A sum that is striped over a number of cells, so that threads updating it concurrently rarely contend on the same
+ * cell. The cell of a thread is selected by its id; consecutive thread ids, like those of the worker threads of a
+ * benchmark, end up in different cells.
+ *
+ * The cells are spaced 16 longs (128 bytes) apart, so that 2 cells never share a cache line, not even with adjacent
+ * cache line prefetching.
+ *
+ * StripedCells are threadsafe.
+ */
+final class StripedCells {
+
+    static final int PADDING = 16;
+    private static final int STRIPES = stripes();
+    private static final int MASK = STRIPES - 1;
+
+    private final AtomicLongArray cells = new AtomicLongArray((STRIPES + 1) * PADDING);
+
+    private static int stripes() {
+        int stripes = 1;
+        while (stripes < 2 * Runtime.getRuntime().availableProcessors()) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    void add(long delta) {
+        cells.getAndAdd(index(), delta);
+    }
+
+    long sum() {
+        long sum = 0;
+        for (int stripe = 1; stripe <= STRIPES; stripe++) {
+            sum += cells.get(stripe * PADDING);
+        }
+        return sum;
+    }
+
+    long sumThenReset() {
+        long sum = 0;
+        for (int stripe = 1; stripe <= STRIPES; stripe++) {
+            sum += cells.getAndSet(stripe * PADDING, 0);
+        }
+        return sum;
+    }
+
+    private static int index() {
+        // the first cell is left empty as padding.
+        return (((int) Thread.currentThread().getId() & MASK) + 1) * PADDING;
+    }
+}
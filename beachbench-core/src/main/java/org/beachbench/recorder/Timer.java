@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.recorder;
+
+import org.beachbench.stats.AtomicLatencyHistogram;
+import org.beachbench.stats.LatencyHistogram;
+
+/**
+ * Records durations from any number of threads without locks or allocation. The durations of an iteration are
+ * stored in the {@link org.beachbench.TestCaseResult} as a {@link LatencyHistogram} under the name of the Timer.
+ *
+ * <pre>
+ * long startNs = timer.start();
+ * ...
+ * timer.stop(startNs);
+ * </pre>
+ *
+ * A Timer is threadsafe.
+ */
+public final class Timer {
+
+    private final String name;
+    private final AtomicLatencyHistogram histogram = new AtomicLatencyHistogram();
+
+    Timer(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the start time of a duration.
+     *
+     * @return the start time in nanoseconds.
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the duration since a start time returned by {@link #start()}.
+     *
+     * @param startNs the start time in nanoseconds.
+     */
+    public void stop(long startNs) {
+        histogram.record(System.nanoTime() - startNs);
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param durationNs the duration in nanoseconds.
+     */
+    public void record(long durationNs) {
+        histogram.record(durationNs);
+    }
+
+    LatencyHistogram drain() {
+        LatencyHistogram drained = new LatencyHistogram(histogram.getPrecisionBits());
+        return histogram.drainTo(drained) == 0 ? null : drained;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link LatencyHistogram} that can be recorded to by any number of threads concurrently, without locks and
+ * without allocation. The recorded values are moved into a regular LatencyHistogram with
+ * {@link #drainTo(LatencyHistogram)} once the recording threads are done.
+ *
+ * Only the bucket counts and the extremes are kept, so the mean of the drained histogram is estimated from the
+ * middle of each bucket and has the same bounded relative error as the percentiles.
+ *
+ * An AtomicLatencyHistogram is threadsafe.
+ */
+public final class AtomicLatencyHistogram {
+
+    private final int precisionBits;
+    private final AtomicLongArray counts;
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(0);
+
+    /**
+     * Creates an AtomicLatencyHistogram with {@link LatencyHistogram#DEFAULT_PRECISION_BITS}.
+     */
+    public AtomicLatencyHistogram() {
+        this(LatencyHistogram.DEFAULT_PRECISION_BITS);
+    }
+
+    /**
+     * Creates an AtomicLatencyHistogram.
+     *
+     * @param precisionBits the number of bits of each value that are retained.
+     * @throws IllegalArgumentException if precisionBits is not between 1 and 16.
+     */
+    public AtomicLatencyHistogram(int precisionBits) {
+        if (precisionBits < 1 || precisionBits > 16) {
+            throw new IllegalArgumentException("precisionBits must be between 1 and 16, found " + precisionBits);
+        }
+        this.precisionBits = precisionBits;
+        this.counts = new AtomicLongArray(LatencyHistogram.bucketCount(precisionBits));
+    }
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     *
+     * @param valueNs the value in nanoseconds.
+     */
+    public void record(long valueNs) {
+        long value = valueNs < 0 ? 0 : valueNs;
+        counts.getAndIncrement(LatencyHistogram.indexOf(value, precisionBits));
+
+        // the extremes rarely change once the recording is under way, so these are mostly plain reads.
+        long currentMin = min.get();
+        while (value < currentMin && !min.compareAndSet(currentMin, value)) {
+            currentMin = min.get();
+        }
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    public int getPrecisionBits() {
+        return precisionBits;
+    }
+
+    /**
+     * Moves all recorded values into a LatencyHistogram and resets this histogram. Values that are recorded while
+     * draining end up in either this drain or the next one.
+     *
+     * @param target the LatencyHistogram to move the values to.
+     * @return the number of values moved.
+     * @throws NullPointerException if target is null.
+     * @throws IllegalArgumentException if target has a different precision.
+     */
+    public long drainTo(LatencyHistogram target) {
+        if (target == null) throw new NullPointerException();
+        if (target.getPrecisionBits() != precisionBits) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't drain a histogram with %s precision bits to a histogram with %s precision bits",
+                    precisionBits, target.getPrecisionBits()));
+        }
+
+        long drainedMin = min.getAndSet(Long.MAX_VALUE);
+        long drainedMax = max.getAndSet(0);
+        long[] drained = new long[counts.length()];
+        long total = 0;
+        for (int index = 0; index < drained.length; index++) {
+            if (counts.get(index) != 0) {
+                drained[index] = counts.getAndSet(index, 0);
+                total += drained[index];
+            }
+        }
+        target.addBuckets(drained, drainedMin, drainedMax);
+        return total;
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.stats;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A fixed memory, log-linear bucketed histogram for latencies in nanoseconds, in the spirit of HdrHistogram.
+ *
+ * Values below 2^precisionBits are counted exactly. Larger values are counted in buckets whose width doubles with
+ * every power of two, where every power of two is divided in 2^precisionBits sub buckets. So the relative error of a
+ * reported value is bounded by 1/2^precisionBits, independent of the magnitude of the value. All the memory is
+ * allocated up front; recording a value never allocates.
+ *
+ * A LatencyHistogram is not threadsafe; the idea is that each thread records in its own histogram and that the
+ * histograms are merged using {@link #add(LatencyHistogram)} once the threads have completed.
+ */
+public final class LatencyHistogram implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The default number of precision bits, giving a relative error of less than 1%.
+     */
+    public static final int DEFAULT_PRECISION_BITS = 7;
+
+    private final int precisionBits;
+    private final long[] counts;
+    private long totalCount;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Creates a LatencyHistogram with {@link #DEFAULT_PRECISION_BITS}.
+     */
+    public LatencyHistogram() {
+        this(DEFAULT_PRECISION_BITS);
+    }
+
+    /**
+     * Creates a LatencyHistogram.
+     *
+     * @param precisionBits the number of bits of each value that are retained.
+     * @throws IllegalArgumentException if precisionBits is not between 1 and 16.
+     */
+    public LatencyHistogram(int precisionBits) {
+        if (precisionBits < 1 || precisionBits > 16) {
+            throw new IllegalArgumentException("precisionBits must be between 1 and 16, found " + precisionBits);
+        }
+        this.precisionBits = precisionBits;
+        this.counts = new long[bucketCount(precisionBits)];
+    }
+
+    /**
+     * Records a single value. Negative values are recorded as 0.
+     *
+     * @param valueNs the value in nanoseconds.
+     */
+    public void record(long valueNs) {
+        long value = valueNs < 0 ? 0 : valueNs;
+        counts[indexOf(value)]++;
+        totalCount++;
+        sum += value;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Records the same value a number of times.
+     *
+     * @param valueNs the value in nanoseconds.
+     * @param count the number of times the value is recorded.
+     * @throws IllegalArgumentException if count is negative.
+     */
+    public void record(long valueNs, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count can't be negative, found " + count);
+        }
+        if (count == 0) {
+            return;
+        }
+        long value = valueNs < 0 ? 0 : valueNs;
+        counts[indexOf(value)] += count;
+        totalCount += count;
+        sum += value * count;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Adds all values recorded in another histogram to this histogram.
+     *
+     * @param other the histogram to add.
+     * @throws NullPointerException if other is null.
+     * @throws IllegalArgumentException if other has a different precision.
+     */
+    public void add(LatencyHistogram other) {
+        if (other == null) throw new NullPointerException();
+        if (other.precisionBits != precisionBits) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't add a histogram with %s precision bits to a histogram with %s precision bits",
+                    other.precisionBits, precisionBits));
+        }
+        for (int k = 0; k < counts.length; k++) {
+            counts[k] += other.counts[k];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Removes the values recorded in an earlier copy of this histogram, so only the values recorded since remain.
+     * The sum, and so the mean, stay exact; the min and max are derived from the remaining buckets.
+     *
+     * @param earlier an earlier copy of this histogram.
+     * @throws NullPointerException if earlier is null.
+     * @throws IllegalArgumentException if earlier has a different precision.
+     */
+    public void subtract(LatencyHistogram earlier) {
+        if (earlier == null) throw new NullPointerException();
+        if (earlier.precisionBits != precisionBits) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't subtract a histogram with %s precision bits from a histogram with %s precision bits",
+                    earlier.precisionBits, precisionBits));
+        }
+        long remaining = 0;
+        int lowest = -1;
+        int highest = -1;
+        for (int k = 0; k < counts.length; k++) {
+            counts[k] = Math.max(0, counts[k] - earlier.counts[k]);
+            if (counts[k] > 0) {
+                remaining += counts[k];
+                highest = k;
+                if (lowest < 0) {
+                    lowest = k;
+                }
+            }
+        }
+        totalCount = remaining;
+        if (remaining == 0) {
+            sum = 0;
+            min = Long.MAX_VALUE;
+            max = 0;
+        } else {
+            sum = Math.max(0, sum - earlier.sum);
+            min = Math.max(min, lowestEquivalentValue(lowest));
+            max = Math.min(max, highestEquivalentValue(highest));
+        }
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * Creates a copy of this histogram.
+     *
+     * @return the copy.
+     */
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram(precisionBits);
+        copy.add(this);
+        return copy;
+    }
+
+    public int getPrecisionBits() {
+        return precisionBits;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the smallest recorded value, or 0 if nothing was recorded.
+     *
+     * @return the smallest recorded value.
+     */
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    /**
+     * Returns the largest recorded value, or 0 if nothing was recorded.
+     *
+     * @return the largest recorded value.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the exact mean of the recorded values, or 0 if nothing was recorded.
+     *
+     * @return the mean.
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : ((double) sum) / totalCount;
+    }
+
+    /**
+     * Returns the value at a percentile. The returned value is the highest value that is equivalent to the
+     * recorded values at that percentile, but never more than the largest recorded value.
+     *
+     * @param percentile the percentile, between 0 and 100.
+     * @return the value at the percentile, or 0 if nothing was recorded.
+     * @throws IllegalArgumentException if percentile is not between 0 and 100.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100, found " + percentile);
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        long countAtPercentile = Math.max(1, (long) Math.ceil((percentile / 100) * totalCount));
+        long cumulative = 0;
+        for (int index = 0; index < counts.length; index++) {
+            cumulative += counts[index];
+            if (cumulative >= countAtPercentile) {
+                return Math.max(getMin(), Math.min(max, highestEquivalentValue(index)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the number of recorded values that are equivalent to the given value.
+     *
+     * @param valueNs the value.
+     * @return the count.
+     */
+    public long getCountAtValue(long valueNs) {
+        return counts[indexOf(valueNs < 0 ? 0 : valueNs)];
+    }
+
+    /**
+     * Adds bucket counts, in the layout of a histogram with the same precision, to this histogram. The sum is
+     * estimated from the middle of each bucket.
+     *
+     * @param bucketCounts the count of every bucket.
+     * @param min the smallest added value.
+     * @param max the largest added value.
+     */
+    void addBuckets(long[] bucketCounts, long min, long max) {
+        long added = 0;
+        for (int index = 0; index < bucketCounts.length; index++) {
+            long count = bucketCounts[index];
+            if (count == 0) {
+                continue;
+            }
+            counts[index] += count;
+            added += count;
+            sum += count * ((lowestEquivalentValue(index) + highestEquivalentValue(index)) / 2);
+        }
+        if (added == 0) {
+            return;
+        }
+        totalCount += added;
+        this.min = Math.min(this.min, min);
+        this.max = Math.max(this.max, max);
+    }
+
+    int indexOf(long value) {
+        return indexOf(value, precisionBits);
+    }
+
+    long lowestEquivalentValue(int index) {
+        return lowestEquivalentValue(index, precisionBits);
+    }
+
+    long highestEquivalentValue(int index) {
+        return highestEquivalentValue(index, precisionBits);
+    }
+
+    static int bucketCount(int precisionBits) {
+        return (64 - precisionBits) << precisionBits;
+    }
+
+    static int indexOf(long value, int precisionBits) {
+        if (value < (1L << precisionBits)) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - precisionBits;
+        int mantissa = (int) (value >>> shift) & ((1 << precisionBits) - 1);
+        return ((shift + 1) << precisionBits) + mantissa;
+    }
+
+    static long lowestEquivalentValue(int index, int precisionBits) {
+        if (index < (1 << precisionBits)) {
+            return index;
+        }
+        int shift = (index >>> precisionBits) - 1;
+        long mantissa = index & ((1 << precisionBits) - 1);
+        return ((1L << precisionBits) + mantissa) << shift;
+    }
+
+    static long highestEquivalentValue(int index, int precisionBits) {
+        if (index < (1 << precisionBits)) {
+            return index;
+        }
+        int shift = (index >>> precisionBits) - 1;
+        return lowestEquivalentValue(index, precisionBits) + (1L << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram{" +
+                "totalCount=" + totalCount +
+                ", min=" + getMin() +
+                ", mean=" + getMean() +
+                ", p50=" + getValueAtPercentile(50) +
+                ", p99=" + getValueAtPercentile(99) +
+                ", max=" + max +
+                '}';
+    }
+}
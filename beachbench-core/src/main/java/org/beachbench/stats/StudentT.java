@@ -0,0 +1,165 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.stats;
+
+/**
+ * Contains the cumulative distribution and quantile function of the Student's t-distribution.
+ */
+public final class StudentT {
+
+    private static final int MAX_ITERATIONS = 300;
+    private static final double EPSILON = 1e-14;
+    private static final double TINY = 1e-300;
+
+    /**
+     * Calculates the probability that a t-distributed variable is smaller than or equal to t.
+     *
+     * @param t the value.
+     * @param degreesOfFreedom the degrees of freedom, larger than 0.
+     * @return the cumulative probability.
+     * @throws IllegalArgumentException if degreesOfFreedom is not larger than 0.
+     */
+    public static double cdf(double t, double degreesOfFreedom) {
+        if (!(degreesOfFreedom > 0)) {
+            throw new IllegalArgumentException("degreesOfFreedom must be larger than 0, found " + degreesOfFreedom);
+        }
+        if (Double.isInfinite(t)) {
+            return t > 0 ? 1 : 0;
+        }
+        double x = degreesOfFreedom / (degreesOfFreedom + t * t);
+        double tail = 0.5 * regularizedIncompleteBeta(x, degreesOfFreedom / 2, 0.5);
+        return t > 0 ? 1 - tail : tail;
+    }
+
+    /**
+     * Calculates the value t for which the cumulative probability is p.
+     *
+     * @param p the cumulative probability, between 0 and 1 (exclusive).
+     * @param degreesOfFreedom the degrees of freedom, larger than 0.
+     * @return the quantile.
+     * @throws IllegalArgumentException if p is not between 0 and 1 or degreesOfFreedom is not larger than 0.
+     */
+    public static double quantile(double p, double degreesOfFreedom) {
+        if (!(p > 0 && p < 1)) {
+            throw new IllegalArgumentException("p must be between 0 and 1, found " + p);
+        }
+        if (p == 0.5) {
+            return 0;
+        }
+
+        double low = -1;
+        double high = 1;
+        while (cdf(low, degreesOfFreedom) > p) {
+            low *= 2;
+        }
+        while (cdf(high, degreesOfFreedom) < p) {
+            high *= 2;
+        }
+        for (int k = 0; k < MAX_ITERATIONS && high - low > EPSILON * Math.max(1, Math.abs(high)); k++) {
+            double mid = (low + high) / 2;
+            if (cdf(mid, degreesOfFreedom) < p) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    /**
+     * Calculates the regularized incomplete beta function I_x(a, b) using its continued fraction.
+     */
+    static double regularizedIncompleteBeta(double x, double a, double b) {
+        if (x <= 0) {
+            return 0;
+        }
+        if (x >= 1) {
+            return 1;
+        }
+        double front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1 - x));
+        if (x < (a + 1) / (a + b + 2)) {
+            return front * betaContinuedFraction(x, a, b) / a;
+        }
+        return 1 - front * betaContinuedFraction(1 - x, b, a) / b;
+    }
+
+    private static double betaContinuedFraction(double x, double a, double b) {
+        double qab = a + b;
+        double qap = a + 1;
+        double qam = a - 1;
+        double c = 1;
+        double d = 1 - qab * x / qap;
+        if (Math.abs(d) < TINY) {
+            d = TINY;
+        }
+        d = 1 / d;
+        double h = d;
+        for (int m = 1; m <= MAX_ITERATIONS; m++) {
+            int m2 = 2 * m;
+            double aa = m * (b - m) * x / ((qam + m2) * (a + m2));
+            d = 1 + aa * d;
+            if (Math.abs(d) < TINY) {
+                d = TINY;
+            }
+            c = 1 + aa / c;
+            if (Math.abs(c) < TINY) {
+                c = TINY;
+            }
+            d = 1 / d;
+            h *= d * c;
+            aa = -(a + m) * (qab + m) * x / ((a + m2) * (qap + m2));
+            d = 1 + aa * d;
+            if (Math.abs(d) < TINY) {
+                d = TINY;
+            }
+            c = 1 + aa / c;
+            if (Math.abs(c) < TINY) {
+                c = TINY;
+            }
+            d = 1 / d;
+            double delta = d * c;
+            h *= delta;
+            if (Math.abs(delta - 1) < EPSILON) {
+                break;
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Calculates the natural logarithm of the gamma function using the Lanczos approximation.
+     */
+    static double logGamma(double x) {
+        double[] coefficients = {
+                676.5203681218851, -1259.1392167224028, 771.32342877765313, -176.61502916214059,
+                12.507343278686905, -0.13857109526572012, 9.9843695780195716e-6, 1.5056327351493116e-7};
+        if (x < 0.5) {
+            return Math.log(Math.PI / Math.abs(Math.sin(Math.PI * x))) - logGamma(1 - x);
+        }
+        double z = x - 1;
+        double sum = 0.99999999999980993;
+        for (int k = 0; k < coefficients.length; k++) {
+            sum += coefficients[k] / (z + k + 1);
+        }
+        double t = z + coefficients.length - 0.5;
+        return 0.5 * Math.log(2 * Math.PI) + (z + 0.5) * Math.log(t) - t + Math.log(sum);
+    }
+
+    //we don't want instances.
+    private StudentT() {
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.stats;
+
+import java.util.Arrays;
+
+/**
+ * A statistical summary of a number of samples, e.g. the throughput of the iterations of a TestCase: mean, standard
+ * deviation, min, max, median and a t-based confidence interval of the mean.
+ *
+ * A Summary is immutable.
+ */
+public final class Summary {
+
+    /**
+     * The default confidence level of the confidence interval.
+     */
+    public static final double DEFAULT_CONFIDENCE = 0.95;
+
+    private final double[] sorted;
+    private final int count;
+    private final double mean;
+    private final double standardDeviation;
+    private final double min;
+    private final double max;
+    private final double median;
+    private final double confidence;
+    private final double marginOfError;
+
+    /**
+     * Creates a Summary with a {@link #DEFAULT_CONFIDENCE} confidence interval.
+     *
+     * @param samples the samples, the array is not modified.
+     * @return the Summary.
+     * @throws NullPointerException if samples is null.
+     * @throws IllegalArgumentException if samples is empty.
+     */
+    public static Summary of(double[] samples) {
+        return of(samples, DEFAULT_CONFIDENCE);
+    }
+
+    /**
+     * Creates a Summary.
+     *
+     * @param samples the samples, the array is not modified.
+     * @param confidence the confidence level of the confidence interval, between 0 and 1 (exclusive).
+     * @return the Summary.
+     * @throws NullPointerException if samples is null.
+     * @throws IllegalArgumentException if samples is empty or confidence is not between 0 and 1.
+     */
+    public static Summary of(double[] samples, double confidence) {
+        if (samples == null) throw new NullPointerException();
+        if (samples.length == 0) throw new IllegalArgumentException("samples can't be empty");
+        if (!(confidence > 0 && confidence < 1)) {
+            throw new IllegalArgumentException("confidence must be between 0 and 1, found " + confidence);
+        }
+        return new Summary(samples, confidence);
+    }
+
+    private Summary(double[] samples, double confidence) {
+        double[] sorted = samples.clone();
+        Arrays.sort(sorted);
+
+        this.sorted = sorted;
+
+        double sum = 0;
+        for (double sample : sorted) {
+            sum += sample;
+        }
+
+        this.count = sorted.length;
+        this.confidence = confidence;
+        this.mean = sum / count;
+        this.min = sorted[0];
+        this.max = sorted[count - 1];
+        this.median = count % 2 == 1 ? sorted[count / 2] : (sorted[count / 2 - 1] + sorted[count / 2]) / 2;
+
+        if (count > 1) {
+            double squares = 0;
+            for (double sample : sorted) {
+                squares += (sample - mean) * (sample - mean);
+            }
+            this.standardDeviation = Math.sqrt(squares / (count - 1));
+            double t = StudentT.quantile(1 - (1 - confidence) / 2, count - 1);
+            this.marginOfError = t * standardDeviation / Math.sqrt(count);
+        } else {
+            this.standardDeviation = 0;
+            this.marginOfError = Double.NaN;
+        }
+    }
+
+    /**
+     * Returns a copy of the samples in ascending order.
+     *
+     * @return the samples.
+     */
+    public double[] getSamples() {
+        return sorted.clone();
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Returns the sample standard deviation, or 0 if there is a single sample.
+     *
+     * @return the standard deviation.
+     */
+    public double getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getMedian() {
+        return median;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    /**
+     * Returns the half width of the confidence interval of the mean, or NaN if there is a single sample.
+     *
+     * @return the margin of error.
+     */
+    public double getMarginOfError() {
+        return marginOfError;
+    }
+
+    public double getConfidenceLow() {
+        return mean - marginOfError;
+    }
+
+    public double getConfidenceHigh() {
+        return mean + marginOfError;
+    }
+
+    /**
+     * Returns the standard deviation relative to the mean.
+     *
+     * @return the coefficient of variation, or 0 if the mean is 0.
+     */
+    public double getCoefficientOfVariation() {
+        return mean == 0 ? 0 : standardDeviation / Math.abs(mean);
+    }
+
+    @Override
+    public String toString() {
+        return "Summary{" +
+                "count=" + count +
+                ", mean=" + mean +
+                ", standardDeviation=" + standardDeviation +
+                ", min=" + min +
+                ", median=" + median +
+                ", max=" + max +
+                ", marginOfError=" + marginOfError +
+                '}';
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.stats;
+
+/**
+ * Neil Gunther's Universal Scalability Law: the throughput at concurrency N is
+ * <pre>
+ * X(N) = lambda * N / (1 + sigma * (N - 1) + kappa * N * (N - 1))
+ * </pre>
+ * where sigma is the contention (serialization) coefficient and kappa the coherency (crosstalk) coefficient. With a
+ * kappa larger than 0, the throughput peaks at a certain concurrency and degrades beyond it.
+ *
+ * The model is fitted with least squares on the linearized form N / C(N) - 1 = (sigma + kappa) x + kappa x^2, with
+ * x = N - 1 and C(N) = X(N) / X(1). So the measurements need to include a concurrency of 1.
+ *
+ * A UniversalScalabilityLaw is immutable.
+ */
+public final class UniversalScalabilityLaw {
+
+    private final double lambda;
+    private final double sigma;
+    private final double kappa;
+
+    /**
+     * Creates a UniversalScalabilityLaw model.
+     *
+     * @param lambda the throughput at a concurrency of 1.
+     * @param sigma the contention coefficient.
+     * @param kappa the coherency coefficient.
+     */
+    public UniversalScalabilityLaw(double lambda, double sigma, double kappa) {
+        this.lambda = lambda;
+        this.sigma = sigma;
+        this.kappa = kappa;
+    }
+
+    /**
+     * Fits the model on measured throughputs. Negative coefficients are clamped to 0.
+     *
+     * @param concurrency the concurrency of each measurement; one of them needs to be 1.
+     * @param throughput the throughput of each measurement.
+     * @return the fitted model.
+     * @throws NullPointerException if concurrency or throughput is null.
+     * @throws IllegalArgumentException if the arrays have a different length, there are less than 3 measurements or
+     *                                  there is no measurement with a concurrency of 1.
+     */
+    public static UniversalScalabilityLaw fit(int[] concurrency, double[] throughput) {
+        if (concurrency == null || throughput == null) throw new NullPointerException();
+        if (concurrency.length != throughput.length) {
+            throw new IllegalArgumentException("concurrency and throughput need to have the same length");
+        }
+        if (concurrency.length < 3) {
+            throw new IllegalArgumentException("At least 3 measurements are needed, found " + concurrency.length);
+        }
+
+        double lambda = Double.NaN;
+        for (int k = 0; k < concurrency.length; k++) {
+            if (concurrency[k] == 1) {
+                lambda = throughput[k];
+            }
+        }
+        if (Double.isNaN(lambda) || lambda <= 0) {
+            throw new IllegalArgumentException("A measurement with a concurrency of 1 and a positive throughput is needed");
+        }
+
+        // least squares of y = a x + b x^2 through the origin.
+        double sxx = 0, sxxx = 0, sxxxx = 0, sxy = 0, sxxy = 0;
+        for (int k = 0; k < concurrency.length; k++) {
+            double x = concurrency[k] - 1;
+            double capacity = throughput[k] / lambda;
+            double y = concurrency[k] / capacity - 1;
+            sxx += x * x;
+            sxxx += x * x * x;
+            sxxxx += x * x * x * x;
+            sxy += x * y;
+            sxxy += x * x * y;
+        }
+        double determinant = sxx * sxxxx - sxxx * sxxx;
+        double a;
+        double b;
+        if (determinant == 0) {
+            a = sxx == 0 ? 0 : sxy / sxx;
+            b = 0;
+        } else {
+            a = (sxy * sxxxx - sxxy * sxxx) / determinant;
+            b = (sxx * sxxy - sxxx * sxy) / determinant;
+        }
+
+        double kappa = Math.max(0, b);
+        double sigma = Math.max(0, a - kappa);
+        return new UniversalScalabilityLaw(lambda, sigma, kappa);
+    }
+
+    public double getLambda() {
+        return lambda;
+    }
+
+    public double getSigma() {
+        return sigma;
+    }
+
+    public double getKappa() {
+        return kappa;
+    }
+
+    /**
+     * Predicts the throughput at a concurrency.
+     *
+     * @param concurrency the concurrency.
+     * @return the predicted throughput.
+     */
+    public double predict(double concurrency) {
+        return lambda * concurrency / (1 + sigma * (concurrency - 1) + kappa * concurrency * (concurrency - 1));
+    }
+
+    /**
+     * Returns the concurrency at which the throughput peaks.
+     *
+     * @return the peak concurrency, 1 if the contention alone stops the throughput from growing (sigma is 1 or more),
+     * or infinity if the throughput never degrades (kappa is 0 or less).
+     */
+    public double getPeakConcurrency() {
+        if (sigma >= 1) {
+            return 1;
+        }
+        if (kappa <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.max(1, Math.sqrt((1 - sigma) / kappa));
+    }
+
+    @Override
+    public String toString() {
+        return "UniversalScalabilityLaw{" +
+                "lambda=" + lambda +
+                ", sigma=" + sigma +
+                ", kappa=" + kappa +
+                '}';
+    }
+}
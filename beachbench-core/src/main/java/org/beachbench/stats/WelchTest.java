@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.stats;
+
+/**
+ * Welch's t-test for the difference between the means of two samples that don't need to have the same variance,
+ * and Cohen's d for the size of that difference.
+ */
+public final class WelchTest {
+
+    /**
+     * Calculates the two-sided p-value of the hypothesis that the two samples have the same mean.
+     *
+     * @param baseline the summary of the first sample.
+     * @param current the summary of the second sample.
+     * @return the p-value, or NaN if one of the samples has less than 2 values.
+     * @throws NullPointerException if baseline or current is null.
+     */
+    public static double pValue(Summary baseline, Summary current) {
+        if (baseline == null || current == null) throw new NullPointerException();
+        if (baseline.getCount() < 2 || current.getCount() < 2) {
+            return Double.NaN;
+        }
+
+        double baselineError = variance(baseline) / baseline.getCount();
+        double currentError = variance(current) / current.getCount();
+        double standardError = Math.sqrt(baselineError + currentError);
+        double difference = current.getMean() - baseline.getMean();
+        if (standardError == 0) {
+            return difference == 0 ? 1 : 0;
+        }
+
+        double t = difference / standardError;
+        double degreesOfFreedom = (baselineError + currentError) * (baselineError + currentError)
+                / (baselineError * baselineError / (baseline.getCount() - 1) + currentError * currentError / (current.getCount() - 1));
+        return 2 * StudentT.cdf(-Math.abs(t), degreesOfFreedom);
+    }
+
+    /**
+     * Calculates Cohen's d: the difference between the means in units of the pooled standard deviation. As a rule of
+     * thumb 0.2 is a small, 0.5 a medium and 0.8 a large effect.
+     *
+     * @param baseline the summary of the first sample.
+     * @param current the summary of the second sample.
+     * @return the effect size, positive if the mean of current is larger, or NaN if it can't be calculated.
+     * @throws NullPointerException if baseline or current is null.
+     */
+    public static double cohensD(Summary baseline, Summary current) {
+        if (baseline == null || current == null) throw new NullPointerException();
+        int degreesOfFreedom = baseline.getCount() + current.getCount() - 2;
+        if (degreesOfFreedom < 1) {
+            return Double.NaN;
+        }
+
+        double pooledVariance = ((baseline.getCount() - 1) * variance(baseline) + (current.getCount() - 1) * variance(current))
+                / degreesOfFreedom;
+        double difference = current.getMean() - baseline.getMean();
+        if (pooledVariance == 0) {
+            return difference == 0 ? 0 : Math.signum(difference) * Double.POSITIVE_INFINITY;
+        }
+        return difference / Math.sqrt(pooledVariance);
+    }
+
+    private static double variance(Summary summary) {
+        return summary.getStandardDeviation() * summary.getStandardDeviation();
+    }
+
+    //we don't want instances.
+    private WelchTest() {
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.store;
+
+import org.beachbench.BenchmarkUtils;
+import org.beachbench.stats.Summary;
+import org.beachbench.stats.WelchTest;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The comparison of a benchmark run with a baseline run. TestCases are matched by name and every metric they both
+ * have is compared with Welch's t-test. A difference is a regression or an improvement if it is significant at the
+ * given significance level and at least as large as the minimum relative change.
+ *
+ * Because every metric of every TestCase is tested, the p-values are corrected for multiple comparisons with the
+ * Holm-Bonferroni method: the significance level is the family-wise error rate, the probability that at least one of
+ * the entries reports a difference that isn't there. Without the correction a comparison of 20 unchanged metrics at
+ * 0.05 would find a regression most of the time.
+ *
+ * A BenchmarkComparison is immutable.
+ */
+public final class BenchmarkComparison {
+
+    /**
+     * The default family-wise significance level.
+     */
+    public static final double DEFAULT_ALPHA = 0.05;
+
+    public enum Verdict {
+        REGRESSION, IMPROVEMENT, UNCHANGED, INCONCLUSIVE
+    }
+
+    /**
+     * The comparison of a single metric of a single TestCase.
+     */
+    public static final class Entry {
+        private final String testCaseName;
+        private final String metric;
+        private final Summary baseline;
+        private final Summary current;
+        private final double pValue;
+        private final double adjustedPValue;
+        private final double effectSize;
+        private final Verdict verdict;
+
+        Entry(String testCaseName, String metric, Summary baseline, Summary current, double pValue, double adjustedPValue,
+              double alpha, double minimumRelativeChange) {
+            this.testCaseName = testCaseName;
+            this.metric = metric;
+            this.baseline = baseline;
+            this.current = current;
+            this.pValue = pValue;
+            this.adjustedPValue = adjustedPValue;
+            this.effectSize = WelchTest.cohensD(baseline, current);
+
+            if (Double.isNaN(adjustedPValue)) {
+                this.verdict = Verdict.INCONCLUSIVE;
+            } else if (adjustedPValue >= alpha || Math.abs(getRelativeChange()) < minimumRelativeChange) {
+                this.verdict = Verdict.UNCHANGED;
+            } else {
+                boolean better = (current.getMean() > baseline.getMean()) == BenchmarkRecord.isHigherBetter(metric);
+                this.verdict = better ? Verdict.IMPROVEMENT : Verdict.REGRESSION;
+            }
+        }
+
+        public String getTestCaseName() {
+            return testCaseName;
+        }
+
+        public String getMetric() {
+            return metric;
+        }
+
+        public Summary getBaseline() {
+            return baseline;
+        }
+
+        public Summary getCurrent() {
+            return current;
+        }
+
+        /**
+         * Returns the change of the mean relative to the baseline mean, e.g. -0.03 for 3% lower.
+         *
+         * @return the relative change.
+         */
+        public double getRelativeChange() {
+            return baseline.getMean() == 0 ? 0 : (current.getMean() - baseline.getMean()) / Math.abs(baseline.getMean());
+        }
+
+        /**
+         * Returns the p-value of this metric on its own, before the correction for multiple comparisons.
+         *
+         * @return the p-value.
+         */
+        public double getPValue() {
+            return pValue;
+        }
+
+        /**
+         * Returns the Holm-Bonferroni adjusted p-value the verdict is based on.
+         *
+         * @return the adjusted p-value.
+         */
+        public double getAdjustedPValue() {
+            return adjustedPValue;
+        }
+
+        /**
+         * Returns Cohen's d of the change.
+         *
+         * @return the effect size.
+         */
+        public double getEffectSize() {
+            return effectSize;
+        }
+
+        public Verdict getVerdict() {
+            return verdict;
+        }
+
+        /**
+         * Describes this entry in a single line of the comparison report.
+         *
+         * @return the description.
+         */
+        public String describe() {
+            return String.format("%-12s %-25s %-18s %s -> %s (%s%%, p=%s, adjusted p=%s, d=%s)",
+                    verdict,
+                    testCaseName,
+                    metric,
+                    BenchmarkUtils.format(baseline.getMean()),
+                    BenchmarkUtils.format(current.getMean()),
+                    BenchmarkUtils.format(getRelativeChange() * 100),
+                    BenchmarkUtils.format(pValue),
+                    BenchmarkUtils.format(adjustedPValue),
+                    BenchmarkUtils.format(effectSize));
+        }
+    }
+
+    private final BenchmarkRecord baseline;
+    private final BenchmarkRecord current;
+    private final List<Entry> entries;
+
+    /**
+     * Compares a benchmark run with a baseline run.
+     *
+     * @param baseline the baseline run.
+     * @param current the run compared with the baseline.
+     * @param alpha the family-wise significance level, e.g. 0.05.
+     * @param minimumRelativeChange the minimum relative change to be reported, e.g. 0.01 for 1%.
+     * @throws NullPointerException if baseline or current is null.
+     * @throws IllegalArgumentException if alpha is not between 0 and 1 or minimumRelativeChange is negative.
+     */
+    public BenchmarkComparison(BenchmarkRecord baseline, BenchmarkRecord current, double alpha, double minimumRelativeChange) {
+        if (baseline == null || current == null) throw new NullPointerException();
+        if (!(alpha > 0 && alpha < 1)) throw new IllegalArgumentException("alpha must be between 0 and 1, found " + alpha);
+        if (minimumRelativeChange < 0) {
+            throw new IllegalArgumentException("minimumRelativeChange can't be negative, found " + minimumRelativeChange);
+        }
+
+        this.baseline = baseline;
+        this.current = current;
+        List<String> testCaseNames = new ArrayList<String>();
+        List<String> metrics = new ArrayList<String>();
+        List<Summary> baselineSummaries = new ArrayList<Summary>();
+        List<Summary> currentSummaries = new ArrayList<Summary>();
+        for (String testCaseName : current.getTestCaseNames()) {
+            Map<String, double[]> baselineMetrics = baseline.getMetrics(testCaseName);
+            if (baselineMetrics == null) {
+                continue;
+            }
+            for (Map.Entry<String, double[]> metric : current.getMetrics(testCaseName).entrySet()) {
+                double[] baselineSamples = baselineMetrics.get(metric.getKey());
+                if (baselineSamples == null || baselineSamples.length == 0 || metric.getValue().length == 0) {
+                    continue;
+                }
+                testCaseNames.add(testCaseName);
+                metrics.add(metric.getKey());
+                baselineSummaries.add(Summary.of(baselineSamples));
+                currentSummaries.add(Summary.of(metric.getValue()));
+            }
+        }
+
+        double[] pValues = new double[testCaseNames.size()];
+        for (int k = 0; k < pValues.length; k++) {
+            pValues[k] = WelchTest.pValue(baselineSummaries.get(k), currentSummaries.get(k));
+        }
+        double[] adjustedPValues = holm(pValues);
+
+        List<Entry> entries = new LinkedList<Entry>();
+        for (int k = 0; k < pValues.length; k++) {
+            entries.add(new Entry(testCaseNames.get(k), metrics.get(k), baselineSummaries.get(k), currentSummaries.get(k),
+                    pValues[k], adjustedPValues[k], alpha, minimumRelativeChange));
+        }
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Adjusts p-values for multiple comparisons with the Holm-Bonferroni step-down method. The i-th smallest of m
+     * p-values is multiplied by m - i (counting from 0), and the adjusted p-values are made monotonic so that a p-value
+     * is never adjusted below a smaller one. A NaN p-value stays NaN and doesn't count as a comparison.
+     *
+     * @param pValues the p-values.
+     * @return the adjusted p-values, in the same order.
+     */
+    static double[] holm(final double[] pValues) {
+        Integer[] order = new Integer[pValues.length];
+        int m = 0;
+        for (int k = 0; k < pValues.length; k++) {
+            if (!Double.isNaN(pValues[k])) {
+                order[m++] = k;
+            }
+        }
+        Arrays.sort(order, 0, m, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(pValues[a], pValues[b]);
+            }
+        });
+
+        double[] adjusted = new double[pValues.length];
+        Arrays.fill(adjusted, Double.NaN);
+        double max = 0;
+        for (int i = 0; i < m; i++) {
+            max = Math.max(max, Math.min(1, (m - i) * pValues[order[i]]));
+            adjusted[order[i]] = max;
+        }
+        return adjusted;
+    }
+
+    public BenchmarkRecord getBaseline() {
+        return baseline;
+    }
+
+    public BenchmarkRecord getCurrent() {
+        return current;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Checks if any metric of any TestCase has a significant regression.
+     *
+     * @return true if there is a regression.
+     */
+    public boolean hasRegression() {
+        for (Entry entry : entries) {
+            if (entry.getVerdict() == Verdict.REGRESSION) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Describes which runs are compared, the first line of the comparison report.
+     *
+     * @return the description.
+     */
+    public String describe() {
+        return String.format("Comparing run [%s] with baseline [%s]", current.getId(), baseline.getId());
+    }
+
+    /**
+     * Prints a report of this comparison.
+     *
+     * @param out the PrintStream to print to.
+     */
+    public void print(PrintStream out) {
+        out.println("BeachBench > " + describe());
+        for (Entry entry : entries) {
+            out.println("BeachBench >   " + entry.describe());
+        }
+    }
+}
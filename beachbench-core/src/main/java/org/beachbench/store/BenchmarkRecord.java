@@ -0,0 +1,176 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.store;
+
+import org.beachbench.TestCase;
+import org.beachbench.TestCaseSummary;
+import org.beachbench.stats.Summary;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The persistable result of a single benchmark run: for every TestCase, the per iteration samples of each metric.
+ *
+ * A BenchmarkRecord is immutable.
+ */
+public final class BenchmarkRecord {
+
+    public static final String METRIC_DURATION = "duration[ms]";
+    public static final String METRIC_THROUGHPUT = "operations/s";
+    public static final String METRIC_LATENCY_MEAN = "latency.mean[ns]";
+    public static final String METRIC_LATENCY_P99 = "latency.p99[ns]";
+    public static final String METRIC_ALLOCATED_PER_OPERATION = "allocated/op[bytes]";
+    public static final String METRIC_TIME_PER_OPERATION = "time/op[ns]";
+
+    private final String id;
+    private final String name;
+    private final long timestamp;
+    private final Map<String, Map<String, double[]>> testCases;
+
+    /**
+     * Creates a BenchmarkRecord.
+     *
+     * @param id the id of the benchmark run.
+     * @param name the name of the benchmark.
+     * @param timestamp the time the run started in milliseconds since the epoch.
+     * @param testCases the samples of each metric by TestCase name.
+     * @throws NullPointerException if id, name or testCases is null.
+     * @throws IllegalArgumentException if a TestCase name is null.
+     */
+    public BenchmarkRecord(String id, String name, long timestamp, Map<String, Map<String, double[]>> testCases) {
+        if (id == null || name == null || testCases == null) throw new NullPointerException();
+        if (testCases.containsKey(null)) throw new IllegalArgumentException("the TestCases of a record need a name");
+        this.id = id;
+        this.name = name;
+        this.timestamp = timestamp;
+        Map<String, Map<String, double[]>> copy = new LinkedHashMap<String, Map<String, double[]>>();
+        for (Map.Entry<String, Map<String, double[]>> entry : testCases.entrySet()) {
+            copy.put(entry.getKey(), Collections.unmodifiableMap(new LinkedHashMap<String, double[]>(entry.getValue())));
+        }
+        this.testCases = Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Creates a BenchmarkRecord from the {@link TestCaseSummary} of each TestCase. TestCases without a summary are
+     * left out.
+     *
+     * @param id the id of the benchmark run.
+     * @param name the name of the benchmark.
+     * @param timestamp the time the run started in milliseconds since the epoch.
+     * @param testCases the executed TestCases.
+     * @return the created BenchmarkRecord.
+     * @throws IllegalArgumentException if a TestCase has no name or the same name as another TestCase.
+     */
+    public static BenchmarkRecord of(String id, String name, long timestamp, List<TestCase> testCases) {
+        checkNames(testCases);
+        Map<String, Map<String, double[]>> samples = new LinkedHashMap<String, Map<String, double[]>>();
+        for (TestCase testCase : testCases) {
+            TestCaseSummary summary = testCase.getSummary();
+            if (summary == null) {
+                continue;
+            }
+            Map<String, double[]> metrics = new LinkedHashMap<String, double[]>();
+            put(metrics, METRIC_DURATION, summary.getDuration());
+            put(metrics, METRIC_THROUGHPUT, summary.getThroughput());
+            put(metrics, METRIC_LATENCY_MEAN, summary.getMeanLatency());
+            put(metrics, METRIC_LATENCY_P99, summary.getP99Latency());
+            put(metrics, METRIC_ALLOCATED_PER_OPERATION, summary.getAllocatedBytesPerOperation());
+            put(metrics, METRIC_TIME_PER_OPERATION, summary.getTimePerOperation());
+            samples.put(testCase.getName(), metrics);
+        }
+        return new BenchmarkRecord(id, name, timestamp, samples);
+    }
+
+    /**
+     * Checks that the TestCases can be stored in a record: their results are stored by name, so every TestCase needs
+     * a name of its own.
+     *
+     * @param testCases the TestCases.
+     * @throws IllegalArgumentException if a TestCase has no name or the same name as another TestCase.
+     */
+    public static void checkNames(List<TestCase> testCases) {
+        Set<String> names = new HashSet<String>();
+        for (TestCase testCase : testCases) {
+            if (testCase.getName() == null) {
+                throw new IllegalArgumentException(String.format(
+                        "TestCase [%s] has no name, the results of a TestCase are stored by name", testCase.getId()));
+            }
+            if (!names.add(testCase.getName())) {
+                throw new IllegalArgumentException(String.format(
+                        "More than one TestCase is named '%s', the results of a TestCase are stored by name", testCase.getName()));
+            }
+        }
+    }
+
+    private static void put(Map<String, double[]> metrics, String metric, Summary summary) {
+        if (summary != null) {
+            metrics.put(metric, summary.getSamples());
+        }
+    }
+
+    /**
+     * Checks if a higher value of a metric is better. That is the case for throughput, but not for durations and
+     * latencies.
+     *
+     * @param metric the name of the metric.
+     * @return true if higher is better.
+     */
+    public static boolean isHigherBetter(String metric) {
+        return METRIC_THROUGHPUT.equals(metric);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Set<String> getTestCaseNames() {
+        return testCases.keySet();
+    }
+
+    /**
+     * Gets the samples of each metric of a TestCase.
+     *
+     * @param testCaseName the name of the TestCase.
+     * @return the samples by metric name, or null if the TestCase isn't part of this record.
+     */
+    public Map<String, double[]> getMetrics(String testCaseName) {
+        return testCases.get(testCaseName);
+    }
+
+    @Override
+    public String toString() {
+        return "BenchmarkRecord{" +
+                "id=" + id +
+                ", name=" + name +
+                ", timestamp=" + timestamp +
+                ", testCases=" + testCases.keySet() +
+                '}';
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.store;
+
+import java.io.File;
+
+/**
+ * Compares two benchmark runs in a {@link ResultStore} from the command line and exits with status 1 if there is a
+ * significant regression.
+ *
+ * Usage: CompareMain directory baselineId currentId [alpha [minimumRelativeChange]]
+ */
+public final class CompareMain {
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: CompareMain directory baselineId currentId [alpha [minimumRelativeChange]]");
+            System.exit(2);
+        }
+
+        ResultStore store = new ResultStore(new File(args[0]));
+        BenchmarkRecord baseline = store.load(args[1]);
+        BenchmarkRecord current = store.load(args[2]);
+        if (baseline == null || current == null) {
+            System.err.println(String.format("Run [%s] not found in %s", baseline == null ? args[1] : args[2], args[0]));
+            System.exit(2);
+        }
+        double alpha = args.length > 3 ? Double.parseDouble(args[3]) : BenchmarkComparison.DEFAULT_ALPHA;
+        double minimumRelativeChange = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+
+        BenchmarkComparison comparison = new BenchmarkComparison(baseline, current, alpha, minimumRelativeChange);
+        comparison.print(System.out);
+        System.exit(comparison.hasRegression() ? 1 : 0);
+    }
+
+    //we don't want instances.
+    private CompareMain() {
+    }
+}
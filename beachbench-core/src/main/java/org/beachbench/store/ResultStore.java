@@ -0,0 +1,226 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.store;
+
+import org.beachbench.exception.ExceptionUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Stores {@link BenchmarkRecord}s in a local directory, one properties file per benchmark run named after its id.
+ *
+ * A ResultStore is not threadsafe.
+ */
+public final class ResultStore {
+
+    private static final String SUFFIX = ".properties";
+    private static final String KEY_ID = "id";
+    private static final String KEY_NAME = "name";
+    private static final String KEY_TIMESTAMP = "timestamp";
+    private static final String KEY_TESTCASE_PREFIX = "testcase.";
+
+    private final File directory;
+
+    /**
+     * Creates a ResultStore. The directory is created when the first record is saved.
+     *
+     * @param directory the directory the records are stored in.
+     * @throws NullPointerException if directory is null.
+     */
+    public ResultStore(File directory) {
+        if (directory == null) throw new NullPointerException();
+        this.directory = directory;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Saves a record. An existing record with the same id is overwritten.
+     *
+     * @param record the record to save.
+     * @return the file the record is saved in.
+     * @throws NullPointerException if record is null.
+     */
+    public File save(BenchmarkRecord record) {
+        if (record == null) throw new NullPointerException();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalStateException("Can't create directory " + directory);
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty(KEY_ID, record.getId());
+        properties.setProperty(KEY_NAME, record.getName());
+        properties.setProperty(KEY_TIMESTAMP, Long.toString(record.getTimestamp()));
+        int index = 0;
+        for (String testCaseName : record.getTestCaseNames()) {
+            String prefix = KEY_TESTCASE_PREFIX + index + ".";
+            properties.setProperty(prefix + KEY_NAME, testCaseName);
+            for (Map.Entry<String, double[]> metric : record.getMetrics(testCaseName).entrySet()) {
+                properties.setProperty(prefix + metric.getKey(), join(metric.getValue()));
+            }
+            index++;
+        }
+
+        File file = new File(directory, record.getId() + SUFFIX);
+        try {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                properties.store(out, "BeachBench results of " + record.getName());
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            throw ExceptionUtils.wrap(e);
+        }
+        return file;
+    }
+
+    /**
+     * Loads the record with a specific id.
+     *
+     * @param id the id of the benchmark run.
+     * @return the record, or null if not found or if the file is not a record.
+     */
+    public BenchmarkRecord load(String id) {
+        if (id == null) throw new NullPointerException();
+        File file = new File(directory, id + SUFFIX);
+        return file.isFile() ? load(file) : null;
+    }
+
+    /**
+     * Loads the most recent record of a benchmark.
+     *
+     * @param name the name of the benchmark.
+     * @return the most recent record, or null if there is none.
+     */
+    public BenchmarkRecord loadLatest(String name) {
+        if (name == null) throw new NullPointerException();
+        BenchmarkRecord latest = null;
+        for (BenchmarkRecord record : loadAll()) {
+            if (record.getName().equals(name) && (latest == null || record.getTimestamp() > latest.getTimestamp())) {
+                latest = record;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Loads all records in this store. Properties files in the directory that are not records, e.g. because they have
+     * no id, name or timestamp or contain metric values that are not numbers, are skipped.
+     *
+     * @return the records, in no particular order.
+     */
+    public List<BenchmarkRecord> loadAll() {
+        List<BenchmarkRecord> records = new LinkedList<BenchmarkRecord>();
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return records;
+        }
+        for (File file : files) {
+            if (file.isFile() && file.getName().endsWith(SUFFIX)) {
+                BenchmarkRecord record = load(file);
+                if (record != null) {
+                    records.add(record);
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Loads a record from a file.
+     *
+     * @param file the file to load.
+     * @return the record, or null if the file is not a record.
+     */
+    private BenchmarkRecord load(File file) {
+        Properties properties = new Properties();
+        try {
+            InputStream in = new FileInputStream(file);
+            try {
+                properties.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            throw ExceptionUtils.wrap(e);
+        }
+
+        String id = properties.getProperty(KEY_ID);
+        String name = properties.getProperty(KEY_NAME);
+        String timestamp = properties.getProperty(KEY_TIMESTAMP);
+        if (id == null || name == null || timestamp == null) {
+            return null;
+        }
+
+        Map<String, Map<String, double[]>> testCases = new LinkedHashMap<String, Map<String, double[]>>();
+        try {
+            for (int index = 0; ; index++) {
+                String prefix = KEY_TESTCASE_PREFIX + index + ".";
+                String testCaseName = properties.getProperty(prefix + KEY_NAME);
+                if (testCaseName == null) {
+                    break;
+                }
+                Map<String, double[]> metrics = new LinkedHashMap<String, double[]>();
+                for (String key : properties.stringPropertyNames()) {
+                    if (key.startsWith(prefix) && !key.equals(prefix + KEY_NAME)) {
+                        metrics.put(key.substring(prefix.length()), split(properties.getProperty(key)));
+                    }
+                }
+                testCases.put(testCaseName, metrics);
+            }
+            return new BenchmarkRecord(id, name, Long.parseLong(timestamp), testCases);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String join(double[] values) {
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < values.length; k++) {
+            if (k > 0) {
+                sb.append(',');
+            }
+            sb.append(values[k]);
+        }
+        return sb.toString();
+    }
+
+    private static double[] split(String value) {
+        if (value.isEmpty()) {
+            return new double[0];
+        }
+        String[] items = value.split(",");
+        double[] values = new double[items.length];
+        for (int k = 0; k < items.length; k++) {
+            values[k] = Double.parseDouble(items[k]);
+        }
+        return values;
+    }
+}
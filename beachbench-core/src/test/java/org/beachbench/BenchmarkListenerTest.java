@@ -0,0 +1,183 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BenchmarkListenerTest {
+
+    @Test
+    public void testAsyncPassesEventsInOrder() {
+        BenchmarkListener delegate = mock(BenchmarkListener.class);
+        AsyncListener listener = new AsyncListener(delegate, 16);
+        TestCase testCase = new TestCase();
+        TestCaseResult result = new TestCaseResult(testCase);
+
+        listener.benchmarkStarted("id", "name", 1);
+        listener.testCaseStarted(testCase, 1, 1);
+        listener.iterationStarted(result, 1, false);
+        listener.iterationFinished(result, false);
+        listener.testCaseFinished(testCase);
+        listener.benchmarkFinished("id", "name", 10);
+
+        InOrder inOrder = inOrder(delegate);
+        inOrder.verify(delegate).benchmarkStarted("id", "name", 1);
+        inOrder.verify(delegate).testCaseStarted(testCase, 1, 1);
+        inOrder.verify(delegate).iterationStarted(any(TestCaseResult.class), eq(1L), eq(false));
+        inOrder.verify(delegate).iterationFinished(any(TestCaseResult.class), eq(false));
+        inOrder.verify(delegate).testCaseFinished(testCase);
+        inOrder.verify(delegate).benchmarkFinished("id", "name", 10);
+    }
+
+    @Test
+    public void testAsyncPassesSnapshots() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final TestCaseResult[] passed = new TestCaseResult[1];
+        AsyncListener listener = new AsyncListener(new BenchmarkListenerAdapter() {
+            @Override
+            public void benchmarkStarted(String id, String name, int testCaseCount) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+
+            @Override
+            public void iterationStarted(TestCaseResult result, long maxIterations, boolean warmup) {
+                passed[0] = result;
+            }
+        }, 16);
+        TestCaseResult result = new TestCaseResult(new TestCase());
+        result.setTestCaseIteration(3);
+
+        listener.benchmarkStarted("id", "name", 1);
+        blocked.await();
+        listener.iterationStarted(result, 5, false);
+        // the engine keeps writing the result while the event waits in the queue.
+        result.setDuration(100);
+        result.setTestCaseIteration(4);
+        release.countDown();
+        listener.flush();
+
+        assertNotSame(result, passed[0]);
+        assertEquals(result.getId(), passed[0].getId());
+        assertEquals(3, passed[0].getTestCaseIteration());
+        assertNull(passed[0].get("duration[ms]"));
+    }
+
+    @Test
+    public void testAsyncDropsMessagesWhenFull() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        BenchmarkListener delegate = spy(new BenchmarkListenerAdapter() {
+            @Override
+            public void benchmarkStarted(String id, String name, int testCaseCount) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        AsyncListener listener = new AsyncListener(delegate, 2);
+
+        listener.benchmarkStarted("id", "name", 1);
+        blocked.await();
+        for (int k = 0; k < 5; k++) {
+            listener.message("message " + k);
+        }
+        assertEquals(3, listener.getDroppedCount());
+
+        release.countDown();
+        listener.flush();
+        verify(delegate).message("message 0");
+        verify(delegate).message("message 1");
+        verify(delegate, never()).message("message 2");
+        verify(delegate).warning("3 events were dropped because the output couldn't keep up");
+        assertEquals(0, listener.getDroppedCount());
+    }
+
+    @Test
+    public void testAsyncReportsFailingListener() {
+        BenchmarkListener delegate = mock(BenchmarkListener.class);
+        doThrow(new IllegalStateException("broken")).when(delegate).message("first");
+        AsyncListener listener = new AsyncListener(delegate, 16);
+
+        listener.message("first");
+        listener.message("second");
+        listener.flush();
+
+        verify(delegate).warning(contains("broken"));
+        verify(delegate).message("second");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAsyncCapacity() {
+        new AsyncListener(new BenchmarkListenerAdapter(), 0);
+    }
+
+    @Test
+    public void testQuiet() {
+        TestCase testCase = new TestCase();
+        testCase.setName("quiet");
+        testCase.setDriver(BenchmarkTest.TestDriver2.class);
+        TestCaseResult result = new TestCaseResult(testCase);
+        result.setTestCaseIteration(1);
+        result.setDuration(5);
+        result.setThrown(new IllegalStateException());
+
+        String verbose = log(testCase, result, false);
+        String quiet = log(testCase, result, true);
+
+        assertTrue(verbose.contains("Running iteration [1/2] for testcase [quiet]"));
+        assertTrue(verbose.contains("Starting warmup"));
+        assertFalse(quiet.contains("Running iteration"));
+        assertFalse(quiet.contains("Starting warmup"));
+        assertTrue(quiet.contains("Starting testcase [1/1] 'quiet'"));
+        assertTrue(quiet.contains("WARNING: unstable"));
+        assertTrue(quiet.contains("BeachBench > Sweep matrix"));
+        assertTrue(quiet.contains("Benchmark [benchmark] completed in 10 ms"));
+    }
+
+    private static String log(TestCase testCase, TestCaseResult result, boolean quiet) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        LoggingListener listener = new LoggingListener(new PrintStream(bytes, true), quiet);
+        listener.testCaseStarted(testCase, 1, 1);
+        listener.message("Starting warmup");
+        listener.iterationStarted(result, 2, false);
+        listener.iterationFinished(result, false);
+        listener.warning("unstable");
+        listener.report("BeachBench > Sweep matrix" + System.getProperty("line.separator"));
+        listener.benchmarkFinished("id", "benchmark", 10);
+        return bytes.toString();
+    }
+}
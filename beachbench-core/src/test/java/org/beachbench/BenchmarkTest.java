@@ -1,11 +1,21 @@
 package org.beachbench;
 
+import org.beachbench.profile.Profiler;
+import org.beachbench.recorder.Counter;
+import org.beachbench.store.ResultStore;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
@@ -65,6 +75,298 @@ public class BenchmarkTest {
         }
     }
 
+    @Test
+    public void testSummary(){
+        benchmark.run();
+
+        TestCaseSummary summary = testCase2.getSummary();
+        assertNotNull(summary);
+        assertEquals(100, summary.getDuration().getCount());
+        assertNull(summary.getThroughput());
+        assertEquals(0, summary.getFailedIterationCount());
+    }
+
+    @Test
+    public void testResultStore() throws Exception {
+        File directory = File.createTempFile("beachbench", "store");
+        directory.delete();
+        ResultStore store = new ResultStore(directory);
+        benchmark.setResultStore(store);
+
+        benchmark.run();
+        assertNull(benchmark.getComparison());
+        assertNotNull(store.load(benchmark.getId()));
+
+        benchmark.run();
+        assertNotNull(benchmark.getComparison());
+        assertFalse(benchmark.getComparison().getEntries().isEmpty());
+
+        benchmark.setCompareWithBaseline(false);
+        benchmark.run();
+        assertNull(benchmark.getComparison());
+        assertNotNull(store.load(benchmark.getId()));
+    }
+
+    @Test
+    public void testResultStoreNeedsUniqueNames() throws Exception {
+        File directory = File.createTempFile("beachbench", "store");
+        directory.delete();
+        benchmark.setResultStore(new ResultStore(directory));
+        testCase2.setName(testCase1.getName());
+
+        try {
+            benchmark.run();
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("More than one TestCase is named"));
+        }
+        // checked before anything runs.
+        assertTrue(testCase2.getResults().isEmpty());
+    }
+
+    @Test
+    public void testForked(){
+        TestCase forked = new TestCase();
+        forked.setName("forked");
+        forked.setDriver(ForkedDriver.class);
+        forked.setWarmupRunIterationCount(1);
+        forked.setTestCaseIterationCount(3);
+        forked.setFork(true);
+        forked.setJvmArgs("-Xmx64m", "-Dbeachbench.test=forked");
+
+        benchmark = new Benchmark();
+        benchmark.add(forked);
+        benchmark.run();
+
+        assertEquals(3, forked.getResults().size());
+        for (TestCaseResult result : forked.getResults()) {
+            assertSame(forked, result.getTestCase());
+            assertEquals("forked", result.get("property"));
+            assertFalse(ManagementFactory.getRuntimeMXBean().getName().equals(result.get("jvm")));
+            assertNull(result.getThrown());
+        }
+        assertEquals(3, forked.getResults().get(2).getTestCaseIteration());
+    }
+
+    @Test
+    public void testForkFailureIsAFailedIteration(){
+        TestCase forked = new TestCase();
+        forked.setName("forked");
+        forked.setDriver(ForkedDriver.class);
+        forked.setFork(true);
+        forked.setJvmArgs("-XX:+BeachBenchNoSuchOption");
+        BenchmarkListener listener = mock(BenchmarkListener.class);
+
+        benchmark = new Benchmark();
+        benchmark.setListener(listener);
+        benchmark.add(forked);
+        benchmark.run();
+
+        assertEquals(1, forked.getResults().size());
+        TestCaseResult result = forked.getResults().get(0);
+        assertNotNull(result.getThrown());
+        assertNull(forked.getSummary());
+        verify(listener).exceptionThrown(result, result.getThrown());
+    }
+
+    @Test
+    public void testProfilers(){
+        CountingProfiler.started.set(0);
+        CountingProfiler.stopped.set(0);
+        testCase2.setWarmupRunIterationCount(2);
+        testCase2.setTestCaseIterationCount(3);
+        testCase2.setProfilers(CountingProfiler.class);
+
+        benchmark.run();
+
+        assertEquals(3, CountingProfiler.started.get());
+        assertEquals(3, CountingProfiler.stopped.get());
+        for (TestCaseResult result : testCase2.getResults()) {
+            assertEquals(result.getTestCaseIteration(), result.get("profiled"));
+        }
+    }
+
+    @Test
+    public void testTimed(){
+        TestCase timed = new TestCase();
+        timed.setName("timed");
+        timed.setDriver(DeadlineDriver.class);
+        timed.setWarmupRunIterationCount(0);
+        timed.setTestCaseIterationCount(2);
+        timed.setDurationInMilliseconds(100);
+
+        benchmark = new Benchmark();
+        benchmark.add(timed);
+        benchmark.run();
+
+        for (TestCaseResult result : timed.getResults()) {
+            assertTrue(result.getDurationNs() >= TimeUnit.MILLISECONDS.toNanos(100));
+            assertTrue(result.getDurationNs() < TimeUnit.MILLISECONDS.toNanos(300));
+            assertEquals(Boolean.TRUE, result.get("shutdown"));
+        }
+    }
+
+    static class DeadlineDriver extends BenchmarkDriver{
+        @Override
+        public void run(TestCaseResult result) {
+            long deadlineNs = getDeadlineNs();
+            for (long k = 1; (k & 1023) != 0 || System.nanoTime() < deadlineNs; k++) {
+            }
+            // the timer thread shuts the driver down at the deadline as well.
+            long waitUntilNs = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (!shutdown && System.nanoTime() < waitUntilNs) {
+                Thread.yield();
+            }
+            result.put("shutdown", shutdown);
+        }
+    }
+
+    @Test
+    public void testRecorder(){
+        testCase2.setDriver(RecordingDriver.class);
+        testCase2.setWarmupRunIterationCount(1);
+        testCase2.setTestCaseIterationCount(2);
+
+        benchmark.run();
+
+        for (TestCaseResult result : testCase2.getResults()) {
+            assertEquals(1L, result.get("calls"));
+        }
+    }
+
+    static class RecordingDriver extends BenchmarkDriver{
+        private Counter calls;
+
+        @Override
+        public void setUp() {
+            calls = getRecorder().counter("calls");
+        }
+
+        @Override
+        public void run(TestCaseResult result) {
+            calls.inc();
+        }
+    }
+
+    @Test
+    public void testListener(){
+        BenchmarkListener listener = mock(BenchmarkListener.class);
+        benchmark = new Benchmark();
+        benchmark.setName("benchmark");
+        benchmark.setListener(listener);
+        testCase2.setWarmupRunIterationCount(2);
+        testCase2.setTestCaseIterationCount(3);
+        benchmark.add(testCase2);
+
+        benchmark.run();
+
+        verify(listener).benchmarkStarted(benchmark.getId(), "benchmark", 1);
+        verify(listener).testCaseStarted(testCase2, 1, 1);
+        verify(listener, times(5)).iterationStarted(any(TestCaseResult.class), anyLong(), anyBoolean());
+        verify(listener, times(2)).iterationFinished(any(TestCaseResult.class), eq(true));
+        verify(listener).warmupFinished(testCase2, 2, true);
+        verify(listener, times(3)).iterationFinished(any(TestCaseResult.class), eq(false));
+        verify(listener).testCaseFinished(testCase2);
+        verify(listener).benchmarkFinished(eq(benchmark.getId()), eq("benchmark"), anyLong());
+        verify(listener, never()).exceptionThrown(any(TestCaseResult.class), any(Throwable.class));
+    }
+
+    @Test
+    public void testReportsGoToTheListener(){
+        BenchmarkListener listener = mock(BenchmarkListener.class);
+        benchmark = new Benchmark();
+        benchmark.setName("benchmark");
+        benchmark.setListener(listener);
+        testCase2.setWarmupRunIterationCount(0);
+        testCase2.setTestCaseIterationCount(2);
+        benchmark.add(new Sweep(testCase2).vary("testCaseIterationCount", 2, 3));
+
+        benchmark.run();
+
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).report(contains("Sweep matrix"));
+        inOrder.verify(listener).benchmarkFinished(eq(benchmark.getId()), eq("benchmark"), anyLong());
+    }
+
+    @Test
+    public void testListenerException(){
+        BenchmarkListener listener = mock(BenchmarkListener.class);
+        benchmark = new Benchmark();
+        benchmark.setListener(listener);
+        testCase2.setDriver(FailingDriver.class);
+        testCase2.setWarmupRunIterationCount(0);
+        testCase2.setTestCaseIterationCount(2);
+        benchmark.add(testCase2);
+
+        benchmark.run();
+
+        verify(listener, times(2)).exceptionThrown(any(TestCaseResult.class), any(IllegalStateException.class));
+        assertNull(testCase2.getSummary());
+    }
+
+    static class FailingDriver extends BenchmarkDriver{
+        @Override
+        public void run(TestCaseResult result) {
+            throw new IllegalStateException();
+        }
+    }
+
+    public static class CountingProfiler implements Profiler {
+        static final AtomicInteger started = new AtomicInteger();
+        static final AtomicInteger stopped = new AtomicInteger();
+
+        @Override
+        public void start(TestCaseResult result) {
+            started.incrementAndGet();
+        }
+
+        @Override
+        public void stop(TestCaseResult result) {
+            stopped.incrementAndGet();
+            result.put("profiled", result.getTestCaseIteration());
+        }
+    }
+
+    @Test
+    public void testParallel(){
+        TestCase parallel1 = newForkedDriverTestCase("parallel1");
+        TestCase parallel2 = newForkedDriverTestCase("parallel2");
+        TestCase exclusive = newForkedDriverTestCase("exclusive");
+        exclusive.setExclusive(true);
+
+        benchmark = new Benchmark();
+        benchmark.setParallelism(2);
+        benchmark.add(parallel1);
+        benchmark.add(exclusive);
+        benchmark.add(parallel2);
+        benchmark.run();
+
+        String jvm = ManagementFactory.getRuntimeMXBean().getName();
+        for (TestCase testCase : Arrays.asList(parallel1, parallel2)) {
+            assertEquals(2, testCase.getResults().size());
+            assertFalse(jvm.equals(testCase.getResults().get(0).get("jvm")));
+            assertNotNull(testCase.getSummary());
+        }
+        assertEquals(jvm, exclusive.getResults().get(0).get("jvm"));
+    }
+
+    private static TestCase newForkedDriverTestCase(String name) {
+        TestCase testCase = new TestCase();
+        testCase.setName(name);
+        testCase.setDriver(ForkedDriver.class);
+        testCase.setWarmupRunIterationCount(0);
+        testCase.setTestCaseIterationCount(2);
+        return testCase;
+    }
+
+    static class ForkedDriver extends BenchmarkDriver{
+        @Override
+        public void run(TestCaseResult result) {
+            result.put("property", System.getProperty("beachbench.test"));
+            result.put("jvm", ManagementFactory.getRuntimeMXBean().getName());
+        }
+    }
+
     static class TestDriver1 extends BenchmarkDriver{
         @Override
         public void run(TestCaseResult result) {
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BlackholeTest {
+
+    @Test
+    public void testConsume(){
+        Blackhole blackhole = new Blackhole();
+        for (int k = -1000; k < 1000; k++) {
+            blackhole.consume((byte) k);
+            blackhole.consume(k % 2 == 0);
+            blackhole.consume((char) k);
+            blackhole.consume((short) k);
+            blackhole.consume(k);
+            blackhole.consume((long) k);
+            blackhole.consume((float) k);
+            blackhole.consume((double) k);
+            blackhole.consume(new Object());
+        }
+        blackhole.consume(Double.NaN);
+        blackhole.consume(Long.MAX_VALUE);
+        blackhole.consume((Object) null);
+    }
+
+    @Test
+    public void testObjectsAreRetained(){
+        Blackhole blackhole = new Blackhole();
+        Object[] values = new Object[1000];
+        for (int k = 0; k < values.length; k++) {
+            values[k] = new Object();
+            blackhole.consume(values[k]);
+        }
+        // the object isn't stored on every call, but a consumed object is always reachable from the Blackhole.
+        assertNotNull(blackhole.obj1);
+        assertTrue(Arrays.asList(values).contains(blackhole.obj1));
+    }
+
+    @Test
+    public void testNoAllocation(){
+        assumeTrue(Instrumentation.currentThreadAllocatedBytes() >= 0);
+        Blackhole blackhole = new Blackhole();
+        Object value = new Object();
+        consume(blackhole, value, 100000);
+
+        long allocatedBytes = Instrumentation.currentThreadAllocatedBytes();
+        consume(blackhole, value, 1000000);
+        allocatedBytes = Instrumentation.currentThreadAllocatedBytes() - allocatedBytes;
+
+        // a single boxed value per call would be megabytes; the margin is for reading the counter.
+        assertTrue("allocated " + allocatedBytes + " bytes", allocatedBytes < 1024);
+    }
+
+    private static void consume(Blackhole blackhole, Object value, int count) {
+        for (int k = 0; k < count; k++) {
+            blackhole.consume(k);
+            blackhole.consume((long) k);
+            blackhole.consume((double) k);
+            blackhole.consume(value);
+        }
+    }
+}
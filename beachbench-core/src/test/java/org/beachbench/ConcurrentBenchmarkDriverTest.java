@@ -0,0 +1,297 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.beachbench.io.SampleReader;
+import org.beachbench.stats.LatencyHistogram;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConcurrentBenchmarkDriverTest {
+
+    private TestCase testCase;
+
+    @Before
+    public void setup(){
+        testCase = new TestCase();
+        testCase.setName("concurrent");
+        testCase.setThreadCount(4);
+        testCase.setOperationCountPerThread(1000);
+    }
+
+    @Test
+    public void testOperationCount(){
+        CountingDriver driver = new CountingDriver();
+        TestCaseResult result = new TestCaseResult(testCase);
+
+        driver.init();
+        driver.run(result);
+
+        assertEquals(4000L, driver.operations.get());
+        assertEquals(4, driver.threadIndexes.size());
+        assertEquals(4, result.get(ConcurrentBenchmarkDriver.RESULT_THREAD_COUNT));
+        assertEquals(4000L, result.get(ConcurrentBenchmarkDriver.RESULT_OPERATIONS));
+        assertArrayEquals(new long[]{1000, 1000, 1000, 1000}, (long[]) result.get(ConcurrentBenchmarkDriver.RESULT_OPERATIONS_PER_THREAD));
+        assertNotNull(result.get(ConcurrentBenchmarkDriver.RESULT_OPERATIONS_PER_SECOND));
+        assertNull(result.getLatencyHistogram());
+    }
+
+    @Test
+    public void testRecordLatency(){
+        testCase.setRecordLatency(true);
+        TestCaseResult result = new TestCaseResult(testCase);
+
+        CountingDriver driver = new CountingDriver();
+        driver.init();
+        driver.run(result);
+
+        assertEquals(4000L, result.getLatencyHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testTimed(){
+        testCase.setOperationCountPerThread(Long.MAX_VALUE);
+        testCase.setDurationInMilliseconds(200);
+        TestCaseResult result = new TestCaseResult(testCase);
+
+        CountingDriver driver = new CountingDriver();
+        driver.init();
+        driver.run(result);
+
+        long measuredNs = (Long) result.get(ConcurrentBenchmarkDriver.RESULT_MEASURED_DURATION);
+        assertTrue(measuredNs >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertTrue(measuredNs < TimeUnit.MILLISECONDS.toNanos(400));
+        // the operations during the ramp down are not counted.
+        assertTrue((Long) result.get(ConcurrentBenchmarkDriver.RESULT_OPERATIONS) <= driver.operations.get());
+    }
+
+    @Test
+    public void testOperationFailureStopsAllWorkers(){
+        final IllegalStateException failure = new IllegalStateException();
+        testCase.setOperationCountPerThread(Long.MAX_VALUE);
+        testCase.setDurationInSeconds(3600);
+        ConcurrentBenchmarkDriver driver = new ConcurrentBenchmarkDriver() {
+            @Override
+            public void operation(int threadIndex) {
+                if (threadIndex == 2) {
+                    throw failure;
+                }
+            }
+        };
+
+        driver.init();
+        try {
+            driver.run(new TestCaseResult(testCase));
+            fail();
+        } catch (IllegalStateException expected) {
+            assertSame(failure, expected);
+        }
+    }
+
+    @Test
+    public void testSetUpFailureSkipsOperations(){
+        final IllegalStateException failure = new IllegalStateException();
+        final AtomicLong failedOperations = new AtomicLong();
+        final AtomicLong tornDown = new AtomicLong();
+        ConcurrentBenchmarkDriver driver = new ConcurrentBenchmarkDriver() {
+            @Override
+            public void setUpThread(int threadIndex) {
+                if (threadIndex == 1) {
+                    throw failure;
+                }
+            }
+
+            @Override
+            public void operation(int threadIndex) {
+                if (threadIndex == 1) {
+                    failedOperations.incrementAndGet();
+                }
+            }
+
+            @Override
+            public void tearDownThread(int threadIndex) {
+                if (threadIndex == 1) {
+                    tornDown.set(1);
+                }
+            }
+        };
+
+        driver.init();
+        try {
+            driver.run(new TestCaseResult(testCase));
+            fail();
+        } catch (IllegalStateException expected) {
+            assertSame(failure, expected);
+        }
+        assertEquals(0, failedOperations.get());
+        assertEquals(1, tornDown.get());
+    }
+
+    @Test
+    public void testTargetOperationsPerSecond(){
+        testCase.setThreadCount(2);
+        testCase.setOperationCountPerThread(100);
+        testCase.setTargetOperationsPerSecond(1000);
+        TestCaseResult result = new TestCaseResult(testCase);
+
+        CountingDriver driver = new CountingDriver();
+        driver.init();
+        driver.run(result);
+
+        assertEquals(200L, result.get(ConcurrentBenchmarkDriver.RESULT_OPERATIONS));
+        assertEquals(200L, result.getLatencyHistogram().getTotalCount());
+        assertEquals(200L, ((LatencyHistogram) result.get(ConcurrentBenchmarkDriver.RESULT_SERVICE_TIME)).getTotalCount());
+        // 100 operations per thread at 500 operations/second per thread take at least 198 ms.
+        assertTrue((Long) result.get(ConcurrentBenchmarkDriver.RESULT_MEASURED_DURATION) >= TimeUnit.MILLISECONDS.toNanos(198));
+    }
+
+    @Test
+    public void testTimedLatenciesStopAtTheDeadline(){
+        testCase.setOperationCountPerThread(Long.MAX_VALUE);
+        testCase.setDurationInMilliseconds(100);
+        testCase.setRecordLatency(true);
+        TestCaseResult result = new TestCaseResult(testCase);
+
+        CountingDriver driver = new CountingDriver();
+        driver.init();
+        driver.run(result);
+
+        // the operations that complete during the ramp down are neither counted nor recorded.
+        assertEquals(result.get(ConcurrentBenchmarkDriver.RESULT_OPERATIONS), result.getLatencyHistogram().getTotalCount());
+        assertNull(result.get(ConcurrentBenchmarkDriver.RESULT_DROPPED_OPERATIONS));
+    }
+
+    @Test
+    public void testBacklogAtTheDeadlineIsCounted(){
+        testCase.setThreadCount(1);
+        testCase.setOperationCountPerThread(Long.MAX_VALUE);
+        testCase.setDurationInMilliseconds(200);
+        testCase.setTargetOperationsPerSecond(1000);
+        TestCaseResult result = new TestCaseResult(testCase);
+
+        // at most 1 of every 5 intended operations can be executed.
+        ConcurrentBenchmarkDriver driver = new ConcurrentBenchmarkDriver() {
+            @Override
+            public void operation(int threadIndex) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        driver.init();
+        driver.run(result);
+
+        long operations = (Long) result.get(ConcurrentBenchmarkDriver.RESULT_OPERATIONS);
+        long dropped = (Long) result.get(ConcurrentBenchmarkDriver.RESULT_DROPPED_OPERATIONS);
+        assertEquals(operations, result.getLatencyHistogram().getTotalCount());
+        // 200 operations were intended before the deadline.
+        assertEquals(200, operations + dropped);
+        assertTrue(dropped > operations);
+    }
+
+    @Test
+    public void testStallIsVisibleInLatency(){
+        testCase.setThreadCount(1);
+        testCase.setOperationCountPerThread(100);
+        testCase.setTargetOperationsPerSecond(1000);
+        TestCaseResult result = new TestCaseResult(testCase);
+
+        ConcurrentBenchmarkDriver driver = new ConcurrentBenchmarkDriver() {
+            private int count;
+
+            @Override
+            public void operation(int threadIndex) {
+                if (++count == 10) {
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }
+        };
+        driver.init();
+        driver.run(result);
+
+        // the operations that should have been executed during the stall are delayed as well.
+        LatencyHistogram serviceTime = (LatencyHistogram) result.get(ConcurrentBenchmarkDriver.RESULT_SERVICE_TIME);
+        assertTrue(serviceTime.getValueAtPercentile(90) < TimeUnit.MILLISECONDS.toNanos(10));
+        assertTrue(result.getLatencyHistogram().getValueAtPercentile(90) > TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    @Test
+    public void testSampleDirectory() throws Exception {
+        File directory = File.createTempFile("beachbench", "samples");
+        directory.delete();
+        testCase.setSampleDirectory(directory.getPath());
+        TestCaseResult result = new TestCaseResult(testCase);
+
+        CountingDriver driver = new CountingDriver();
+        driver.init();
+        driver.run(result);
+
+        long samples = 0;
+        SampleReader reader = new SampleReader(new File((String) result.get(ConcurrentBenchmarkDriver.RESULT_SAMPLE_FILE)));
+        while (reader.next()) {
+            samples++;
+        }
+        reader.close();
+        assertEquals(4000, samples);
+        assertEquals(4000, result.getLatencyHistogram().getTotalCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnbounded(){
+        testCase.setOperationCountPerThread(Long.MAX_VALUE);
+        new CountingDriver().run(new TestCaseResult(testCase));
+    }
+
+    static class CountingDriver extends ConcurrentBenchmarkDriver {
+        final AtomicLong operations = new AtomicLong();
+        final Set<Integer> threadIndexes = Collections.synchronizedSet(new HashSet<Integer>());
+
+        @Override
+        public void setUpThread(int threadIndex) {
+            threadIndexes.add(threadIndex);
+        }
+
+        @Override
+        public void operation(int threadIndex) {
+            operations.incrementAndGet();
+        }
+    }
+}
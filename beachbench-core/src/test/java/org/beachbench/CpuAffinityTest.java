@@ -0,0 +1,50 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CpuAffinityTest {
+
+    @Test
+    public void testParseCpuList(){
+        assertArrayEquals(new int[]{0, 1, 2, 3, 8, 10, 11}, CpuAffinity.parseCpuList("0-3,8,10-11"));
+        assertArrayEquals(new int[]{5}, CpuAffinity.parseCpuList(" 5\n"));
+    }
+
+    @Test
+    public void testPartition(){
+        int[] cpus = {0, 1, 2, 3, 4, 5, 6, 7};
+        assertEquals(Arrays.asList("0,1,2,3", "4,5,6,7"), CpuAffinity.partition(cpus, 2));
+        assertEquals(Arrays.asList("0,1", "2,3,4", "5,6,7"), CpuAffinity.partition(cpus, 3));
+    }
+
+    @Test
+    public void testPartitionLimitedByCpus(){
+        List<String> sets = CpuAffinity.partition(new int[]{2, 3}, 4);
+        assertEquals(Arrays.asList("2", "3"), sets);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DriverInjectorTest {
+
+    @Test
+    public void testCached(){
+        assertSame(DriverInjector.of(FieldDriver.class), DriverInjector.of(FieldDriver.class));
+    }
+
+    @Test
+    public void testFields(){
+        Map<String, Object> settings = new HashMap<String, Object>();
+        settings.put("threads", "16");
+        settings.put("size", 1000L);
+        settings.put("unit", "seconds");
+        settings.put("other", "ignored");
+
+        DriverInjector injector = DriverInjector.of(FieldDriver.class);
+        FieldDriver driver = new FieldDriver();
+        injector.inject(driver, settings);
+
+        assertFalse(injector.isDeclared());
+        assertEquals(16, driver.threads);
+        assertEquals(1000, driver.size);
+        assertEquals(TimeUnit.SECONDS, driver.unit);
+        assertEquals(1, driver.constant);
+        assertNull(injector.getType("shutdown"));
+        assertEquals(int.class, injector.getType("size"));
+        assertEquals("[other]", injector.getUnknownSettings(settings).toString());
+    }
+
+    @Test
+    public void testParams(){
+        Map<String, Object> settings = new HashMap<String, Object>();
+        settings.put("threadCount", 4);
+        settings.put("keyCount", "100");
+        settings.put("ignored", 8);
+
+        DriverInjector injector = DriverInjector.of(ParamDriver.class);
+        ParamDriver driver = new ParamDriver();
+        injector.inject(driver, settings);
+
+        assertTrue(injector.isDeclared());
+        assertEquals(4, driver.threadCount);
+        assertEquals(100, driver.keys);
+        assertEquals(0.5, driver.ratio, 0);
+        assertEquals(0, driver.ignored);
+    }
+
+    @Test
+    public void testValidate(){
+        Map<String, Object> settings = new HashMap<String, Object>();
+        settings.put("threadCount", 2);
+        settings.put("keycount", 100);
+        settings.put("ratio", "half");
+
+        try {
+            DriverInjector.of(ParamDriver.class).validate(settings);
+            fail();
+        } catch (IllegalArgumentException e) {
+            String message = e.getMessage();
+            assertTrue(message, message.contains("required parameter [keyCount] is not set"));
+            assertTrue(message, message.contains("parameter [ratio]: [half] is not a valid double"));
+            assertTrue(message, message.contains("unknown setting [keycount]"));
+            assertFalse(message, message.contains("parameter [threadCount]"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLossyConversion(){
+        Map<String, Object> settings = new HashMap<String, Object>();
+        settings.put("size", Long.MAX_VALUE);
+        DriverInjector.of(FieldDriver.class).inject(new FieldDriver(), settings);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDefault(){
+        DriverInjector.of(InvalidDefaultDriver.class);
+    }
+
+    @Test
+    public void testBenchmarkFailsBeforeRunning(){
+        TestCase valid = new TestCase();
+        valid.setName("valid");
+        valid.setDriver(ParamDriver.class);
+        valid.put("keyCount", 10);
+        TestCase invalid = new TestCase();
+        invalid.setName("invalid");
+        invalid.setDriver(ParamDriver.class);
+        invalid.put("keyCount", 10);
+        invalid.put("keycount", 10);
+
+        Benchmark benchmark = new Benchmark();
+        benchmark.setQuiet(true);
+        benchmark.add(valid);
+        benchmark.add(invalid);
+        try {
+            benchmark.run();
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("TestCase [invalid]"));
+        }
+        assertTrue(valid.getResults().isEmpty());
+    }
+
+    static class BaseDriver extends BenchmarkDriver {
+        int threads;
+
+        @Override
+        public void run(TestCaseResult result) {
+        }
+    }
+
+    static class FieldDriver extends BaseDriver {
+        final int constant = 1;
+        int size;
+        TimeUnit unit;
+    }
+
+    static class ParamDriver extends BenchmarkDriver {
+        @Param
+        int threadCount;
+        @Param(value = "keyCount", required = true)
+        long keys;
+        @Param(defaultValue = "0.5")
+        double ratio;
+        int ignored;
+
+        @Override
+        public void run(TestCaseResult result) {
+        }
+    }
+
+    @Test
+    public void testAbstractDriverInFrameworkPackage(){
+        Map<String, Object> settings = new HashMap<String, Object>();
+        settings.put("keyCount", 10);
+        settings.put("valueSize", 20);
+
+        KeyValueDriver driver = new KeyValueDriver();
+        DriverInjector.of(KeyValueDriver.class).inject(driver, settings);
+
+        // the Params of a user's abstract driver aren't mistaken for engine state because of its package.
+        assertEquals(10, driver.keyCount);
+        assertEquals(20, driver.valueSize);
+    }
+
+    static class KeyValueDriver extends AbstractKeyDriver {
+        @Param
+        int valueSize;
+    }
+
+    static class InvalidDefaultDriver extends BenchmarkDriver {
+        @Param(defaultValue = "many")
+        int count;
+
+        @Override
+        public void run(TestCaseResult result) {
+        }
+    }
+}
+
+/**
+ * A user's abstract driver that happens to be declared in the package of the engine.
+ */
+abstract class AbstractKeyDriver extends BenchmarkDriver {
+    @Param
+    int keyCount;
+
+    @Override
+    public void run(TestCaseResult result) {
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class InstrumentationTest {
+
+    @Test
+    public void testAllocations(){
+        TestCase testCase = new TestCase();
+        testCase.setThreadCount(2);
+        testCase.setOperationCountPerThread(1000);
+        TestCaseResult result = new TestCaseResult(testCase);
+
+        AllocatingDriver driver = new AllocatingDriver();
+        driver.init();
+        Instrumentation.Snapshot snapshot = Instrumentation.start();
+        driver.run(result);
+        snapshot.stop(result);
+
+        if (Instrumentation.currentThreadAllocatedBytes() >= 0) {
+            assertTrue(result.getAllocatedBytes() >= 2000 * 1024);
+            assertTrue(result.getAllocatedBytesPerOperation() >= 1024);
+        }
+        assertTrue(result.getGcCount() >= 0);
+        assertTrue(result.getGcTimePerSecond() >= 0);
+        assertTrue(result.getHeapUsedBefore() > 0);
+    }
+
+    @Test
+    public void testNoOperations(){
+        TestCaseResult result = new TestCaseResult(new TestCase());
+        Instrumentation.start().stop(result);
+
+        assertTrue(Double.isNaN(result.getAllocatedBytesPerOperation()));
+    }
+
+    @Test
+    public void testAddAllocatedBytes(){
+        TestCaseResult result = new TestCaseResult(new TestCase());
+        assertEquals(-1, result.getAllocatedBytes());
+        result.addAllocatedBytes(10);
+        result.addAllocatedBytes(5);
+        assertEquals(15, result.getAllocatedBytes());
+    }
+
+    static class AllocatingDriver extends ConcurrentBenchmarkDriver {
+        volatile byte[] sink;
+
+        @Override
+        public void operation(int threadIndex) {
+            sink = new byte[1024];
+        }
+    }
+}
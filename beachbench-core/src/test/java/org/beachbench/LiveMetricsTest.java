@@ -0,0 +1,201 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.beachbench;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LiveMetricsTest {
+
+    private TestCase testCase;
+
+    @Before
+    public void setup(){
+        testCase = new TestCase();
+        testCase.setName("sampled");
+        testCase.setDriver(SleepingDriver.class);
+        testCase.setThreadCount(2);
+        testCase.setRecordLatency(true);
+        testCase.setWarmupRunIterationCount(0);
+        testCase.setTestCaseIterationCount(1);
+        // the driver stops itself once it has seen enough samples, the duration is only a safety net.
+        testCase.setDurationInSeconds(60);
+        testCase.setTimeSeriesIntervalInMilliseconds(50);
+    }
+
+    @After
+    public void tearDown(){
+        LiveMetricsRegistry.INSTANCE.remove("live");
+    }
+
+    @Test
+    public void testNoTimeSeriesByDefault(){
+        testCase.setTimeSeriesIntervalInMilliseconds(0);
+        testCase.setDurationInMilliseconds(100);
+        run(testCase);
+
+        assertNull(testCase.getResults().get(0).getTimeSeries());
+    }
+
+    @Test
+    public void testTimeSeries() throws Exception {
+        run(testCase);
+
+        TestCaseResult result = testCase.getResults().get(0);
+        TimeSeries timeSeries = result.getTimeSeries();
+        assertNotNull(timeSeries);
+        assertTrue(timeSeries.size() >= SleepingDriver.SAMPLES);
+        long latencyCount = 0;
+        for (int k = 0; k < timeSeries.size(); k++) {
+            LiveSample sample = timeSeries.getSample(k);
+            assertEquals("sampled", sample.getTestCase());
+            assertEquals(1, sample.getIteration());
+            assertFalse(sample.isWarmup());
+            assertTrue(sample.getHeapUsedBytes() > 0);
+            if (k > 0) {
+                // missed ticks are skipped, so samples are never taken back to back.
+                LiveSample previous = timeSeries.getSample(k - 1);
+                assertTrue(sample.getElapsedMs() - previous.getElapsedMs() >= 49);
+                assertTrue(sample.getOperations() >= previous.getOperations());
+            }
+            latencyCount += sample.getLatencyCount();
+        }
+        assertTrue(timeSeries.getSample(timeSeries.size() - 1).getOperations() <= (Long) result.get(ConcurrentBenchmarkDriver.RESULT_OPERATIONS));
+        assertTrue(latencyCount > 0);
+
+        // a finished testcase is no longer published.
+        assertTrue(LiveMetricsRegistry.INSTANCE.getSamples().isEmpty());
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(LiveMetricsRegistry.objectName("sampled")));
+    }
+
+    @Test
+    public void testForkedTimeSeries(){
+        testCase.setFork(true);
+        testCase.setJvmArgs("-Xmx64m");
+        run(testCase);
+
+        TimeSeries timeSeries = testCase.getResults().get(0).getTimeSeries();
+        assertNotNull(timeSeries);
+        assertTrue(timeSeries.size() >= SleepingDriver.SAMPLES);
+        assertEquals("sampled", timeSeries.getSample(0).getTestCase());
+        assertTrue(LiveMetricsRegistry.INSTANCE.getSamples().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidInterval(){
+        testCase.setTimeSeriesIntervalInMilliseconds(-1);
+    }
+
+    @Test
+    public void testPublish() throws Exception {
+        LiveMetricsRegistry.INSTANCE.publish(new LiveSample("live", 2, false, 1000, 500, 500d, 500, 1500d, 1000, 4000, 9000, 1024, 3, 7));
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = LiveMetricsRegistry.objectName("live");
+        assertTrue(server.isRegistered(name));
+        assertEquals(500d, (Double) server.getAttribute(name, "OperationsPerSecond"), 0);
+        assertEquals(4000L, server.getAttribute(name, "P99LatencyNs"));
+
+        String json = LiveMetricsServer.toJson(LiveMetricsRegistry.INSTANCE.getSamples());
+        assertTrue(json.contains("\"testCase\": \"live\""));
+        assertTrue(json.contains("\"p99LatencyNs\": 4000"));
+
+        LiveMetricsServer liveMetricsServer = new LiveMetricsServer(0);
+        try {
+            URL url = new URL("http", InetAddress.getLoopbackAddress().getHostAddress(), liveMetricsServer.getPort(), LiveMetricsServer.PATH);
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            assertEquals(200, connection.getResponseCode());
+            assertEquals(json, read(connection.getInputStream()));
+        } finally {
+            liveMetricsServer.stop();
+        }
+
+        LiveMetricsRegistry.INSTANCE.remove("live");
+        assertFalse(server.isRegistered(name));
+        assertEquals("[]\n", LiveMetricsServer.toJson(LiveMetricsRegistry.INSTANCE.getSamples()));
+    }
+
+    private static void run(TestCase testCase) {
+        Benchmark benchmark = new Benchmark();
+        benchmark.setQuiet(true);
+        benchmark.add(testCase);
+        benchmark.run();
+    }
+
+    private static String read(InputStream in) throws Exception {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            for (int read; (read = in.read(buffer)) >= 0; ) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toString("UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Runs until it has seen {@link #SAMPLES} different samples of its own testcase published.
+     */
+    static class SleepingDriver extends ConcurrentBenchmarkDriver {
+        static final int SAMPLES = 3;
+
+        private final Set<Long> seen = Collections.synchronizedSet(new HashSet<Long>());
+
+        @Override
+        public void operation(int threadIndex) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (LiveSample sample : LiveMetricsRegistry.INSTANCE.getSamples()) {
+                if ("sampled".equals(sample.getTestCase())) {
+                    seen.add(sample.getElapsedMs());
+                }
+            }
+            if (seen.size() >= SAMPLES) {
+                shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.beachbench.store.BenchmarkRecord;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MicroBenchmarkDriverTest {
+
+    private TestCase testCase;
+
+    @Before
+    public void setup(){
+        testCase = new TestCase();
+        testCase.setName("micro");
+        testCase.setOperationCountPerThread(10000000);
+        testCase.setBatchDurationInMicroseconds(100);
+    }
+
+    @Test
+    public void testBatches(){
+        HashDriver driver = new HashDriver();
+        TestCaseResult result = new TestCaseResult(testCase);
+        driver.init();
+        // a batch size that is already determined isn't sized again, so nothing depends on the speed of the machine.
+        driver.setBatchSize(1000);
+        driver.run(result);
+
+        long batchSize = (Long) result.get(MicroBenchmarkDriver.RESULT_BATCH_SIZE);
+        int batchCount = (Integer) result.get(MicroBenchmarkDriver.RESULT_BATCH_COUNT);
+        assertEquals(1000, batchSize);
+        assertEquals(10000, batchCount);
+        assertEquals(10000000L, result.get(ConcurrentBenchmarkDriver.RESULT_OPERATIONS));
+        assertEquals(10000000L, driver.operations);
+
+        // the corrected samples aren't clamped, they can only be negative by at most the subtracted overhead.
+        double timePerOperation = (Double) result.get(MicroBenchmarkDriver.RESULT_TIME_PER_OPERATION);
+        double loopOverhead = (Double) result.get(MicroBenchmarkDriver.RESULT_LOOP_OVERHEAD);
+        double timerOverhead = (Double) result.get(MicroBenchmarkDriver.RESULT_TIMER_OVERHEAD);
+        assertTrue(timePerOperation >= -loopOverhead - timerOverhead / batchSize);
+        assertTrue(timePerOperation < 10000);
+        assertTrue((Double) result.get(MicroBenchmarkDriver.RESULT_TIME_PER_OPERATION_ERROR) >= 0);
+        int overcorrected = (Integer) result.get(MicroBenchmarkDriver.RESULT_OVERCORRECTED_BATCH_COUNT);
+        assertTrue(overcorrected >= 0 && overcorrected <= batchCount);
+    }
+
+    @Test
+    public void testSizing(){
+        testCase.setOperationCountPerThread(200000);
+        HashDriver driver = new HashDriver();
+        TestCaseResult result = new TestCaseResult(testCase);
+        driver.init();
+        driver.run(result);
+
+        long batchSize = (Long) result.get(MicroBenchmarkDriver.RESULT_BATCH_SIZE);
+        int batchCount = (Integer) result.get(MicroBenchmarkDriver.RESULT_BATCH_COUNT);
+        assertTrue(batchSize >= 1);
+        assertEquals(batchSize * batchCount, result.get(ConcurrentBenchmarkDriver.RESULT_OPERATIONS));
+        assertEquals(driver.operations, batchSize * batchCount + HashDriver.sizingOperations(batchSize));
+    }
+
+    @Test
+    public void testSlowerOperationTakesLonger(){
+        testCase.setOperationCountPerThread(200000);
+        TestCaseResult fast = new TestCaseResult(testCase);
+        HashDriver fastDriver = new HashDriver();
+        fastDriver.init();
+        fastDriver.run(fast);
+
+        TestCaseResult slow = new TestCaseResult(testCase);
+        SlowDriver slowDriver = new SlowDriver();
+        slowDriver.init();
+        slowDriver.run(slow);
+
+        assertTrue((Double) slow.get(MicroBenchmarkDriver.RESULT_TIME_PER_OPERATION)
+                > (Double) fast.get(MicroBenchmarkDriver.RESULT_TIME_PER_OPERATION));
+    }
+
+    @Test
+    public void testSummary(){
+        // the time/operation of the hash can be measured as 0 or less, in which case there is no throughput.
+        testCase.setDriver(SlowDriver.class);
+        testCase.setOperationCountPerThread(200000);
+        testCase.setWarmupRunIterationCount(1);
+        testCase.setTestCaseIterationCount(2);
+        Benchmark benchmark = new Benchmark();
+        benchmark.add(testCase);
+        benchmark.run();
+
+        assertEquals(2, testCase.getSummary().getTimePerOperation().getCount());
+        assertNotNull(testCase.getSummary().getThroughput());
+        BenchmarkRecord record = BenchmarkRecord.of("id", "benchmark", 0, Collections.singletonList(testCase));
+        assertEquals(2, record.getMetrics("micro").get(BenchmarkRecord.METRIC_TIME_PER_OPERATION).length);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNeverCompletes(){
+        testCase.setOperationCountPerThread(Long.MAX_VALUE);
+        new HashDriver().run(new TestCaseResult(testCase));
+    }
+
+    static class HashDriver extends MicroBenchmarkDriver {
+        private final String value = "BeachBench";
+        long operations;
+
+        @Override
+        public Object operation() {
+            operations++;
+            getBlackhole().consume(value.hashCode());
+            return null;
+        }
+
+        static long sizingOperations(long batchSize) {
+            // the batch size is doubled from 1, so sizing executed 2 * batchSize - 1 operations. The driver's own
+            // batch size can't be used, it is reset when the batches turned out to be too short.
+            return 2 * batchSize - 1;
+        }
+    }
+
+    static class SlowDriver extends MicroBenchmarkDriver {
+        @Override
+        public Object operation() {
+            double value = 0;
+            for (int k = 1; k < 200; k++) {
+                value += Math.sqrt(k);
+            }
+            getBlackhole().consume(value);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.beachbench.stats.LatencyHistogram;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MixBenchmarkDriverTest {
+
+    private TestCase testCase;
+
+    @Before
+    public void setup(){
+        testCase = new TestCase();
+        testCase.setName("mix");
+        testCase.setThreadCount(2);
+        testCase.setOperationCountPerThread(50000);
+    }
+
+    @Test
+    public void testMix(){
+        MixDriver driver = new MixDriver();
+        TestCaseResult result = new TestCaseResult(testCase);
+
+        driver.init();
+        driver.setUp();
+        driver.run(result);
+
+        long reads = driver.reads.get();
+        long writes = driver.writes.get();
+        assertEquals(100000, reads + writes);
+        assertEquals(0.8, reads / 100000d, 0.02);
+        assertEquals(0L, driver.scans.get());
+
+        assertEquals(Arrays.asList("read", "write", "scan"), driver.getOperationNames());
+        assertEquals(reads, result.get(MixBenchmarkDriver.resultKey("read", MixBenchmarkDriver.RESULT_OPERATIONS)));
+        assertEquals(writes, result.get(MixBenchmarkDriver.resultKey("write", MixBenchmarkDriver.RESULT_OPERATIONS)));
+        assertEquals(0L, result.get(MixBenchmarkDriver.resultKey("scan", MixBenchmarkDriver.RESULT_OPERATIONS)));
+
+        double total = ((Number) result.get(MixBenchmarkDriver.RESULT_OPERATIONS_PER_SECOND)).doubleValue();
+        double read = (Double) result.get(MixBenchmarkDriver.resultKey("read", MixBenchmarkDriver.RESULT_OPERATIONS_PER_SECOND));
+        double write = (Double) result.get(MixBenchmarkDriver.resultKey("write", MixBenchmarkDriver.RESULT_OPERATIONS_PER_SECOND));
+        assertEquals(total, read + write, total * 1e-9);
+
+        LatencyHistogram readLatency = (LatencyHistogram) result.get(MixBenchmarkDriver.resultKey("read", MixBenchmarkDriver.RESULT_LATENCY));
+        assertEquals(reads, readLatency.getTotalCount());
+        assertEquals(100000, result.getLatencyHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testMeasuredLatencyIsKept(){
+        testCase.setRecordLatency(true);
+        MixDriver driver = new MixDriver();
+        TestCaseResult result = new TestCaseResult(testCase);
+
+        driver.init();
+        driver.setUp();
+        driver.run(result);
+
+        // the aggregate is measured once by the runner, not once more by the mix.
+        assertEquals(100000, result.getLatencyHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testNoOperations(){
+        MixBenchmarkDriver driver = new MixBenchmarkDriver() {
+        };
+        driver.init();
+        try {
+            driver.run(new TestCaseResult(testCase));
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testInBenchmark(){
+        testCase.setDriver(MixDriver.class);
+        testCase.setWarmupRunIterationCount(1);
+        testCase.setTestCaseIterationCount(2);
+        Benchmark benchmark = new Benchmark();
+        benchmark.setListener(new BenchmarkListenerAdapter());
+        benchmark.add(testCase);
+
+        benchmark.run();
+
+        assertEquals(2, testCase.getResults().size());
+        for (TestCaseResult result : testCase.getResults()) {
+            long reads = (Long) result.get(MixBenchmarkDriver.resultKey("read", MixBenchmarkDriver.RESULT_OPERATIONS));
+            long writes = (Long) result.get(MixBenchmarkDriver.resultKey("write", MixBenchmarkDriver.RESULT_OPERATIONS));
+            assertEquals(100000, reads + writes);
+        }
+        assertTrue(testCase.getSummary().getMeanLatency() != null);
+    }
+
+    static class MixDriver extends MixBenchmarkDriver {
+        final AtomicLong reads = new AtomicLong();
+        final AtomicLong writes = new AtomicLong();
+        final AtomicLong scans = new AtomicLong();
+
+        @Override
+        public void setUp() {
+            addOperation("read", 80, new Operation() {
+                @Override
+                public void execute(int threadIndex) {
+                    reads.incrementAndGet();
+                }
+            });
+            addOperation("write", 20, new Operation() {
+                @Override
+                public void execute(int threadIndex) {
+                    writes.incrementAndGet();
+                }
+            });
+            addOperation("scan", 0, new Operation() {
+                @Override
+                public void execute(int threadIndex) {
+                    scans.incrementAndGet();
+                }
+            });
+        }
+    }
+}
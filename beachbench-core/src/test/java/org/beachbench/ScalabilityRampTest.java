@@ -0,0 +1,58 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ScalabilityRampTest {
+
+    @Test
+    public void test(){
+        TestCase template = new TestCase();
+        template.setName("ramp");
+        template.setDriver(ConcurrentBenchmarkDriverTest.CountingDriver.class);
+        template.setWarmupRunIterationCount(0);
+        template.setTestCaseIterationCount(2);
+        template.setOperationCountPerThread(10000);
+
+        ScalabilityRamp ramp = new ScalabilityRamp(template, 4);
+        List<TestCase> testCases = ramp.expand();
+        assertEquals(3, testCases.size());
+        assertEquals(4, testCases.get(2).getThreadCount());
+
+        Benchmark benchmark = new Benchmark();
+        benchmark.add(ramp);
+        benchmark.run();
+
+        ScalabilityResult result = ScalabilityResult.of(benchmark.getTestCases());
+        assertNotNull(result);
+        assertArrayEquals(new int[]{1, 2, 4}, result.getThreadCounts());
+        assertEquals(1, result.getSpeedup()[0], 0);
+        assertEquals(1, result.getEfficiency()[0], 0);
+        assertEquals(result.getSpeedup()[2] / 4, result.getEfficiency()[2], 1e-12);
+        assertNotNull(result.getModel());
+    }
+}
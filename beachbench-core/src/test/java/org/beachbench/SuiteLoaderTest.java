@@ -0,0 +1,163 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.beachbench.keys.KeyDistribution;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SuiteLoaderTest {
+
+    private Properties properties;
+
+    @Before
+    public void setup(){
+        properties = new Properties();
+        properties.setProperty("benchmark.name", "suite");
+        properties.setProperty("benchmark.quiet", "true");
+        properties.setProperty("benchmark.regressionThreshold", "0.05");
+        properties.setProperty("testcase.get.driver", SuiteDriver.class.getName());
+        properties.setProperty("testcase.get.warmupRunIterationCount", "0");
+        properties.setProperty("testcase.get.operationCountPerThread", "100");
+    }
+
+    @Test
+    public void testSettings(){
+        properties.setProperty("testcase.get.threadCount", "2");
+        properties.setProperty("testcase.get.jvmArgs", "-Xmx64m -XX:+UseSerialGC");
+        properties.setProperty("testcase.get.batchSize", "3");
+        properties.setProperty("testcase.get.unit", "milliseconds");
+        properties.setProperty("testcase.get.keys", "zipfian(keys=1000, skew=0.99)");
+        properties.setProperty("testcase.get.inherited", "true");
+
+        Benchmark benchmark = SuiteLoader.load(properties);
+
+        assertEquals("suite", benchmark.getName());
+        assertTrue(benchmark.isQuiet());
+        assertEquals(0.05, benchmark.getRegressionThreshold(), 0);
+        assertEquals(1, benchmark.getTestCases().size());
+        TestCase testCase = benchmark.getTestCases().get(0);
+        assertEquals("get", testCase.getName());
+        assertEquals(SuiteDriver.class, testCase.getDriver());
+        assertEquals(2, testCase.getThreadCount());
+        assertEquals(0, testCase.getWarmupRunIterationCount());
+        assertEquals(2, testCase.getJvmArgs().size());
+        assertEquals(3, testCase.get("batchSize"));
+        assertEquals(TimeUnit.MILLISECONDS, testCase.get("unit"));
+        assertEquals(KeyDistribution.zipfian(1000, 0.99), testCase.get("keys"));
+        assertEquals(Boolean.TRUE, testCase.get("inherited"));
+
+        benchmark.run();
+
+        assertEquals(3, SuiteDriver.lastBatchSize);
+        assertTrue(SuiteDriver.lastInherited);
+    }
+
+    @Test
+    public void testSweep(){
+        properties.setProperty("testcase.get.sweep.threadCount", "geometric(1,4,2)");
+        properties.setProperty("testcase.get.sweep.batchSize", "1, 2");
+
+        List<TestCase> testCases = SuiteLoader.load(properties).getTestCases();
+
+        assertEquals(6, testCases.size());
+        assertEquals("get[batchSize=1,threadCount=1]", testCases.get(0).getName());
+        assertEquals("get[batchSize=2,threadCount=4]", testCases.get(5).getName());
+        assertEquals(4, testCases.get(5).getThreadCount());
+        assertEquals(2, testCases.get(5).get("batchSize"));
+    }
+
+    @Test
+    public void testRamp(){
+        properties.setProperty("testcase.get.ramp", "16,4");
+
+        List<TestCase> testCases = SuiteLoader.load(properties).getTestCases();
+
+        assertEquals(3, testCases.size());
+        assertEquals(16, testCases.get(2).getThreadCount());
+    }
+
+    @Test
+    public void testOrder(){
+        properties.setProperty("benchmark.testcases", "put, get");
+        properties.setProperty("testcase.put.driver", SuiteDriver.class.getName());
+
+        List<TestCase> testCases = SuiteLoader.load(properties).getTestCases();
+
+        assertEquals("put", testCases.get(0).getName());
+        assertEquals("get", testCases.get(1).getName());
+    }
+
+    @Test
+    public void testInvalid(){
+        properties.setProperty("benchmark.parallelism", "many");
+        properties.setProperty("testcase.get.threadCount", "0");
+        properties.setProperty("testcase.get.batchSize", "large");
+        properties.setProperty("testcase.get.batchsize", "1");
+        properties.setProperty("testcase.put.threadCount", "1");
+        properties.setProperty("testcase.remove.driver", "java.lang.String");
+
+        try {
+            SuiteLoader.load(properties);
+            fail();
+        } catch (IllegalArgumentException e) {
+            String message = e.getMessage();
+            assertTrue(message, message.contains("benchmark.parallelism:"));
+            assertTrue(message, message.contains("testcase.get.threadCount:"));
+            assertTrue(message, message.contains("testcase.get.batchSize:"));
+            assertTrue(message, message.contains("testcase.get.batchsize: not a TestCase property nor a parameter of"));
+            assertTrue(message, message.contains("testcase.put.driver: missing"));
+            assertTrue(message, message.contains("testcase.remove.driver: java.lang.String is not a BenchmarkDriver"));
+        }
+    }
+
+    static class ParentDriver extends ConcurrentBenchmarkDriver {
+        static volatile boolean lastInherited;
+
+        private boolean inherited;
+
+        @Override
+        public void operation(int threadIndex) {
+            lastInherited = inherited;
+        }
+    }
+
+    static class SuiteDriver extends ParentDriver {
+        static volatile int lastBatchSize;
+
+        private int batchSize;
+        private TimeUnit unit;
+        private KeyDistribution keys;
+
+        @Override
+        public void operation(int threadIndex) {
+            super.operation(threadIndex);
+            lastBatchSize = batchSize;
+        }
+    }
+}
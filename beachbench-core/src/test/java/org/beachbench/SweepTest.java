@@ -0,0 +1,141 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SweepTest {
+
+    private TestCase template;
+
+    @Before
+    public void setup(){
+        template = new TestCase();
+        template.setName("put");
+        template.setDriver(SweepDriver.class);
+        template.setWarmupRunIterationCount(0);
+        template.setOperationCountPerThread(100);
+    }
+
+    @Test
+    public void testCartesianProduct(){
+        List<TestCase> testCases = new Sweep(template)
+                .vary("threadCount", 1, 2)
+                .geometric("batchSize", 1, 16, 4)
+                .expand();
+
+        assertEquals(6, testCases.size());
+        assertEquals("put[threadCount=1,batchSize=1]", testCases.get(0).getName());
+        assertEquals("put[threadCount=1,batchSize=4]", testCases.get(1).getName());
+        assertEquals("put[threadCount=2,batchSize=16]", testCases.get(5).getName());
+        assertEquals(2, testCases.get(5).getThreadCount());
+        assertEquals(16L, testCases.get(5).get("batchSize"));
+        assertEquals(Arrays.asList("threadCount", "batchSize"), Arrays.asList(testCases.get(5).getParameters().keySet().toArray()));
+        assertEquals(100, testCases.get(5).getOperationCountPerThread());
+        assertTrue(!testCases.get(0).getId().equals(testCases.get(1).getId()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidValue(){
+        new Sweep(template).vary("threadCount", 1, 0).expand();
+    }
+
+    @Test
+    public void testPointsDontShareSettings(){
+        template.setJvmArgs("-Xmx64m");
+        List<TestCase> testCases = new Sweep(template)
+                .vary("threadCount", 1, 2)
+                .expand();
+
+        testCases.get(0).getJvmArgs().add("-ea");
+        testCases.get(0).getParameters().put("batchSize", 4);
+        assertEquals(Arrays.asList("-Xmx64m"), testCases.get(1).getJvmArgs());
+        assertEquals(Arrays.asList("-Xmx64m"), template.getJvmArgs());
+        assertEquals(1, testCases.get(0).copy().getThreadCount());
+        assertEquals(2, testCases.get(0).copy().getParameters().size());
+        assertEquals(1, testCases.get(1).getParameters().size());
+    }
+
+    @Test
+    public void testFilter(){
+        List<TestCase> testCases = new Sweep(template)
+                .range("threadCount", 1, 4, 1)
+                .vary("batchSize", 1, 10)
+                .filter(new Sweep.Filter() {
+                    public boolean accept(Map<String, Object> parameters) {
+                        return ((Long) parameters.get("threadCount")) * ((Integer) parameters.get("batchSize")) <= 10;
+                    }
+                })
+                .expand();
+
+        assertEquals(5, testCases.size());
+        assertEquals("put[threadCount=1,batchSize=10]", testCases.get(1).getName());
+        assertEquals(4, testCases.get(4).getThreadCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateDimension(){
+        new Sweep(template).vary("threadCount", 1).vary("threadCount", 2);
+    }
+
+    @Test
+    public void testBenchmarkMatrix(){
+        Sweep sweep = new Sweep(template).vary("threadCount", 1, 2).vary("batchSize", 1, 2, 3);
+        Benchmark benchmark = new Benchmark();
+        benchmark.add(sweep);
+        benchmark.run();
+
+        List<TestCase> testCases = benchmark.getTestCases();
+        assertEquals(6, testCases.size());
+        for (TestCase testCase : testCases) {
+            assertNotNull(testCase.getSummary().getThroughput());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SweepMatrix.print(new PrintStream(bytes), testCases);
+        String[] lines = bytes.toString().split("\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].contains("operations/s"));
+        assertTrue(lines[1].contains("batchSize=3"));
+        assertTrue(lines[3].contains("threadCount=2"));
+    }
+
+    static class SweepDriver extends ConcurrentBenchmarkDriver {
+        private int batchSize;
+
+        @Override
+        public void operation(int threadIndex) {
+            for (int k = 0; k < batchSize; k++) {
+                Thread.yield();
+            }
+        }
+    }
+}
@@ -7,6 +7,9 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -63,6 +66,99 @@ public class TestCaseResultTest {
         assertEquals(40,testCaseResult.getTestCaseIteration());
     }
 
+    @Test
+    public void testTypesArePreserved(){
+        testCaseResult.put("long", 5L);
+        testCaseResult.put("int", 5);
+        testCaseResult.put("double", 0.5);
+        testCaseResult.put("string", "5");
+        testCaseResult.putLong("putLong", 7);
+        testCaseResult.putDouble("putDouble", 1.5);
+
+        assertEquals(5L, testCaseResult.get("long"));
+        assertEquals(5, testCaseResult.get("int"));
+        assertEquals(0.5, testCaseResult.get("double"));
+        assertEquals("5", testCaseResult.get("string"));
+        assertEquals(7L, testCaseResult.get("putLong"));
+        assertEquals(1.5, testCaseResult.get("putDouble"));
+        assertEquals(5, testCaseResult.getDouble("int", -1), 0);
+        assertEquals(-1, testCaseResult.getDouble("string", -1), 0);
+        assertEquals(-1, testCaseResult.getDouble("unknown", -1), 0);
+
+        testCaseResult.put("string", 3L);
+        assertEquals(3L, testCaseResult.get("string"));
+        testCaseResult.put("long", null);
+        assertNull(testCaseResult.get("long"));
+        assertTrue(testCaseResult.getProperties().containsKey("long"));
+    }
+
+    @Test
+    public void testOnlyOwnPropertiesHaveSlots(){
+        TestCase other = new TestCase();
+        TestCaseResult otherResult = new TestCaseResult(other);
+        for (int k = 0; k < 100; k++) {
+            otherResult.putLong("other." + k, k);
+        }
+
+        TestCase own = new TestCase();
+        TestCaseResult result = new TestCaseResult(own);
+        result.putLong("own", 1);
+        result.setStart(10);
+        // the id, own and start.
+        assertEquals(3, own.getMetricSlots().size());
+        assertEquals(1L, result.get("own"));
+        assertNull(result.get("other.1"));
+
+        TestCaseResult next = new TestCaseResult(own);
+        next.putDouble("own", 2);
+        assertEquals(2d, next.getDouble("own", 0), 0);
+        assertEquals(3, own.getMetricSlots().size());
+        assertEquals(3, result.getProperties().size());
+    }
+
+    @Test
+    public void testReadingDoesNotChangeTheResult(){
+        TestCaseResult result = new TestCaseResult(new TestCase());
+        Map<String, Object> properties = result.getProperties();
+        assertEquals(1, properties.size());
+        String id = result.getId();
+        assertNotNull(id);
+        assertEquals(1, properties.size());
+        assertEquals(id, properties.entrySet().iterator().next().getValue());
+        assertEquals(id, result.getId());
+    }
+
+    @Test
+    public void testPropertiesView(){
+        Map<String, Object> properties = testCaseResult.getProperties();
+        int size = properties.size();
+        assertEquals(testCaseResult.getId(), properties.get("id"));
+        assertEquals(10L, properties.get("start"));
+
+        properties.put("view", 1L);
+        assertEquals(1L, testCaseResult.get("view"));
+        assertEquals(size + 1, properties.size());
+
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            if (entry.getKey().equals("end")) {
+                entry.setValue(50L);
+            }
+        }
+        assertEquals(50, testCaseResult.getEnd());
+
+        Iterator<String> names = properties.keySet().iterator();
+        while (names.hasNext()) {
+            if (names.next().equals("view")) {
+                names.remove();
+            }
+        }
+        assertNull(testCaseResult.get("view"));
+        assertEquals(size, properties.size());
+        assertEquals(20L, properties.remove("duration[ms]"));
+        assertFalse(properties.containsKey("duration[ms]"));
+        assertEquals(new HashMap<String, Object>(properties), properties);
+    }
+
     @Test(expected = RuntimeException.class)
     public void testNullTestCase(){
         testCaseResult = new TestCaseResult(null);
@@ -29,6 +29,8 @@ public class TestCaseTest {
         testCase.setTestCaseIterationCount(222);
         testCase.setDurationInSeconds(33);
         testCase.setDriver(benchmarkDriver);
+        testCase.setThreadCount(4);
+        testCase.setOperationCountPerThread(555);
         testCase.add(testCaseResult1);
         testCase.add(testCaseResult2);
     }
@@ -42,11 +44,33 @@ public class TestCaseTest {
         assertEquals(222, testCase.getTestCaseIterationCount());
         assertEquals(33, testCase.getDurationInSeconds());
         assertEquals(benchmarkDriver,testCase.getDriver());
+        assertEquals(4, testCase.getThreadCount());
+        assertEquals(555, testCase.getOperationCountPerThread());
+        assertFalse(testCase.isFork());
+        assertTrue(testCase.getJvmArgs().isEmpty());
         assertEquals(2, testCase.getResults().size());
         assertEquals(testCaseResult1,testCase.getResults().get(0));
         assertEquals(testCaseResult2,testCase.getResults().get(1));
     }
 
+    @Test
+    public void testDurationInMilliseconds(){
+        assertEquals(33000, testCase.getDurationInMilliseconds());
+
+        testCase.setDurationInMilliseconds(1500);
+        assertEquals(1500, testCase.getDurationInMilliseconds());
+        assertEquals(2, testCase.getDurationInSeconds());
+
+        testCase.setDurationInSeconds(2);
+        assertEquals(2000, testCase.getDurationInMilliseconds());
+
+        testCase.setDurationInSeconds(4);
+        assertEquals(4000, testCase.getDurationInMilliseconds());
+
+        testCase.setDurationInSeconds(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, testCase.getDurationInMilliseconds());
+    }
+
     @Test(expected = RuntimeException.class)
     public void testNullDriver(){
         testCase.setDriver(null);
@@ -57,6 +81,11 @@ public class TestCaseTest {
         testCase.add(null);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroThreadCount(){
+        testCase.setThreadCount(0);
+    }
+
     private static class TestDriver extends BenchmarkDriver{
         @Override
         public void run(TestCaseResult result) {
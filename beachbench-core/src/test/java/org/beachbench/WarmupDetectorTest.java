@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WarmupDetectorTest {
+
+    private TestCase testCase;
+    private WarmupDetector detector;
+
+    @Before
+    public void setup(){
+        testCase = new TestCase();
+        detector = new WarmupDetector(3, 0.05, false);
+    }
+
+    @Test
+    public void testStabilizes(){
+        assertFalse(completed(1000));
+        assertFalse(completed(500));
+        assertFalse(completed(300));
+        assertFalse(completed(200));
+        assertFalse(completed(101));
+        assertFalse(completed(100));
+        assertTrue(completed(100));
+        assertTrue(detector.isSteady());
+    }
+
+    @Test
+    public void testNeedsFullWindow(){
+        assertFalse(completed(100));
+        assertFalse(completed(100));
+        assertTrue(completed(100));
+    }
+
+    @Test
+    public void testExceptionResetsWindow(){
+        completed(100);
+        completed(100);
+        TestCaseResult failed = result(100);
+        failed.setThrown(new RuntimeException());
+        assertFalse(detector.iterationCompleted(failed));
+        assertFalse(completed(100));
+        assertFalse(completed(100));
+        assertTrue(completed(100));
+    }
+
+    @Test
+    public void testUsesOperationsPerSecond(){
+        for (int k = 0; k < 3; k++) {
+            TestCaseResult result = result(100 * (k + 1));
+            result.put(ConcurrentBenchmarkDriver.RESULT_OPERATIONS_PER_SECOND, 1000d);
+            detector.iterationStarted();
+            detector.iterationCompleted(result);
+        }
+        assertTrue(detector.isSteady());
+    }
+
+    @Test
+    public void testBenchmarkRecordsWarmupIterations(){
+        testCase.setName("adaptive");
+        testCase.setDriver(BenchmarkTest.TestDriver1.class);
+        testCase.setAdaptiveWarmup(true);
+        testCase.setWarmupTolerance(1000);
+        testCase.setWarmupWaitForJit(false);
+        testCase.setWarmupRunIterationCount(50);
+
+        Benchmark benchmark = new Benchmark();
+        benchmark.add(testCase);
+        benchmark.run();
+
+        assertEquals(3, testCase.getResults().get(0).getWarmupIterationCount());
+    }
+
+    private boolean completed(long durationNs) {
+        detector.iterationStarted();
+        return detector.iterationCompleted(result(durationNs));
+    }
+
+    private TestCaseResult result(long durationNs) {
+        TestCaseResult result = new TestCaseResult(testCase);
+        result.setDurationNs(durationNs);
+        return result;
+    }
+}
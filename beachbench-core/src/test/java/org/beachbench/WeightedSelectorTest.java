@@ -0,0 +1,69 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WeightedSelectorTest {
+
+    @Test
+    public void testDistribution(){
+        double[] weights = {5, 15, 0, 80};
+        WeightedSelector selector = new WeightedSelector(weights);
+        assertEquals(4, selector.size());
+
+        int samples = 1000000;
+        long[] counts = new long[weights.length];
+        long seed = 1;
+        for (int k = 0; k < samples; k++) {
+            seed = WeightedSelector.nextRandom(seed);
+            counts[selector.select(seed)]++;
+        }
+
+        assertEquals(0, counts[2]);
+        for (int k = 0; k < weights.length; k++) {
+            assertEquals(weights[k] / 100, counts[k] / (double) samples, 0.005);
+        }
+    }
+
+    @Test
+    public void testSingleWeight(){
+        WeightedSelector selector = new WeightedSelector(new double[]{3});
+        assertEquals(0, selector.select(-1));
+        assertEquals(0, selector.select(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeWeight(){
+        new WeightedSelector(new double[]{1, -1});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroWeights(){
+        new WeightedSelector(new double[]{0, 0});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoWeights(){
+        new WeightedSelector(new double[0]);
+    }
+}
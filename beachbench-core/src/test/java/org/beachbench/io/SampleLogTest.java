@@ -0,0 +1,114 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.io;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SampleLogTest {
+
+    private File file;
+
+    @Before
+    public void setup() throws Exception {
+        file = File.createTempFile("beachbench", ".samples");
+        file.deleteOnExit();
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        final int threadCount = 3;
+        final int samplesPerThread = 100000;
+        final SampleLog log = new SampleLog(file, 256);
+
+        Thread[] threads = new Thread[threadCount];
+        for (int k = 0; k < threadCount; k++) {
+            final SampleRecorder recorder = log.newRecorder(k);
+            threads[k] = new Thread() {
+                public void run() {
+                    for (long sample = 0; sample < samplesPerThread; sample++) {
+                        recorder.record(sample * 1000 + recorder.getThreadId(), sample % 5000);
+                    }
+                    recorder.flush();
+                }
+            };
+            threads[k].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        log.close();
+        assertEquals(threadCount * samplesPerThread, log.getSampleCount());
+        // on average 3 bytes for the timestamp delta and 2 for the latency.
+        assertTrue(file.length() < threadCount * samplesPerThread * 6L);
+
+        long[] expected = new long[threadCount];
+        SampleReader reader = new SampleReader(file);
+        try {
+            while (reader.next()) {
+                int threadId = reader.getThreadId();
+                long sample = expected[threadId]++;
+                assertEquals(sample * 1000 + threadId, reader.getTimestampNs());
+                assertEquals(sample % 5000, reader.getLatencyNs());
+            }
+        } finally {
+            reader.close();
+        }
+        for (long count : expected) {
+            assertEquals(samplesPerThread, count);
+        }
+    }
+
+    @Test
+    public void testNegativeValues() throws Exception {
+        SampleLog log = new SampleLog(file);
+        SampleRecorder recorder = log.newRecorder(7);
+        recorder.record(100, -5);
+        recorder.record(50, 10);
+        recorder.flush();
+        log.close();
+
+        SampleReader reader = new SampleReader(file);
+        assertTrue(reader.next());
+        assertEquals(7, reader.getThreadId());
+        assertEquals(100, reader.getTimestampNs());
+        assertEquals(0, reader.getLatencyNs());
+        assertTrue(reader.next());
+        assertEquals(50, reader.getTimestampNs());
+        assertFalse(reader.next());
+        reader.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotASampleFile() throws Exception {
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[]{1, 2, 3, 4, 5});
+        out.close();
+        new SampleReader(file);
+    }
+}
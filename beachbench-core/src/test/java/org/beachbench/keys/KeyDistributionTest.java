@@ -0,0 +1,181 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.keys;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class KeyDistributionTest {
+
+    private static final int SAMPLES = 200000;
+
+    @Test
+    public void testUniform(){
+        long[] counts = count(KeyDistribution.uniform(10).newGenerator(0), 10);
+        for (long count : counts) {
+            assertEquals(0.1, count / (double) SAMPLES, 0.01);
+        }
+    }
+
+    @Test
+    public void testZipfian(){
+        long[] counts = count(KeyDistribution.zipfian(1000, 0.99).newGenerator(0), 1000);
+        assertTrue(counts[0] > counts[1]);
+        assertTrue(counts[1] > counts[10]);
+        assertTrue(counts[10] > counts[999]);
+        // with a skew of 0.99 the first key is used about 1/zeta(1000) of the time.
+        assertEquals(1 / 7.4, counts[0] / (double) SAMPLES, 0.01);
+    }
+
+    @Test
+    public void testHotspot(){
+        long[] counts = count(KeyDistribution.hotspot(100, 0.2, 0.8).newGenerator(0), 100);
+        long hot = 0;
+        for (int k = 0; k < 20; k++) {
+            hot += counts[k];
+        }
+        assertEquals(0.8, hot / (double) SAMPLES, 0.01);
+    }
+
+    @Test
+    public void testSequential(){
+        KeyGenerator generator = KeyDistribution.sequential(5).newGenerator(3);
+        long first = generator.next();
+        for (int k = 1; k < 12; k++) {
+            assertEquals((first + k) % 5, generator.next());
+        }
+    }
+
+    @Test
+    public void testLatest(){
+        KeyGenerator generator = KeyDistribution.latest(1000, 0.99).newGenerator(0);
+        long[] counts = count(generator, 1000);
+        assertTrue(counts[999] > counts[998]);
+        assertTrue(counts[998] > counts[0]);
+
+        generator.inserted(500);
+        counts = count(generator, 1000);
+        assertTrue(counts[500] > counts[499]);
+        assertTrue(counts[499] > counts[999]);
+    }
+
+    @Test
+    public void testReproducible(){
+        KeyDistribution distribution = KeyDistribution.zipfian(100000, 0.9).withSeed(42);
+        long[] first = new long[100];
+        long[] second = new long[100];
+        distribution.newGenerator(1).fill(first);
+        KeyDistribution.zipfian(100000, 0.9).withSeed(42).newGenerator(1).fill(second);
+        assertArrayEquals(first, second);
+
+        long[] otherThread = new long[100];
+        distribution.newGenerator(2).fill(otherThread);
+        assertFalse(Arrays.equals(first, otherThread));
+    }
+
+    @Test
+    public void testPregenerate(){
+        KeyGenerator generator = KeyDistribution.uniform(1000).newGenerator(0);
+        long[] expected = new long[3];
+        KeyDistribution.uniform(1000).newGenerator(0).fill(expected);
+
+        KeyGenerator pregenerated = generator.pregenerate(3);
+        for (int k = 0; k < 7; k++) {
+            assertEquals(expected[k % 3], pregenerated.next());
+        }
+    }
+
+    @Test
+    public void testParse(){
+        KeyDistribution[] distributions = {
+                KeyDistribution.uniform(10),
+                KeyDistribution.zipfian(1000, 0.99).withSeed(7),
+                KeyDistribution.hotspot(100, 0.2, 0.8),
+                KeyDistribution.sequential(5),
+                KeyDistribution.latest(50, 0.5)};
+        for (KeyDistribution distribution : distributions) {
+            assertEquals(distribution, KeyDistribution.parse(distribution.toString()));
+        }
+        assertEquals(KeyDistribution.zipfian(1000, 0.99), KeyDistribution.parse("zipfian(keys=1000, skew=0.99)"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseMissingArgument(){
+        KeyDistribution.parse("zipfian(keys=1000)");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseUnknown(){
+        KeyDistribution.parse("gaussian(keys=1000)");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSkew(){
+        KeyDistribution.zipfian(1000, 1);
+    }
+
+    @Test
+    public void testSerializable() throws Exception {
+        KeyDistribution distribution = KeyDistribution.zipfian(1000, 0.99).withSeed(3);
+        long expected = distribution.newGenerator(0).next();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(distribution);
+        out.close();
+        KeyDistribution copy = (KeyDistribution) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+        assertEquals(distribution, copy);
+        assertEquals(expected, copy.newGenerator(0).next());
+    }
+
+    @Test
+    public void testSingleKey(){
+        KeyDistribution[] distributions = {
+                KeyDistribution.uniform(1),
+                KeyDistribution.zipfian(1, 0.5),
+                KeyDistribution.hotspot(1, 0.2, 0.8),
+                KeyDistribution.sequential(1),
+                KeyDistribution.latest(1, 0.5)};
+        for (KeyDistribution distribution : distributions) {
+            KeyGenerator generator = distribution.newGenerator(0);
+            for (int k = 0; k < 10; k++) {
+                assertEquals(0, generator.next());
+            }
+        }
+    }
+
+    private static long[] count(KeyGenerator generator, int keyCount) {
+        long[] counts = new long[keyCount];
+        for (int k = 0; k < SAMPLES; k++) {
+            long key = generator.next();
+            assertTrue(key >= 0 && key < keyCount);
+            counts[(int) key]++;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.profile;
+
+import org.beachbench.TestCase;
+import org.beachbench.TestCaseResult;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProfilerTest {
+
+    private File directory;
+    private TestCaseResult result;
+
+    @Before
+    public void setup() throws IOException {
+        directory = File.createTempFile("beachbench", "profile");
+        directory.delete();
+
+        TestCase testCase = new TestCase();
+        testCase.setName("profiled case");
+        testCase.setProfileDirectory(directory.getPath());
+        result = new TestCaseResult(testCase);
+        result.setTestCaseIteration(3);
+    }
+
+    @Test
+    public void testCollapse(){
+        StackTraceElement[] trace = {
+                new StackTraceElement("a.Leaf", "compute", "Leaf.java", 10),
+                new StackTraceElement("a.Root", "main", "Root.java", 1)};
+        assertEquals("a.Root.main;a.Leaf.compute", SamplingProfiler.collapse(trace));
+    }
+
+    @Test
+    public void testSamplingProfiler() throws Exception {
+        SamplingProfiler profiler = new SamplingProfiler(1);
+        profiler.start(result);
+        long endMs = System.currentTimeMillis() + 200;
+        double sink = 0;
+        while (System.currentTimeMillis() < endMs) {
+            sink += spin();
+        }
+        profiler.stop(result);
+        assertTrue(sink > 0);
+
+        File file = new File((String) result.get(SamplingProfiler.RESULT_COLLAPSED_STACKS_FILE));
+        assertEquals(new File(directory, "profiled_case-3.collapsed"), file);
+        assertTrue((Long) result.get(SamplingProfiler.RESULT_SAMPLE_COUNT) > 0);
+        assertTrue(contains(file, ProfilerTest.class.getName() + ".testSamplingProfiler"));
+    }
+
+    @Test
+    public void testJfrProfiler(){
+        if (!JfrProfiler.isAvailable()) {
+            return;
+        }
+        JfrProfiler profiler = new JfrProfiler();
+        profiler.start(result);
+        profiler.stop(result);
+
+        File file = new File((String) result.get(JfrProfiler.RESULT_RECORDING_FILE));
+        assertEquals(new File(directory, "profiled_case-3.jfr"), file);
+        assertTrue(file.length() > 0);
+    }
+
+    private static double spin() {
+        double value = 0;
+        for (int k = 1; k < 1000; k++) {
+            value += Math.sqrt(k);
+        }
+        return value;
+    }
+
+    private static boolean contains(File file, String text) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.contains(text)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            reader.close();
+        }
+    }
+}
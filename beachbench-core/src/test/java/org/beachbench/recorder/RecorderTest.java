@@ -0,0 +1,110 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.recorder;
+
+import org.beachbench.TestCase;
+import org.beachbench.TestCaseResult;
+import org.beachbench.stats.LatencyHistogram;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RecorderTest {
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        final Recorder recorder = new Recorder();
+        final int threadCount = 8;
+        final int operations = 100000;
+        final CountDownLatch latch = new CountDownLatch(threadCount);
+        for (int k = 0; k < threadCount; k++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    Counter counter = recorder.counter("operations");
+                    Timer timer = recorder.timer("latency");
+                    for (int operation = 1; operation <= operations; operation++) {
+                        counter.inc();
+                        timer.record(operation);
+                    }
+                    latch.countDown();
+                }
+            }.start();
+        }
+        latch.await();
+
+        TestCaseResult result = new TestCaseResult(new TestCase());
+        recorder.drainTo(result);
+        assertEquals((long) threadCount * operations, result.get("operations"));
+        LatencyHistogram latency = (LatencyHistogram) result.get("latency");
+        assertEquals((long) threadCount * operations, latency.getTotalCount());
+        assertEquals(1, latency.getMin());
+        assertEquals(operations, latency.getMax());
+        assertEquals(operations / 2d, latency.getMean(), operations / 128d);
+    }
+
+    @Test
+    public void testDrainResets(){
+        Recorder recorder = new Recorder();
+        recorder.counter("count").add(5);
+        recorder.gauge("size").set(42);
+        recorder.timer("latency").record(1000);
+
+        TestCaseResult first = new TestCaseResult(new TestCase());
+        recorder.drainTo(first);
+        assertEquals(5L, first.get("count"));
+        assertEquals(42L, first.get("size"));
+
+        TestCaseResult second = new TestCaseResult(new TestCase());
+        recorder.drainTo(second);
+        assertEquals(0L, second.get("count"));
+        assertEquals(42L, second.get("size"));
+        assertNull(second.get("latency"));
+        assertFalse(second.getProperties().containsKey("latency"));
+    }
+
+    @Test
+    public void testUnusedTimerIsSkipped(){
+        Recorder recorder = new Recorder();
+        recorder.timer("latency");
+
+        TestCaseResult result = new TestCaseResult(new TestCase());
+        recorder.drainTo(result);
+        assertFalse(result.getProperties().containsKey("latency"));
+    }
+
+    @Test
+    public void testSameInstrument(){
+        Recorder recorder = new Recorder();
+        assertSame(recorder.counter("count"), recorder.counter("count"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNameClash(){
+        Recorder recorder = new Recorder();
+        recorder.counter("name");
+        recorder.timer("name");
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.beachbench.samples;
+
+import org.beachbench.Benchmark;
+import org.beachbench.BenchmarkDriver;
+import org.beachbench.BenchmarkUtils;
+import org.beachbench.ConcurrentBenchmarkDriver;
+import org.beachbench.SinkingBenchmarkDriver;
+import org.beachbench.TestCase;
+
+/**
+ * A sample benchmark of the overhead of consuming a value into a {@link org.beachbench.Blackhole}, compared to an
+ * empty operation. A consume typically costs a nanosecond or less.
+ *
+ * It is not part of the tests since its outcome depends on the machine; run it with the test classpath.
+ */
+public final class BlackholeOverhead {
+
+    public static void main(String[] args) {
+        TestCase baseline = newTestCase("baseline", EmptyDriver.class);
+        TestCase primitive = newTestCase("consume long", ConsumingDriver.class);
+        TestCase sinking = newTestCase("consume object", ObjectDriver.class);
+
+        Benchmark benchmark = new Benchmark();
+        benchmark.setName("blackhole overhead");
+        benchmark.add(baseline);
+        benchmark.add(primitive);
+        benchmark.add(sinking);
+        benchmark.run();
+
+        double baselineNs = nanosPerOperation(baseline);
+        System.out.println(String.format("BeachBench > Blackhole overhead: %s ns per long, %s ns per object",
+                BenchmarkUtils.format(nanosPerOperation(primitive) - baselineNs),
+                BenchmarkUtils.format(nanosPerOperation(sinking) - baselineNs)));
+    }
+
+    private static TestCase newTestCase(String name, Class<? extends BenchmarkDriver> driver) {
+        TestCase testCase = new TestCase();
+        testCase.setName(name);
+        testCase.setDriver(driver);
+        testCase.setWarmupRunIterationCount(2);
+        testCase.setTestCaseIterationCount(3);
+        testCase.setOperationCountPerThread(10000000);
+        return testCase;
+    }
+
+    private static double nanosPerOperation(TestCase testCase) {
+        return 1000000000d / testCase.getSummary().getThroughput().getMean();
+    }
+
+    public static class EmptyDriver extends ConcurrentBenchmarkDriver {
+        @Override
+        public void operation(int threadIndex) {
+        }
+    }
+
+    public static class ConsumingDriver extends ConcurrentBenchmarkDriver {
+        private long value;
+
+        @Override
+        public void operation(int threadIndex) {
+            getBlackhole(threadIndex).consume(value++);
+        }
+    }
+
+    public static class ObjectDriver extends SinkingBenchmarkDriver {
+        private final Object value = new Object();
+
+        @Override
+        public Object compute(int threadIndex) {
+            return value;
+        }
+    }
+
+    //we don't want instances.
+    private BlackholeOverhead() {
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.stats;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LatencyHistogramTest {
+
+    private LatencyHistogram histogram;
+
+    @Before
+    public void setup(){
+        histogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void testEmpty(){
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99), 0);
+        assertEquals(0, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void testExactBelowPrecision(){
+        for (int k = 1; k <= 100; k++) {
+            histogram.record(k);
+        }
+        assertEquals(100, histogram.getTotalCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+        assertEquals(50.5, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void testRelativeError(){
+        for (long value = 1; value < Long.MAX_VALUE / 3; value = value * 3 + 7) {
+            LatencyHistogram single = new LatencyHistogram();
+            single.record(value);
+            single.record(value + 1);
+            long reported = single.getValueAtPercentile(50);
+            assertTrue(reported >= value);
+            assertTrue((double) (reported - value) / value <= 1d / 128);
+        }
+    }
+
+    @Test
+    public void testIndexesAreContinuous(){
+        for (int index = 0; index < ((64 - 7) << 7) - 1; index++) {
+            assertEquals(index, histogram.indexOf(histogram.lowestEquivalentValue(index)));
+            assertEquals(index, histogram.indexOf(histogram.highestEquivalentValue(index)));
+            assertEquals(histogram.highestEquivalentValue(index) + 1, histogram.lowestEquivalentValue(index + 1));
+        }
+        assertEquals(((64 - 7) << 7) - 1, histogram.indexOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testTail(){
+        histogram.record(1000, 990);
+        histogram.record(1000000, 10);
+        assertEquals(1000, histogram.getValueAtPercentile(99), 1000d / 128);
+        assertEquals(1000000, histogram.getValueAtPercentile(99.9), 1000000d / 128);
+        assertEquals(1000000, histogram.getMax());
+    }
+
+    @Test
+    public void testAdd(){
+        LatencyHistogram other = new LatencyHistogram();
+        histogram.record(10);
+        other.record(5);
+        other.record(20);
+        histogram.add(other);
+        assertEquals(3, histogram.getTotalCount());
+        assertEquals(5, histogram.getMin());
+        assertEquals(20, histogram.getMax());
+        assertEquals(1, histogram.getCountAtValue(10));
+
+        histogram.reset();
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getCountAtValue(10));
+    }
+
+    @Test
+    public void testSubtract(){
+        histogram.record(5);
+        histogram.record(10);
+        LatencyHistogram earlier = histogram.copy();
+        histogram.record(20);
+        histogram.record(20);
+        histogram.subtract(earlier);
+        assertEquals(2, histogram.getTotalCount());
+        assertEquals(20, histogram.getMin());
+        assertEquals(20, histogram.getMax());
+        assertEquals(20, histogram.getMean(), 0);
+        assertEquals(0, histogram.getCountAtValue(10));
+
+        histogram.subtract(histogram.copy());
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddDifferentPrecision(){
+        histogram.add(new LatencyHistogram(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile(){
+        histogram.getValueAtPercentile(101);
+    }
+}
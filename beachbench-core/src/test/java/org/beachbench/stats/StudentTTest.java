@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.stats;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StudentTTest {
+
+    @Test
+    public void testCdf(){
+        assertEquals(0.5, StudentT.cdf(0, 5), 1e-12);
+        assertEquals(0.975, StudentT.cdf(12.706204736, 1), 1e-6);
+        assertEquals(0.025, StudentT.cdf(-2.776445105, 4), 1e-6);
+        assertEquals(1, StudentT.cdf(Double.POSITIVE_INFINITY, 4), 0);
+    }
+
+    @Test
+    public void testQuantile(){
+        assertEquals(12.706204736, StudentT.quantile(0.975, 1), 1e-6);
+        assertEquals(2.776445105, StudentT.quantile(0.975, 4), 1e-6);
+        assertEquals(2.042272456, StudentT.quantile(0.975, 30), 1e-6);
+        assertEquals(-2.042272456, StudentT.quantile(0.025, 30), 1e-6);
+        assertEquals(1.959966, StudentT.quantile(0.975, 1000000), 1e-4);
+    }
+
+    @Test
+    public void testWelch(){
+        Summary a = Summary.of(new double[]{19.8, 20.4, 19.6, 17.8, 18.5, 18.9, 18.3, 18.9, 19.5, 22.0});
+        Summary b = Summary.of(new double[]{28.2, 26.6, 20.1, 23.3, 25.2, 22.1, 17.7, 27.6, 20.6, 13.7, 23.2, 17.5, 20.6, 18.0, 23.9, 21.6, 24.3, 20.4, 23.9, 13.3});
+        // t = -2.2255 with 24.52 degrees of freedom
+        assertEquals(0.03548, WelchTest.pValue(a, b), 1e-4);
+        assertEquals(1, WelchTest.pValue(a, a), 1e-12);
+        assertTrue(WelchTest.cohensD(a, b) > 0);
+        assertTrue(Double.isNaN(WelchTest.pValue(Summary.of(new double[]{1}), b)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDegreesOfFreedom(){
+        StudentT.cdf(1, 0);
+    }
+}
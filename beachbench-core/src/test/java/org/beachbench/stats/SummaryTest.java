@@ -0,0 +1,63 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.stats;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SummaryTest {
+
+    @Test
+    public void test(){
+        double[] samples = {5, 3, 1, 4, 2};
+        Summary summary = Summary.of(samples);
+
+        assertEquals(5, summary.getCount());
+        assertEquals(3, summary.getMean(), 1e-12);
+        assertEquals(Math.sqrt(2.5), summary.getStandardDeviation(), 1e-12);
+        assertEquals(1, summary.getMin(), 0);
+        assertEquals(5, summary.getMax(), 0);
+        assertEquals(3, summary.getMedian(), 0);
+        assertEquals(2.776445105 * Math.sqrt(2.5) / Math.sqrt(5), summary.getMarginOfError(), 1e-6);
+        assertEquals(3 - summary.getMarginOfError(), summary.getConfidenceLow(), 1e-12);
+        assertEquals(Math.sqrt(2.5) / 3, summary.getCoefficientOfVariation(), 1e-12);
+        assertEquals(5, samples[0], 0);
+    }
+
+    @Test
+    public void testEvenMedian(){
+        assertEquals(2.5, Summary.of(new double[]{4, 1, 3, 2}).getMedian(), 0);
+    }
+
+    @Test
+    public void testSingleSample(){
+        Summary summary = Summary.of(new double[]{7});
+        assertEquals(7, summary.getMean(), 0);
+        assertEquals(0, summary.getStandardDeviation(), 0);
+        assertTrue(Double.isNaN(summary.getMarginOfError()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmpty(){
+        Summary.of(new double[0]);
+    }
+}
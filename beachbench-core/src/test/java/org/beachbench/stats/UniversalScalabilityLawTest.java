@@ -0,0 +1,71 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.stats;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UniversalScalabilityLawTest {
+
+    @Test
+    public void testFit(){
+        UniversalScalabilityLaw expected = new UniversalScalabilityLaw(1000, 0.05, 0.002);
+        int[] concurrency = {1, 2, 4, 8, 16, 32, 64};
+        double[] throughput = new double[concurrency.length];
+        for (int k = 0; k < concurrency.length; k++) {
+            throughput[k] = expected.predict(concurrency[k]);
+        }
+
+        UniversalScalabilityLaw model = UniversalScalabilityLaw.fit(concurrency, throughput);
+        assertEquals(1000, model.getLambda(), 1e-9);
+        assertEquals(0.05, model.getSigma(), 1e-9);
+        assertEquals(0.002, model.getKappa(), 1e-9);
+        assertEquals(Math.sqrt(0.95 / 0.002), model.getPeakConcurrency(), 1e-6);
+    }
+
+    @Test
+    public void testLinearScaling(){
+        UniversalScalabilityLaw model = UniversalScalabilityLaw.fit(new int[]{1, 2, 4}, new double[]{100, 200, 400});
+        assertEquals(0, model.getSigma(), 1e-9);
+        assertEquals(0, model.getKappa(), 1e-9);
+        assertTrue(Double.isInfinite(model.getPeakConcurrency()));
+        assertEquals(800, model.predict(8), 1e-9);
+    }
+
+    @Test
+    public void testFullContentionPeaksAtOneThread(){
+        UniversalScalabilityLaw model = new UniversalScalabilityLaw(100, 1.5, 0.01);
+        assertEquals(1, model.getPeakConcurrency(), 0);
+        assertTrue(model.predict(1) > model.predict(2));
+    }
+
+    @Test
+    public void testNoCoherencyPenaltyHasNoPeak(){
+        assertEquals(Double.POSITIVE_INFINITY, new UniversalScalabilityLaw(100, 0.1, 0).getPeakConcurrency(), 0);
+        assertEquals(Double.POSITIVE_INFINITY, new UniversalScalabilityLaw(100, 0.1, -0.01).getPeakConcurrency(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoSingleThread(){
+        UniversalScalabilityLaw.fit(new int[]{2, 4, 8}, new double[]{100, 200, 400});
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.store;
+
+import org.beachbench.TestCase;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ResultStoreTest {
+
+    private ResultStore store;
+
+    @Before
+    public void setup() throws Exception {
+        File directory = File.createTempFile("beachbench", "store");
+        directory.delete();
+        store = new ResultStore(directory);
+    }
+
+    @Test
+    public void testSaveAndLoad(){
+        BenchmarkRecord record = record("run1", 10, new double[]{1000, 1010, 990}, new double[]{5.5, 6.5});
+        store.save(record);
+
+        BenchmarkRecord loaded = store.load("run1");
+        assertEquals("run1", loaded.getId());
+        assertEquals("benchmark", loaded.getName());
+        assertEquals(10, loaded.getTimestamp());
+        assertArrayEquals(new double[]{1000, 1010, 990}, loaded.getMetrics("get").get(BenchmarkRecord.METRIC_THROUGHPUT), 0);
+        assertArrayEquals(new double[]{5.5, 6.5}, loaded.getMetrics("get").get(BenchmarkRecord.METRIC_DURATION), 0);
+        assertNull(store.load("unknown"));
+    }
+
+    @Test
+    public void testLoadLatest(){
+        assertNull(store.loadLatest("benchmark"));
+        store.save(record("run1", 10, new double[]{1}, new double[]{1}));
+        store.save(record("run2", 30, new double[]{1}, new double[]{1}));
+        store.save(record("run3", 20, new double[]{1}, new double[]{1}));
+        assertEquals("run2", store.loadLatest("benchmark").getId());
+    }
+
+    @Test
+    public void testForeignFilesAreSkipped() throws Exception {
+        store.save(record("run1", 10, new double[]{1}, new double[]{1}));
+        write(new File(store.getDirectory(), "suite.properties"), "testcase.get.driver=com.acme.MapGetDriver\n");
+        write(new File(store.getDirectory(), "broken.properties"), "id=broken\nname=benchmark\ntimestamp=soon\n");
+        write(new File(store.getDirectory(), "nan.properties"),
+                "id=nan\nname=benchmark\ntimestamp=20\ntestcase.0.name=get\ntestcase.0.throughput=1,fast\n");
+
+        assertEquals(1, store.loadAll().size());
+        assertEquals("run1", store.loadLatest("benchmark").getId());
+        assertNull(store.load("suite"));
+        assertNull(store.load("broken"));
+        assertNull(store.load("nan"));
+    }
+
+    @Test
+    public void testHolm(){
+        double[] adjusted = BenchmarkComparison.holm(new double[]{0.04, 0.01, Double.NaN, 0.03});
+        assertEquals(0.06, adjusted[0], 1e-9);
+        assertEquals(0.03, adjusted[1], 1e-9);
+        assertTrue(Double.isNaN(adjusted[2]));
+        assertEquals(0.06, adjusted[3], 1e-9);
+        assertEquals(1, BenchmarkComparison.holm(new double[]{0.6, 0.7})[0], 0);
+    }
+
+    @Test
+    public void testComparisonIsCorrectedForMultipleMetrics(){
+        Map<String, Map<String, double[]>> baselineTestCases = new LinkedHashMap<String, Map<String, double[]>>();
+        Map<String, Map<String, double[]>> currentTestCases = new LinkedHashMap<String, Map<String, double[]>>();
+        for (int k = 0; k < 20; k++) {
+            Map<String, double[]> baselineMetrics = new LinkedHashMap<String, double[]>();
+            baselineMetrics.put(BenchmarkRecord.METRIC_THROUGHPUT, new double[]{100, 102, 98, 101, 99});
+            baselineTestCases.put("get" + k, baselineMetrics);
+            Map<String, double[]> currentMetrics = new LinkedHashMap<String, double[]>();
+            // only the first one is barely significant on its own
+            currentMetrics.put(BenchmarkRecord.METRIC_THROUGHPUT, k == 0
+                    ? new double[]{97, 99, 95, 98, 96}
+                    : new double[]{100, 102, 98, 101, 99});
+            currentTestCases.put("get" + k, currentMetrics);
+        }
+        BenchmarkRecord baseline = new BenchmarkRecord("run1", "benchmark", 10, baselineTestCases);
+        BenchmarkRecord current = new BenchmarkRecord("run2", "benchmark", 20, currentTestCases);
+
+        BenchmarkComparison comparison = new BenchmarkComparison(baseline, current, 0.05, 0);
+        BenchmarkComparison.Entry entry = comparison.getEntries().get(0);
+        assertTrue(entry.getPValue() < 0.05);
+        assertTrue(entry.getAdjustedPValue() >= 0.05);
+        assertFalse(comparison.hasRegression());
+    }
+
+    @Test
+    public void testNamesAreChecked(){
+        TestCase first = new TestCase();
+        first.setName("get");
+        TestCase second = new TestCase();
+        second.setName("get");
+        try {
+            BenchmarkRecord.checkNames(Arrays.asList(first, second));
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("'get'"));
+        }
+
+        second.setName(null);
+        try {
+            BenchmarkRecord.of("id", "benchmark", 0, Arrays.asList(first, second));
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("has no name"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRecordWithoutTestCaseName(){
+        Map<String, Map<String, double[]>> testCases = new LinkedHashMap<String, Map<String, double[]>>();
+        testCases.put(null, new LinkedHashMap<String, double[]>());
+        new BenchmarkRecord("id", "benchmark", 0, testCases);
+    }
+
+    @Test
+    public void testComparison(){
+        BenchmarkRecord baseline = record("run1", 10, new double[]{1000, 1010, 990, 1005, 995}, new double[]{10, 11, 10, 11, 10});
+        BenchmarkRecord slower = record("run2", 20, new double[]{900, 910, 890, 905, 895}, new double[]{10, 11, 10, 10, 11});
+
+        BenchmarkComparison comparison = new BenchmarkComparison(baseline, slower, 0.05, 0);
+        assertTrue(comparison.hasRegression());
+        for (BenchmarkComparison.Entry entry : comparison.getEntries()) {
+            if (entry.getMetric().equals(BenchmarkRecord.METRIC_THROUGHPUT)) {
+                assertEquals(BenchmarkComparison.Verdict.REGRESSION, entry.getVerdict());
+                assertEquals(-0.1, entry.getRelativeChange(), 1e-9);
+                assertTrue(entry.getEffectSize() < -0.8);
+            } else {
+                assertEquals(BenchmarkComparison.Verdict.UNCHANGED, entry.getVerdict());
+            }
+        }
+
+        BenchmarkComparison reversed = new BenchmarkComparison(slower, baseline, 0.05, 0);
+        assertFalse(reversed.hasRegression());
+        assertFalse(new BenchmarkComparison(baseline, slower, 0.05, 0.2).hasRegression());
+    }
+
+    private static void write(File file, String content) throws Exception {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("ISO-8859-1"));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static BenchmarkRecord record(String id, long timestamp, double[] throughput, double[] duration) {
+        Map<String, double[]> metrics = new LinkedHashMap<String, double[]>();
+        metrics.put(BenchmarkRecord.METRIC_THROUGHPUT, throughput);
+        metrics.put(BenchmarkRecord.METRIC_DURATION, duration);
+        Map<String, Map<String, double[]>> testCases = new LinkedHashMap<String, Map<String, double[]>>();
+        testCases.put("get", metrics);
+        return new BenchmarkRecord(id, "benchmark", timestamp, testCases);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.maven;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.beachbench.store.BenchmarkRecord;
+import org.beachbench.store.ResultStore;
+
+import java.io.File;
+
+/**
+ * The configuration shared by the BeachBench goals.
+ */
+public abstract class AbstractBeachBenchMojo extends AbstractMojo {
+
+    /**
+     * The directory the results of every run are saved in, one properties file per run.
+     */
+    @Parameter(property = "beachbench.resultDirectory", defaultValue = "${project.build.directory}/beachbench", required = true)
+    protected File resultDirectory;
+
+    /**
+     * The name of the benchmark; runs are compared with runs of the same name.
+     */
+    @Parameter(property = "beachbench.name", defaultValue = "${project.artifactId}", required = true)
+    protected String benchmarkName;
+
+    /**
+     * Loads the most recent run of this benchmark from the result directory.
+     *
+     * @return the run, or null if the benchmark hasn't been run.
+     */
+    protected BenchmarkRecord loadLatestRun() {
+        return new ResultStore(resultDirectory).loadLatest(benchmarkName);
+    }
+}
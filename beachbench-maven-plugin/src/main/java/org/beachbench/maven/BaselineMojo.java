@@ -0,0 +1,49 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.maven;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.beachbench.store.BenchmarkRecord;
+import org.beachbench.store.ResultStore;
+
+import java.io.File;
+
+/**
+ * Stores the most recent run of the benchmark as the baseline the compare goal compares with. The baseline directory
+ * is typically under version control.
+ */
+@Mojo(name = "baseline")
+public class BaselineMojo extends AbstractBeachBenchMojo {
+
+    /**
+     * The directory the baseline is stored in.
+     */
+    @Parameter(property = "beachbench.baselineDirectory", defaultValue = "${basedir}/src/test/beachbench", required = true)
+    private File baselineDirectory;
+
+    public void execute() throws MojoExecutionException {
+        BenchmarkRecord current = loadLatestRun();
+        if (current == null) {
+            throw new MojoExecutionException(String.format("No run of benchmark '%s' found in %s, run the benchmark first",
+                    benchmarkName, resultDirectory));
+        }
+        File file = new ResultStore(baselineDirectory).save(current);
+        getLog().info(String.format("Run [%s] of benchmark '%s' stored as baseline in %s", current.getId(), benchmarkName, file));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.maven;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.beachbench.store.BenchmarkComparison;
+import org.beachbench.store.BenchmarkRecord;
+import org.beachbench.store.ResultStore;
+
+import java.io.File;
+
+/**
+ * Compares the most recent run of the benchmark with the baseline stored by the baseline goal, and fails the build if
+ * a metric of a TestCase has regressed significantly.
+ */
+@Mojo(name = "compare")
+public class CompareMojo extends AbstractBeachBenchMojo {
+
+    /**
+     * The directory the baseline is stored in.
+     */
+    @Parameter(property = "beachbench.baselineDirectory", defaultValue = "${basedir}/src/test/beachbench", required = true)
+    private File baselineDirectory;
+
+    /**
+     * The significance level of the comparison.
+     */
+    @Parameter(property = "beachbench.alpha", defaultValue = "0.05")
+    private double alpha;
+
+    /**
+     * The minimum relative change of a metric, e.g. 0.05 for 5%, before a significant difference counts as a
+     * regression.
+     */
+    @Parameter(property = "beachbench.threshold", defaultValue = "0.05")
+    private double threshold;
+
+    /**
+     * Fails the build if there is a regression; else the regression is only reported.
+     */
+    @Parameter(property = "beachbench.failOnRegression", defaultValue = "true")
+    private boolean failOnRegression;
+
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        BenchmarkRecord current = loadLatestRun();
+        if (current == null) {
+            throw new MojoExecutionException(String.format("No run of benchmark '%s' found in %s, run the benchmark first",
+                    benchmarkName, resultDirectory));
+        }
+        BenchmarkRecord baseline = new ResultStore(baselineDirectory).loadLatest(benchmarkName);
+        if (baseline == null) {
+            getLog().warn(String.format("No baseline of benchmark '%s' found in %s, nothing to compare with", benchmarkName, baselineDirectory));
+            return;
+        }
+
+        BenchmarkComparison comparison = new BenchmarkComparison(baseline, current, alpha, threshold);
+        log(comparison, getLog());
+        if (!comparison.hasRegression()) {
+            return;
+        }
+        String message = String.format("Benchmark '%s' has regressed compared with baseline [%s]", benchmarkName, baseline.getId());
+        if (failOnRegression) {
+            throw new MojoFailureException(message);
+        }
+        getLog().warn(message);
+    }
+
+    /**
+     * Writes the report of a comparison to the Maven log; regressions are logged as warnings.
+     *
+     * @param comparison the comparison to report.
+     * @param log the log to write to.
+     */
+    static void log(BenchmarkComparison comparison, Log log) {
+        log.info(comparison.describe());
+        for (BenchmarkComparison.Entry entry : comparison.getEntries()) {
+            if (entry.getVerdict() == BenchmarkComparison.Verdict.REGRESSION) {
+                log.warn("  " + entry.describe());
+            } else {
+                log.info("  " + entry.describe());
+            }
+        }
+    }
+}
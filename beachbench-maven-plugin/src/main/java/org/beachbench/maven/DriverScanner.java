@@ -0,0 +1,126 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.maven;
+
+import org.beachbench.BenchmarkDriver;
+
+import java.io.File;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the concrete {@link BenchmarkDriver} subclasses in a directory of compiled classes.
+ */
+final class DriverScanner {
+
+    private final ClassLoader classLoader;
+    private final List<Pattern> includes = new ArrayList<Pattern>();
+
+    /**
+     * Creates a DriverScanner.
+     *
+     * @param classLoader the ClassLoader to load the classes with.
+     * @param includes the regular expressions of which a driver class name has to match at least one; if empty all
+     *                 drivers are included.
+     */
+    DriverScanner(ClassLoader classLoader, List<String> includes) {
+        this.classLoader = classLoader;
+        for (String include : includes) {
+            this.includes.add(Pattern.compile(include));
+        }
+    }
+
+    /**
+     * Scans a directory of classes.
+     *
+     * @param directory the root directory of the classes.
+     * @return the driver classes, sorted by name.
+     * @throws ClassNotFoundException if a class in the directory can't be loaded.
+     */
+    List<Class<? extends BenchmarkDriver>> scan(File directory) throws ClassNotFoundException {
+        List<Class<? extends BenchmarkDriver>> drivers = new ArrayList<Class<? extends BenchmarkDriver>>();
+        if (directory.isDirectory()) {
+            scan(directory, "", drivers);
+        }
+        Collections.sort(drivers, new Comparator<Class<?>>() {
+            @Override
+            public int compare(Class<?> a, Class<?> b) {
+                return a.getName().compareTo(b.getName());
+            }
+        });
+        return drivers;
+    }
+
+    private void scan(File directory, String packagePrefix, List<Class<? extends BenchmarkDriver>> drivers) throws ClassNotFoundException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                scan(file, packagePrefix + name + ".", drivers);
+            } else if (name.endsWith(".class")) {
+                String className = packagePrefix + name.substring(0, name.length() - ".class".length());
+                if (isIncluded(className)) {
+                    Class<?> clazz = Class.forName(className, false, classLoader);
+                    if (isDriver(clazz)) {
+                        drivers.add(clazz.asSubclass(BenchmarkDriver.class));
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isIncluded(String className) {
+        if (includes.isEmpty()) {
+            return true;
+        }
+        for (Pattern include : includes) {
+            if (include.matcher(className).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a class can be executed as a driver: a public, concrete, top level or static nested subclass of
+     * BenchmarkDriver with a public no argument constructor.
+     */
+    static boolean isDriver(Class<?> clazz) {
+        if (!BenchmarkDriver.class.isAssignableFrom(clazz)) {
+            return false;
+        }
+        int modifiers = clazz.getModifiers();
+        if (!Modifier.isPublic(modifiers) || Modifier.isAbstract(modifiers) || clazz.isInterface()) {
+            return false;
+        }
+        if (clazz.getEnclosingClass() != null && !Modifier.isStatic(modifiers)) {
+            return false;
+        }
+        try {
+            return Modifier.isPublic(clazz.getConstructor().getModifiers());
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
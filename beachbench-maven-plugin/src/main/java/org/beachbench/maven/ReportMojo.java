@@ -0,0 +1,93 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.maven;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.beachbench.stats.Summary;
+import org.beachbench.store.BenchmarkRecord;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Map;
+
+/**
+ * Writes a CSV report of the most recent run of the benchmark: one line per TestCase and metric with the statistics
+ * of its iterations.
+ */
+@Mojo(name = "report")
+public class ReportMojo extends AbstractBeachBenchMojo {
+
+    static final String HEADER = "testcase,metric,iterations,mean,marginOfError,stddev,min,median,max";
+
+    /**
+     * The CSV file the report is written to.
+     */
+    @Parameter(property = "beachbench.reportFile", defaultValue = "${project.build.directory}/beachbench/report.csv", required = true)
+    private File reportFile;
+
+    public void execute() throws MojoExecutionException {
+        BenchmarkRecord record = loadLatestRun();
+        if (record == null) {
+            throw new MojoExecutionException(String.format("No run of benchmark '%s' found in %s, run the benchmark first",
+                    benchmarkName, resultDirectory));
+        }
+
+        File directory = reportFile.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new MojoExecutionException("Can't create directory " + directory);
+        }
+        try {
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(reportFile), "UTF-8"));
+            try {
+                write(record, out);
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Can't write report " + reportFile, e);
+        }
+        getLog().info(String.format("Report of run [%s] written to %s", record.getId(), reportFile));
+    }
+
+    static void write(BenchmarkRecord record, PrintWriter out) {
+        out.println(HEADER);
+        for (String testCaseName : record.getTestCaseNames()) {
+            for (Map.Entry<String, double[]> metric : record.getMetrics(testCaseName).entrySet()) {
+                if (metric.getValue().length == 0) {
+                    continue;
+                }
+                Summary summary = Summary.of(metric.getValue());
+                out.println(String.format("%s,%s,%s,%s,%s,%s,%s,%s,%s",
+                        quote(testCaseName), quote(metric.getKey()), summary.getCount(),
+                        summary.getMean(), summary.getMarginOfError(), summary.getStandardDeviation(),
+                        summary.getMin(), summary.getMedian(), summary.getMax()));
+            }
+        }
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.maven;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.beachbench.Benchmark;
+import org.beachbench.BenchmarkDriver;
+import org.beachbench.SuiteLoader;
+import org.beachbench.TestCase;
+import org.beachbench.store.ResultStore;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs every {@link BenchmarkDriver} found in the test classes of the project, one TestCase per driver, or the suite
+ * described in a properties file, and saves the results in the result directory.
+ */
+@Mojo(name = "run", requiresDependencyResolution = ResolutionScope.TEST)
+public class RunMojo extends AbstractBeachBenchMojo {
+
+    /**
+     * The directory containing the compiled test classes.
+     */
+    @Parameter(defaultValue = "${project.build.testOutputDirectory}", required = true, readonly = true)
+    private File testClassesDirectory;
+
+    /**
+     * The test class path of the project.
+     */
+    @Parameter(defaultValue = "${project.testClasspathElements}", required = true, readonly = true)
+    private List<String> classpathElements;
+
+    /**
+     * Regular expressions of which the fully qualified name of a driver has to match at least one. By default all
+     * drivers are run.
+     */
+    @Parameter
+    private List<String> includes = new ArrayList<String>();
+
+    /**
+     * Skips running the benchmark.
+     */
+    @Parameter(property = "beachbench.skip", defaultValue = "false")
+    private boolean skip;
+
+    /**
+     * A properties file describing the benchmark suite, see {@link SuiteLoader}. If set, the suite is run instead
+     * of a TestCase per driver and the other parameters of this plugin, except the name and result directory, are not
+     * used.
+     */
+    @Parameter(property = "beachbench.suite")
+    private File suite;
+
+    /**
+     * Executes every TestCase in its own JVM.
+     */
+    @Parameter(property = "beachbench.fork", defaultValue = "true")
+    private boolean fork;
+
+    /**
+     * The arguments of the forked JVMs.
+     */
+    @Parameter
+    private List<String> jvmArgs = new ArrayList<String>();
+
+    /**
+     * The number of warmup iterations of every TestCase.
+     */
+    @Parameter(property = "beachbench.warmupIterations", defaultValue = "5")
+    private long warmupIterations;
+
+    /**
+     * Stops the warmup as soon as the iterations have reached a steady state.
+     */
+    @Parameter(property = "beachbench.adaptiveWarmup", defaultValue = "false")
+    private boolean adaptiveWarmup;
+
+    /**
+     * The number of measured iterations of every TestCase.
+     */
+    @Parameter(property = "beachbench.iterations", defaultValue = "10")
+    private long iterations;
+
+    /**
+     * The duration of an iteration in milliseconds; 0 if the iterations are not timed.
+     */
+    @Parameter(property = "beachbench.durationInMilliseconds", defaultValue = "0")
+    private long durationInMilliseconds;
+
+    /**
+     * The number of worker threads of a concurrent driver.
+     */
+    @Parameter(property = "beachbench.threadCount", defaultValue = "1")
+    private int threadCount;
+
+    /**
+     * The number of operations per worker thread of a concurrent driver; 0 if not limited.
+     */
+    @Parameter(property = "beachbench.operationCountPerThread", defaultValue = "0")
+    private long operationCountPerThread;
+
+    /**
+     * The number of TestCases executed at the same time.
+     */
+    @Parameter(property = "beachbench.parallelism", defaultValue = "1")
+    private int parallelism;
+
+    /**
+     * Leaves out the output of the individual iterations.
+     */
+    @Parameter(property = "beachbench.quiet", defaultValue = "false")
+    private boolean quiet;
+
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skipping the benchmark");
+            return;
+        }
+
+        ClassLoader testClassLoader = newTestClassLoader();
+        if (suite != null) {
+            run(loadSuite(testClassLoader), testClassLoader);
+            return;
+        }
+
+        List<Class<? extends BenchmarkDriver>> drivers;
+        try {
+            drivers = new DriverScanner(testClassLoader, includes).scan(testClassesDirectory);
+        } catch (ClassNotFoundException e) {
+            throw new MojoExecutionException("Can't load the test classes", e);
+        }
+        if (drivers.isEmpty()) {
+            getLog().warn(String.format("No BenchmarkDrivers found in %s", testClassesDirectory));
+            return;
+        }
+
+        Benchmark benchmark = new Benchmark();
+        benchmark.setName(benchmarkName);
+        benchmark.setResultStore(new ResultStore(resultDirectory));
+        // comparing with a baseline is left to the compare goal, with its own threshold and logging.
+        benchmark.setCompareWithBaseline(false);
+        benchmark.setParallelism(parallelism);
+        benchmark.setQuiet(quiet);
+        String classPath = forkClassPath();
+        for (Class<? extends BenchmarkDriver> driver : drivers) {
+            benchmark.add(newTestCase(driver, classPath));
+        }
+        run(benchmark, testClassLoader);
+    }
+
+    /**
+     * Loads the suite with the test classes. The name and result directory of the suite are replaced by the ones of
+     * this plugin, so the other goals find the results.
+     */
+    private Benchmark loadSuite(ClassLoader testClassLoader) throws MojoExecutionException {
+        Benchmark benchmark;
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(testClassLoader);
+        try {
+            benchmark = SuiteLoader.load(suite);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+
+        benchmark.setName(benchmarkName);
+        benchmark.setResultStore(new ResultStore(resultDirectory));
+        benchmark.setCompareWithBaseline(false);
+        String classPath = forkClassPath();
+        for (TestCase testCase : benchmark.getTestCases()) {
+            testCase.setClassPath(classPath);
+        }
+        return benchmark;
+    }
+
+    private void run(Benchmark benchmark, ClassLoader testClassLoader) throws MojoExecutionException {
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(testClassLoader);
+        try {
+            benchmark.run();
+        } catch (RuntimeException e) {
+            throw new MojoExecutionException("Benchmark failed", e);
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    private TestCase newTestCase(Class<? extends BenchmarkDriver> driver, String classPath) {
+        TestCase testCase = new TestCase();
+        String packageName = driver.getPackage() == null ? "" : driver.getPackage().getName();
+        testCase.setName(packageName.isEmpty() ? driver.getName() : driver.getName().substring(packageName.length() + 1));
+        testCase.setDriver(driver);
+        testCase.setFork(fork);
+        testCase.setJvmArgs(jvmArgs.toArray(new String[jvmArgs.size()]));
+        testCase.setClassPath(classPath);
+        testCase.setWarmupRunIterationCount(warmupIterations);
+        testCase.setAdaptiveWarmup(adaptiveWarmup);
+        testCase.setTestCaseIterationCount(iterations);
+        if (durationInMilliseconds > 0) {
+            testCase.setDurationInMilliseconds(durationInMilliseconds);
+        }
+        testCase.setThreadCount(threadCount);
+        if (operationCountPerThread > 0) {
+            testCase.setOperationCountPerThread(operationCountPerThread);
+        }
+        return testCase;
+    }
+
+    private ClassLoader newTestClassLoader() throws MojoExecutionException {
+        List<URL> urls = new ArrayList<URL>();
+        try {
+            for (String element : classpathElements) {
+                urls.add(new File(element).toURI().toURL());
+            }
+        } catch (MalformedURLException e) {
+            throw new MojoExecutionException("Invalid test class path " + classpathElements, e);
+        }
+        // BeachBench itself is loaded by the plugin, so the drivers extend the same BenchmarkDriver class.
+        return new URLClassLoader(urls.toArray(new URL[urls.size()]), getClass().getClassLoader());
+    }
+
+    /**
+     * The forked JVMs get the test class path of the project, followed by BeachBench itself.
+     */
+    private String forkClassPath() throws MojoExecutionException {
+        StringBuilder classPath = new StringBuilder();
+        for (String element : classpathElements) {
+            classPath.append(element).append(File.pathSeparator);
+        }
+        try {
+            classPath.append(new File(BenchmarkDriver.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath());
+        } catch (URISyntaxException e) {
+            throw new MojoExecutionException("Can't determine the location of BeachBench", e);
+        }
+        return classPath.toString();
+    }
+}
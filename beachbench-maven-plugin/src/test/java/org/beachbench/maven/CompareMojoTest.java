@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.maven;
+
+import org.apache.maven.plugin.logging.Log;
+import org.beachbench.store.BenchmarkComparison;
+import org.beachbench.store.BenchmarkRecord;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CompareMojoTest {
+
+    @Mock
+    private Log log;
+
+    @Test
+    public void testLog(){
+        BenchmarkRecord baseline = record("run1", new double[]{1000, 1010, 990, 1005, 995}, new double[]{10, 11, 10, 11, 10});
+        BenchmarkRecord slower = record("run2", new double[]{900, 910, 890, 905, 895}, new double[]{10, 11, 10, 10, 11});
+
+        CompareMojo.log(new BenchmarkComparison(baseline, slower, 0.05, 0), log);
+
+        verify(log).info("Comparing run [run2] with baseline [run1]");
+        verify(log).warn(startsWith("  REGRESSION"));
+        verify(log).info(contains(BenchmarkRecord.METRIC_DURATION));
+        verifyNoMoreInteractions(log);
+    }
+
+    private static BenchmarkRecord record(String id, double[] throughput, double[] duration) {
+        Map<String, double[]> metrics = new LinkedHashMap<String, double[]>();
+        metrics.put(BenchmarkRecord.METRIC_THROUGHPUT, throughput);
+        metrics.put(BenchmarkRecord.METRIC_DURATION, duration);
+        Map<String, Map<String, double[]>> testCases = new LinkedHashMap<String, Map<String, double[]>>();
+        testCases.put("get", metrics);
+        return new BenchmarkRecord(id, "benchmark", 0, testCases);
+    }
+}
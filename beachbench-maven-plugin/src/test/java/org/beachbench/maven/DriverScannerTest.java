@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.maven;
+
+import org.beachbench.BenchmarkDriver;
+import org.beachbench.TestCaseResult;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DriverScannerTest {
+
+    private final File testClasses = new File(DriverScannerTest.class.getProtectionDomain().getCodeSource().getLocation().getPath());
+
+    @Test
+    public void testScan() throws Exception {
+        DriverScanner scanner = new DriverScanner(getClass().getClassLoader(), Collections.<String>emptyList());
+
+        List<Class<? extends BenchmarkDriver>> drivers = scanner.scan(testClasses);
+
+        assertEquals(Arrays.<Class<?>>asList(PublicDriver.class, SecondDriver.class), drivers);
+    }
+
+    @Test
+    public void testIncludes() throws Exception {
+        DriverScanner scanner = new DriverScanner(getClass().getClassLoader(), Arrays.asList(".*Second.*"));
+
+        List<Class<? extends BenchmarkDriver>> drivers = scanner.scan(testClasses);
+
+        assertEquals(Arrays.<Class<?>>asList(SecondDriver.class), drivers);
+    }
+
+    @Test
+    public void testMissingDirectory() throws Exception {
+        DriverScanner scanner = new DriverScanner(getClass().getClassLoader(), Collections.<String>emptyList());
+
+        assertTrue(scanner.scan(new File(testClasses, "missing")).isEmpty());
+    }
+
+    @Test
+    public void testIsDriver(){
+        assertTrue(DriverScanner.isDriver(PublicDriver.class));
+        assertFalse(DriverScanner.isDriver(AbstractDriver.class));
+        assertFalse(DriverScanner.isDriver(PackagePrivateDriver.class));
+        assertFalse(DriverScanner.isDriver(InnerDriver.class));
+        assertFalse(DriverScanner.isDriver(NoDefaultConstructorDriver.class));
+        assertFalse(DriverScanner.isDriver(String.class));
+    }
+
+    public static class PublicDriver extends BenchmarkDriver {
+        @Override
+        public void run(TestCaseResult result) {
+        }
+    }
+
+    public static class SecondDriver extends PublicDriver {
+    }
+
+    public abstract static class AbstractDriver extends BenchmarkDriver {
+    }
+
+    static class PackagePrivateDriver extends PublicDriver {
+    }
+
+    public class InnerDriver extends PublicDriver {
+    }
+
+    public static class NoDefaultConstructorDriver extends PublicDriver {
+        public NoDefaultConstructorDriver(int value) {
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013 Emeka Mosanya
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beachbench.maven;
+
+import org.beachbench.store.BenchmarkRecord;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReportMojoTest {
+
+    @Test
+    public void testWrite(){
+        Map<String, double[]> metrics = new LinkedHashMap<String, double[]>();
+        metrics.put(BenchmarkRecord.METRIC_DURATION, new double[]{10, 20, 30});
+        metrics.put(BenchmarkRecord.METRIC_THROUGHPUT, new double[0]);
+        Map<String, Map<String, double[]>> testCases = new LinkedHashMap<String, Map<String, double[]>>();
+        testCases.put("read, write", metrics);
+        BenchmarkRecord record = new BenchmarkRecord("id", "benchmark", 0, testCases);
+
+        StringWriter report = new StringWriter();
+        PrintWriter out = new PrintWriter(report);
+        ReportMojo.write(record, out);
+        out.flush();
+
+        String[] lines = report.toString().split("\\r?\\n");
+        assertEquals(2, lines.length);
+        assertEquals(ReportMojo.HEADER, lines[0]);
+        assertEquals("\"read, write\",duration[ms],3,20.0,", lines[1].substring(0, lines[1].indexOf(",20.0,") + 6));
+    }
+}